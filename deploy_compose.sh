@@ -68,6 +68,13 @@ ssh -o StrictHostKeyChecking=no "$REMOTE_USER@$REMOTE_HOST" "
     cp .env.example .env
     echo '⚠️  未找到 .env，已从 .env.example 生成空白 .env。请尽快编辑填入 GHOSTLINK_*，再执行 docker compose restart ghostlink-backend。'
   fi
+  # 启用 gRPC 但没有 api-key 时后端拒绝启动（容器会反复重启），在启动前直接失败
+  grpc_enabled=\$(awk -F= -v key=GHOSTLINK_GRPC_ENABLED '\$1==key{print \$2}' .env 2>/dev/null | tr -d '\r')
+  grpc_key=\$(awk -F= -v key=GHOSTLINK_GRPC_API_KEY '\$1==key{print \$2}' .env 2>/dev/null | tr -d '\r')
+  if [ \"\$grpc_enabled\" = \"true\" ] && [ -z \"\$grpc_key\" ]; then
+    echo \"❌ 服务器 .env 中 GHOSTLINK_GRPC_ENABLED=true，但 GHOSTLINK_GRPC_API_KEY 为空。请在 $REMOTE_DIR/.env 中设置 api-key，或关闭 gRPC 后重新部署。\"
+    exit 1
+  fi
   docker compose up -d --build
 
   # 提示：OAuth 密钥为空会导致相关接口直接报错
@@ -85,8 +92,9 @@ ssh -o StrictHostKeyChecking=no "$REMOTE_USER@$REMOTE_HOST" "
 "
 
 echo "🏥 健康检查..."
-BACKEND_PORT="$(ssh -o StrictHostKeyChecking=no "$REMOTE_USER@$REMOTE_HOST" "cd '$REMOTE_DIR' && (set -a; . ./.env 2>/dev/null || true; set +a; echo \"\${GHOSTLINK_BACKEND_PORT:-8080}\")" | tr -d '\r')"
-HEALTH_URL="http://$REMOTE_HOST:${BACKEND_PORT}/actuator/health"
+# 后端只经 ghostlink-web 反向代理对外
+WEB_PORT="$(ssh -o StrictHostKeyChecking=no "$REMOTE_USER@$REMOTE_HOST" "cd '$REMOTE_DIR' && (set -a; . ./.env 2>/dev/null || true; set +a; echo \"\${GHOSTLINK_WEB_PORT:-80}\")" | tr -d '\r')"
+HEALTH_URL="http://$REMOTE_HOST:${WEB_PORT}/actuator/health"
 echo "检查：$HEALTH_URL"
 
 ok="0"
@@ -103,7 +111,7 @@ if [ "$ok" = "1" ]; then
   echo ""
 else
   echo "⚠️  公网健康检查失败。尝试在服务器本机检查..."
-  ssh -o StrictHostKeyChecking=no "$REMOTE_USER@$REMOTE_HOST" "curl -fsS \"http://127.0.0.1:8080/actuator/health\" || true; echo"
-  echo "⚠️  若服务器本机正常但公网不通，请检查云安全组/防火墙是否放行 ${BACKEND_PORT} 端口。"
+  ssh -o StrictHostKeyChecking=no "$REMOTE_USER@$REMOTE_HOST" "cd '$REMOTE_DIR' && docker compose exec -T ghostlink-backend wget -qO- http://127.0.0.1:8081/actuator/health || true; echo"
+  echo "⚠️  若服务器本机正常但公网不通，请检查云安全组/防火墙是否放行 ${WEB_PORT} 端口。"
 fi
 echo "✅ 部署完成。"
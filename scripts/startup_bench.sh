@@ -0,0 +1,75 @@
+#!/bin/bash
+# 启动耗时 / 首个请求延迟对比：普通 jar vs AOT + AppCDS vs GraalVM 原生镜像
+#
+# 用法：
+#   ./mvnw -Pfast-start clean package -DskipTests
+#   ./mvnw -Pnative native:compile -DskipTests   # 可选，需要 GraalVM
+#   ./scripts/startup_bench.sh [每种模式运行次数，默认 5]
+#
+# 指标：
+#   ready_ms  进程启动到 /actuator/health 返回 UP
+#   first_ms  就绪后第一个 POST /api/v1/receipt-data 的耗时
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${BENCH_PORT:-18080}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+
+JAR="$(ls "$ROOT"/target/ghostlink-*.jar 2>/dev/null | grep -v original | head -n 1 || true)"
+FAST_DIR="$ROOT/target/fast-start"
+NATIVE_BIN="$ROOT/target/ghostlink"
+
+now_ms() { date +%s%3N; }
+
+run_mode() {
+  local mode="$1"; shift
+  local ready_total=0 first_total=0
+  for i in $(seq 1 "$RUNS"); do
+    local start ready first pid
+    start="$(now_ms)"
+    "$@" --server.port="$PORT" \
+      --ghostlink.proofs.dir="$WORK/$mode-$i/proofs" \
+      --ghostlink.state.dir="$WORK/$mode-$i/state" \
+      > "$WORK/$mode-$i.log" 2>&1 &
+    pid=$!
+    until curl -fsS "http://127.0.0.1:$PORT/actuator/health" 2>/dev/null | grep -q UP; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+        echo "❌ $mode 启动失败，日志：" && tail -n 20 "$WORK/$mode-$i.log"
+        return 1
+      fi
+      sleep 0.02
+    done
+    ready=$(( $(now_ms) - start ))
+    start="$(now_ms)"
+    curl -fsS -X POST -H 'Content-Type: application/json' -d '{}' \
+      "http://127.0.0.1:$PORT/api/v1/receipt-data" > /dev/null
+    first=$(( $(now_ms) - start ))
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+    ready_total=$(( ready_total + ready ))
+    first_total=$(( first_total + first ))
+    printf "  %-10s run %d: ready=%5dms first=%4dms\n" "$mode" "$i" "$ready" "$first"
+  done
+  printf "%-10s avg: ready=%5dms first=%4dms\n\n" "$mode" $(( ready_total / RUNS )) $(( first_total / RUNS ))
+}
+
+if [ -n "$JAR" ]; then
+  run_mode jar java -jar "$JAR"
+else
+  echo "⚠️  未找到 target/ghostlink-*.jar，跳过 jar 模式"
+fi
+
+if [ -f "$FAST_DIR/application.jsa" ]; then
+  run_mode fast-start java -XX:SharedArchiveFile="$FAST_DIR/application.jsa" -Dspring.aot.enabled=true \
+    -jar "$(ls "$FAST_DIR"/ghostlink-*.jar | head -n 1)"
+else
+  echo "⚠️  未找到 $FAST_DIR/application.jsa，跳过 fast-start 模式（先执行 ./mvnw -Pfast-start package）"
+fi
+
+if [ -x "$NATIVE_BIN" ]; then
+  run_mode native "$NATIVE_BIN"
+else
+  echo "⚠️  未找到 $NATIVE_BIN，跳过 native 模式（先执行 ./mvnw -Pnative native:compile）"
+fi
@@ -0,0 +1,64 @@
+#!/bin/bash
+# 链路追踪开销：同一个 jar 分别在 tracing 关闭 / 开启（采样率 1.0 + OTLP/JSON 文件导出）下
+# 对 POST /api/v1/wallet/proof（ecrecover -> 校验 -> 证明 -> 历史记录，无外部依赖）发送 N 个请求，
+# 比较服务端 http.server.requests 的平均耗时和客户端 p50/p99。
+#
+# 用法：
+#   ./mvnw package -DskipTests
+#   ./scripts/tracing_overhead.sh [请求数，默认 2000]
+
+set -euo pipefail
+
+REQUESTS="${1:-2000}"
+PORT="${BENCH_PORT:-18081}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+
+JAR="$(ls "$ROOT"/target/ghostlink-*.jar 2>/dev/null | grep -v original | head -n 1 || true)"
+[ -n "$JAR" ] || { echo "❌ 未找到 target/ghostlink-*.jar"; exit 1; }
+
+# web3.js 文档中的 personal_sign 示例（私钥 0x4c0883a6...），recipient 每次不同以绕过结果缓存
+ADDRESS="0x2c7536e3605d9c16a7a3d7b1898e529396a65c23"
+SIGNATURE="0xb91467e570a6466aa9e9876cbcd013baba02900b8979d43fe208a4a4f339f5fd6007e74cd82e037b800186422fc2da167c747ef045e5d18a5f5d4300f8e1a0291c"
+
+run_mode() {
+  local mode="$1"; shift
+  java -jar "$JAR" --server.port="$PORT" \
+    --ghostlink.proofs.dir="$WORK/$mode/proofs" \
+    --ghostlink.warmup.iterations=50 \
+    --management.endpoints.web.exposure.include=health,metrics \
+    --logging.level.org.springframework.web=INFO \
+    "$@" > "$WORK/$mode.log" 2>&1 &
+  local pid=$!
+  until curl -fsS "http://127.0.0.1:$PORT/actuator/health/readiness" 2>/dev/null | grep -q UP; do
+    kill -0 "$pid" 2>/dev/null || { echo "❌ $mode 启动失败" && tail -n 20 "$WORK/$mode.log"; return 1; }
+    sleep 0.2
+  done
+
+  : > "$WORK/$mode.times"
+  for i in $(seq 1 "$REQUESTS"); do
+    recipient=$(printf '0x%040x' "$i")
+    curl -s -o /dev/null -w '%{time_total}\n' -X POST -H 'Content-Type: application/json' \
+      -d "{\"credential_type\":\"wallet\",\"recipient\":\"$recipient\",\"data\":{\"address\":\"$ADDRESS\",\"balance_wei\":\"1000000000000000000\",\"transaction_count\":42,\"chain_id\":11155111,\"signature\":\"$SIGNATURE\",\"message\":\"Some data\"}}" \
+      "http://127.0.0.1:$PORT/api/v1/wallet/proof" >> "$WORK/$mode.times"
+  done
+
+  local metric
+  metric=$(curl -fsS "http://127.0.0.1:$PORT/actuator/metrics/http.server.requests?tag=uri:/api/v1/wallet/proof")
+  kill "$pid" && wait "$pid" 2>/dev/null || true
+
+  python3 - "$mode" "$WORK/$mode.times" "$metric" <<'PY'
+import json, sys
+mode, path, metric = sys.argv[1], sys.argv[2], json.loads(sys.argv[3])
+times = sorted(float(t) * 1000 for t in open(path) if t.strip())
+stats = {m["statistic"]: m["value"] for m in metric["measurements"]}
+server_us = stats["TOTAL_TIME"] / stats["COUNT"] * 1e6
+pick = lambda p: times[min(len(times) - 1, int(p * len(times)))]
+print(f"{mode:<10} server_avg={server_us:8.1f}us  client_p50={pick(0.50):6.2f}ms  client_p99={pick(0.99):6.2f}ms  n={len(times)}")
+PY
+}
+
+run_mode off --management.tracing.enabled=false
+run_mode on --management.tracing.sampling.probability=1.0 --ghostlink.tracing.file="$WORK/traces.jsonl"
+echo "spans exported: $(python3 -c "import json,sys; print(sum(len(s['spans']) for l in open(sys.argv[1]) for r in json.loads(l)['resourceSpans'] for s in r['scopeSpans']))" "$WORK/traces.jsonl")"
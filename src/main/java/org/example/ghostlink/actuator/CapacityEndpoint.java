@@ -0,0 +1,48 @@
+package org.example.ghostlink.actuator;
+
+import org.example.ghostlink.service.ConcurrencyLimits;
+import org.example.ghostlink.service.LoadMonitor;
+import org.example.ghostlink.service.ProverRouter;
+import org.example.ghostlink.service.RateLimitScheduler;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/capacity：当前负载和剩余容量
+ */
+@Component
+@Endpoint(id = "capacity")
+public class CapacityEndpoint {
+
+    private final CapacityHealthIndicator healthIndicator;
+    private final LoadMonitor loadMonitor;
+    private final ProverRouter proverRouter;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final RateLimitScheduler rateLimitScheduler;
+
+    public CapacityEndpoint(CapacityHealthIndicator healthIndicator, LoadMonitor loadMonitor, ProverRouter proverRouter,
+                            ConcurrencyLimits concurrencyLimits, RateLimitScheduler rateLimitScheduler) {
+        this.healthIndicator = healthIndicator;
+        this.loadMonitor = loadMonitor;
+        this.proverRouter = proverRouter;
+        this.concurrencyLimits = concurrencyLimits;
+        this.rateLimitScheduler = rateLimitScheduler;
+    }
+
+    @ReadOperation
+    public Map<String, Object> capacity() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", healthIndicator.health().getStatus().getCode());
+        response.put("degradedRatio", loadMonitor.degradedRatio());
+        response.put("outOfRotationRatio", loadMonitor.outOfRotationRatio());
+        response.putAll(loadMonitor.snapshot());
+        response.put("provers", proverRouter.snapshot());
+        response.put("limits", concurrencyLimits.snapshot());
+        response.put("rateLimits", rateLimitScheduler.snapshot());
+        return response;
+    }
+}
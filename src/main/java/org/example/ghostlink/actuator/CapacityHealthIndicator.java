@@ -0,0 +1,39 @@
+package org.example.ghostlink.actuator;
+
+import org.example.ghostlink.service.LoadMonitor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * 饱和度健康检查（/actuator/health 中的 capacity）
+ * pressure < degraded-ratio: UP
+ * pressure < out-of-rotation-ratio: DEGRADED（仍返回 200，但编排器可以减少权重）
+ * 其他: OUT_OF_SERVICE（503，负载均衡摘除该实例）
+ */
+@Component("capacity")
+public class CapacityHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Approaching saturation");
+
+    private final LoadMonitor loadMonitor;
+
+    public CapacityHealthIndicator(LoadMonitor loadMonitor) {
+        this.loadMonitor = loadMonitor;
+    }
+
+    @Override
+    public Health health() {
+        double pressure = loadMonitor.pressure();
+        Health.Builder builder;
+        if (pressure >= loadMonitor.outOfRotationRatio()) {
+            builder = Health.outOfService();
+        } else if (pressure >= loadMonitor.degradedRatio()) {
+            builder = Health.status(DEGRADED);
+        } else {
+            builder = Health.up();
+        }
+        return builder.withDetails(loadMonitor.snapshot()).build();
+    }
+}
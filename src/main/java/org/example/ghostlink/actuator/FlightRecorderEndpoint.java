@@ -0,0 +1,210 @@
+package org.example.ghostlink.actuator;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * /actuator/jfr：按需启动有上限的 Java Flight Recorder 录制
+ * - POST   /actuator/jfr          {"duration": "60s", "settings": "profile"} 开始录制，到时自动停止并写文件
+ * - GET    /actuator/jfr          当前和最近的录制
+ * - DELETE /actuator/jfr/{id}     提前停止
+ * - GET    /actuator/jfr/{id}     下载 .jfr 文件（用 JDK Mission Control 打开）
+ * 同一时间只允许一个录制；时长和大小都有上限，目录里只保留最近若干个文件。
+ * 默认不通过 HTTP 暴露：需要时在不对外发布的管理端口上开启（见 application.properties）。
+ */
+@Component
+@Endpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+
+    /**
+     * 不录制的事件：环境变量和 -D 系统属性里有 API key、OAuth client secret 等
+     */
+    static final List<String> SENSITIVE_EVENTS = List.of("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty");
+
+    private final Path directory;
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private final int keepFiles;
+    private final Map<Long, Recording> recordings = new ConcurrentSkipListMap<>();
+
+    public FlightRecorderEndpoint(
+            @Value("${ghostlink.jfr.dir:${java.io.tmpdir}/ghostlink-jfr}") Path directory,
+            @Value("${ghostlink.jfr.default-duration:60s}") Duration defaultDuration,
+            @Value("${ghostlink.jfr.max-duration:10m}") Duration maxDuration,
+            @Value("${ghostlink.jfr.max-size-mb:256}") long maxSizeMb,
+            @Value("${ghostlink.jfr.keep-files:10}") int keepFiles
+    ) {
+        this.directory = directory;
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.keepFiles = keepFiles;
+    }
+
+    @ReadOperation
+    public Map<String, Object> recordings() {
+        List<Map<String, Object>> list = new ArrayList<>();
+        recordings.values().forEach(r -> list.add(describe(r)));
+        return Map.of("directory", directory.toAbsolutePath().toString(), "recordings", list);
+    }
+
+    /**
+     * @param duration 录制时长，默认 ghostlink.jfr.default-duration，不超过 ghostlink.jfr.max-duration
+     * @param settings JFR 预设：default（开销约 1%）或 profile（更细的分配/锁采样，开销约 2%）
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Duration duration, @Nullable String settings) {
+        cleanUp();
+        for (Recording recording : recordings.values()) {
+            if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+                return new WebEndpointResponse<>(Map.of("status", "error",
+                        "message", "Recording " + recording.getId() + " is already running"), 409);
+            }
+        }
+        Duration effective = duration != null ? duration : defaultDuration;
+        if (effective.isNegative() || effective.isZero() || effective.compareTo(maxDuration) > 0) {
+            return new WebEndpointResponse<>(Map.of("status", "error",
+                    "message", "duration must be between 1s and " + maxDuration), 400);
+        }
+        String preset = settings != null ? settings : "default";
+        if (!preset.equals("default") && !preset.equals("profile")) {
+            return new WebEndpointResponse<>(Map.of("status", "error",
+                    "message", "settings must be 'default' or 'profile'"), 400);
+        }
+
+        try {
+            Files.createDirectories(directory);
+            Recording recording = new Recording(Configuration.getConfiguration(preset));
+            // 两个预设都会记录启动时的环境变量和系统属性（可能含密钥），录制文件要能交给别人分析
+            SENSITIVE_EVENTS.forEach(recording::disable);
+            recording.setName("ghostlink-" + Instant.now().getEpochSecond() + "-" + recording.getId());
+            recording.setToDisk(true);
+            recording.setDuration(effective);
+            recording.setMaxSize(maxSizeBytes);
+            recording.setDestination(directory.resolve(recording.getName() + ".jfr"));
+            recording.start();
+            recordings.put(recording.getId(), recording);
+            System.out.println("JFR 录制开始 - Id: " + recording.getId() + ", Duration: " + effective + ", Settings: " + preset);
+            return new WebEndpointResponse<>(describe(recording), 200);
+        } catch (IOException | ParseException e) {
+            return new WebEndpointResponse<>(Map.of("status", "error", "message", String.valueOf(e.getMessage())), 500);
+        }
+    }
+
+    @DeleteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> stop(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(404);
+        }
+        if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+            // stop() 会把数据写到 destination
+            recording.stop();
+            System.out.println("JFR 录制提前停止 - Id: " + id);
+        }
+        cleanUp();
+        return new WebEndpointResponse<>(describe(recording), 200);
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Resource> download(@Selector long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null || recording.getDestination() == null) {
+            return new WebEndpointResponse<>(404);
+        }
+        if (recording.getState() != RecordingState.STOPPED && recording.getState() != RecordingState.CLOSED) {
+            return new WebEndpointResponse<>(409);
+        }
+        Path file = recording.getDestination();
+        return Files.exists(file) ? new WebEndpointResponse<>(new FileSystemResource(file), 200) : new WebEndpointResponse<>(404);
+    }
+
+    /**
+     * 停机时停止进行中的录制，已录到的数据仍写入文件
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        recordings.values().forEach(r -> {
+            if (r.getState() == RecordingState.RUNNING) {
+                r.stop();
+            }
+            r.close();
+        });
+    }
+
+    /**
+     * 关闭已停止的录制、只保留最近 keepFiles 个录制及其文件
+     */
+    private void cleanUp() {
+        recordings.values().forEach(r -> {
+            if (r.getState() == RecordingState.STOPPED) {
+                r.close();
+            }
+        });
+        while (recordings.size() > keepFiles) {
+            Recording oldest = recordings.remove(recordings.keySet().iterator().next());
+            oldest.close();
+        }
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> jfrFiles = files.filter(p -> p.getFileName().toString().endsWith(".jfr"))
+                    .sorted(Comparator.comparing(FlightRecorderEndpoint::lastModified).reversed())
+                    .toList();
+            for (Path old : jfrFiles.subList(Math.min(keepFiles, jfrFiles.size()), jfrFiles.size())) {
+                Files.deleteIfExists(old);
+            }
+        } catch (IOException e) {
+            System.out.println("清理 JFR 文件失败: " + e.getMessage());
+        }
+    }
+
+    private static Instant lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant();
+        } catch (IOException e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", recording.getId());
+        info.put("name", recording.getName());
+        info.put("state", recording.getState().name());
+        info.put("startTime", String.valueOf(recording.getStartTime()));
+        info.put("duration", String.valueOf(recording.getDuration()));
+        info.put("maxSizeBytes", recording.getMaxSize());
+        info.put("file", String.valueOf(recording.getDestination()));
+        return info;
+    }
+}
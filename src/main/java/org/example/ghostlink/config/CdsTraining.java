@@ -0,0 +1,64 @@
+package org.example.ghostlink.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.example.ghostlink.model.ProofRecord;
+import org.example.ghostlink.model.ZkProof;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * AppCDS 训练运行
+ * fast-start 构建时以 -Dghostlink.cds.training=true -Dspring.context.exit=onRefresh 启动一次，
+ * 在上下文刷新阶段主动走一遍 PDFBox 和 Jackson 的常用路径，让这些懒加载的类也进入 CDS 归档。
+ * 属性在运行时读取（而不是 @ConditionalOnProperty），这样 AOT 处理后的应用同样生效。
+ */
+@Component
+public class CdsTraining {
+
+    private final boolean enabled;
+
+    public CdsTraining(@Value("${ghostlink.cds.training:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void train() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        System.out.println("CDS training: loading PDFBox and Jackson classes...");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        ZkProof proof = ZkProof.fromHex("zk-train", true, 0L, "0x00", "0x00", "0x00", "0x00", null);
+        objectMapper.readValue(objectMapper.writeValueAsBytes(proof), ZkProof.class);
+        ProofRecord record = new ProofRecord("zk-train", "github", "0x0", "0x0", "0x0", "0x0", "0x0", 0L);
+        objectMapper.readValue(objectMapper.writeValueAsBytes(record), ProofRecord.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(72, 720);
+                content.showText("Total Assets 10,000.00");
+                content.endText();
+            }
+            document.save(out);
+        }
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            document.getSignatureDictionaries();
+            new PDFTextStripper().getText(document);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.ghostlink.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ghostlink.service.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 为 /api/** 的写请求绑定截止时间（见 {@link Deadline}）
+ * 客户端可以用 X-Request-Timeout 声明自己愿意等待多久（不超过 max-timeout），
+ * 未声明或格式错误时使用 ghostlink.deadline.default-timeout。
+ */
+@Component
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public DeadlineFilter(
+            @Value("${ghostlink.deadline.default-timeout:90s}") Duration defaultTimeout,
+            @Value("${ghostlink.deadline.max-timeout:120s}") Duration maxTimeout,
+            MeterRegistry meterRegistry
+    ) {
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !request.getRequestURI().startsWith("/api/")
+                || "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (Deadline.Scope ignored = Deadline.after(timeoutOf(request), meterRegistry).bind()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private Duration timeoutOf(HttpServletRequest request) {
+        String header = request.getHeader(Deadline.HEADER);
+        if (header == null || header.isBlank()) {
+            return defaultTimeout;
+        }
+        try {
+            Duration requested = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+            if (requested.isNegative()) {
+                return defaultTimeout;
+            }
+            return requested.compareTo(maxTimeout) > 0 ? maxTimeout : requested;
+        } catch (IllegalArgumentException e) {
+            return defaultTimeout;
+        }
+    }
+}
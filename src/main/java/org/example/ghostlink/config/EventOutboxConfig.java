@@ -0,0 +1,28 @@
+package org.example.ghostlink.config;
+
+import org.example.ghostlink.store.EventOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * 证明事件 outbox 配置
+ * 与证明历史日志一样，目录只允许一个进程写入；ghostlink.replica-dirs=true 时每个副本使用各自的子目录。
+ */
+@Configuration
+public class EventOutboxConfig {
+
+    @Bean(destroyMethod = "close")
+    public EventOutbox eventOutbox(
+            @Value("${ghostlink.webhooks.dir:./data/outbox}") String dir,
+            @Value("${ghostlink.webhooks.segment-size:16MB}") DataSize segmentSize,
+            @Value("${ghostlink.webhooks.max-backlog:1GB}") DataSize maxBacklog,
+            @Value("${ghostlink.replica-dirs:false}") boolean perReplica
+    ) {
+        return ReplicaDirectories.open(Path.of(dir), perReplica,
+                d -> new EventOutbox(d, segmentSize.toBytes(), maxBacklog.toBytes()));
+    }
+}
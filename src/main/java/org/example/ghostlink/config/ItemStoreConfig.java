@@ -0,0 +1,35 @@
+package org.example.ghostlink.config;
+
+import org.example.ghostlink.store.ItemStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * /api/v1/items 示例数据存储配置
+ * ghostlink.items.log-path 为空时仅保存在内存中
+ */
+@Configuration
+public class ItemStoreConfig {
+
+    @Bean(destroyMethod = "close")
+    public ItemStore itemStore(@Value("${ghostlink.items.log-path:}") String logPath) {
+        ItemStore store = new ItemStore(logPath.isBlank() ? null : Path.of(logPath));
+        if (store.isEmpty()) {
+            Map<String, Object> item1 = new HashMap<>();
+            item1.put("name", "示例项目1");
+            item1.put("description", "这是一个示例描述");
+            store.create(item1);
+
+            Map<String, Object> item2 = new HashMap<>();
+            item2.put("name", "示例项目2");
+            item2.put("description", "这是另一个示例描述");
+            store.create(item2);
+        }
+        return store;
+    }
+}
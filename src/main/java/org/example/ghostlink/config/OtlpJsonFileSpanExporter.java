@@ -0,0 +1,138 @@
+package org.example.ghostlink.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把 span 以 OTLP/JSON 格式逐批追加到本地文件
+ * 每行是一个完整的 ExportTraceServiceRequest，可直接用 OpenTelemetry Collector 的
+ * otlpjsonfile receiver 读取后转发到 Jaeger / Tempo，或用 jq 离线查看。
+ */
+public class OtlpJsonFileSpanExporter implements SpanExporter {
+
+    private final Path file;
+    private final String serviceName;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BufferedWriter writer;
+
+    public OtlpJsonFileSpanExporter(Path file, String serviceName) {
+        this.file = file;
+        this.serviceName = serviceName;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            if (writer == null) {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(objectMapper.writeValueAsString(toRequest(spans)));
+            writer.newLine();
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            System.out.println("Trace 文件写入失败: " + e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                return CompletableResultCode.ofFailure();
+            } finally {
+                writer = null;
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    private Map<String, Object> toRequest(Collection<SpanData> spans) {
+        // 按 instrumentation scope 分组
+        Map<String, List<Map<String, Object>>> byScope = new LinkedHashMap<>();
+        for (SpanData span : spans) {
+            byScope.computeIfAbsent(span.getInstrumentationScopeInfo().getName(), k -> new ArrayList<>()).add(toSpan(span));
+        }
+        List<Map<String, Object>> scopeSpans = new ArrayList<>();
+        byScope.forEach((scope, list) -> scopeSpans.add(Map.of("scope", Map.of("name", scope), "spans", list)));
+
+        Map<String, Object> resource = Map.of("attributes", List.of(attribute("service.name", serviceName)));
+        return Map.of("resourceSpans", List.of(Map.of("resource", resource, "scopeSpans", scopeSpans)));
+    }
+
+    private static Map<String, Object> toSpan(SpanData span) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("traceId", span.getTraceId());
+        out.put("spanId", span.getSpanId());
+        if (span.getParentSpanContext().isValid()) {
+            out.put("parentSpanId", span.getParentSpanId());
+        }
+        out.put("name", span.getName());
+        // OTLP SpanKind 枚举从 1（INTERNAL）开始
+        out.put("kind", span.getKind().ordinal() + 1);
+        out.put("startTimeUnixNano", String.valueOf(span.getStartEpochNanos()));
+        out.put("endTimeUnixNano", String.valueOf(span.getEndEpochNanos()));
+
+        List<Map<String, Object>> attributes = new ArrayList<>();
+        span.getAttributes().forEach((AttributeKey<?> key, Object value) -> attributes.add(attribute(key.getKey(), value)));
+        out.put("attributes", attributes);
+
+        if (!span.getEvents().isEmpty()) {
+            List<Map<String, Object>> events = new ArrayList<>();
+            span.getEvents().forEach(e -> events.add(Map.of(
+                    "name", e.getName(), "timeUnixNano", String.valueOf(e.getEpochNanos()))));
+            out.put("events", events);
+        }
+
+        StatusCode code = span.getStatus().getStatusCode();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("code", code == StatusCode.OK ? 1 : code == StatusCode.ERROR ? 2 : 0);
+        if (!span.getStatus().getDescription().isEmpty()) {
+            status.put("message", span.getStatus().getDescription());
+        }
+        out.put("status", status);
+        return out;
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> anyValue;
+        if (value instanceof Boolean b) {
+            anyValue = Map.of("boolValue", b);
+        } else if (value instanceof Long || value instanceof Integer) {
+            anyValue = Map.of("intValue", String.valueOf(value));
+        } else if (value instanceof Double d) {
+            anyValue = Map.of("doubleValue", d);
+        } else {
+            anyValue = Map.of("stringValue", String.valueOf(value));
+        }
+        return Map.of("key", key, "value", anyValue);
+    }
+}
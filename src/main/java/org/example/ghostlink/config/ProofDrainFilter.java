@@ -0,0 +1,55 @@
+package org.example.ghostlink.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.ghostlink.service.ProofDrainService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 停机排空期间拒绝新的写请求（/api/** 的非 GET 请求）
+ * 在 OAuth code 兑换 / PDF 上传之前就返回 503，一次性的 code 不会被消耗，前端或负载均衡可以直接重试到其他副本。
+ * 同时统计进行中的写请求，供 {@link ProofDrainService} 等待。
+ */
+@Component
+public class ProofDrainFilter extends OncePerRequestFilter {
+
+    private final ProofDrainService drainService;
+
+    public ProofDrainFilter(ProofDrainService drainService) {
+        this.drainService = drainService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !request.getRequestURI().startsWith("/api/")
+                || "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (drainService.isDraining()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "2");
+            response.setHeader(HttpHeaders.CONNECTION, "close");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"status\":\"error\",\"error_code\":\"SHUTTING_DOWN\","
+                    + "\"message\":\"Server is restarting, please retry\"}");
+            return;
+        }
+        drainService.requestStarted();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            drainService.requestFinished();
+        }
+    }
+}
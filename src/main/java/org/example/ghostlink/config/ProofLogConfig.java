@@ -0,0 +1,27 @@
+package org.example.ghostlink.config;
+
+import org.example.ghostlink.store.ProofLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * 证明历史日志配置
+ * 日志目录只允许一个进程写入；多副本部署时设置 ghostlink.replica-dirs=true，
+ * 每个副本在配置的目录下使用各自的子目录（见 {@link ReplicaDirectories}），历史按副本分开。
+ */
+@Configuration
+public class ProofLogConfig {
+
+    @Bean(destroyMethod = "close")
+    public ProofLog proofLog(
+            @Value("${ghostlink.proofs.dir:./data/proofs}") String dir,
+            @Value("${ghostlink.proofs.segment-size:64MB}") DataSize segmentSize,
+            @Value("${ghostlink.replica-dirs:false}") boolean perReplica
+    ) {
+        return ReplicaDirectories.open(Path.of(dir), perReplica, d -> new ProofLog(d, segmentSize.toBytes()));
+    }
+}
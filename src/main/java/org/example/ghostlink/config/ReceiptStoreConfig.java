@@ -0,0 +1,21 @@
+package org.example.ghostlink.config;
+
+import org.example.ghostlink.store.ReceiptBlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Receipt 存储配置
+ * 内容寻址、文件不可变，多副本可以挂载同一个目录。
+ */
+@Configuration
+public class ReceiptStoreConfig {
+
+    @Bean
+    public ReceiptBlobStore receiptBlobStore(@Value("${ghostlink.receipts.dir:./data/receipts}") String dir) {
+        return new ReceiptBlobStore(Path.of(dir));
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.ghostlink.config;
+
+import java.nio.file.Path;
+import java.util.function.Function;
+
+/**
+ * 单进程写入的数据目录（证明历史日志、事件 outbox）在多副本部署中的分配
+ * ghostlink.replica-dirs=true 时在配置的目录下依次尝试 replica-0、replica-1 …，使用第一个没有被其它进程锁定的子目录。
+ * 所有副本可以挂载同一个卷；副本重启或被替换后重新拿到空出来的子目录，已有的历史和未投递的事件不会成为孤儿。
+ * 每个子目录只属于一个副本，因此证明历史按副本分开（/api/v1/proofs 只返回处理该请求的副本记录的证明）。
+ */
+final class ReplicaDirectories {
+
+    static final int MAX_REPLICAS = 64;
+
+    private ReplicaDirectories() {
+    }
+
+    /**
+     * @param opener 打开目录；目录已被其它进程锁定时抛出 IllegalStateException
+     */
+    static <T> T open(Path base, boolean perReplica, Function<Path, T> opener) {
+        if (!perReplica) {
+            return opener.apply(base);
+        }
+        for (int i = 0; i < MAX_REPLICAS; i++) {
+            Path dir = base.resolve("replica-" + i);
+            try {
+                T opened = opener.apply(dir);
+                System.out.println("使用副本数据目录: " + dir);
+                return opened;
+            } catch (IllegalStateException e) {
+                // 已被其它副本使用
+            }
+        }
+        throw new IllegalStateException("All " + MAX_REPLICAS + " replica directories under " + base + " are in use");
+    }
+}
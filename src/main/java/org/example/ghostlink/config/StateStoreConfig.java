@@ -0,0 +1,35 @@
+package org.example.ghostlink.config;
+
+import org.example.ghostlink.store.FileStateStore;
+import org.example.ghostlink.store.InMemoryStateStore;
+import org.example.ghostlink.store.StateStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * 状态存储配置
+ * ghostlink.state.store=memory（默认，单副本）| file（多副本共享目录）
+ */
+@Configuration
+public class StateStoreConfig {
+
+    @Bean
+    public StateStore stateStore(
+            @Value("${ghostlink.state.store:memory}") String type,
+            @Value("${ghostlink.state.dir:./data/state}") String dir,
+            @Value("${ghostlink.state.max-entries:100000}") int maxEntries
+    ) {
+        switch (type.toLowerCase()) {
+            case "file":
+                System.out.println("StateStore: file (" + Path.of(dir).toAbsolutePath() + ")");
+                return new FileStateStore(Path.of(dir), maxEntries);
+            case "memory":
+                return new InMemoryStateStore(maxEntries);
+            default:
+                throw new IllegalArgumentException("Unsupported ghostlink.state.store: " + type);
+        }
+    }
+}
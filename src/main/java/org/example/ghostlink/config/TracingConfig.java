@@ -0,0 +1,48 @@
+package org.example.ghostlink.config;
+
+import io.micrometer.observation.ObservationPredicate;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.example.ghostlink.service.WarmupService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+import java.nio.file.Path;
+
+/**
+ * 链路追踪配置
+ * Span 由 Micrometer Observation 产生、经 OpenTelemetry SDK 导出：
+ * - management.otlp.tracing.endpoint 设置后通过 OTLP/HTTP 发往 Collector（Spring Boot 自动配置）
+ * - ghostlink.tracing.file 设置后同时写入本地 OTLP/JSON 文件，便于离线查看
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnExpression("!'${ghostlink.tracing.file:}'.isBlank()")
+    public SpanExporter otlpJsonFileSpanExporter(
+            @Value("${ghostlink.tracing.file}") String file,
+            @Value("${spring.application.name:ghostlink}") String serviceName
+    ) {
+        System.out.println("Tracing: OTLP/JSON file exporter (" + Path.of(file).toAbsolutePath() + ")");
+        return new OtlpJsonFileSpanExporter(Path.of(file), serviceName);
+    }
+
+    /**
+     * 启动预热反复执行的业务路径和探针（/actuator/**）不产生 span，避免淹没真实请求
+     */
+    @Bean
+    public ObservationPredicate skipWarmupAndProbeObservations() {
+        return (name, context) -> {
+            if (WarmupService.isWarmupThread()) {
+                return false;
+            }
+            if (context instanceof ServerRequestObservationContext server) {
+                return !server.getCarrier().getRequestURI().startsWith("/actuator");
+            }
+            return true;
+        };
+    }
+}
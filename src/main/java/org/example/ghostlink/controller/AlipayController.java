@@ -2,13 +2,22 @@ package org.example.ghostlink.controller;
 
 import org.example.ghostlink.model.ZkProof;
 import org.example.ghostlink.service.AlipayService;
+import org.example.ghostlink.service.ConcurrencyLimitExceededException;
+import org.example.ghostlink.service.DeadlineExceededException;
+import org.example.ghostlink.service.IdempotencyService;
+import org.example.ghostlink.service.PdfProcessingException;
+import org.example.ghostlink.service.ProofErrorResponses;
+import org.example.ghostlink.service.ProofRequestRejectedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 
 @RestController
@@ -19,23 +28,41 @@ public class AlipayController {
     @Autowired
     private AlipayService alipayService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping("/upload/alipay")
     public ResponseEntity<?> uploadAssetProof(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestParam("file") MultipartFile file,
             @RequestParam(value = "recipient", required = false) String recipient,
-            @RequestParam(value = "threshold", required = false) String threshold) {
-        try {
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest().body("Please select a file to upload");
-            }
+            @RequestParam(value = "threshold", required = false) String threshold) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("Please select a file to upload");
+        }
+        // 只读取一次上传内容（最大 10 MB）：指纹和校验共用同一份
+        byte[] pdf = file.getBytes();
+        String fingerprint = null;
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            Map<String, Object> request = new HashMap<>();
+            request.put("file_sha256", HexFormat.of().formatHex(sha256(pdf)));
+            request.put("recipient", recipient);
+            request.put("threshold", threshold);
+            fingerprint = IdempotencyService.fingerprint(request);
+        }
+        return idempotencyService.execute("alipay-upload", idempotencyKey, fingerprint,
+                () -> handleUpload(pdf, recipient, threshold));
+    }
 
+    private ResponseEntity<?> handleUpload(byte[] pdf, String recipient, String threshold) {
+        try {
             // Check if we should only verify or verify and generate proof
             // Default to true if recipient is provided, false otherwise (or checks explicit param)
             boolean generateProof = recipient != null && !recipient.isEmpty();
 
             if (!generateProof) {
                 // Only verify and extract data
-                Map<String, String> results = alipayService.verifyAndExtractBalance(file);
+                Map<String, String> results = alipayService.verifyAndExtractBalance(pdf);
                 
                 Map<String, Object> response = new HashMap<>();
                 response.put("status", "success");
@@ -49,7 +76,7 @@ public class AlipayController {
             }
 
             // 验证、提取数据并生成 ZK 证明
-            ZkProof zkProof = alipayService.verifyAndGenerateProof(file, recipient, threshold);
+            ZkProof zkProof = alipayService.verifyAndGenerateProof(pdf, recipient, threshold);
 
             // 返回成功响应，包含 ZK 证明数据
             Map<String, Object> response = new HashMap<>();
@@ -59,14 +86,17 @@ public class AlipayController {
             
             // 添加 ZK 证明数据
             if (zkProof.isVerified()) {
-                response.put("zkProof", Map.of(
-                    "proofId", zkProof.getProofId(),
-                    "receipt", zkProof.getReceipt(),
-                    "journal", zkProof.getJournal(),
-                    "imageId", zkProof.getImageId(),
-                    "nullifier", zkProof.getNullifier(),
-                    "timestamp", zkProof.getTimestamp()
-                ));
+                // 较大的 receipt 不内联（receipt 为 null），通过 receiptUrl 下载
+                Map<String, Object> proof = new HashMap<>();
+                proof.put("proofId", zkProof.getProofId());
+                proof.put("receipt", zkProof.getReceipt());
+                proof.put("receiptDigest", zkProof.getReceiptDigest());
+                proof.put("receiptUrl", zkProof.getReceiptUrl());
+                proof.put("journal", zkProof.getJournal());
+                proof.put("imageId", zkProof.getImageId());
+                proof.put("nullifier", zkProof.getNullifier());
+                proof.put("timestamp", zkProof.getTimestamp());
+                response.put("zkProof", proof);
                 response.put("message", "Asset Proof Verified and ZK Proof Generated Successfully");
             } else {
                 response.put("message", "Asset Proof Verified but ZK Proof Generation Failed");
@@ -74,6 +104,14 @@ public class AlipayController {
 
             return ResponseEntity.ok(response);
 
+        } catch (ProofRequestRejectedException | ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            return ProofErrorResponses.of(e, ProofErrorResponses::errorBody);
+        } catch (PdfProcessingException e) {
+            ResponseEntity.BodyBuilder builder = ResponseEntity.status(e.getReason().status());
+            if (e.getReason() == PdfProcessingException.Reason.BUSY) {
+                builder.header("Retry-After", "2");
+            }
+            return builder.body(Map.of("status", "error", "error_code", "PDF_" + e.getReason().name(), "message", e.getMessage()));
         } catch (SecurityException e) {
             return ResponseEntity.status(403).body(Map.of("status", "error", "message", e.getMessage()));
         } catch (IOException e) {
@@ -82,4 +120,12 @@ public class AlipayController {
             return ResponseEntity.status(400).body(Map.of("status", "error", "message", e.getMessage()));
         }
     }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -1,12 +1,18 @@
 package org.example.ghostlink.controller;
 
 import org.example.ghostlink.model.AuthResponse;
+import org.example.ghostlink.service.ConcurrencyLimitExceededException;
+import org.example.ghostlink.service.DeadlineExceededException;
 import org.example.ghostlink.service.GithubAuthService;
+import org.example.ghostlink.service.IdempotencyService;
+import org.example.ghostlink.service.ProofErrorResponses;
+import org.example.ghostlink.service.ProofRequestRejectedException;
 import org.example.ghostlink.service.TwitterAuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -16,33 +22,66 @@ public class AuthController {
 
     private final GithubAuthService githubAuthService;
     private final TwitterAuthService twitterAuthService;
+    private final IdempotencyService idempotencyService;
 
     @Autowired
-    public AuthController(GithubAuthService githubAuthService, TwitterAuthService twitterAuthService) {
+    public AuthController(GithubAuthService githubAuthService, TwitterAuthService twitterAuthService,
+                          IdempotencyService idempotencyService) {
         this.githubAuthService = githubAuthService;
         this.twitterAuthService = twitterAuthService;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/github/callback")
-    public ResponseEntity<AuthResponse> githubCallback(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> githubCallback(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, String> payload) {
         String code = payload.get("code");
         String recipient = payload.get("recipient"); // 获取前端传递的 recipient
         String redirectUri = payload.get("redirectUri");
         
-        AuthResponse response = githubAuthService.authenticateWithCode(code, recipient, redirectUri);
-        if (response.getError() != null) return ResponseEntity.status(401).body(response);
-        return ResponseEntity.ok(response);
+        return idempotencyService.execute(IdempotencyService.GITHUB_CALLBACK, keyOf(idempotencyKey, code), fingerprint(payload), () -> {
+            AuthResponse response;
+            try {
+                response = githubAuthService.authenticateWithCode(code, recipient, redirectUri);
+            } catch (ProofRequestRejectedException | ConcurrencyLimitExceededException | DeadlineExceededException e) {
+                return ProofErrorResponses.of(e, AuthResponse::new);
+            }
+            return ResponseEntity.status(response.httpStatus()).body(response);
+        });
     }
 
     @PostMapping("/twitter/callback")
-    public ResponseEntity<AuthResponse> twitterCallback(@RequestBody Map<String, String> payload) {
+    public ResponseEntity<?> twitterCallback(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, String> payload) {
         String code = payload.get("code");
         String redirectUri = payload.get("redirectUri");
         String codeVerifier = payload.get("codeVerifier");
         String recipient = payload.get("recipient"); // 获取前端传递的 recipient
         
-        AuthResponse response = twitterAuthService.authenticateWithCode(code, redirectUri, codeVerifier, recipient);
-        if (response.getError() != null) return ResponseEntity.status(401).body(response);
-        return ResponseEntity.ok(response);
+        return idempotencyService.execute(IdempotencyService.TWITTER_CALLBACK, keyOf(idempotencyKey, code), fingerprint(payload), () -> {
+            AuthResponse response;
+            try {
+                response = twitterAuthService.authenticateWithCode(code, redirectUri, codeVerifier, recipient);
+            } catch (ProofRequestRejectedException | ConcurrencyLimitExceededException | DeadlineExceededException e) {
+                return ProofErrorResponses.of(e, AuthResponse::new);
+            }
+            return ResponseEntity.status(response.httpStatus()).body(response);
+        });
+    }
+
+    /**
+     * 未显式传 Idempotency-Key 时用授权码本身作为键：授权码只能使用一次，重试必然是同一次登录
+     */
+    private static String keyOf(String idempotencyKey, String code) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            return idempotencyKey;
+        }
+        return IdempotencyService.codeKey(code);
+    }
+
+    private static String fingerprint(Map<String, String> payload) {
+        return IdempotencyService.fingerprint(new HashMap<>(payload));
     }
 }
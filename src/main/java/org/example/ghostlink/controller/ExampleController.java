@@ -1,14 +1,19 @@
 package org.example.ghostlink.controller;
 
+import org.springframework.boot.actuate.health.Status;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.security.SecureRandom;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
+import org.example.ghostlink.actuator.CapacityHealthIndicator;
+import org.example.ghostlink.service.ConcurrencyLimitExceededException;
+import org.example.ghostlink.service.DeadlineExceededException;
+import org.example.ghostlink.service.ProofErrorResponses;
+import org.example.ghostlink.service.ProofRequestRejectedException;
 import org.example.ghostlink.service.ZkProofService;
+import org.example.ghostlink.store.ItemStore;
 import org.springframework.beans.factory.annotation.Autowired;
 
 @RestController
@@ -16,61 +21,47 @@ import org.springframework.beans.factory.annotation.Autowired;
 @CrossOrigin(originPatterns = "*")
 public class ExampleController {
 
-    // 用于生成随机数据
-    private static final SecureRandom random = new SecureRandom();
+    // 单页最大条数
+    private static final int MAX_PAGE_SIZE = 1000;
 
     // 示例数据存储（实际应用中应使用数据库）
-    private static List<Map<String, Object>> sampleData = new ArrayList<>();
+    @Autowired
+    private ItemStore itemStore;
 
     @Autowired
     private ZkProofService zkProofService;
 
-    static {
-        Map<String, Object> item1 = new HashMap<>();
-        item1.put("id", 1);
-        item1.put("name", "示例项目1");
-        item1.put("description", "这是一个示例描述");
-        sampleData.add(item1);
-
-        Map<String, Object> item2 = new HashMap<>();
-        item2.put("id", 2);
-        item2.put("name", "示例项目2");
-        item2.put("description", "这是另一个示例描述");
-        sampleData.add(item2);
-    }
+    @Autowired
+    private CapacityHealthIndicator capacityHealthIndicator;
 
-    // GET 请求：获取所有项目
+    // GET 请求：获取所有项目（游标分页，下一页游标通过 X-Next-Cursor 响应头返回）
     @GetMapping("/items")
-    public ResponseEntity<List<Map<String, Object>>> getAllItems() {
-        return ResponseEntity.ok(sampleData);
+    public ResponseEntity<List<Map<String, Object>>> getAllItems(
+            @RequestParam(value = "cursor", required = false) Integer cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Map<String, Object>> page = itemStore.page(cursor, pageSize);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.size() == pageSize) {
+            builder.header("X-Next-Cursor", String.valueOf(page.get(page.size() - 1).get("id")));
+        }
+        return builder.body(page);
     }
 
     // GET 请求：根据ID获取单个项目
     @GetMapping("/items/{id}")
     public ResponseEntity<Map<String, Object>> getItemById(@PathVariable Integer id) {
-        Map<String, Object> item = sampleData.stream()
-                .filter(i -> i.get("id").equals(id))
-                .findFirst()
-                .orElse(null);
-
-        if (item != null) {
-            return ResponseEntity.ok(item);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        return itemStore.get(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     // POST 请求：创建新项目
     @PostMapping("/items")
     public ResponseEntity<Map<String, Object>> createItem(@RequestBody Map<String, Object> newItem) {
         // 在实际应用中，这里应该验证输入数据
-        int newId = sampleData.size() > 0 ? 
-            sampleData.stream().mapToInt(i -> (Integer) i.get("id")).max().orElse(0) + 1 : 1;
-        
-        newItem.put("id", newId);
-        sampleData.add(newItem);
-        
-        return ResponseEntity.ok(newItem);
+        return ResponseEntity.ok(itemStore.create(newItem));
     }
 
     // PUT 请求：更新现有项目
@@ -78,39 +69,33 @@ public class ExampleController {
     public ResponseEntity<Map<String, Object>> updateItem(
             @PathVariable Integer id, 
             @RequestBody Map<String, Object> updatedItem) {
-        
-        for (int i = 0; i < sampleData.size(); i++) {
-            Map<String, Object> item = sampleData.get(i);
-            if (item.get("id").equals(id)) {
-                updatedItem.put("id", id); // 确保ID保持不变
-                sampleData.set(i, updatedItem);
-                return ResponseEntity.ok(updatedItem);
-            }
-        }
-        
-        return ResponseEntity.notFound().build();
+        return itemStore.update(id, updatedItem)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     // DELETE 请求：删除项目
     @DeleteMapping("/items/{id}")
     public ResponseEntity<Void> deleteItem(@PathVariable Integer id) {
-        boolean removed = sampleData.removeIf(item -> item.get("id").equals(id));
-        
-        if (removed) {
+        if (itemStore.delete(id)) {
             return ResponseEntity.ok().build();
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
-    // 健康检查端点
+    // 健康检查端点（反映饱和度：UP / DEGRADED / OUT_OF_SERVICE）
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> healthCheck() {
+        Status status = capacityHealthIndicator.health().getStatus();
         Map<String, String> response = new HashMap<>();
-        response.put("status", "UP");
-        response.put("message", "服务运行正常");
+        response.put("status", status.getCode());
+        response.put("message", Status.UP.equals(status) ? "服务运行正常" : "服务接近饱和");
         response.put("application", "ghostlink");
-        
+
+        if (Status.OUT_OF_SERVICE.equals(status)) {
+            return ResponseEntity.status(503).body(response);
+        }
         return ResponseEntity.ok(response);
     }
     
@@ -125,14 +110,25 @@ public class ExampleController {
     }
     
     /**
-     * 返回固定格式但内容每次请求都不同的数据
-     */
-    /**
-     * 返回固定格式但内容每次请求都不同的数据
+     * 证明数据接口
+     * 带 credential_type 的请求（前端支付宝流程）走完整的证明流程：校验、去重、journal 校验、receipt 外置，
+     * 响应带 receipt_digest，大的 receipt 不内联，通过 /api/v1/receipts/{digest} 下载；
+     * 其它请求（示例、启动基准）返回固定格式但内容每次请求都不同的数据
      */
     @PostMapping("/receipt-data")
-    public ResponseEntity<Map<String, String>> getReceiptData(@RequestBody(required = false) Map<String, Object> requestData) {
-        Map<String, String> response = zkProofService.generateMockProof(requestData);
+    public ResponseEntity<?> getReceiptData(@RequestBody(required = false) Map<String, Object> requestData) {
+        if (requestData == null || requestData.get("credential_type") == null) {
+            return ResponseEntity.ok(zkProofService.generateMockProof(requestData));
+        }
+        Map<String, String> response;
+        try {
+            response = zkProofService.prove(requestData);
+        } catch (ProofRequestRejectedException | ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            return ProofErrorResponses.of(e, ProofErrorResponses::errorBody);
+        }
+        if (!"success".equals(response.get("status"))) {
+            return ResponseEntity.status(500).body(response);
+        }
         return ResponseEntity.ok(response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package org.example.ghostlink.controller;
+
+import org.example.ghostlink.model.ProofRecord;
+import org.example.ghostlink.service.JournalVerifier;
+import org.example.ghostlink.service.ProofHistoryService;
+import org.example.ghostlink.service.ZkProofService;
+import org.example.ghostlink.store.ProofLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/proofs")
+@CrossOrigin(originPatterns = "*")
+public class ProofHistoryController {
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_AUDIT_BATCH = 500;
+
+    @Autowired
+    private ProofHistoryService proofHistoryService;
+
+    @Autowired
+    private JournalVerifier journalVerifier;
+
+    @Autowired
+    private ZkProofService zkProofService;
+
+    // 按钱包地址查询证明历史（最新在前）
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> history(
+            @RequestParam("recipient") String recipient,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        ProofLog.Page page;
+        try {
+            page = proofHistoryService.history(recipient, cursor, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        } catch (ProofLog.InvalidCursorException e) {
+            return invalidCursor(e);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("recipient", recipient);
+        response.put("proofs", page.records());
+        response.put("nextCursor", page.nextCursor());
+        return ResponseEntity.ok(response);
+    }
+
+    // 按 job_id 查询证明任务状态（任意副本都能查到：running / success）
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> job(@PathVariable String jobId) {
+        if (!jobId.matches("[0-9a-f]{64}")) {
+            return ResponseEntity.badRequest().build();
+        }
+        return zkProofService.job(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // 按 nullifier 查询
+    @GetMapping("/nullifier/{nullifier}")
+    public ResponseEntity<ProofRecord> byNullifier(@PathVariable String nullifier) {
+        return proofHistoryService.findByNullifier(nullifier)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // 审计某个地址已保存的证明：journal 结构、recipient、nullifier、credType、Image ID 是否与合约一致
+    @GetMapping("/audit")
+    public ResponseEntity<Map<String, Object>> audit(
+            @RequestParam("recipient") String recipient,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        ProofLog.Page page;
+        try {
+            page = proofHistoryService.history(recipient, cursor, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        } catch (ProofLog.InvalidCursorException e) {
+            return invalidCursor(e);
+        }
+
+        Map<String, Object> response = audit(page.records());
+        response.put("recipient", recipient);
+        response.put("nextCursor", page.nextCursor());
+        return ResponseEntity.ok(response);
+    }
+
+    // 批量校验任意证明（字段与历史记录相同：credentialType, recipient, nullifier, journal, imageId）
+    @PostMapping("/verify-batch")
+    public ResponseEntity<Map<String, Object>> verifyBatch(@RequestBody List<ProofRecord> proofs) {
+        if (proofs.size() > MAX_AUDIT_BATCH) {
+            return ResponseEntity.badRequest().body(Map.of("status", "error", "message", "Batch too large, max " + MAX_AUDIT_BATCH));
+        }
+        return ResponseEntity.ok(audit(proofs));
+    }
+
+    private static ResponseEntity<Map<String, Object>> invalidCursor(ProofLog.InvalidCursorException e) {
+        return ResponseEntity.badRequest().body(Map.of("status", "error", "error_code", "INVALID_CURSOR", "message", e.getMessage()));
+    }
+
+    private Map<String, Object> audit(List<ProofRecord> proofs) {
+        List<Map<String, Object>> results = new ArrayList<>(proofs.size());
+        int invalid = 0;
+        for (ProofRecord proof : proofs) {
+            JournalVerifier.Result result = journalVerifier.verify(proof.credentialType(), proof.recipient(),
+                    proof.nullifier(), proof.journal(), proof.imageId());
+            if (!result.valid()) {
+                invalid++;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("proofId", proof.proofId());
+            item.put("valid", result.valid());
+            item.put("journalHash", result.journalHash());
+            item.put("problems", result.problems());
+            results.add(item);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("checked", proofs.size());
+        response.put("invalid", invalid);
+        response.put("results", results);
+        return response;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.ghostlink.controller;
+
+import org.example.ghostlink.model.CredentialResult;
+import org.example.ghostlink.service.SessionProofService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 会话证明接口：一次提交多个凭证，并发生成证明
+ * 各凭证的结果独立返回，整体 status 为 success（全部成功）、partial（部分成功）或 error（全部失败）
+ */
+@RestController
+@RequestMapping("/api/v1/session")
+@CrossOrigin(originPatterns = "*")
+public class SessionController {
+
+    @Autowired
+    private SessionProofService sessionProofService;
+
+    /**
+     * 不含支付宝 PDF 的会话：
+     * { "recipient": "0x...", "github": {...}, "twitter": {...}, "wallet": { "data": {...} } }
+     */
+    @PostMapping(value = "/proofs", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> prove(@RequestBody Map<String, Object> session) {
+        return handle(session, null);
+    }
+
+    /**
+     * 带支付宝 PDF 的会话：session 部分为上面的 JSON（可带 "alipay": { "threshold": "..." }），alipay_file 为 PDF
+     */
+    @PostMapping(value = "/proofs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> proveWithFile(
+            @RequestPart("session") Map<String, Object> session,
+            @RequestPart(value = "alipay_file", required = false) MultipartFile alipayFile) {
+        return handle(session, alipayFile);
+    }
+
+    private ResponseEntity<?> handle(Map<String, Object> session, MultipartFile alipayFile) {
+        Map<String, CredentialResult> results;
+        try {
+            results = sessionProofService.prove(session, alipayFile);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "error_code", "INVALID_DATA", "message", String.valueOf(e.getMessage())));
+        }
+
+        long succeeded = results.values().stream().filter(CredentialResult::isSuccess).count();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", succeeded == results.size() ? "success" : succeeded > 0 ? "partial" : "error");
+        response.put("recipient", session.get("recipient"));
+        response.put("credentials", results);
+        return ResponseEntity.ok(response);
+    }
+}
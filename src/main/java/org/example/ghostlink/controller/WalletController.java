@@ -0,0 +1,95 @@
+package org.example.ghostlink.controller;
+
+import org.example.ghostlink.crypto.EthSignatures;
+import org.example.ghostlink.model.ZkProof;
+import org.example.ghostlink.service.ConcurrencyLimitExceededException;
+import org.example.ghostlink.service.DeadlineExceededException;
+import org.example.ghostlink.service.ProofErrorResponses;
+import org.example.ghostlink.service.ProofRequestRejectedException;
+import org.example.ghostlink.service.WalletService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 钱包凭证接口
+ */
+@RestController
+@RequestMapping("/api/v1/wallet")
+@CrossOrigin(originPatterns = "*")
+public class WalletController {
+
+    private static final int MAX_BATCH = 256;
+
+    @Autowired
+    private WalletService walletService;
+
+    /**
+     * 钱包凭证证明，请求体与 risc_zero_spec.md 的统一请求格式一致：
+     * { "credential_type": "wallet", "data": {...}, "recipient": "0x..." }
+     */
+    @PostMapping("/proof")
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<?> proveWallet(@RequestBody Map<String, Object> request) {
+        try {
+            Object data = request.get("data");
+            ZkProof zkProof = walletService.verifyAndGenerateProof(
+                    data instanceof Map ? (Map<String, Object>) data : null,
+                    (String) request.get("recipient"));
+            if (!zkProof.isVerified()) {
+                return ResponseEntity.status(500).body(Map.of("status", "error", "message", "ZK Proof Generation Failed"));
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("proofId", zkProof.getProofId());
+            response.put("receipt", zkProof.getReceipt());
+            response.put("receiptDigest", zkProof.getReceiptDigest());
+            response.put("receiptUrl", zkProof.getReceiptUrl());
+            response.put("journal", zkProof.getJournal());
+            response.put("imageId", zkProof.getImageId());
+            response.put("nullifier", zkProof.getNullifier());
+            response.put("timestamp", zkProof.getTimestamp());
+            return ResponseEntity.ok(response);
+        } catch (ProofRequestRejectedException | ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            return ProofErrorResponses.of(e, ProofErrorResponses::errorBody);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(403).body(Map.of("status", "error", "error_code", "INVALID_DATA", "message", e.getMessage()));
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "error_code", "INVALID_DATA", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * 批量签名预校验（不生成证明）
+     * 请求体：[{ "address": "0x...", "message": "...", "signature": "0x..." }, ...]
+     */
+    @PostMapping("/verify-batch")
+    public ResponseEntity<?> verifyBatch(@RequestBody List<EthSignatures.SignedMessage> messages) {
+        if (messages.size() > MAX_BATCH) {
+            return ResponseEntity.status(400).body(Map.of("status", "error", "message", "Batch too large, max " + MAX_BATCH));
+        }
+        long start = System.nanoTime();
+        boolean[] valid = walletService.verifyBatch(messages);
+        long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+        List<Map<String, Object>> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < valid.length; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("address", messages.get(i).address());
+            item.put("valid", valid[i]);
+            results.add(item);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "success");
+        response.put("results", results);
+        response.put("elapsed_us", elapsedMicros);
+        return ResponseEntity.ok(response);
+    }
+}
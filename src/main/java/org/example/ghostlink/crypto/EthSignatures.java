@@ -0,0 +1,125 @@
+package org.example.ghostlink.crypto;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 以太坊 personal_sign（EIP-191）签名校验，等价于合约里的 ecrecover(message, signature) == address
+ */
+public final class EthSignatures {
+
+    private static final String PERSONAL_PREFIX = "\u0019Ethereum Signed Message:\n";
+
+    private EthSignatures() {
+    }
+
+    /**
+     * 一条待校验的钱包签名
+     */
+    public record SignedMessage(String address, String message, String signature) {
+    }
+
+    /**
+     * keccak256("\x19Ethereum Signed Message:\n" + len(message) + message)
+     */
+    public static byte[] personalMessageHash(String message) {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = (PERSONAL_PREFIX + body.length).getBytes(StandardCharsets.UTF_8);
+        byte[] data = Arrays.copyOf(prefix, prefix.length + body.length);
+        System.arraycopy(body, 0, data, prefix.length, body.length);
+        return Keccak256.hash(data);
+    }
+
+    /**
+     * 恢复签名者地址（0x 开头的小写地址），签名格式或数值无效时返回 null
+     */
+    public static String recoverAddress(String message, String signature) {
+        return recoverAddresses(List.of(new SignedMessage(null, message, signature))).get(0);
+    }
+
+    /**
+     * 批量恢复签名者地址，结果与输入一一对应
+     */
+    public static List<String> recoverAddresses(List<SignedMessage> messages) {
+        List<Secp256k1.Signature> parsed = new ArrayList<>(messages.size());
+        List<Integer> positions = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Secp256k1.Signature sig = parse(messages.get(i));
+            if (sig != null) {
+                parsed.add(sig);
+                positions.add(i);
+            }
+        }
+
+        List<byte[]> keys = Secp256k1.recoverAll(parsed);
+        List<String> addresses = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            addresses.add(null);
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i) != null) {
+                addresses.set(positions.get(i), toAddress(keys.get(i)));
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * 批量校验：每条签名恢复出的地址是否等于声明的地址
+     */
+    public static boolean[] verifyAll(List<SignedMessage> messages) {
+        List<String> recovered = recoverAddresses(messages);
+        boolean[] valid = new boolean[messages.size()];
+        for (int i = 0; i < valid.length; i++) {
+            String claimed = messages.get(i).address();
+            valid[i] = recovered.get(i) != null && claimed != null
+                    && recovered.get(i).equals(claimed.toLowerCase(Locale.ROOT));
+        }
+        return valid;
+    }
+
+    public static boolean verify(String address, String message, String signature) {
+        return verifyAll(List.of(new SignedMessage(address, message, signature)))[0];
+    }
+
+    /**
+     * 地址 = keccak256(X||Y) 的后 20 字节
+     */
+    public static String toAddress(byte[] publicKey) {
+        byte[] hash = Keccak256.hash(publicKey);
+        return "0x" + HexFormat.of().formatHex(hash, 12, 32);
+    }
+
+    public static boolean isAddress(String address) {
+        return address != null && address.matches("0x[0-9a-fA-F]{40}");
+    }
+
+    /**
+     * 65 字节签名 r(32) || s(32) || v(1)，v 取 27/28 或 0/1
+     */
+    private static Secp256k1.Signature parse(SignedMessage m) {
+        if (m.message() == null || m.signature() == null) {
+            return null;
+        }
+        String hex = m.signature().startsWith("0x") ? m.signature().substring(2) : m.signature();
+        if (hex.length() != 130) {
+            return null;
+        }
+        byte[] raw;
+        try {
+            raw = HexFormat.of().parseHex(hex);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int v = raw[64] & 0xFF;
+        int recId = v >= 27 ? v - 27 : v;
+        BigInteger r = new BigInteger(1, Arrays.copyOfRange(raw, 0, 32));
+        BigInteger s = new BigInteger(1, Arrays.copyOfRange(raw, 32, 64));
+        return new Secp256k1.Signature(personalMessageHash(m.message()), r, s, recId);
+    }
+}
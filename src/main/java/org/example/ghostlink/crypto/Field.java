@@ -0,0 +1,247 @@
+package org.example.ghostlink.crypto;
+
+import java.math.BigInteger;
+
+/**
+ * secp256k1 基域 p = 2^256 - 2^32 - 977 上的运算
+ * 元素为 4 个 64-bit 小端 limb，所有运算结果都完全约简到 [0, p)。
+ * 乘法用 Math.unsignedMultiplyHigh 做 4×4 schoolbook，再利用 2^256 ≡ 2^32 + 977 (mod p) 折叠高位，
+ * 避免 BigInteger 的通用除法取模。
+ */
+final class Field {
+
+    static final long[] P = {0xFFFFFFFEFFFFFC2FL, -1L, -1L, -1L};
+    static final BigInteger MODULUS = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16);
+
+    // 2^256 mod p
+    private static final long C = 0x1000003D1L;
+
+    private Field() {
+    }
+
+    static long[] of(BigInteger v) {
+        BigInteger m = v.mod(MODULUS);
+        long[] r = new long[4];
+        for (int i = 0; i < 4; i++) {
+            r[i] = m.shiftRight(64 * i).longValue();
+        }
+        return r;
+    }
+
+    static BigInteger toBigInteger(long[] a) {
+        byte[] out = new byte[33];
+        toBytes(a, out, 1);
+        return new BigInteger(out);
+    }
+
+    /**
+     * 32 字节大端写出
+     */
+    static void toBytes(long[] a, byte[] out, int offset) {
+        for (int i = 0; i < 4; i++) {
+            long limb = a[3 - i];
+            for (int b = 0; b < 8; b++) {
+                out[offset + i * 8 + b] = (byte) (limb >>> (56 - 8 * b));
+            }
+        }
+    }
+
+    static boolean isZero(long[] a) {
+        return (a[0] | a[1] | a[2] | a[3]) == 0;
+    }
+
+    static boolean isOdd(long[] a) {
+        return (a[0] & 1) != 0;
+    }
+
+    static boolean equals(long[] a, long[] b) {
+        return a[0] == b[0] && a[1] == b[1] && a[2] == b[2] && a[3] == b[3];
+    }
+
+    static long[] add(long[] a, long[] b) {
+        long[] r = new long[4];
+        long carry = 0;
+        for (int i = 0; i < 4; i++) {
+            long s = a[i] + b[i];
+            long c1 = Long.compareUnsigned(s, a[i]) < 0 ? 1 : 0;
+            long s2 = s + carry;
+            long c2 = Long.compareUnsigned(s2, s) < 0 ? 1 : 0;
+            r[i] = s2;
+            carry = c1 | c2;
+        }
+        if (carry != 0) {
+            // a + b < 2p，溢出部分 2^256 换成 C 后不会再次溢出
+            addSmall(r, C);
+        }
+        reduceOnce(r);
+        return r;
+    }
+
+    static long[] sub(long[] a, long[] b) {
+        long[] r = new long[4];
+        long borrow = 0;
+        for (int i = 0; i < 4; i++) {
+            long d = a[i] - b[i];
+            long b1 = Long.compareUnsigned(a[i], b[i]) < 0 ? 1 : 0;
+            long d2 = d - borrow;
+            long b2 = Long.compareUnsigned(d, borrow) < 0 ? 1 : 0;
+            r[i] = d2;
+            borrow = b1 | b2;
+        }
+        if (borrow != 0) {
+            // r = a - b + 2^256，加上 p 等价于再减去 C
+            subSmall(r, C);
+        }
+        return r;
+    }
+
+    static long[] negate(long[] a) {
+        return isZero(a) ? new long[4] : sub(P, a);
+    }
+
+    static long[] twice(long[] a) {
+        return add(a, a);
+    }
+
+    static long[] sqr(long[] a) {
+        return mul(a, a);
+    }
+
+    static long[] mul(long[] a, long[] b) {
+        long[] t = new long[8];
+        for (int i = 0; i < 4; i++) {
+            long carry = 0;
+            for (int j = 0; j < 4; j++) {
+                long lo = a[i] * b[j];
+                long hi = Math.unsignedMultiplyHigh(a[i], b[j]);
+                long s = t[i + j] + lo;
+                long c1 = Long.compareUnsigned(s, lo) < 0 ? 1 : 0;
+                long s2 = s + carry;
+                long c2 = Long.compareUnsigned(s2, s) < 0 ? 1 : 0;
+                t[i + j] = s2;
+                carry = hi + c1 + c2;
+            }
+            t[i + 4] = carry;
+        }
+        return reduceWide(t);
+    }
+
+    /**
+     * a^e mod p（用于开平方和求逆）
+     */
+    static long[] pow(long[] a, BigInteger e) {
+        long[] r = {1, 0, 0, 0};
+        for (int i = e.bitLength() - 1; i >= 0; i--) {
+            r = sqr(r);
+            if (e.testBit(i)) {
+                r = mul(r, a);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Montgomery 批量求逆：只做一次真正的求逆；null 或 0 元素对应结果为 null
+     */
+    static long[][] batchInvert(long[][] values) {
+        int n = values.length;
+        long[][] prefix = new long[n][];
+        long[] acc = {1, 0, 0, 0};
+        for (int i = 0; i < n; i++) {
+            prefix[i] = acc;
+            if (values[i] != null && !isZero(values[i])) {
+                acc = mul(acc, values[i]);
+            }
+        }
+        long[][] out = new long[n][];
+        long[] inv = of(toBigInteger(acc).modInverse(MODULUS));
+        for (int i = n - 1; i >= 0; i--) {
+            if (values[i] == null || isZero(values[i])) {
+                continue;
+            }
+            out[i] = mul(inv, prefix[i]);
+            inv = mul(inv, values[i]);
+        }
+        return out;
+    }
+
+    /**
+     * 512-bit 乘积 L + H·2^256 ≡ L + H·C，折叠两次后完全约简
+     */
+    private static long[] reduceWide(long[] t) {
+        long[] r = new long[4];
+        long carry = 0;
+        for (int i = 0; i < 4; i++) {
+            long lo = t[i + 4] * C;
+            long hi = Math.unsignedMultiplyHigh(t[i + 4], C);
+            long s = t[i] + lo;
+            long c1 = Long.compareUnsigned(s, lo) < 0 ? 1 : 0;
+            long s2 = s + carry;
+            long c2 = Long.compareUnsigned(s2, s) < 0 ? 1 : 0;
+            r[i] = s2;
+            carry = hi + c1 + c2;
+        }
+
+        // 第二次折叠：carry·C < 2^67
+        long lo = carry * C;
+        long hi = Math.unsignedMultiplyHigh(carry, C);
+        long s = r[0] + lo;
+        long c = Long.compareUnsigned(s, lo) < 0 ? 1 : 0;
+        r[0] = s;
+        s = r[1] + hi;
+        long c1 = Long.compareUnsigned(s, hi) < 0 ? 1 : 0;
+        long s2 = s + c;
+        long c2 = Long.compareUnsigned(s2, s) < 0 ? 1 : 0;
+        r[1] = s2;
+        c = c1 | c2;
+        for (int i = 2; i < 4 && c != 0; i++) {
+            r[i] += 1;
+            c = r[i] == 0 ? 1 : 0;
+        }
+        if (c != 0) {
+            addSmall(r, C);
+        }
+        reduceOnce(r);
+        return r;
+    }
+
+    private static void addSmall(long[] r, long v) {
+        long s = r[0] + v;
+        long c = Long.compareUnsigned(s, v) < 0 ? 1 : 0;
+        r[0] = s;
+        for (int i = 1; i < 4 && c != 0; i++) {
+            r[i] += 1;
+            c = r[i] == 0 ? 1 : 0;
+        }
+    }
+
+    private static void subSmall(long[] r, long v) {
+        long b = Long.compareUnsigned(r[0], v) < 0 ? 1 : 0;
+        r[0] -= v;
+        for (int i = 1; i < 4 && b != 0; i++) {
+            b = r[i] == 0 ? 1 : 0;
+            r[i] -= 1;
+        }
+    }
+
+    private static void reduceOnce(long[] r) {
+        for (int i = 3; i >= 0; i--) {
+            int cmp = Long.compareUnsigned(r[i], P[i]);
+            if (cmp < 0) {
+                return;
+            }
+            if (cmp > 0) {
+                break;
+            }
+        }
+        // r >= p：r - p = r + C - 2^256
+        long s = r[0] + C;
+        long c = Long.compareUnsigned(s, C) < 0 ? 1 : 0;
+        r[0] = s;
+        for (int i = 1; i < 4; i++) {
+            s = r[i] + c;
+            c = (c != 0 && s == 0) ? 1 : 0;
+            r[i] = s;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.example.ghostlink.crypto;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * secp256k1 公钥恢复（ecrecover）
+ * 固定基点 G 使用预计算表：32 个 8-bit 窗口 × 255 个仿射点，u1·G 只需 32 次混合加法、无倍点；
+ * 可变基点 R 使用 4-bit 窗口。点运算在 Jacobian 坐标下用 {@link Field} 的定长 limb 运算完成，
+ * 转仿射时用 Montgomery 批量求逆，批量恢复时 r⁻¹ mod n 与最终的 Z⁻¹ mod p 都只各求一次逆。
+ */
+public final class Secp256k1 {
+
+    static final BigInteger N = new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+    static final Affine G = new Affine(
+            Field.of(new BigInteger("79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16)),
+            Field.of(new BigInteger("483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16)));
+
+    private static final long[] SEVEN = {7, 0, 0, 0};
+    private static final BigInteger SQRT_EXP = Field.MODULUS.add(BigInteger.ONE).shiftRight(2);
+
+    private static final int WINDOWS = 32;
+    private static final int VAR_WINDOW = 4;
+
+    private Secp256k1() {
+    }
+
+    /**
+     * 一条待恢复的签名：32 字节消息哈希 + (r, s, recId)
+     */
+    public record Signature(byte[] hash, BigInteger r, BigInteger s, int recId) {
+    }
+
+    /**
+     * 恢复未压缩公钥（64 字节 X||Y），签名无效时返回 null
+     */
+    public static byte[] recover(Signature signature) {
+        return recoverAll(List.of(signature)).get(0);
+    }
+
+    /**
+     * 批量恢复，结果与输入一一对应，无效签名对应 null
+     */
+    public static List<byte[]> recoverAll(List<Signature> signatures) {
+        int count = signatures.size();
+        Affine[] rPoints = new Affine[count];
+        BigInteger[] rValues = new BigInteger[count];
+        for (int i = 0; i < count; i++) {
+            Signature sig = signatures.get(i);
+            rPoints[i] = liftX(sig);
+            rValues[i] = rPoints[i] == null ? BigInteger.ONE : sig.r();
+        }
+
+        BigInteger[] rInverses = batchInverse(rValues, N);
+        Jacobian[] results = new Jacobian[count];
+        for (int i = 0; i < count; i++) {
+            if (rPoints[i] == null) {
+                continue;
+            }
+            Signature sig = signatures.get(i);
+            BigInteger e = new BigInteger(1, sig.hash()).mod(N);
+            BigInteger u1 = e.negate().multiply(rInverses[i]).mod(N);
+            BigInteger u2 = sig.s().multiply(rInverses[i]).mod(N);
+            // Q = u2·R + u1·G，固定基部分直接累加到同一个 Jacobian 累加器上
+            results[i] = addMultipleOfG(multiply(rPoints[i], u2), u1);
+        }
+
+        Affine[] affine = toAffine(results);
+        List<byte[]> keys = new ArrayList<>(count);
+        for (Affine q : affine) {
+            keys.add(q == null ? null : q.encode());
+        }
+        return keys;
+    }
+
+    /**
+     * k·G（仅用于派生公钥，例如测试中由私钥得到地址）
+     */
+    public static byte[] publicKey(BigInteger privateKey) {
+        if (privateKey.signum() <= 0 || privateKey.compareTo(N) >= 0) {
+            throw new IllegalArgumentException("Private key out of range");
+        }
+        Affine q = toAffine(new Jacobian[]{addMultipleOfG(Jacobian.INFINITY, privateKey)})[0];
+        return q.encode();
+    }
+
+    /**
+     * 触发预计算表的构建（启动预热时调用，避免第一个请求承担构建开销）
+     */
+    public static void precompute() {
+        if (GTable.TABLE.length != WINDOWS) {
+            throw new IllegalStateException();
+        }
+    }
+
+    // ---------------------------------------------------------------- 内部实现
+
+    /**
+     * 由 r 和 recId 还原 R 点；r、s 越界或 r 不在曲线上时返回 null
+     */
+    private static Affine liftX(Signature sig) {
+        BigInteger r = sig.r();
+        BigInteger s = sig.s();
+        if (sig.hash() == null || sig.hash().length != 32
+                || r.signum() <= 0 || r.compareTo(N) >= 0
+                || s.signum() <= 0 || s.compareTo(N) >= 0
+                || sig.recId() < 0 || sig.recId() > 1) {
+            return null;
+        }
+        long[] x = Field.of(r);
+        long[] alpha = Field.add(Field.mul(Field.sqr(x), x), SEVEN);
+        long[] beta = Field.pow(alpha, SQRT_EXP);
+        if (!Field.equals(Field.sqr(beta), alpha)) {
+            return null;
+        }
+        long[] y = Field.isOdd(beta) == ((sig.recId() & 1) == 1) ? beta : Field.negate(beta);
+        return new Affine(x, y);
+    }
+
+    private static Jacobian addMultipleOfG(Jacobian acc, BigInteger k) {
+        Affine[][] table = GTable.TABLE;
+        for (int w = 0; w < WINDOWS; w++) {
+            int digit = 0;
+            for (int b = 7; b >= 0; b--) {
+                digit = (digit << 1) | (k.testBit(w * 8 + b) ? 1 : 0);
+            }
+            if (digit != 0) {
+                acc = acc.add(table[w][digit - 1]);
+            }
+        }
+        return acc;
+    }
+
+    private static Jacobian multiply(Affine point, BigInteger k) {
+        int size = (1 << VAR_WINDOW) - 1;
+        Jacobian[] multiples = new Jacobian[size];
+        multiples[0] = Jacobian.of(point);
+        for (int i = 1; i < size; i++) {
+            multiples[i] = multiples[i - 1].add(point);
+        }
+        Affine[] table = toAffine(multiples);
+
+        Jacobian acc = Jacobian.INFINITY;
+        for (int nibble = 256 / VAR_WINDOW - 1; nibble >= 0; nibble--) {
+            for (int d = 0; d < VAR_WINDOW; d++) {
+                acc = acc.twice();
+            }
+            int digit = 0;
+            for (int b = VAR_WINDOW - 1; b >= 0; b--) {
+                digit = (digit << 1) | (k.testBit(nibble * VAR_WINDOW + b) ? 1 : 0);
+            }
+            if (digit != 0 && table[digit - 1] != null) {
+                acc = acc.add(table[digit - 1]);
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * BigInteger 版 Montgomery 批量求逆（用于 mod n 的 r⁻¹）；0 视为无逆元，结果为 null
+     */
+    static BigInteger[] batchInverse(BigInteger[] values, BigInteger modulus) {
+        int n = values.length;
+        BigInteger[] prefix = new BigInteger[n];
+        BigInteger acc = BigInteger.ONE;
+        for (int i = 0; i < n; i++) {
+            prefix[i] = acc;
+            if (values[i] != null && values[i].signum() != 0) {
+                acc = acc.multiply(values[i]).mod(modulus);
+            }
+        }
+        BigInteger[] out = new BigInteger[n];
+        if (n == 0) {
+            return out;
+        }
+        BigInteger inv = acc.modInverse(modulus);
+        for (int i = n - 1; i >= 0; i--) {
+            if (values[i] == null || values[i].signum() == 0) {
+                continue;
+            }
+            out[i] = inv.multiply(prefix[i]).mod(modulus);
+            inv = inv.multiply(values[i]).mod(modulus);
+        }
+        return out;
+    }
+
+    private static Affine[] toAffine(Jacobian[] points) {
+        long[][] zs = new long[points.length][];
+        for (int i = 0; i < points.length; i++) {
+            zs[i] = points[i] == null ? null : points[i].z;
+        }
+        long[][] zInv = Field.batchInvert(zs);
+        Affine[] out = new Affine[points.length];
+        for (int i = 0; i < points.length; i++) {
+            if (zInv[i] == null) {
+                continue;
+            }
+            long[] zInv2 = Field.sqr(zInv[i]);
+            out[i] = new Affine(Field.mul(points[i].x, zInv2), Field.mul(points[i].y, Field.mul(zInv2, zInv[i])));
+        }
+        return out;
+    }
+
+    record Affine(long[] x, long[] y) {
+        byte[] encode() {
+            byte[] out = new byte[64];
+            Field.toBytes(x, out, 0);
+            Field.toBytes(y, out, 32);
+            return out;
+        }
+    }
+
+    /**
+     * Jacobian 坐标 (X, Y, Z) 表示仿射点 (X/Z², Y/Z³)，Z = 0 为无穷远点
+     */
+    private static final class Jacobian {
+        static final Jacobian INFINITY = new Jacobian(new long[]{1, 0, 0, 0}, new long[]{1, 0, 0, 0}, new long[4]);
+
+        final long[] x;
+        final long[] y;
+        final long[] z;
+
+        Jacobian(long[] x, long[] y, long[] z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        static Jacobian of(Affine p) {
+            return new Jacobian(p.x(), p.y(), new long[]{1, 0, 0, 0});
+        }
+
+        boolean isInfinity() {
+            return Field.isZero(z);
+        }
+
+        // dbl-2009-l (a = 0)
+        Jacobian twice() {
+            if (isInfinity() || Field.isZero(y)) {
+                return INFINITY;
+            }
+            long[] a = Field.sqr(x);
+            long[] b = Field.sqr(y);
+            long[] c = Field.sqr(b);
+            long[] d = Field.twice(Field.sub(Field.sqr(Field.add(x, b)), Field.add(a, c)));
+            long[] e = Field.add(Field.twice(a), a);
+            long[] f = Field.sqr(e);
+            long[] x3 = Field.sub(f, Field.twice(d));
+            long[] c8 = Field.twice(Field.twice(Field.twice(c)));
+            long[] y3 = Field.sub(Field.mul(e, Field.sub(d, x3)), c8);
+            long[] z3 = Field.twice(Field.mul(y, z));
+            return new Jacobian(x3, y3, z3);
+        }
+
+        // madd：Jacobian + 仿射
+        Jacobian add(Affine q) {
+            if (isInfinity()) {
+                return of(q);
+            }
+            long[] z1z1 = Field.sqr(z);
+            long[] u2 = Field.mul(q.x(), z1z1);
+            long[] s2 = Field.mul(q.y(), Field.mul(z, z1z1));
+            long[] h = Field.sub(u2, x);
+            long[] r = Field.sub(s2, y);
+            if (Field.isZero(h)) {
+                return Field.isZero(r) ? twice() : INFINITY;
+            }
+            long[] hh = Field.sqr(h);
+            long[] hhh = Field.mul(h, hh);
+            long[] v = Field.mul(x, hh);
+            long[] x3 = Field.sub(Field.sub(Field.sqr(r), hhh), Field.twice(v));
+            long[] y3 = Field.sub(Field.mul(r, Field.sub(v, x3)), Field.mul(y, hhh));
+            long[] z3 = Field.mul(z, h);
+            return new Jacobian(x3, y3, z3);
+        }
+    }
+
+    /**
+     * G 的预计算表，首次使用时构建：TABLE[w][d-1] = d·2^(8w)·G
+     */
+    private static final class GTable {
+        static final Affine[][] TABLE = build();
+
+        private static Affine[][] build() {
+            Affine[][] table = new Affine[WINDOWS][];
+            Affine base = G;
+            for (int w = 0; w < WINDOWS; w++) {
+                Jacobian[] row = new Jacobian[256];
+                row[0] = Jacobian.of(base);
+                for (int d = 1; d < 256; d++) {
+                    row[d] = row[d - 1].add(base);
+                }
+                Affine[] affine = toAffine(row);
+                table[w] = Arrays.copyOf(affine, 255);
+                base = affine[255];
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.ghostlink.grpc;
+
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内部 gRPC 服务端（HTTP/2，明文，只应暴露在内网）
+ * ghostlink.grpc.enabled=true 时在 ghostlink.grpc.port 上启动，请求必须带 x-api-key 元数据；
+ * 启用但未配置 api-key 时启动失败（不允许无认证的证明入口）。
+ * 调用在虚拟线程上执行（证明调用会阻塞等待 prover）。
+ * 停机时与 ProofDrainService 同一阶段：不再接受新调用，进行中的调用最多等待 shutdown-timeout。
+ */
+@Component
+public class GrpcServer implements SmartLifecycle {
+
+    static final Metadata.Key<String> API_KEY = Metadata.Key.of("x-api-key", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final ProverGrpcService proverService;
+    private final boolean enabled;
+    private final int port;
+    private final String apiKey;
+    private final DataSize maxMessageSize;
+    private final Duration shutdownTimeout;
+    private ExecutorService executor;
+    private volatile Server server;
+
+    @Autowired
+    public GrpcServer(
+            ProverGrpcService proverService,
+            @Value("${ghostlink.grpc.enabled:false}") boolean enabled,
+            @Value("${ghostlink.grpc.port:9090}") int port,
+            @Value("${ghostlink.grpc.api-key:}") String apiKey,
+            @Value("${ghostlink.grpc.max-message-size:16MB}") DataSize maxMessageSize,
+            @Value("${ghostlink.grpc.shutdown-timeout:10s}") Duration shutdownTimeout
+    ) {
+        if (enabled && (apiKey == null || apiKey.isBlank())) {
+            throw new IllegalStateException("ghostlink.grpc.api-key must be set when ghostlink.grpc.enabled=true");
+        }
+        this.proverService = proverService;
+        this.enabled = enabled;
+        this.port = port;
+        this.apiKey = apiKey;
+        this.maxMessageSize = maxMessageSize;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * 实际监听的端口（port=0 时由系统分配），未启动时为 -1
+     */
+    public int getPort() {
+        Server current = server;
+        return current != null ? current.getPort() : -1;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            server = NettyServerBuilder.forPort(port)
+                    .executor(executor)
+                    .maxInboundMessageSize((int) maxMessageSize.toBytes())
+                    .addService(ServerInterceptors.intercept(proverService, new ApiKeyInterceptor(apiKey)))
+                    .build()
+                    .start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start gRPC server on port " + port, e);
+        }
+        System.out.println("gRPC 服务已启动，端口: " + server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        Server current = server;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                System.out.println("gRPC 调用未在 " + shutdownTimeout + " 内完成，强制关闭");
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            current.shutdownNow();
+        }
+        executor.close();
+        server = null;
+    }
+
+    /**
+     * 在 ProofDrainService 排空之后停止（见 {@link #getPhase()}），只等待排空后仍未结束的调用，最多 shutdown-timeout
+     */
+    @Override
+    public void stop(Runnable callback) {
+        Thread.ofPlatform().name("grpc-shutdown").start(() -> {
+            try {
+                stop();
+            } finally {
+                callback.run();
+            }
+        });
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * 低于 ProofDrainService（Integer.MAX_VALUE）、高于 Web 容器的优雅停机：
+     * 排空期间 gRPC 仍可连接，新的证明由 ZkProofService 以 UNAVAILABLE 拒绝，进行中的证明计入排空等待；
+     * 排空结束后再关闭 gRPC。总停机时间约 drain-timeout + shutdown-timeout + timeout-per-shutdown-phase
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+    /**
+     * 校验 x-api-key 元数据（常量时间比较）
+     */
+    static final class ApiKeyInterceptor implements ServerInterceptor {
+        private final byte[] expected;
+
+        ApiKeyInterceptor(String apiKey) {
+            this.expected = apiKey.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers, ServerCallHandler<Q, R> next) {
+            String provided = headers.get(API_KEY);
+            if (provided == null || !MessageDigest.isEqual(expected, provided.getBytes(StandardCharsets.UTF_8))) {
+                call.close(Status.UNAUTHENTICATED.withDescription("Missing or invalid x-api-key"), new Metadata());
+                return new ServerCall.Listener<>() {
+                };
+            }
+            return next.startCall(call, headers);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package org.example.ghostlink.grpc;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.ghostlink.grpc.v1.AlipayData;
+import org.example.ghostlink.grpc.v1.GithubData;
+import org.example.ghostlink.grpc.v1.ProofResult;
+import org.example.ghostlink.grpc.v1.ProveBatchRequest;
+import org.example.ghostlink.grpc.v1.ProveRequest;
+import org.example.ghostlink.grpc.v1.ProverGrpc;
+import org.example.ghostlink.grpc.v1.TwitterData;
+import org.example.ghostlink.grpc.v1.WalletData;
+import org.example.ghostlink.model.ZkProof;
+import org.example.ghostlink.service.ConcurrencyLimitExceededException;
+import org.example.ghostlink.service.Deadline;
+import org.example.ghostlink.service.DeadlineExceededException;
+import org.example.ghostlink.service.ProofEventService;
+import org.example.ghostlink.service.ProofHistoryService;
+import org.example.ghostlink.service.ProofIds;
+import org.example.ghostlink.service.ProofRequestRejectedException;
+import org.example.ghostlink.service.ProofRequestValidator;
+import org.example.ghostlink.service.ReceiptService;
+import org.example.ghostlink.service.ShuttingDownException;
+import org.example.ghostlink.service.WalletService;
+import org.example.ghostlink.service.ZkProofService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内部 gRPC 证明服务（见 src/main/proto/prover.proto）
+ * 供内部系统批量调用：请求直接从 protobuf 构造证明请求，不经过 JSON 解析和 multipart；结果中的证明数据为原始字节。
+ * GitHub / Twitter / Alipay 的 data 由调用方负责（已完成 OAuth / PDF 解析），仍经过 {@link ProofRequestValidator}；
+ * 钱包请求与 REST 接口一样先校验签名。
+ * Prove 的错误映射为 gRPC 状态（INVALID_ARGUMENT / PERMISSION_DENIED / RESOURCE_EXHAUSTED + retry-after /
+ * 停机排空时 UNAVAILABLE + retry-after / DEADLINE_EXCEEDED），ProveBatch 中单个请求的错误放在对应结果的 error_code 中，不中断整个流。
+ * 调用方设置的 gRPC deadline 作为请求的 {@link Deadline}（未设置时用 ghostlink.deadline.default-timeout）；
+ * ProveBatch 中每个请求在开始证明时各自计算预算，同样不超过调用方的 gRPC deadline。
+ */
+@Service
+public class ProverGrpcService extends ProverGrpc.ProverImplBase {
+
+    static final Metadata.Key<String> RETRY_AFTER = Metadata.Key.of("retry-after", Metadata.ASCII_STRING_MARSHALLER);
+
+    // 钱包签名 / PDF 签名校验失败：Prove 映射为 PERMISSION_DENIED，ProveBatch 放在结果的 error_code 中
+    static final String INVALID_SIGNATURE = "INVALID_SIGNATURE";
+    private static final String ZERO_ADDRESS = "0x0000000000000000000000000000000000000000";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final ZkProofService zkProofService;
+    private final WalletService walletService;
+    private final ProofHistoryService proofHistoryService;
+    private final ProofEventService proofEvents;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatch;
+    private final int batchConcurrency;
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+
+    @Autowired
+    public ProverGrpcService(
+            ZkProofService zkProofService,
+            WalletService walletService,
+            ProofHistoryService proofHistoryService,
+            ProofEventService proofEvents,
+            MeterRegistry meterRegistry,
+            @Value("${ghostlink.grpc.max-batch:1000}") int maxBatch,
+            @Value("${ghostlink.grpc.batch-concurrency:16}") int batchConcurrency,
+            @Value("${ghostlink.deadline.default-timeout:90s}") Duration defaultTimeout,
+            @Value("${ghostlink.deadline.max-timeout:120s}") Duration maxTimeout
+    ) {
+        this.zkProofService = zkProofService;
+        this.walletService = walletService;
+        this.proofHistoryService = proofHistoryService;
+        this.proofEvents = proofEvents;
+        this.meterRegistry = meterRegistry;
+        this.maxBatch = maxBatch;
+        this.batchConcurrency = Math.max(1, batchConcurrency);
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    public void prove(ProveRequest request, StreamObserver<ProofResult> responseObserver) {
+        try (Deadline.Scope ignored = deadline(Context.current().getDeadline()).bind()) {
+            ProofResult result = prove(request);
+            count("Prove", result.getVerified() ? "success" : result.getErrorCode());
+            responseObserver.onNext(result);
+            responseObserver.onCompleted();
+        } catch (ProofRequestRejectedException e) {
+            count("Prove", e.getErrorCode());
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription(e.getErrorCode() + ": " + e.getMessage()).asRuntimeException());
+        } catch (ConcurrencyLimitExceededException e) {
+            count("Prove", e.getErrorCode());
+            Metadata trailers = new Metadata();
+            trailers.put(RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            Status status = e instanceof ShuttingDownException ? Status.UNAVAILABLE : Status.RESOURCE_EXHAUSTED;
+            responseObserver.onError(status.withDescription(e.getMessage()).asRuntimeException(trailers));
+        } catch (DeadlineExceededException e) {
+            count("Prove", DeadlineExceededException.ERROR_CODE);
+            responseObserver.onError(Status.DEADLINE_EXCEEDED.withDescription(e.getMessage()).asRuntimeException());
+        } catch (SecurityException e) {
+            count("Prove", INVALID_SIGNATURE);
+            responseObserver.onError(Status.PERMISSION_DENIED
+                    .withDescription(INVALID_SIGNATURE + ": " + e.getMessage()).asRuntimeException());
+        } catch (IllegalArgumentException e) {
+            count("Prove", ProofRequestValidator.INVALID_DATA);
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    /**
+     * 请求在虚拟线程上并发证明（最多 batch-concurrency 个），结果按完成顺序写回；调用方取消后不再提交剩余请求
+     * 遵守流控：调用方读得慢时（isReady() 为 false）写回方等待 onReady，证明结果不会在发送缓冲区里无限堆积。
+     * 分发在单独的虚拟线程上进行，调用线程立即返回，onReady / onCancel 回调才能送达。
+     */
+    @Override
+    public void proveBatch(ProveBatchRequest batch, StreamObserver<ProofResult> responseObserver) {
+        if (batch.getRequestsCount() > maxBatch) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Batch too large, max " + maxBatch).asRuntimeException());
+            return;
+        }
+        ServerCallStreamObserver<ProofResult> observer = (ServerCallStreamObserver<ProofResult>) responseObserver;
+        Runnable wake = () -> {
+            synchronized (observer) {
+                observer.notifyAll();
+            }
+        };
+        observer.setOnReadyHandler(wake);
+        observer.setOnCancelHandler(wake);
+        // 分发线程上没有 gRPC Context，先取出调用方的 deadline
+        io.grpc.Deadline callDeadline = Context.current().getDeadline();
+        Thread.ofVirtual().name("grpc-prove-batch").start(() -> dispatch(batch, observer, callDeadline));
+    }
+
+    private void dispatch(ProveBatchRequest batch, ServerCallStreamObserver<ProofResult> observer, io.grpc.Deadline callDeadline) {
+        Semaphore permits = new Semaphore(batchConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ProveRequest request : batch.getRequestsList()) {
+                permits.acquire();
+                if (observer.isCancelled()) {
+                    permits.release();
+                    break;
+                }
+                executor.execute(() -> {
+                    // 每个请求单独计时：排在后面的请求不会因为前面的请求耗时而直接超时
+                    try (Deadline.Scope ignored = deadline(callDeadline).bind()) {
+                        ProofResult result = proveOrError(request);
+                        synchronized (observer) {
+                            while (!observer.isReady() && !observer.isCancelled()) {
+                                observer.wait();
+                            }
+                            if (!observer.isCancelled()) {
+                                observer.onNext(result);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (observer) {
+                observer.onError(Status.CANCELLED.withDescription("Interrupted").asRuntimeException());
+            }
+            return;
+        }
+        synchronized (observer) {
+            if (!observer.isCancelled()) {
+                observer.onCompleted();
+            }
+        }
+    }
+
+    private ProofResult proveOrError(ProveRequest request) {
+        try {
+            ProofResult result = prove(request);
+            count("ProveBatch", result.getVerified() ? "success" : result.getErrorCode());
+            return result;
+        } catch (ProofRequestRejectedException e) {
+            count("ProveBatch", e.getErrorCode());
+            return error(request, e.getErrorCode(), e.getMessage());
+        } catch (ConcurrencyLimitExceededException e) {
+            count("ProveBatch", e.getErrorCode());
+            return error(request, e.getErrorCode(), e.getMessage());
+        } catch (DeadlineExceededException e) {
+            count("ProveBatch", DeadlineExceededException.ERROR_CODE);
+            return error(request, DeadlineExceededException.ERROR_CODE, e.getMessage());
+        } catch (SecurityException e) {
+            count("ProveBatch", INVALID_SIGNATURE);
+            return error(request, INVALID_SIGNATURE, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            count("ProveBatch", ProofRequestValidator.INVALID_DATA);
+            return error(request, ProofRequestValidator.INVALID_DATA, e.getMessage());
+        } catch (RuntimeException e) {
+            // 单个请求的意外错误只影响它自己的结果，不中断整个流
+            count("ProveBatch", "INTERNAL_ERROR");
+            System.out.println("gRPC 批量证明异常 - Request: " + request.getRequestId() + ", Error: " + e);
+            return error(request, "INTERNAL_ERROR", String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * 从现在起的预算：调用方 gRPC deadline 的剩余时间（不超过 max-timeout），未设置时使用默认超时
+     */
+    private Deadline deadline(io.grpc.Deadline callDeadline) {
+        Duration budget = callDeadline != null
+                ? Duration.ofNanos(Math.max(0, callDeadline.timeRemaining(TimeUnit.NANOSECONDS)))
+                : defaultTimeout;
+        return Deadline.after(budget.compareTo(maxTimeout) > 0 ? maxTimeout : budget, meterRegistry);
+    }
+
+    private ProofResult prove(ProveRequest request) {
+        String recipient = request.getRecipient().isEmpty() ? null : address(request.getRecipient(), "recipient");
+        return switch (request.getCredentialCase()) {
+            case WALLET -> proveWallet(request, recipient);
+            case GITHUB -> proveDirect(request, "github", github(request.getGithub()), recipient);
+            case TWITTER -> proveDirect(request, "twitter", twitter(request.getTwitter()), recipient);
+            case ALIPAY -> proveDirect(request, "alipay", alipay(request.getAlipay()), recipient);
+            case CREDENTIAL_NOT_SET -> throw new ProofRequestRejectedException(ProofRequestValidator.INVALID_DATA, "Missing credential");
+        };
+    }
+
+    private ProofResult proveWallet(ProveRequest request, String recipient) {
+        WalletData wallet = request.getWallet();
+        Map<String, Object> data = new HashMap<>();
+        data.put("address", address(wallet.getAddress(), "address"));
+        data.put("balance_wei", wallet.getBalanceWei());
+        data.put("transaction_count", wallet.getTransactionCount());
+        data.put("chain_id", wallet.getChainId());
+        data.put("signature", "0x" + HEX.formatHex(wallet.getSignature().toByteArray()));
+        data.put("message", wallet.getMessage());
+        ZkProof proof = walletService.verifyAndGenerateProof(data, recipient);
+        if (!proof.isVerified()) {
+            return error(request, "PROOF_FAILED", "ZK Proof Generation Failed");
+        }
+        return result(request, proof);
+    }
+
+    /**
+     * GitHub / Twitter / Alipay：data 已由调用方取得，直接进入证明流水线（校验、去重、限流、路由）
+     */
+    private ProofResult proveDirect(ProveRequest request, String credentialType, Map<String, Object> data, String recipient) {
+        Map<String, Object> proofRequest = new HashMap<>();
+        proofRequest.put("credential_type", credentialType);
+        proofRequest.put("data", data);
+        proofRequest.put("recipient", recipient != null ? recipient : ZERO_ADDRESS);
+
+        Map<String, String> response;
+        try {
+            response = zkProofService.prove(proofRequest);
+        } catch (ProofRequestRejectedException e) {
+            proofEvents.failed(credentialType, recipient, e.getErrorCode(), e.getMessage());
+            throw e;
+        }
+        if (!"success".equals(response.get("status"))) {
+            proofEvents.failed(credentialType, recipient, response.get("error_code"), response.get("message"));
+            return error(request, response.get("error_code"), response.get("message"));
+        }
+        ZkProof proof;
+        try {
+            proof = ZkProof.fromHex(
+                    ProofIds.next(credentialType),
+                    true,
+                    System.currentTimeMillis(),
+                    response.get("receipt_hex"),
+                    response.get("journal_hex"),
+                    response.get("image_id_hex"),
+                    response.get("nullifier_hex"),
+                    response.get(ReceiptService.DIGEST_FIELD)
+            );
+        } catch (IllegalArgumentException e) {
+            // prover 返回的十六进制损坏是服务端问题，不能当成调用方的 INVALID_ARGUMENT
+            System.out.println("prover 返回的证明数据无法解析: " + e.getMessage());
+            proofEvents.failed(credentialType, recipient, "INTERNAL_ERROR", e.getMessage());
+            return error(request, "INTERNAL_ERROR", "Malformed proof data from prover");
+        }
+        proofHistoryService.record(credentialType, recipient, proof);
+        proofEvents.completed(credentialType, recipient, proof);
+        return result(request, proof);
+    }
+
+    private static Map<String, Object> github(GithubData github) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("user_id", github.getUserId());
+        data.put("username", github.getUsername());
+        data.put("created_at", github.getCreatedAt());
+        data.put("public_repos", github.getPublicRepos());
+        if (github.hasOwnedRepos()) {
+            data.put("owned_repos", github.getOwnedRepos());
+        }
+        if (github.hasTotalStars()) {
+            data.put("total_stars", github.getTotalStars());
+        }
+        if (github.hasContributionsLastYear()) {
+            data.put("contributions_last_year", github.getContributionsLastYear());
+        }
+        if (github.getOrganizationsCount() > 0) {
+            data.put("organizations", github.getOrganizationsList());
+        }
+        return data;
+    }
+
+    private static Map<String, Object> twitter(TwitterData twitter) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("user_id", twitter.getUserId());
+        data.put("handle", twitter.getHandle());
+        data.put("created_at", twitter.getCreatedAt());
+        data.put("followers_count", twitter.getFollowersCount());
+        return data;
+    }
+
+    private static Map<String, Object> alipay(AlipayData alipay) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("balance", alipay.getBalance());
+        data.put("id_number_hash", "0x" + HEX.formatHex(alipay.getIdNumberHash().toByteArray()));
+        data.put("threshold", alipay.getThreshold());
+        return data;
+    }
+
+    private static ProofResult result(ProveRequest request, ZkProof proof) {
+        ProofResult.Builder result = ProofResult.newBuilder()
+                .setRequestId(request.getRequestId())
+                .setVerified(true)
+                .setProofId(proof.getProofId())
+                .setTimestamp(proof.getTimestamp())
+                .setReceipt(bytes(proof.receiptBytes()))
+                .setJournal(bytes(proof.journalBytes()))
+                .setImageId(bytes(proof.imageIdBytes()))
+                .setNullifier(bytes(proof.nullifierBytes()));
+        if (proof.getReceiptDigest() != null) {
+            result.setReceiptDigest(proof.getReceiptDigest());
+        }
+        return result.build();
+    }
+
+    private static ProofResult error(ProveRequest request, String errorCode, String message) {
+        return ProofResult.newBuilder()
+                .setRequestId(request.getRequestId())
+                .setVerified(false)
+                .setProofId(ProofIds.next("fail"))
+                .setTimestamp(System.currentTimeMillis())
+                .setErrorCode(errorCode != null ? errorCode : "PROOF_FAILED")
+                .setMessage(message != null ? message : "")
+                .build();
+    }
+
+    private static String address(ByteString bytes, String field) {
+        if (bytes.size() != 20) {
+            throw new ProofRequestRejectedException(ProofRequestValidator.INVALID_DATA,
+                    "Invalid " + field + ": expected 20 bytes, got " + bytes.size());
+        }
+        return "0x" + HEX.formatHex(bytes.toByteArray());
+    }
+
+    /**
+     * ZkProof 返回的是副本，直接包装，不再复制一次
+     */
+    private static ByteString bytes(byte[] bytes) {
+        return bytes == null ? ByteString.EMPTY : UnsafeByteOperations.unsafeWrap(bytes);
+    }
+
+    private void count(String method, String outcome) {
+        meterRegistry.counter("ghostlink.grpc.proofs", "method", method, "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.ghostlink.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 对 GitHub / Twitter 的一次出站调用（换 token、拉用户信息）
+ */
+@Name("ghostlink.OAuthCall")
+@Label("OAuth Call")
+@Category({"GhostLink", "OAuth"})
+@StackTrace(false)
+public class OAuthCallEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Status")
+    @Description("HTTP status, 0 when the call failed before a response")
+    public int status;
+
+    @Label("Request Size")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    @Description("Content-Length of the response, -1 when unknown")
+    public long responseBytes;
+}
@@ -0,0 +1,37 @@
+package org.example.ghostlink.jfr;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * OAuth RestTemplate 的拦截器：每次出站调用记录一个 {@link OAuthCallEvent}
+ * 未在录制时 shouldCommit() 为 false，只多一次 nanoTime 读取。
+ */
+public class OAuthCallRecorder implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        OAuthCallEvent event = new OAuthCallEvent();
+        event.begin();
+        ClientHttpResponse response = null;
+        try {
+            response = execution.execute(request, body);
+            return response;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.host = request.getURI().getHost();
+                event.method = request.getMethod().name();
+                event.path = request.getURI().getPath();
+                event.requestBytes = body.length;
+                event.status = response != null ? response.getStatusCode().value() : 0;
+                event.responseBytes = response != null ? response.getHeaders().getContentLength() : -1;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.ghostlink.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 从已加载的 PDF 中提取文本（PDFTextStripper）
+ */
+@Name("ghostlink.PdfExtract")
+@Label("PDF Text Extraction")
+@Category({"GhostLink", "PDF"})
+@StackTrace(false)
+public class PdfExtractEvent extends Event {
+
+    @Label("Pages")
+    public int pages;
+
+    @Label("Text Length")
+    @Description("Extracted characters")
+    public long textChars;
+}
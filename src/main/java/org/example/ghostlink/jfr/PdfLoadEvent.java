@@ -0,0 +1,25 @@
+package org.example.ghostlink.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * PDFBox 解析 PDF 结构（PDDocument.load）
+ */
+@Name("ghostlink.PdfLoad")
+@Label("PDF Load")
+@Category({"GhostLink", "PDF"})
+@StackTrace(false)
+public class PdfLoadEvent extends Event {
+
+    @Label("PDF Size")
+    @DataAmount
+    public long pdfBytes;
+
+    @Label("Pages")
+    public int pages;
+}
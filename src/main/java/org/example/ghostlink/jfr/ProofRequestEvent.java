@@ -0,0 +1,34 @@
+package org.example.ghostlink.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次证明请求从校验到返回（含缓存命中和被拒绝的请求）
+ */
+@Name("ghostlink.ProofRequest")
+@Label("Proof Request")
+@Category({"GhostLink", "Proof"})
+@Description("ZkProofService.prove: validation, cache lookup and proof generation")
+@StackTrace(false)
+public class ProofRequestEvent extends Event {
+
+    @Label("Credential Type")
+    public String credentialType;
+
+    @Label("Outcome")
+    @Description("success / cached / rejected / error")
+    public String outcome;
+
+    @Label("Data Fields")
+    public int dataFields;
+
+    @Label("Receipt Size")
+    @DataAmount
+    public long receiptBytes;
+}
@@ -1,10 +1,22 @@
 package org.example.ghostlink.model;
 
 public class AuthResponse {
+
+    /**
+     * OAuth 提供方暂时不可用（超时、5xx）：不是对授权码的最终结论，不缓存，可以重试
+     */
+    public static final String UPSTREAM_UNAVAILABLE = "UPSTREAM_UNAVAILABLE";
+
+    /**
+     * 授权码已经换成 token 之后请求被拒绝（过载）：授权码只能用一次，用同一个授权码重试不会成功，需要重新登录
+     */
+    public static final String OAUTH_RESTART_REQUIRED = "OAUTH_RESTART_REQUIRED";
+
     private String status;
     private GithubUser user;
     private ZkProof zkProof;
     private String error;
+    private String errorCode;
 
     public AuthResponse(String status, GithubUser user, ZkProof zkProof) {
         this.status = status;
@@ -16,6 +28,26 @@ public class AuthResponse {
         this.error = error;
     }
 
+    public AuthResponse(String errorCode, String error) {
+        this.errorCode = errorCode;
+        this.error = error;
+    }
+
+    /**
+     * 回调接口的 HTTP 状态（幂等层按它决定是否缓存）：
+     * 授权码被拒绝是最终结果（401，按授权码缓存）；提供方暂时不可用返回 502，幂等层不缓存，客户端可用同一个授权码重试；
+     * 授权码已消耗后过载返回 409（同样按授权码缓存），客户端需要重新登录
+     */
+    public int httpStatus() {
+        if (error == null) {
+            return 200;
+        }
+        if (UPSTREAM_UNAVAILABLE.equals(errorCode)) {
+            return 502;
+        }
+        return OAUTH_RESTART_REQUIRED.equals(errorCode) ? 409 : 401;
+    }
+
     public String getStatus() {
         return status;
     }
@@ -47,4 +79,12 @@ public class AuthResponse {
     public void setError(String error) {
         this.error = error;
     }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
 }
@@ -0,0 +1,42 @@
+package org.example.ghostlink.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 会话证明中单个凭证的结果，失败只影响该凭证自己
+ *
+ * @param status     success | error
+ * @param zkProof    成功时的证明
+ * @param user       GitHub 凭证附带的用户信息
+ * @param errorCode  失败时的错误码（与各单凭证接口一致，如 OVERLOADED、DEADLINE_EXCEEDED、PDF_BUSY）
+ * @param message    失败原因
+ * @param retryAfter OVERLOADED 时建议的重试间隔（秒）
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CredentialResult(
+        String status,
+        ZkProof zkProof,
+        Object user,
+        String errorCode,
+        String message,
+        Long retryAfter
+) {
+
+    public static CredentialResult success(ZkProof zkProof, Object user) {
+        return new CredentialResult("success", zkProof, user, null, null, null);
+    }
+
+    public static CredentialResult error(String errorCode, String message) {
+        return new CredentialResult("error", null, null, errorCode, message, null);
+    }
+
+    public static CredentialResult overloaded(String message, long retryAfter) {
+        return new CredentialResult("error", null, null, "OVERLOADED", message, retryAfter);
+    }
+
+    @JsonIgnore
+    public boolean isSuccess() {
+        return "success".equals(status);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.ghostlink.model;
+
+import java.util.List;
+
+/**
+ * GitHub 开发者等级需要的附加字段
+ *
+ * @param ownedRepos            自己拥有的非 fork 仓库数
+ * @param totalStars            这些仓库的 star 总数（GraphQL 只统计 star 最多的 repo-nodes 个仓库）；null 表示不提供
+ * @param contributionsLastYear 近一年贡献数；REST 模式下只能用公开事件（最近 90 天、最多 300 条）近似；null 表示不提供
+ * @param organizations         所属组织 login
+ * @param source                graphql | rest | rest-fallback
+ */
+public record GithubEnrichment(
+        int ownedRepos,
+        Long totalStars,
+        Integer contributionsLastYear,
+        List<String> organizations,
+        String source
+) {
+
+    public static final String SOURCE_REST_FALLBACK = "rest-fallback";
+
+    /**
+     * GraphQL 失败回退到 REST 时使用：去掉两种方式口径不同的字段（star 统计范围、贡献的近似方式），
+     * 同一配置下证明里的字段含义不会因为回退而改变
+     */
+    public GithubEnrichment withoutApproximations() {
+        return new GithubEnrichment(ownedRepos, null, null, organizations, SOURCE_REST_FALLBACK);
+    }
+}
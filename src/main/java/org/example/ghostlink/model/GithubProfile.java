@@ -0,0 +1,15 @@
+package org.example.ghostlink.model;
+
+/**
+ * GitHub /user 响应中证明需要的字段（其余字段解析时直接跳过）
+ *
+ * @param createdAt ISO 8601
+ */
+public record GithubProfile(
+        long id,
+        String login,
+        String createdAt,
+        int publicRepos,
+        int followers
+) {
+}
@@ -1,7 +1,5 @@
 package org.example.ghostlink.model;
 
-import java.util.Map;
-
 public class GithubUser {
     private Long id;
     private String login;
@@ -10,11 +8,11 @@ public class GithubUser {
 
     public GithubUser() {}
 
-    public GithubUser(Map<String, Object> data) {
-        this.id = ((Number) data.get("id")).longValue();
-        this.login = (String) data.get("login");
-        this.createdAt = (String) data.get("created_at");
-        this.followers = (Integer) data.get("followers");
+    public GithubUser(GithubProfile profile) {
+        this.id = profile.id();
+        this.login = profile.login();
+        this.createdAt = profile.createdAt();
+        this.followers = profile.followers();
     }
 
     public Long getId() {
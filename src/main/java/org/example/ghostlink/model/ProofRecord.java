@@ -0,0 +1,19 @@
+package org.example.ghostlink.model;
+
+/**
+ * 证明历史记录（持久化到 ProofLog）
+ *
+ * @param credentialType github | twitter | alipay | wallet
+ * @param recipient      接收地址（小写）
+ */
+public record ProofRecord(
+        String proofId,
+        String credentialType,
+        String recipient,
+        String nullifier,
+        String imageId,
+        String journal,
+        String receipt,
+        long timestamp
+) {
+}
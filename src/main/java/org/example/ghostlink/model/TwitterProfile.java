@@ -0,0 +1,15 @@
+package org.example.ghostlink.model;
+
+/**
+ * Twitter /2/users/me 响应中证明需要的字段（data 下的其余字段解析时直接跳过）
+ *
+ * @param id             数字字符串
+ * @param followersCount public_metrics.followers_count，缺失时为 0
+ */
+public record TwitterProfile(
+        String id,
+        String username,
+        String createdAt,
+        long followersCount
+) {
+}
@@ -1,7 +1,5 @@
 package org.example.ghostlink.model;
 
-import java.util.Map;
-
 public class TwitterUser {
     private String id;
     private String username;
@@ -10,16 +8,11 @@ public class TwitterUser {
 
     public TwitterUser() {}
 
-    @SuppressWarnings("unchecked")
-    public TwitterUser(Map<String, Object> data) {
-        this.id = (String) data.get("id");
-        this.username = (String) data.get("username");
-        this.createdAt = (String) data.get("created_at");
-        
-        Map<String, Object> metrics = (Map<String, Object>) data.get("public_metrics");
-        if (metrics != null) {
-            this.followersCount = (Integer) metrics.get("followers_count");
-        }
+    public TwitterUser(TwitterProfile profile) {
+        this.id = profile.id();
+        this.username = profile.username();
+        this.createdAt = profile.createdAt();
+        this.followersCount = (int) Math.min(Integer.MAX_VALUE, profile.followersCount());
     }
 
     // Getters and Setters
@@ -1,38 +1,37 @@
 package org.example.ghostlink.model;
 
-import java.util.Map;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.HexFormat;
 
 /**
  * ZkProof 零知识证明数据模型
  * 适配RISC Zero零知识证明的数据结构
+ * 不可变；receipt / journal / imageId / nullifier 以原始字节保存，
+ * 只在 getter（JSON 序列化）时才渲染成带 0x 前缀的十六进制字符串。
  * @author kuangyp
  * @version 2025-01-27
  */
-public class ZkProof {
-    private String proofId;
-    private boolean verified;
-    private long timestamp;
-    
-    // RISC Zero 证明数据
-    private String receipt;      // Receipt的十六进制字符串（bytes）
-    private String journal;      // Journal的十六进制字符串（bytes32）
-    private String imageId;      // Image ID（用于验证）
-    private String nullifier;    // Nullifier（防止双花）
-    
-    // 原始数据（用于调试，可选）
-    private Map<String, Object> data;
+@JsonIgnoreProperties(value = "receiptUrl", allowGetters = true)
+public final class ZkProof {
 
-    public ZkProof() {
-    }
+    private static final HexFormat HEX = HexFormat.of();
 
-    public ZkProof(String proofId, boolean verified, long timestamp, Map<String, Object> data) {
-        this.proofId = proofId;
-        this.verified = verified;
-        this.timestamp = timestamp;
-        this.data = data;
-    }
+    private final String proofId;
+    private final boolean verified;
+    private final long timestamp;
 
-    public ZkProof(String proofId, boolean verified, long timestamp, String receipt, String journal, String imageId, String nullifier) {
+    // RISC Zero 证明数据
+    private final byte[] receipt;      // Receipt（bytes）
+    private final byte[] journal;      // Journal
+    private final byte[] imageId;      // Image ID（用于验证）
+    private final byte[] nullifier;    // Nullifier（防止双花）
+    private final String receiptDigest; // Receipt 的 sha256，较大的 receipt 不内联，按摘要下载
+
+    private ZkProof(String proofId, boolean verified, long timestamp, byte[] receipt, byte[] journal,
+                    byte[] imageId, byte[] nullifier, String receiptDigest) {
         this.proofId = proofId;
         this.verified = verified;
         this.timestamp = timestamp;
@@ -40,69 +39,109 @@ public class ZkProof {
         this.journal = journal;
         this.imageId = imageId;
         this.nullifier = nullifier;
+        this.receiptDigest = receiptDigest;
+    }
+
+    /**
+     * 由 prover 返回的十六进制字段构造已验证的证明，有无 0x 前缀均可
+     *
+     * @throws IllegalArgumentException 字段不是合法的十六进制
+     */
+    @JsonCreator
+    public static ZkProof fromHex(
+            @JsonProperty("proofId") String proofId,
+            @JsonProperty("verified") boolean verified,
+            @JsonProperty("timestamp") long timestamp,
+            @JsonProperty("receipt") String receipt,
+            @JsonProperty("journal") String journal,
+            @JsonProperty("imageId") String imageId,
+            @JsonProperty("nullifier") String nullifier,
+            @JsonProperty("receiptDigest") String receiptDigest
+    ) {
+        return new ZkProof(proofId, verified, timestamp, parse(receipt), parse(journal), parse(imageId),
+                parse(nullifier), receiptDigest);
+    }
+
+    /**
+     * 验证失败（或调用失败）的证明，不带任何证明数据
+     */
+    public static ZkProof failed(String proofId, long timestamp) {
+        return new ZkProof(proofId, false, timestamp, null, null, null, null, null);
     }
 
     public String getProofId() {
         return proofId;
     }
 
-    public void setProofId(String proofId) {
-        this.proofId = proofId;
-    }
-
     public boolean isVerified() {
         return verified;
     }
 
-    public void setVerified(boolean verified) {
-        this.verified = verified;
-    }
-
     public long getTimestamp() {
         return timestamp;
     }
 
-    public void setTimestamp(long timestamp) {
-        this.timestamp = timestamp;
+    public String getReceipt() {
+        return render(receipt);
     }
 
-    public String getReceipt() {
-        return receipt;
+    public String getJournal() {
+        return render(journal);
     }
 
-    public void setReceipt(String receipt) {
-        this.receipt = receipt;
+    public String getImageId() {
+        return render(imageId);
     }
 
-    public String getJournal() {
-        return journal;
+    public String getNullifier() {
+        return render(nullifier);
     }
 
-    public void setJournal(String journal) {
-        this.journal = journal;
+    public String getReceiptDigest() {
+        return receiptDigest;
     }
 
-    public String getImageId() {
-        return imageId;
+    /**
+     * Receipt 下载地址（GET，支持 Range / ETag）
+     */
+    public String getReceiptUrl() {
+        return receiptDigest == null ? null : "/api/v1/receipts/" + receiptDigest;
     }
 
-    public void setImageId(String imageId) {
-        this.imageId = imageId;
+    /**
+     * 原始字节（副本），给 gRPC 等二进制出口使用；没有该字段时为 null
+     */
+    public byte[] receiptBytes() {
+        return copy(receipt);
     }
 
-    public String getNullifier() {
-        return nullifier;
+    public byte[] journalBytes() {
+        return copy(journal);
     }
 
-    public void setNullifier(String nullifier) {
-        this.nullifier = nullifier;
+    public byte[] imageIdBytes() {
+        return copy(imageId);
+    }
+
+    public byte[] nullifierBytes() {
+        return copy(nullifier);
+    }
+
+    private static byte[] parse(String hex) {
+        if (hex == null) {
+            return null;
+        }
+        return HEX.parseHex(hex, hex.startsWith("0x") ? 2 : 0, hex.length());
     }
 
-    public Map<String, Object> getData() {
-        return data;
+    private static String render(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        return HEX.formatHex(new StringBuilder(2 + bytes.length * 2).append("0x"), bytes).toString();
     }
 
-    public void setData(Map<String, Object> data) {
-        this.data = data;
+    private static byte[] copy(byte[] bytes) {
+        return bytes == null ? null : bytes.clone();
     }
 }
@@ -0,0 +1,204 @@
+package org.example.ghostlink.service;
+
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 自适应并发上限（gradient + AIMD）
+ * 以近期最小延迟作为“无负载延迟”基线，每个样本按 gradient = tolerance × 基线 / 当前延迟（限制在 0.5~1）调整：
+ * newLimit = limit × gradient + √limit，再做平滑。依赖变慢时上限收缩，恢复后按 √limit 逐步放大；
+ * 超时 / 5xx / 429 等过载信号直接乘性减小（AIMD）。
+ * 基线是 baseline-window 内的滑动最小值，依赖长期变慢后会在一个窗口内重新建立基线。
+ * 超过上限的请求立即拒绝（{@link ConcurrencyLimitExceededException}），不排队。
+ */
+public class AdaptiveLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long baselineWindowNanos;
+    private final LongSupplier clock;
+
+    private double limit;
+    private int inflight;
+    private long rejected;
+    // 两段滑动窗口的最小延迟：当前窗口 + 上一个窗口
+    private long windowMin = Long.MAX_VALUE;
+    private long previousWindowMin = Long.MAX_VALUE;
+    private long windowStart;
+    private double smoothedRtt;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, double tolerance, Duration baselineWindow) {
+        this(name, initialLimit, minLimit, maxLimit, tolerance, baselineWindow, System::nanoTime);
+    }
+
+    AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, double tolerance, Duration baselineWindow,
+                    LongSupplier clock) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits for " + name + ": " + minLimit + ".." + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.tolerance = tolerance;
+        this.baselineWindowNanos = baselineWindow.toNanos();
+        this.clock = clock;
+        this.windowStart = clock.getAsLong();
+    }
+
+    /**
+     * 获取一个并发名额，用 try-with-resources 归还；超过上限时立即抛出
+     */
+    public Permit acquire() {
+        synchronized (this) {
+            if (inflight >= (int) limit) {
+                rejected++;
+                throw new ConcurrencyLimitExceededException(name, retryAfterSeconds());
+            }
+            inflight++;
+            return new Permit(clock.getAsLong(), inflight);
+        }
+    }
+
+    /**
+     * 不占用名额的准入检查：当前已满时和 {@link #acquire()} 一样立即拒绝。
+     * 用于在做不可撤销的前置步骤（如消耗一次性的 OAuth 授权码）之前先确认后续依赖还有余量
+     */
+    public void checkHeadroom() {
+        synchronized (this) {
+            if (inflight >= (int) limit) {
+                rejected++;
+                throw new ConcurrencyLimitExceededException(name, retryAfterSeconds());
+            }
+        }
+    }
+
+    /**
+     * 在名额内执行出站 HTTP 调用；正常返回计入延迟样本，超时、连接失败、5xx、429 计为过载，其他 4xx 不计
+     */
+    public <T> T call(Supplier<T> call) {
+        try (Permit permit = acquire()) {
+            try {
+                T result = call.get();
+                permit.succeeded();
+                return result;
+            } catch (ResourceAccessException | HttpServerErrorException | HttpClientErrorException.TooManyRequests e) {
+                permit.dropped();
+                throw e;
+            }
+        }
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inflight() {
+        return inflight;
+    }
+
+    public synchronized long rejected() {
+        return rejected;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 当前基线（无负载延迟），无样本时为 0
+     */
+    public synchronized long baselineNanos() {
+        long baseline = Math.min(windowMin, previousWindowMin);
+        return baseline == Long.MAX_VALUE ? 0 : baseline;
+    }
+
+    /**
+     * 建议的重试间隔：按平均延迟估算一个名额空出来的时间，至少 1 秒
+     */
+    private long retryAfterSeconds() {
+        double seconds = smoothedRtt / 1e9 / Math.max(1, limit);
+        return Math.max(1, Math.min(30, (long) Math.ceil(seconds)));
+    }
+
+    synchronized void onSample(long rttNanos, int inflightAtStart, boolean dropped) {
+        long now = clock.getAsLong();
+        if (now - windowStart >= baselineWindowNanos) {
+            previousWindowMin = windowMin;
+            windowMin = Long.MAX_VALUE;
+            windowStart = now;
+        }
+        rttNanos = Math.max(1, rttNanos);
+        smoothedRtt = smoothedRtt == 0 ? rttNanos : smoothedRtt * 0.9 + rttNanos * 0.1;
+
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            return;
+        }
+        windowMin = Math.min(windowMin, rttNanos);
+        long baseline = Math.min(windowMin, previousWindowMin);
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / rttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        if (gradient >= 1.0 && inflightAtStart < limit / 2) {
+            // 流量本身没把名额用到一半，不能说明依赖还能承受更多
+            return;
+        }
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private synchronized void release() {
+        inflight--;
+    }
+
+    public final class Permit implements AutoCloseable {
+        private final long startNanos;
+        private final int inflightAtStart;
+        private boolean succeeded;
+        private boolean dropped;
+        private boolean closed;
+
+        private Permit(long startNanos, int inflightAtStart) {
+            this.startNanos = startNanos;
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        /**
+         * 标记调用成功，延迟计入样本；既没有 succeeded 也没有 dropped 的调用只归还名额
+         */
+        public void succeeded() {
+            succeeded = true;
+        }
+
+        /**
+         * 标记这次调用遇到了过载信号（超时、5xx、429、prover 不可用）
+         */
+        public void dropped() {
+            dropped = true;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            release();
+            // 快速失败（参数错误等）的延迟不能进入样本，否则会把基线拉低
+            if (dropped || succeeded) {
+                onSample(clock.getAsLong() - startNanos, inflightAtStart, dropped);
+            }
+        }
+    }
+}
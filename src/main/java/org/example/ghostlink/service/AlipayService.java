@@ -1,14 +1,14 @@
 package org.example.ghostlink.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.example.ghostlink.jfr.PdfExtractEvent;
 import org.example.ghostlink.model.ZkProof;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -27,6 +27,18 @@ public class AlipayService {
 
     @Autowired
     private ZkProofService zkProofService;
+
+    @Autowired
+    private ProofHistoryService proofHistoryService;
+
+    @Autowired
+    private ProofEventService proofEvents;
+
+    @Autowired
+    private PdfProcessingPool pdfProcessingPool;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
     
     // 默认资产门槛（元）
     private static final String DEFAULT_THRESHOLD = "10000";
@@ -40,13 +52,29 @@ public class AlipayService {
      * @throws SecurityException If the PDF is unsigned or verification fails
      */
     public Map<String, String> verifyAndExtractBalance(MultipartFile file) throws IOException {
-        try (PDDocument document = PDDocument.load(file.getBytes())) {
+        return verifyAndExtractBalance(file.getBytes());
+    }
+
+    /**
+     * Same as {@link #verifyAndExtractBalance(MultipartFile)} but on raw PDF bytes
+     * (used by the startup warm-up).
+     */
+    public Map<String, String> verifyAndExtractBalance(byte[] pdf) throws IOException {
+        return Observation.createNotStarted("ghostlink.alipay.pdf", observationRegistry)
+                .highCardinalityKeyValue("pdf.bytes", String.valueOf(pdf.length))
+                .observeChecked(() -> extract(pdf));
+    }
+
+    private Map<String, String> extract(byte[] pdf) throws IOException {
+        // 解析和提取在 PDF 隔离池中执行（内存预算 + 单文档时限）
+        return pdfProcessingPool.process(pdf, document -> {
             // 1. Security Check: Verify Digital Signature
             verifySignature(document);
 
             // 2. Content Extraction: Get all text from the PDF
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
+            String text = Observation.createNotStarted("ghostlink.alipay.pdf.text", observationRegistry)
+                    .highCardinalityKeyValue("pdf.pages", String.valueOf(document.getNumberOfPages()))
+                    .observeChecked(() -> extractText(document));
 
             // 3. Logic: Extract asset amount and ID number
             Map<String, String> results = new HashMap<>();
@@ -55,7 +83,20 @@ public class AlipayService {
             results.put("idNumber", idNumber);
             results.put("id_number_hash", keccak256Hash(idNumber));
             return results;
+        });
+    }
+
+    private static String extractText(PDDocument document) throws IOException {
+        PdfExtractEvent event = new PdfExtractEvent();
+        event.begin();
+        String text = PdfProcessingPool.newTextStripper().getText(document);
+        event.end();
+        if (event.shouldCommit()) {
+            event.pages = document.getNumberOfPages();
+            event.textChars = text.length();
+            event.commit();
         }
+        return text;
     }
 
     /**
@@ -67,16 +108,25 @@ public class AlipayService {
      * @return ZK证明对象
      */
     public ZkProof verifyAndGenerateProof(MultipartFile file, String recipient, String threshold) throws IOException {
+        return verifyAndGenerateProof(file.getBytes(), recipient, threshold);
+    }
+
+    /**
+     * 同 {@link #verifyAndGenerateProof(MultipartFile, String, String)}，调用方已读出 PDF 内容时避免再复制一次
+     */
+    public ZkProof verifyAndGenerateProof(byte[] pdf, String recipient, String threshold) throws IOException {
         // 1. 验证并提取数据
-        Map<String, String> extractedData = verifyAndExtractBalance(file);
+        Map<String, String> extractedData = verifyAndExtractBalance(pdf);
         String balance = extractedData.get("balance");
         String idNumber = extractedData.get("idNumber");
         
-        // 2. 对身份证号进行 keccak256 哈希
-        String idNumberHash = keccak256Hash(idNumber);
+        // 2. 对身份证号进行 keccak256 哈希（未识别出合法身份证号时不再把 "Not Found" 的哈希送去证明）
+        String idNumberHash = ProofRequestValidator.isValidIdNumber(idNumber) ? keccak256Hash(idNumber) : null;
         
-        // 3. 调用 ZK 服务生成证明
-        return callZkService(balance, idNumberHash, threshold != null ? threshold : DEFAULT_THRESHOLD, recipient);
+        // 3. 调用 ZK 服务生成证明（余额低于门槛等情况由校验阶段直接拒绝）
+        String effectiveThreshold = threshold != null ? threshold : DEFAULT_THRESHOLD;
+        return Observation.createNotStarted("ghostlink.alipay.prove", observationRegistry)
+                .observe(() -> callZkService(balance, idNumberHash, effectiveThreshold, recipient));
     }
 
     /**
@@ -192,50 +242,45 @@ public class AlipayService {
             System.out.println("请求数据: " + objectMapper.writeValueAsString(request));
             
             // 直接调用本地服务生成证明 (Refactored to avoid self-HTTP call)
-            Map<String, String> responseBody = zkProofService.generateMockProof(request);
+            Map<String, String> responseBody = zkProofService.prove(request);
             
             // 打印完整的响应体到控制台
             System.out.println("ZK服务响应: " + objectMapper.writeValueAsString(responseBody));
             
             if (responseBody != null && "success".equals(responseBody.get("status"))) {
-                // 解析真实接口返回的数据
-                String receiptHex = (String) responseBody.get("receipt_hex");
-                String journalHex = (String) responseBody.get("journal_hex");
-                String imageIdHex = (String) responseBody.get("image_id_hex");
-                String nullifierHex = (String) responseBody.get("nullifier_hex");
-                
-                // 确保添加0x前缀（如果接口返回的没有）
-                String receipt = receiptHex != null && !receiptHex.startsWith("0x") ? "0x" + receiptHex : receiptHex;
-                String journal = journalHex != null && !journalHex.startsWith("0x") ? "0x" + journalHex : journalHex;
-                String imageId = imageIdHex != null && !imageIdHex.startsWith("0x") ? "0x" + imageIdHex : imageIdHex;
-                String nullifier = nullifierHex != null && !nullifierHex.startsWith("0x") ? "0x" + nullifierHex : nullifierHex;
-                
-                return new ZkProof(
-                        "zk-alipay-" + System.currentTimeMillis(),
+                // 有无 0x 前缀均可，解析成字节保存
+                ZkProof zkProof = ZkProof.fromHex(
+                        ProofIds.next("alipay"),
                         true,
                         System.currentTimeMillis(),
-                        receipt,
-                        journal,
-                        imageId,
-                        nullifier
+                        (String) responseBody.get("receipt_hex"),
+                        (String) responseBody.get("journal_hex"),
+                        (String) responseBody.get("image_id_hex"),
+                        (String) responseBody.get("nullifier_hex"),
+                        (String) responseBody.get(ReceiptService.DIGEST_FIELD)
                 );
+                proofHistoryService.record("alipay", recipient, zkProof);
+                proofEvents.completed("alipay", recipient, zkProof);
+                return zkProof;
             } else {
                 // 处理错误响应
                 String errorCode = (String) responseBody.get("error_code");
                 String errorMessage = (String) responseBody.get("message");
                 System.out.println("ZK服务返回错误 - Code: " + errorCode + ", Message: " + errorMessage);
+                proofEvents.failed("alipay", recipient, errorCode, errorMessage);
             }
+        } catch (ProofRequestRejectedException e) {
+            proofEvents.failed("alipay", recipient, e.getErrorCode(), e.getMessage());
+            throw e;
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
             System.out.println("调用ZK服务异常: " + e.getMessage());
+            proofEvents.failed("alipay", recipient, "INTERNAL_ERROR", e.getMessage());
             e.printStackTrace();
         }
         
         // 如果调用失败，返回验证失败的对象
-        return new ZkProof(
-                "zk-fail-" + System.currentTimeMillis(),
-                false,
-                System.currentTimeMillis(),
-                null, null, null, null
-        );
+        return ZkProof.failed(ProofIds.next("fail"), System.currentTimeMillis());
     }
 }
@@ -0,0 +1,37 @@
+package org.example.ghostlink.service;
+
+/**
+ * 依赖的自适应并发上限已满，请求被立即拒绝（对外返回 503 + Retry-After）
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public static final String ERROR_CODE = "OVERLOADED";
+
+    private final String dependency;
+    private final long retryAfterSeconds;
+
+    public ConcurrencyLimitExceededException(String dependency, long retryAfterSeconds) {
+        this(dependency, retryAfterSeconds, dependency + " is at its concurrency limit, please retry in " + retryAfterSeconds + "s");
+    }
+
+    protected ConcurrencyLimitExceededException(String dependency, long retryAfterSeconds, String message) {
+        super(message);
+        this.dependency = dependency;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getDependency() {
+        return dependency;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * 对外的错误码，子类可以覆盖（如停机排空时的 SHUTTING_DOWN）
+     */
+    public String getErrorCode() {
+        return ERROR_CODE;
+    }
+}
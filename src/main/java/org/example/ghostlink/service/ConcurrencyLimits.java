@@ -0,0 +1,74 @@
+package org.example.ghostlink.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 各依赖（prover / github / twitter）的自适应并发上限
+ * 配置：ghostlink.limiter.&lt;dependency&gt;.initial / min / max，
+ * 指标：ghostlink.limiter.limit、ghostlink.limiter.inflight、ghostlink.limiter.rejected（tag dependency）
+ */
+@Service
+public class ConcurrencyLimits {
+
+    private final Map<String, AdaptiveLimiter> limiters = new LinkedHashMap<>();
+
+    @Autowired
+    public ConcurrencyLimits(
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${ghostlink.limiter.tolerance:1.5}") double tolerance,
+            @Value("${ghostlink.limiter.baseline-window:60s}") Duration baselineWindow
+    ) {
+        for (String dependency : new String[]{LoadMonitor.PROVER, LoadMonitor.GITHUB, LoadMonitor.TWITTER}) {
+            String prefix = "ghostlink.limiter." + dependency + ".";
+            AdaptiveLimiter limiter = new AdaptiveLimiter(dependency,
+                    environment.getProperty(prefix + "initial", Integer.class, 20),
+                    environment.getProperty(prefix + "min", Integer.class, 2),
+                    environment.getProperty(prefix + "max", Integer.class, 200),
+                    tolerance, baselineWindow);
+            limiters.put(dependency, limiter);
+            Gauge.builder("ghostlink.limiter.limit", limiter, AdaptiveLimiter::limit)
+                    .tag("dependency", dependency)
+                    .description("Current adaptive concurrency limit")
+                    .register(meterRegistry);
+            Gauge.builder("ghostlink.limiter.inflight", limiter, AdaptiveLimiter::inflight)
+                    .tag("dependency", dependency)
+                    .register(meterRegistry);
+            FunctionCounter.builder("ghostlink.limiter.rejected", limiter, AdaptiveLimiter::rejected)
+                    .tag("dependency", dependency)
+                    .description("Requests shed because the dependency was at its concurrency limit")
+                    .register(meterRegistry);
+        }
+    }
+
+    public AdaptiveLimiter get(String dependency) {
+        AdaptiveLimiter limiter = limiters.get(dependency);
+        if (limiter == null) {
+            throw new IllegalArgumentException("No concurrency limiter for " + dependency);
+        }
+        return limiter;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        for (AdaptiveLimiter limiter : limiters.values()) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("limit", limiter.limit());
+            info.put("inflight", limiter.inflight());
+            info.put("rejected", limiter.rejected());
+            info.put("baselineMs", limiter.baselineNanos() / 1_000_000);
+            snapshot.put(limiter.name(), info);
+        }
+        return snapshot;
+    }
+}
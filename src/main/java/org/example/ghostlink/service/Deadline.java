@@ -0,0 +1,137 @@
+package org.example.ghostlink.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 请求级截止时间
+ * 入口（HTTP 的 DeadlineFilter、gRPC 调用）创建并绑定到当前线程，之后每一步用剩余预算作为超时：
+ * - {@link #check(String)}：开始一步之前检查，已过期则跳过（抛出 {@link DeadlineExceededException}）
+ * - {@link #cap(Duration)}：把该步骤自己的超时截短到剩余预算
+ * - {@link #interceptor(String)} / {@link DeadlineRequestFactory}：出站 HTTP 调用同样受限，超时后转换成截止异常
+ * 被放弃的工作计入 ghostlink.deadline.abandoned（stage、reason = expired / timeout / insufficient）。
+ * 没有绑定截止时间的线程（启动恢复、预热等后台任务）不受限制。
+ */
+public final class Deadline {
+
+    /**
+     * 客户端声明的超时（如 30s、1500ms；纯数字按毫秒）
+     */
+    public static final String HEADER = "X-Request-Timeout";
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+    private final MeterRegistry meterRegistry;
+
+    private Deadline(long expiresAtNanos, MeterRegistry meterRegistry) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static Deadline after(Duration budget, MeterRegistry meterRegistry) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), meterRegistry);
+    }
+
+    /**
+     * 当前线程绑定的截止时间，没有时为 null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 绑定到当前线程，关闭时恢复之前的绑定
+     */
+    public Scope bind() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 当前线程的截止时间已过时放弃 stage，不开始这一步
+     */
+    public static void check(String stage) {
+        Deadline deadline = current();
+        if (deadline != null && deadline.isExpired()) {
+            throw deadline.abandon(stage, "expired");
+        }
+    }
+
+    /**
+     * 该步骤可用的超时：配置值与剩余预算中较小者；没有截止时间时原样返回
+     */
+    public static Duration cap(Duration timeout) {
+        Deadline deadline = current();
+        if (deadline == null) {
+            return timeout;
+        }
+        Duration remaining = deadline.remaining();
+        return timeout == null || remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * 计数并构造异常，由调用方抛出
+     *
+     * @param reason expired（开始前已过期）、timeout（进行中被截止时间打断）、insufficient（剩余预算不够完成这一步）
+     */
+    public DeadlineExceededException abandon(String stage, String reason) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("ghostlink.deadline.abandoned", "stage", stage, "reason", reason).increment();
+        }
+        System.out.println("请求截止时间已到，放弃 " + stage + " (" + reason + ")");
+        return new DeadlineExceededException(stage, "Request deadline exceeded before " + stage + " completed");
+    }
+
+    /**
+     * 出站请求前检查截止时间；请求因超时失败且截止时间已过时转换成 {@link DeadlineExceededException}
+     * 需要配合 {@link DeadlineRequestFactory} 才会把连接 / 读取超时截短到剩余预算
+     */
+    public static ClientHttpRequestInterceptor interceptor(String stage) {
+        return (request, body, execution) -> {
+            Deadline deadline = current();
+            if (deadline == null) {
+                return execution.execute(request, body);
+            }
+            check(stage);
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                // HttpURLConnection 发送请求体后到读取状态行时才等待响应，在这里读取，超时才能被转换
+                response.getStatusCode();
+                return response;
+            } catch (IOException e) {
+                if (deadline.isExpired()) {
+                    throw deadline.abandon(stage, "timeout");
+                }
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * 绑定范围，关闭时解除
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.ghostlink.service;
+
+/**
+ * 请求的截止时间已过，剩余步骤被跳过或取消（对外返回 504 / gRPC DEADLINE_EXCEEDED）
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public static final String ERROR_CODE = "DEADLINE_EXCEEDED";
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage, String message) {
+        super(message);
+        this.stage = stage;
+    }
+
+    /**
+     * 被放弃的步骤（github / twitter / pdf / prover ...）
+     */
+    public String getStage() {
+        return stage;
+    }
+}
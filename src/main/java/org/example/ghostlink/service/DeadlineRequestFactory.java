@@ -0,0 +1,35 @@
+package org.example.ghostlink.service;
+
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+
+/**
+ * 每个连接的连接 / 读取超时取配置值与当前 {@link Deadline} 剩余预算中较小者
+ * 通过 RestTemplateBuilder.requestFactoryBuilder({@link #builder()}) 使用，builder 上配置的超时照常生效。
+ */
+public class DeadlineRequestFactory extends SimpleClientHttpRequestFactory {
+
+    public static ClientHttpRequestFactoryBuilder<DeadlineRequestFactory> builder() {
+        return ClientHttpRequestFactoryBuilder.of(DeadlineRequestFactory::new);
+    }
+
+    @Override
+    protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+        super.prepareConnection(connection, httpMethod);
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return;
+        }
+        // 0 表示不超时；剩余不足 1ms 时按 1ms，由 Deadline 拦截器把超时转换成截止异常
+        int remaining = (int) Math.min(Integer.MAX_VALUE, Math.max(1, deadline.remaining().toMillis()));
+        connection.setConnectTimeout(capped(connection.getConnectTimeout(), remaining));
+        connection.setReadTimeout(capped(connection.getReadTimeout(), remaining));
+    }
+
+    private static int capped(int timeout, int remaining) {
+        return timeout <= 0 ? remaining : Math.min(timeout, remaining);
+    }
+}
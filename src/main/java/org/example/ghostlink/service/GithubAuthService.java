@@ -1,16 +1,25 @@
 package org.example.ghostlink.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.example.ghostlink.jfr.OAuthCallRecorder;
 import org.example.ghostlink.model.AuthResponse;
+import org.example.ghostlink.model.GithubEnrichment;
+import org.example.ghostlink.model.GithubProfile;
 import org.example.ghostlink.model.GithubUser;
 import org.example.ghostlink.model.ZkProof;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -22,16 +31,43 @@ public class GithubAuthService {
     private final String clientId;
     private final String clientSecret;
     private final ZkProofService zkProofService;
+    private final ProofHistoryService proofHistoryService;
+    private final ProofEventService proofEvents;
+    private final LoadMonitor loadMonitor;
+    private final GithubEnrichmentService enrichmentService;
+    private final AdaptiveLimiter githubLimiter;
+    private final ObservationRegistry observationRegistry;
+    // 由 RestTemplateBuilder 构建，出站请求带 HTTP client span 并注入 traceparent；另记录 JFR OAuthCall 事件
+    private final RestTemplate restTemplate;
 
     @Autowired
     public GithubAuthService(
             @Value("${ghostlink.github.client-id:}") String clientId,
             @Value("${ghostlink.github.client-secret:}") String clientSecret,
-            ZkProofService zkProofService
+            ZkProofService zkProofService,
+            ProofHistoryService proofHistoryService,
+            ProofEventService proofEvents,
+            LoadMonitor loadMonitor,
+            ConcurrencyLimits concurrencyLimits,
+            RateLimitScheduler rateLimitScheduler,
+            GithubEnrichmentService enrichmentService,
+            ObservationRegistry observationRegistry,
+            RestTemplateBuilder restTemplateBuilder
     ) {
         this.clientId = clientId;
         this.clientSecret = clientSecret;
         this.zkProofService = zkProofService;
+        this.proofHistoryService = proofHistoryService;
+        this.proofEvents = proofEvents;
+        this.loadMonitor = loadMonitor;
+        this.githubLimiter = concurrencyLimits.get(LoadMonitor.GITHUB);
+        this.enrichmentService = enrichmentService;
+        this.observationRegistry = observationRegistry;
+        this.restTemplate = restTemplateBuilder
+                .requestFactoryBuilder(DeadlineRequestFactory.builder())
+                .additionalInterceptors(Deadline.interceptor(LoadMonitor.GITHUB), new OAuthCallRecorder(),
+                        rateLimitScheduler.interceptor(LoadMonitor.GITHUB))
+                .build();
     }
 
     /**
@@ -42,13 +78,29 @@ public class GithubAuthService {
             return new AuthResponse("GitHub OAuth 配置缺失：请设置 GHOSTLINK_GITHUB_CLIENT_ID / GHOSTLINK_GITHUB_CLIENT_SECRET");
         }
         // 1. 用 Code 换取 Access Token
-        String accessToken = exchangeCodeForToken(code, redirectUri);
+        // 授权码只能用一次：先确认 prover 有余量、剩余截止时间够一次证明再换 token，
+        // 此时返回的 503 / 504 可以用同一个授权码重试。
+        // token 交换本身在 githubLimiter 名额内执行，被拒绝时请求没有发出，授权码同样未被消耗
+        zkProofService.checkAdmission();
+        String accessToken;
+        try {
+            accessToken = Observation.createNotStarted("ghostlink.github.token-exchange", observationRegistry)
+                    .observe(() -> exchangeCodeForToken(code, redirectUri));
+        } catch (RestClientException e) {
+            // 超时 / 5xx 不能说明授权码无效，返回可重试的错误（幂等层不缓存）
+            System.err.println("GitHub Token Exchange Unavailable: " + e.getMessage());
+            return new AuthResponse(AuthResponse.UPSTREAM_UNAVAILABLE, "GitHub is temporarily unavailable, please retry");
+        }
         if (accessToken == null) {
             return new AuthResponse("Failed to retrieve access token from GitHub");
         }
 
         // 2. 继续原有的验证流程
-        return authenticate(accessToken, recipient);
+        try {
+            return authenticate(accessToken, recipient);
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            return restartRequired(e);
+        }
     }
 
     public AuthResponse authenticate(String accessToken, String recipient) {
@@ -57,15 +109,23 @@ public class GithubAuthService {
         }
 
         // 1. 获取 GitHub 用户信息
-        Map<String, Object> githubUserData = fetchGithubUser(accessToken);
-        if (githubUserData == null || githubUserData.containsKey("error")) {
+        GithubProfile profile = Observation.createNotStarted("ghostlink.github.fetch-user", observationRegistry)
+                .observe(() -> fetchGithubUser(accessToken));
+        if (profile == null) {
             return new AuthResponse("Invalid GitHub Token");
         }
         
-        GithubUser githubUser = new GithubUser(githubUserData);
+        GithubUser githubUser = new GithubUser(profile);
+
+        // 开发者等级需要的附加字段（可选，失败时为 null）
+        GithubEnrichment enrichment = enrichmentService.isEnabled()
+                ? Observation.createNotStarted("ghostlink.github.enrich", observationRegistry)
+                        .observe(() -> enrichmentService.enrich(accessToken, profile.login()))
+                : null;
 
         // 2. 调用 ZK 服务生成证明
-        ZkProof zkProof = callZkService(githubUserData, recipient);
+        ZkProof zkProof = Observation.createNotStarted("ghostlink.github.prove", observationRegistry)
+                .observe(() -> callZkService(profile, enrichment, recipient));
 
         // 3. 返回结果
         if (zkProof != null && zkProof.isVerified()) {
@@ -75,8 +135,21 @@ public class GithubAuthService {
         }
     }
 
+    /**
+     * 授权码已消耗后被限流或超过截止时间：不能再返回可重试的 503 / 504，告诉客户端重新发起 GitHub 登录
+     */
+    private static AuthResponse restartRequired(RuntimeException e) {
+        System.out.println("GitHub 授权码已使用，后续步骤过载或超时: " + e.getMessage());
+        return new AuthResponse(AuthResponse.OAUTH_RESTART_REQUIRED,
+                e.getMessage() + "; the authorization code has been used, please sign in with GitHub again");
+    }
+
+    /**
+     * 用授权码换取 access token；GitHub 明确拒绝（授权码无效、已使用等）时返回 null
+     *
+     * @throws RestClientException 网络错误、超时或 5xx，结果未知
+     */
     private String exchangeCodeForToken(String code, String redirectUri) {
-        RestTemplate restTemplate = new RestTemplate();
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.set("Accept", "application/json");
@@ -92,14 +165,21 @@ public class GithubAuthService {
         HttpEntity<Map<String, String>> entity = new HttpEntity<>(body, headers);
 
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(GITHUB_ACCESS_TOKEN_URL, entity, Map.class);
+            ResponseEntity<Map> response;
+            try (LoadMonitor.Sample ignored = loadMonitor.begin(LoadMonitor.GITHUB)) {
+                response = githubLimiter.call(() -> restTemplate.postForEntity(GITHUB_ACCESS_TOKEN_URL, entity, Map.class));
+            }
             Map<String, Object> responseBody = response.getBody();
             if (responseBody != null && responseBody.containsKey("access_token")) {
                 return (String) responseBody.get("access_token");
             }
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             System.err.println("GitHub Token Exchange Failed: " + e.getStatusCode() + " " + e.getResponseBodyAsString());
             e.printStackTrace();
+        } catch (RestClientException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("GitHub Token Exchange Exception: " + e.getMessage());
             e.printStackTrace();
@@ -107,23 +187,34 @@ public class GithubAuthService {
         return null;
     }
 
-    private Map<String, Object> fetchGithubUser(String accessToken) {
-        RestTemplate restTemplate = new RestTemplate();
+    /**
+     * 获取 GitHub 用户信息，响应流直接解析成 {@link GithubProfile}；令牌无效或响应异常时返回 null
+     */
+    private GithubProfile fetchGithubUser(String accessToken) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-        try {
-            ResponseEntity<Map> response = restTemplate.exchange(
+        try (LoadMonitor.Sample ignored = loadMonitor.begin(LoadMonitor.GITHUB)) {
+            return githubLimiter.call(() -> restTemplate.execute(
                     GITHUB_USER_API,
                     HttpMethod.GET,
-                    entity,
-                    Map.class
-            );
-            return response.getBody();
+                    restTemplate.httpEntityCallback(entity),
+                    response -> {
+                        try {
+                            return ProfileReader.readGithubUser(response.getBody());
+                        } catch (JsonProcessingException e) {
+                            // 响应格式错误不是传输错误，避免被 RestTemplate 包装成 ResourceAccessException 计为过载
+                            throw new RestClientException("Invalid GitHub user response", e);
+                        }
+                    }
+            ));
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
-            return Map.of("error", e.getMessage());
+            return null;
         }
     }
 
@@ -131,17 +222,27 @@ public class GithubAuthService {
      * 调用 ZK 服务生成证明
      * 按照 risc_zero_spec.md 规范构造请求
      */
-    private ZkProof callZkService(Map<String, Object> githubUserData, String recipient) {
+    private ZkProof callZkService(GithubProfile profile, GithubEnrichment enrichment, String recipient) {
         try {
             ObjectMapper objectMapper = new ObjectMapper();
             
             // 按照规范构造 data 对象
             Map<String, Object> data = new HashMap<>();
-            data.put("user_id", githubUserData.get("id"));  // Number
-            data.put("username", githubUserData.get("login"));  // String
-            data.put("created_at", githubUserData.get("created_at"));  // String (ISO 8601)
-            Object publicRepos = githubUserData.get("public_repos");
-            data.put("public_repos", publicRepos != null ? publicRepos : 0);  // Number
+            data.put("user_id", profile.id());  // Number
+            data.put("username", profile.login());  // String
+            data.put("created_at", profile.createdAt());  // String (ISO 8601)
+            data.put("public_repos", profile.publicRepos());  // Number
+            if (enrichment != null) {
+                data.put("owned_repos", enrichment.ownedRepos());  // Number
+                // GraphQL 回退到 REST 时不提供口径不同的字段
+                if (enrichment.totalStars() != null) {
+                    data.put("total_stars", enrichment.totalStars());  // Number
+                }
+                if (enrichment.contributionsLastYear() != null) {
+                    data.put("contributions_last_year", enrichment.contributionsLastYear());  // Number
+                }
+                data.put("organizations", enrichment.organizations());  // String[]
+            }
             
             // 构造符合规范的请求体
             Map<String, Object> request = new HashMap<>();
@@ -154,50 +255,45 @@ public class GithubAuthService {
             System.out.println("请求数据: " + objectMapper.writeValueAsString(request));
             
             // 调用本地 Service
-            Map<String, String> responseBody = zkProofService.generateMockProof(request);
+            Map<String, String> responseBody = zkProofService.prove(request);
             
             // 打印响应 (Keeping existing logging structure)
             System.out.println("ZK服务响应: " + objectMapper.writeValueAsString(responseBody));
             
             if (responseBody != null && "success".equals(responseBody.get("status"))) {
-                // 解析真实接口返回的数据
-                String receiptHex = (String) responseBody.get("receipt_hex");
-                String journalHex = (String) responseBody.get("journal_hex");
-                String imageIdHex = (String) responseBody.get("image_id_hex");
-                String nullifierHex = (String) responseBody.get("nullifier_hex");
-                
-                // 确保添加0x前缀（如果接口返回的没有）
-                String receipt = receiptHex != null && !receiptHex.startsWith("0x") ? "0x" + receiptHex : receiptHex;
-                String journal = journalHex != null && !journalHex.startsWith("0x") ? "0x" + journalHex : journalHex;
-                String imageId = imageIdHex != null && !imageIdHex.startsWith("0x") ? "0x" + imageIdHex : imageIdHex;
-                String nullifier = nullifierHex != null && !nullifierHex.startsWith("0x") ? "0x" + nullifierHex : nullifierHex;
-                
-                return new ZkProof(
-                        "zk-github-" + System.currentTimeMillis(),
+                // 有无 0x 前缀均可，解析成字节保存
+                ZkProof zkProof = ZkProof.fromHex(
+                        ProofIds.next("github"),
                         true,
                         System.currentTimeMillis(),
-                        receipt,
-                        journal,
-                        imageId,
-                        nullifier
+                        (String) responseBody.get("receipt_hex"),
+                        (String) responseBody.get("journal_hex"),
+                        (String) responseBody.get("image_id_hex"),
+                        (String) responseBody.get("nullifier_hex"),
+                        (String) responseBody.get(ReceiptService.DIGEST_FIELD)
                 );
+                proofHistoryService.record("github", recipient, zkProof);
+                proofEvents.completed("github", recipient, zkProof);
+                return zkProof;
             } else {
                 // 处理错误响应
                 String errorCode = (String) responseBody.get("error_code");
                 String errorMessage = (String) responseBody.get("message");
                 System.out.println("ZK服务返回错误 - Code: " + errorCode + ", Message: " + errorMessage);
+                proofEvents.failed("github", recipient, errorCode, errorMessage);
             }
+        } catch (ProofRequestRejectedException e) {
+            proofEvents.failed("github", recipient, e.getErrorCode(), e.getMessage());
+            throw e;
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
             System.out.println("调用ZK服务异常: " + e.getMessage());
+            proofEvents.failed("github", recipient, "INTERNAL_ERROR", e.getMessage());
             e.printStackTrace();
         }
         
         // 如果调用失败，返回验证失败的对象
-        return new ZkProof(
-                "zk-fail-" + System.currentTimeMillis(),
-                false,
-                System.currentTimeMillis(),
-                null, null, null, null
-        );
+        return ZkProof.failed(ProofIds.next("fail"), System.currentTimeMillis());
     }
 }
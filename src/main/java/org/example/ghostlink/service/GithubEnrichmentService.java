@@ -0,0 +1,300 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.ghostlink.jfr.OAuthCallRecorder;
+import org.example.ghostlink.model.GithubEnrichment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * GitHub 凭证附加字段（仓库、star、贡献、组织）
+ * ghostlink.github.enrichment.mode：
+ * - off：不获取（默认）
+ * - graphql：一次 GraphQL 查询取回所有字段，只查询 fields 中配置的字段；
+ *   连接只取 totalCount，需要 star 时才取前 repo-nodes 个仓库的 stargazerCount，控制 GitHub 的查询成本
+ * - rest：等价的 REST 扇出（/user/repos、/user/orgs、/users/{login}/events 分页，三组请求并行）
+ * GraphQL 失败时回退到 REST，但不带口径不同的 star 和贡献数（source 为 rest-fallback）；两者都失败返回 null，不影响登录。
+ */
+@Service
+public class GithubEnrichmentService {
+
+    public static final String FIELD_REPOS = "repos";
+    public static final String FIELD_STARS = "stars";
+    public static final String FIELD_CONTRIBUTIONS = "contributions";
+    public static final String FIELD_ORGANIZATIONS = "organizations";
+
+    private static final int PAGE_SIZE = 100;
+    // 公开事件 API 最多返回 300 条
+    private static final int MAX_EVENT_PAGES = 3;
+
+    private final String mode;
+    private final String apiUrl;
+    private final Set<String> fields;
+    private final int repoNodes;
+    private final LoadMonitor loadMonitor;
+    private final AdaptiveLimiter githubLimiter;
+    private final RestTemplate restTemplate;
+    private final DistributionSummary graphqlCost;
+
+    @Autowired
+    public GithubEnrichmentService(
+            @Value("${ghostlink.github.enrichment.mode:off}") String mode,
+            @Value("${ghostlink.github.api-url:https://api.github.com}") String apiUrl,
+            @Value("${ghostlink.github.enrichment.fields:repos,stars,contributions,organizations}") Set<String> fields,
+            @Value("${ghostlink.github.enrichment.repo-nodes:100}") int repoNodes,
+            LoadMonitor loadMonitor,
+            ConcurrencyLimits concurrencyLimits,
+            RateLimitScheduler rateLimitScheduler,
+            RestTemplateBuilder restTemplateBuilder,
+            MeterRegistry meterRegistry
+    ) {
+        this.mode = mode;
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.fields = new LinkedHashSet<>(fields);
+        this.repoNodes = Math.max(1, Math.min(PAGE_SIZE, repoNodes));
+        this.loadMonitor = loadMonitor;
+        this.githubLimiter = concurrencyLimits.get(LoadMonitor.GITHUB);
+        this.restTemplate = restTemplateBuilder
+                .requestFactoryBuilder(DeadlineRequestFactory.builder())
+                .additionalInterceptors(Deadline.interceptor(LoadMonitor.GITHUB), new OAuthCallRecorder(),
+                        rateLimitScheduler.interceptor(LoadMonitor.GITHUB))
+                .build();
+        this.graphqlCost = DistributionSummary.builder("ghostlink.github.graphql.cost")
+                .description("GitHub GraphQL rate limit points used per enrichment query")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return !"off".equals(mode);
+    }
+
+    /**
+     * 按配置的模式获取附加字段，失败时返回 null
+     */
+    public GithubEnrichment enrich(String accessToken, String login) {
+        boolean fallback = false;
+        if ("graphql".equals(mode)) {
+            try {
+                return enrichWithGraphql(accessToken);
+            } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                System.out.println("GitHub GraphQL 查询失败，回退到 REST: " + e.getMessage());
+                fallback = true;
+            }
+        }
+        if (!isEnabled()) {
+            return null;
+        }
+        try {
+            GithubEnrichment enrichment = enrichWithRest(accessToken, login);
+            return fallback ? enrichment.withoutApproximations() : enrichment;
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            System.out.println("GitHub REST 附加字段获取失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 构造 GraphQL 查询，只包含需要的字段
+     */
+    String graphqlQuery() {
+        StringBuilder query = new StringBuilder("query { viewer { login");
+        if (fields.contains(FIELD_REPOS) || fields.contains(FIELD_STARS)) {
+            // 只要数量时取 1 个节点即可（GitHub 要求连接必须带 first）
+            int nodes = fields.contains(FIELD_STARS) ? repoNodes : 1;
+            query.append(" repositories(ownerAffiliations: OWNER, isFork: false, first: ").append(nodes)
+                    .append(", orderBy: {field: STARGAZERS, direction: DESC}) { totalCount");
+            if (fields.contains(FIELD_STARS)) {
+                query.append(" nodes { stargazerCount }");
+            }
+            query.append(" }");
+        }
+        if (fields.contains(FIELD_CONTRIBUTIONS)) {
+            query.append(" contributionsCollection { contributionCalendar { totalContributions } }");
+        }
+        if (fields.contains(FIELD_ORGANIZATIONS)) {
+            query.append(" organizations(first: ").append(PAGE_SIZE).append(") { nodes { login } }");
+        }
+        return query.append(" } rateLimit { cost remaining } }").toString();
+    }
+
+    GithubEnrichment enrichWithGraphql(String accessToken) {
+        HttpHeaders headers = headers(accessToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        JsonNode body = call(apiUrl + "/graphql", HttpMethod.POST,
+                new HttpEntity<>(Map.of("query", graphqlQuery()), headers));
+        if (body == null || body.hasNonNull("errors") || !body.path("data").hasNonNull("viewer")) {
+            throw new IllegalStateException("GraphQL errors: " + (body == null ? "empty response" : body.path("errors")));
+        }
+        JsonNode cost = body.path("data").path("rateLimit").path("cost");
+        if (cost.isNumber()) {
+            graphqlCost.record(cost.asDouble());
+        }
+
+        JsonNode viewer = body.path("data").path("viewer");
+        JsonNode repositories = viewer.path("repositories");
+        long stars = 0;
+        for (JsonNode repo : repositories.path("nodes")) {
+            stars += repo.path("stargazerCount").asLong();
+        }
+        List<String> organizations = new ArrayList<>();
+        for (JsonNode org : viewer.path("organizations").path("nodes")) {
+            organizations.add(org.path("login").asText());
+        }
+        return new GithubEnrichment(
+                repositories.path("totalCount").asInt(),
+                stars,
+                viewer.path("contributionsCollection").path("contributionCalendar").path("totalContributions").asInt(),
+                organizations,
+                "graphql");
+    }
+
+    /**
+     * 三组请求在虚拟线程上并行；每个子任务重新绑定调用方的截止时间（出站请求的超时随之截短），
+     * 等待也不超过剩余预算，超时后中断仍在进行的请求
+     */
+    GithubEnrichment enrichWithRest(String accessToken, String login) {
+        HttpEntity<Void> entity = new HttpEntity<>(headers(accessToken));
+        Deadline deadline = Deadline.current();
+        ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<long[]> repos = fanOut.submit(bound(deadline, () -> fields.contains(FIELD_REPOS) || fields.contains(FIELD_STARS)
+                    ? countRepos(entity) : new long[2]));
+            Future<List<String>> organizations = fanOut.submit(bound(deadline, () -> fields.contains(FIELD_ORGANIZATIONS)
+                    ? listOrganizations(entity) : List.of()));
+            Future<Integer> contributions = fanOut.submit(bound(deadline, () -> fields.contains(FIELD_CONTRIBUTIONS)
+                    ? countContributions(entity, login) : 0));
+            long[] repoCounts = await(repos, deadline);
+            return new GithubEnrichment((int) repoCounts[0], repoCounts[1], await(contributions, deadline),
+                    await(organizations, deadline), "rest");
+        } catch (TimeoutException e) {
+            throw deadline.abandon(LoadMonitor.GITHUB, "timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching GitHub enrichment", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            fanOut.shutdownNow();
+        }
+    }
+
+    private static <T> Callable<T> bound(Deadline deadline, Callable<T> task) {
+        return () -> {
+            try (Deadline.Scope ignored = deadline != null ? deadline.bind() : null) {
+                return task.call();
+            }
+        };
+    }
+
+    private static <T> T await(Future<T> future, Deadline deadline)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return deadline == null ? future.get() : future.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return [非 fork 仓库数, star 总数]
+     */
+    private long[] countRepos(HttpEntity<Void> entity) {
+        long[] result = new long[2];
+        for (int page = 1; ; page++) {
+            JsonNode repos = call(apiUrl + "/user/repos?affiliation=owner&per_page=" + PAGE_SIZE + "&page=" + page,
+                    HttpMethod.GET, entity);
+            if (repos == null || !repos.isArray()) {
+                return result;
+            }
+            for (JsonNode repo : repos) {
+                if (!repo.path("fork").asBoolean()) {
+                    result[0]++;
+                    result[1] += repo.path("stargazers_count").asLong();
+                }
+            }
+            if (repos.size() < PAGE_SIZE) {
+                return result;
+            }
+        }
+    }
+
+    private List<String> listOrganizations(HttpEntity<Void> entity) {
+        List<String> organizations = new ArrayList<>();
+        for (int page = 1; ; page++) {
+            JsonNode orgs = call(apiUrl + "/user/orgs?per_page=" + PAGE_SIZE + "&page=" + page, HttpMethod.GET, entity);
+            if (orgs == null || !orgs.isArray()) {
+                return organizations;
+            }
+            for (JsonNode org : orgs) {
+                organizations.add(org.path("login").asText());
+            }
+            if (orgs.size() < PAGE_SIZE) {
+                return organizations;
+            }
+        }
+    }
+
+    /**
+     * REST 没有贡献统计，用公开事件近似：push 按提交数，PR / issue / review 各算 1
+     */
+    private int countContributions(HttpEntity<Void> entity, String login) {
+        int contributions = 0;
+        for (int page = 1; page <= MAX_EVENT_PAGES; page++) {
+            JsonNode events = call(apiUrl + "/users/" + login + "/events?per_page=" + PAGE_SIZE + "&page=" + page,
+                    HttpMethod.GET, entity);
+            if (events == null || !events.isArray()) {
+                return contributions;
+            }
+            for (JsonNode event : events) {
+                switch (event.path("type").asText()) {
+                    case "PushEvent" -> contributions += event.path("payload").path("size").asInt();
+                    case "PullRequestEvent", "IssuesEvent", "PullRequestReviewEvent" -> contributions++;
+                    default -> {
+                    }
+                }
+            }
+            if (events.size() < PAGE_SIZE) {
+                return contributions;
+            }
+        }
+        return contributions;
+    }
+
+    private JsonNode call(String url, HttpMethod method, HttpEntity<?> entity) {
+        try (LoadMonitor.Sample ignored = loadMonitor.begin(LoadMonitor.GITHUB)) {
+            return githubLimiter.call(() -> restTemplate.exchange(url, method, entity, JsonNode.class).getBody());
+        }
+    }
+
+    private static HttpHeaders headers(String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        return headers;
+    }
+}
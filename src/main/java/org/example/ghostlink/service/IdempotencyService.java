@@ -0,0 +1,208 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.ghostlink.store.StateStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 幂等键
+ * 同一个 (scope, key) 的重试直接返回第一次的响应，不再重复调用上游（OAuth 换 token、PDF 解析）和证明。
+ * 已完成的响应写入 StateStore（TTL + 容量上限，多副本共享）；
+ * 同一副本内并发的重试等待正在执行的那一次，其他副本上的并发重试返回 409 + Retry-After。
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // OAuth 回调的幂等范围，会话证明中的 OAuth 凭证共用
+    public static final String GITHUB_CALLBACK = "github-callback";
+    public static final String TWITTER_CALLBACK = "twitter-callback";
+
+    static final String NAMESPACE = "idempotency";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final StateStore stateStore;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration pendingTtl;
+    private final Duration joinTimeout;
+    private final Map<String, CompletableFuture<Stored>> inflight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(
+            StateStore stateStore,
+            ObjectMapper objectMapper,
+            @Value("${ghostlink.idempotency.ttl:24h}") Duration ttl,
+            @Value("${ghostlink.idempotency.pending-ttl:2m}") Duration pendingTtl,
+            @Value("${ghostlink.idempotency.join-timeout:90s}") Duration joinTimeout
+    ) {
+        this.stateStore = stateStore;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.pendingTtl = pendingTtl;
+        this.joinTimeout = joinTimeout;
+    }
+
+    /**
+     * 已保存（或正在执行）的响应；pending 为 true 时表示某个副本正在处理
+     */
+    record Stored(boolean pending, String fingerprint, int status, String body) {
+    }
+
+    /**
+     * 以幂等方式执行请求
+     *
+     * @param scope       端点标识，不同端点的键互不冲突
+     * @param key         幂等键，为空时直接执行
+     * @param fingerprint 请求内容指纹，同一个键搭配不同的请求返回 422
+     * @param action      实际的处理逻辑
+     */
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return error(400, HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String storeKey = scope + ":" + key;
+
+        Optional<Stored> existing = load(storeKey);
+        if (existing.isPresent() && !existing.get().pending()) {
+            return replay(existing.get(), fingerprint);
+        }
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inflight.putIfAbsent(storeKey, mine);
+        if (running != null) {
+            return join(running, fingerprint);
+        }
+
+        try {
+            // 跨副本抢占：写入 pending 标记，已存在则说明别的副本在处理或刚处理完
+            Optional<String> claimed = stateStore.putIfAbsent(NAMESPACE, storeKey,
+                    encode(new Stored(true, fingerprint, 0, null)), pendingTtl);
+            if (claimed.isPresent()) {
+                Stored other = decode(claimed.get());
+                mine.complete(other);
+                return other.pending() ? inProgress() : replay(other, fingerprint);
+            }
+
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                stateStore.remove(NAMESPACE, storeKey);
+                mine.completeExceptionally(e);
+                throw e;
+            }
+
+            Stored done = new Stored(false, fingerprint, response.getStatusCode().value(), encodeBody(response.getBody()));
+            if (done.status() >= 500) {
+                // 服务端错误允许重试
+                stateStore.remove(NAMESPACE, storeKey);
+            } else {
+                stateStore.put(NAMESPACE, storeKey, encode(done), ttl);
+            }
+            mine.complete(done);
+            return response;
+        } finally {
+            inflight.remove(storeKey, mine);
+        }
+    }
+
+    /**
+     * 由 OAuth 授权码派生的幂等键：授权码只能使用一次，同一个授权码的重试必然是同一次登录。
+     * 回调接口和会话证明使用同一个键，同一个授权码无论走哪个入口都只换一次 token
+     */
+    public static String codeKey(String code) {
+        return code == null || code.isBlank() ? null : "code-" + fingerprint(Map.of("code", code));
+    }
+
+    /**
+     * 请求内容指纹（按键排序后 JSON 的 SHA-256）
+     */
+    public static String fingerprint(Map<String, Object> request) {
+        return ZkProofService.fingerprint(request);
+    }
+
+    private ResponseEntity<?> join(CompletableFuture<Stored> running, String fingerprint) {
+        try {
+            Stored stored = running.get(joinTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return stored.pending() ? inProgress() : replay(stored, fingerprint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (TimeoutException e) {
+            return inProgress();
+        } catch (ExecutionException e) {
+            // 第一次执行抛出了异常，没有可复用的响应
+            return error(500, "Original request failed, please retry");
+        }
+    }
+
+    private ResponseEntity<?> replay(Stored stored, String fingerprint) {
+        if (fingerprint != null && !fingerprint.equals(stored.fingerprint())) {
+            return error(422, HEADER + " was already used with a different request");
+        }
+        return ResponseEntity.status(stored.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+
+    private ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(409)
+                .header("Retry-After", "2")
+                .body(Map.of("status", "error", "message", "A request with this " + HEADER + " is still in progress"));
+    }
+
+    private static ResponseEntity<?> error(int status, String message) {
+        return ResponseEntity.status(status).body(Map.of("status", "error", "message", message));
+    }
+
+    private Optional<Stored> load(String storeKey) {
+        return stateStore.get(NAMESPACE, storeKey).map(this::decode);
+    }
+
+    private String encodeBody(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response for idempotent replay", e);
+        }
+    }
+
+    private String encode(Stored stored) {
+        try {
+            return objectMapper.writeValueAsString(stored);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Stored decode(String json) {
+        try {
+            return objectMapper.readValue(json, Stored.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted idempotency entry in state store", e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.ghostlink.service;
+
+import org.example.ghostlink.crypto.Keccak256;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Journal / nullifier 校验，与 GhostLinkSBT.mint 保持一致
+ * 合约用 sha256(abi.encodePacked(msg.sender, nullifier, uint8(credType))) 作为 journal 哈希交给 verifier，
+ * 因此 journal 必须正好是 53 字节：recipient(20) || nullifier(32) || credType(1)。
+ * 返回给前端之前检查：
+ * - journal 长度和结构
+ * - journal 中的地址等于请求的 recipient（mint 的 msg.sender）
+ * - journal 中的 nullifier 等于响应里的 nullifier_hex
+ * - journal 中的 credType 等于请求的凭证类型（GITHUB=0, ALIPAY=1, TWITTER=2, WALLET=3）
+ * - 配置了 ghostlink.prover.image-id.&lt;type&gt; 时 image_id 必须一致（合约升级后旧 Guest 的证明无法 mint）
+ * - 开启 ghostlink.journal.check-nullifier-derivation 时，nullifier 还要等于按规范从请求数据推导的值
+ * 任何一项不符都会在 mint 时 revert 并白白消耗 gas。
+ */
+@Component
+public class JournalVerifier {
+
+    public static final int JOURNAL_LENGTH = 53;
+
+    private static final List<String> CREDENTIAL_TYPES = List.of("github", "alipay", "twitter", "wallet");
+    private static final Set<String> ZERO = Set.of("", "0x");
+
+    /**
+     * 校验结果；journalHash 是合约 calculateJournalHash 的结果（journal 无法解析时为 null）
+     */
+    public record Result(boolean valid, String journalHash, List<String> problems) {
+    }
+
+    private final Map<String, String> expectedImageIds = new HashMap<>();
+    private final boolean checkNullifierDerivation;
+
+    public JournalVerifier(
+            Environment environment,
+            @Value("${ghostlink.journal.check-nullifier-derivation:false}") boolean checkNullifierDerivation
+    ) {
+        for (String type : CREDENTIAL_TYPES) {
+            String imageId = environment.getProperty("ghostlink.prover.image-id." + type, "");
+            if (!imageId.isBlank()) {
+                expectedImageIds.put(type, strip(imageId).toLowerCase());
+            }
+        }
+        this.checkNullifierDerivation = checkNullifierDerivation;
+    }
+
+    /**
+     * 校验 prover 返回的证明（生成时调用，可以对照原始请求数据）
+     */
+    public Result verify(Map<String, Object> requestData, Map<String, String> response) {
+        String type = String.valueOf(requestData.get("credential_type"));
+        Object recipient = requestData.get("recipient");
+        Result result = verify(type, recipient != null ? recipient.toString() : null,
+                response.get("nullifier_hex"), response.get("journal_hex"), response.get("image_id_hex"));
+        if (!checkNullifierDerivation || !result.valid() || !(requestData.get("data") instanceof Map<?, ?> data)) {
+            return result;
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            byte[] expected = deriveNullifier(type, (Map<String, Object>) data);
+            if (!HexFormat.of().formatHex(expected).equalsIgnoreCase(strip(response.get("nullifier_hex")))) {
+                return new Result(false, result.journalHash(), List.of("nullifier does not match " + type + " identity"));
+            }
+        } catch (IllegalArgumentException e) {
+            return new Result(false, result.journalHash(), List.of("cannot derive nullifier: " + e.getMessage()));
+        }
+        return result;
+    }
+
+    /**
+     * 校验一个已有的证明（审计用）
+     *
+     * @param recipient 为 null 时不检查 journal 中的地址
+     */
+    public Result verify(String credentialType, String recipient, String nullifierHex, String journalHex, String imageIdHex) {
+        List<String> problems = new ArrayList<>();
+        int typeCode = CREDENTIAL_TYPES.indexOf(credentialType);
+        if (typeCode < 0) {
+            problems.add("unknown credential type " + credentialType);
+        }
+
+        byte[] journal = decode(journalHex);
+        byte[] nullifier = decode(nullifierHex);
+        if (nullifier == null || nullifier.length != 32) {
+            problems.add("nullifier must be 32 bytes");
+        }
+        if (journal == null || journal.length != JOURNAL_LENGTH) {
+            problems.add("journal must be " + JOURNAL_LENGTH + " bytes (address || nullifier || credType)");
+            return new Result(false, null, problems);
+        }
+
+        String journalAddress = "0x" + HexFormat.of().formatHex(journal, 0, 20);
+        if (recipient != null && !recipient.equalsIgnoreCase(journalAddress)) {
+            problems.add("journal recipient " + journalAddress + " does not match " + recipient.toLowerCase());
+        }
+        if (nullifier != null && nullifier.length == 32 && !MessageDigest.isEqual(Arrays.copyOfRange(journal, 20, 52), nullifier)) {
+            problems.add("nullifier does not match journal");
+        }
+        if (typeCode >= 0 && (journal[52] & 0xff) != typeCode) {
+            problems.add("journal credType " + (journal[52] & 0xff) + " does not match " + credentialType + " (" + typeCode + ")");
+        }
+        String expectedImageId = expectedImageIds.get(credentialType);
+        if (expectedImageId != null && !expectedImageId.equals(strip(imageIdHex).toLowerCase())) {
+            problems.add("stale image ID " + imageIdHex);
+        }
+        return new Result(problems.isEmpty(), "0x" + HexFormat.of().formatHex(sha256(journal)), problems);
+    }
+
+    /**
+     * abi.encodePacked(address, bytes32, uint8)
+     */
+    public static byte[] encodeJournal(String recipient, byte[] nullifier, String credentialType) {
+        byte[] address = decode(recipient);
+        if (address == null || address.length != 20 || nullifier.length != 32) {
+            throw new IllegalArgumentException("Invalid journal fields");
+        }
+        byte[] journal = new byte[JOURNAL_LENGTH];
+        System.arraycopy(address, 0, journal, 0, 20);
+        System.arraycopy(nullifier, 0, journal, 20, 32);
+        journal[52] = (byte) CREDENTIAL_TYPES.indexOf(credentialType);
+        return journal;
+    }
+
+    /**
+     * 按 risc_zero_spec.md 第 6 节推导 nullifier：keccak256(type || id...)
+     * 字符串字段按 UTF-8，十六进制字段（id_number_hash、address）按原始字节，chain_id 按 uint64 大端。
+     */
+    public static byte[] deriveNullifier(String credentialType, Map<String, Object> data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(credentialType.getBytes(StandardCharsets.UTF_8));
+        switch (credentialType) {
+            case "github", "twitter" -> out.writeBytes(required(data, "user_id").getBytes(StandardCharsets.UTF_8));
+            case "alipay" -> out.writeBytes(requiredHex(data, "id_number_hash", 32));
+            case "wallet" -> {
+                out.writeBytes(requiredHex(data, "address", 20));
+                long chainId = new BigInteger(required(data, "chain_id")).longValueExact();
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    out.write((int) (chainId >>> shift));
+                }
+            }
+            default -> throw new IllegalArgumentException("unknown credential type " + credentialType);
+        }
+        return Keccak256.hash(out.toByteArray());
+    }
+
+    private static String required(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalArgumentException("missing " + field);
+        }
+        return value.toString();
+    }
+
+    private static byte[] requiredHex(Map<String, Object> data, String field, int length) {
+        byte[] bytes = decode(required(data, field));
+        if (bytes == null || bytes.length != length) {
+            throw new IllegalArgumentException(field + " must be " + length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static byte[] decode(String hex) {
+        if (hex == null || ZERO.contains(hex)) {
+            return null;
+        }
+        try {
+            return HexFormat.of().parseHex(strip(hex));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String strip(String hex) {
+        if (hex == null) {
+            return "";
+        }
+        return hex.startsWith("0x") || hex.startsWith("0X") ? hex.substring(2) : hex;
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.ghostlink.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 负载监控
+ * 统计各依赖（prover / pdf / github / twitter）的在途请求数和近期延迟，
+ * 按资源池（prover、pdf、出站 HTTP）计算饱和度，供健康检查和容量端点使用。
+ * 窗口内样本少于 min-samples 时 p99 不计入饱和度：低流量下一次慢证明就是 p99，不应让实例摘除。
+ */
+@Service
+public class LoadMonitor {
+
+    public static final String PROVER = "prover";
+    public static final String PDF = "pdf";
+    public static final String GITHUB = "github";
+    public static final String TWITTER = "twitter";
+
+    // 资源池：github / twitter 共用出站 HTTP 池
+    public static final String POOL_PROVER = "prover";
+    public static final String POOL_PDF = "pdf";
+    public static final String POOL_HTTP = "http";
+
+    private final Map<String, Pool> pools = new LinkedHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final double degradedRatio;
+    private final double outOfRotationRatio;
+    private final int minSamples;
+
+    public LoadMonitor(
+            @Value("${ghostlink.capacity.prover.max-inflight:20}") int proverMax,
+            @Value("${ghostlink.capacity.prover.p99-slo:60s}") Duration proverSlo,
+            @Value("${ghostlink.capacity.pdf.max-inflight:8}") int pdfMax,
+            @Value("${ghostlink.capacity.pdf.p99-slo:5s}") Duration pdfSlo,
+            @Value("${ghostlink.capacity.http.max-inflight:50}") int httpMax,
+            @Value("${ghostlink.capacity.http.p99-slo:5s}") Duration httpSlo,
+            @Value("${ghostlink.capacity.degraded-ratio:0.7}") double degradedRatio,
+            @Value("${ghostlink.capacity.out-of-rotation-ratio:0.9}") double outOfRotationRatio,
+            @Value("${ghostlink.capacity.min-samples:20}") int minSamples
+    ) {
+        pools.put(POOL_PROVER, new Pool(proverMax, proverSlo));
+        pools.put(POOL_PDF, new Pool(pdfMax, pdfSlo));
+        pools.put(POOL_HTTP, new Pool(httpMax, httpSlo));
+        this.degradedRatio = degradedRatio;
+        this.outOfRotationRatio = outOfRotationRatio;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * 开始一次依赖调用，用 try-with-resources 结束计时
+     */
+    public Sample begin(String dependency) {
+        Pool pool = pools.get(poolOf(dependency));
+        pool.inflight.incrementAndGet();
+        return new Sample(dependency, pool, System.nanoTime());
+    }
+
+    public int inflight(String pool) {
+        return pools.get(pool).inflight.get();
+    }
+
+    /**
+     * 最近窗口内的 p99 延迟（毫秒），样本少于 min-samples 时为 0
+     */
+    public long p99Millis(String dependency) {
+        LatencyWindow window = latencies.get(dependency);
+        return window == null ? 0 : window.percentile(0.99, minSamples) / 1_000_000;
+    }
+
+    /**
+     * 最近窗口内的中位延迟（纳秒），无样本时为 0
+     */
+    public long medianNanos(String dependency) {
+        LatencyWindow window = latencies.get(dependency);
+        return window == null ? 0 : window.percentile(0.50, 1);
+    }
+
+    /**
+     * 0~1+ 的饱和度：在途/上限 与 p99/SLO 的最大值
+     */
+    public double pressure() {
+        double max = 0;
+        for (Map.Entry<String, Pool> e : pools.entrySet()) {
+            max = Math.max(max, poolPressure(e.getKey(), e.getValue()));
+        }
+        return max;
+    }
+
+    public double degradedRatio() {
+        return degradedRatio;
+    }
+
+    public double outOfRotationRatio() {
+        return outOfRotationRatio;
+    }
+
+    /**
+     * 容量快照
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> poolInfo = new LinkedHashMap<>();
+        for (Map.Entry<String, Pool> e : pools.entrySet()) {
+            Pool pool = e.getValue();
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("inflight", pool.inflight.get());
+            info.put("maxInflight", pool.maxInflight);
+            info.put("p99SloMs", pool.slo.toMillis());
+            info.put("pressure", round(poolPressure(e.getKey(), pool)));
+            poolInfo.put(e.getKey(), info);
+        }
+        Map<String, Object> latencyInfo = new LinkedHashMap<>();
+        for (String dependency : new String[]{PROVER, PDF, GITHUB, TWITTER}) {
+            LatencyWindow window = latencies.get(dependency);
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("samples", window == null ? 0 : window.count());
+            info.put("p50Ms", window == null ? 0 : window.percentile(0.50, 1) / 1_000_000);
+            info.put("p99Ms", p99Millis(dependency));
+            latencyInfo.put(dependency, info);
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("pressure", round(pressure()));
+        snapshot.put("pools", poolInfo);
+        snapshot.put("latency", latencyInfo);
+        snapshot.put("minSamples", minSamples);
+        return snapshot;
+    }
+
+    private double poolPressure(String poolName, Pool pool) {
+        double utilization = pool.maxInflight > 0 ? (double) pool.inflight.get() / pool.maxInflight : 0;
+        long worstP99 = 0;
+        for (Map.Entry<String, LatencyWindow> e : latencies.entrySet()) {
+            if (poolName.equals(poolOf(e.getKey()))) {
+                worstP99 = Math.max(worstP99, e.getValue().percentile(0.99, minSamples));
+            }
+        }
+        double latency = (double) worstP99 / pool.slo.toNanos();
+        return Math.max(utilization, latency);
+    }
+
+    private static String poolOf(String dependency) {
+        switch (dependency) {
+            case PROVER:
+                return POOL_PROVER;
+            case PDF:
+                return POOL_PDF;
+            default:
+                return POOL_HTTP;
+        }
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000) / 1000.0;
+    }
+
+    private static final class Pool {
+        final AtomicInteger inflight = new AtomicInteger();
+        final int maxInflight;
+        final Duration slo;
+
+        Pool(int maxInflight, Duration slo) {
+            this.maxInflight = maxInflight;
+            this.slo = slo;
+        }
+    }
+
+    public final class Sample implements AutoCloseable {
+        private final String dependency;
+        private final Pool pool;
+        private final long startNanos;
+        private boolean closed;
+
+        private Sample(String dependency, Pool pool, long startNanos) {
+            this.dependency = dependency;
+            this.pool = pool;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pool.inflight.decrementAndGet();
+            latencies.computeIfAbsent(dependency, d -> new LatencyWindow())
+                    .record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 最近 1024 个样本（且不超过 60 秒）的环形缓冲区
+     */
+    static final class LatencyWindow {
+        private static final int SIZE = 1024;
+        private static final long MAX_AGE_NANOS = Duration.ofSeconds(60).toNanos();
+
+        private final AtomicLongArray values = new AtomicLongArray(SIZE);
+        private final AtomicLongArray times = new AtomicLongArray(SIZE);
+        private final AtomicLong next = new AtomicLong();
+
+        void record(long nanos) {
+            int i = (int) (next.getAndIncrement() & (SIZE - 1));
+            values.set(i, nanos);
+            times.set(i, System.nanoTime());
+        }
+
+        int count() {
+            return (int) Math.min(next.get(), SIZE);
+        }
+
+        /**
+         * 窗口内未过期样本的分位数，样本少于 minSamples 时为 0
+         */
+        long percentile(double p, int minSamples) {
+            long now = System.nanoTime();
+            int n = count();
+            long[] recent = new long[n];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                if (now - times.get(i) <= MAX_AGE_NANOS) {
+                    recent[m++] = values.get(i);
+                }
+            }
+            if (m < Math.max(1, minSamples)) {
+                return 0;
+            }
+            Arrays.sort(recent, 0, m);
+            return recent[Math.min(m - 1, (int) Math.ceil(p * m) - 1)];
+        }
+    }
+}
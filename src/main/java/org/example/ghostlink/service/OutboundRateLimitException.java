@@ -0,0 +1,12 @@
+package org.example.ghostlink.service;
+
+/**
+ * 上游 API 的限流额度已用完，且等到重置时间会超过 max-wait，请求被立即拒绝（同样返回 503 + Retry-After）
+ */
+public class OutboundRateLimitException extends ConcurrencyLimitExceededException {
+
+    public OutboundRateLimitException(String provider, String bucket, long retryAfterSeconds) {
+        super(provider, retryAfterSeconds,
+                provider + " rate limit for " + bucket + " is exhausted, please retry in " + retryAfterSeconds + "s");
+    }
+}
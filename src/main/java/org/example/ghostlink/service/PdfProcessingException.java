@@ -0,0 +1,37 @@
+package org.example.ghostlink.service;
+
+/**
+ * PDF 隔离池拒绝或中止了一次处理
+ */
+public class PdfProcessingException extends RuntimeException {
+
+    public enum Reason {
+        /** 估算内存超过整个预算，永远无法处理 */
+        TOO_LARGE(413),
+        /** 队列已满或等待内存预算超时，可稍后重试 */
+        BUSY(503),
+        /** 超过单文档处理时限，已取消 */
+        DEADLINE(422);
+
+        private final int status;
+
+        Reason(int status) {
+            this.status = status;
+        }
+
+        public int status() {
+            return status;
+        }
+    }
+
+    private final Reason reason;
+
+    public PdfProcessingException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.ghostlink.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.example.ghostlink.jfr.PdfLoadEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PDF 隔离池（bulkhead）
+ * PDF 解析和文本提取不再占用 servlet 线程，统一在专用线程池里执行：
+ * - 全局堆预算：按 文件大小 × memory-factor 估算每个文档的内存，预算用完时排队等待，等不到返回 BUSY；
+ *   PDFBox 的缓冲同样限制在估算值内，超出部分落到临时文件
+ * - 单文档时限：超时后取消任务并中断线程，文本提取在每个内容流操作符处检查中断
+ * - 指标：ghostlink.pdf.pool.*（排队、执行中、预算占用、等待/执行耗时、拒绝次数）
+ * 这样恶意或畸形的 PDF 最多占满这个池，不会拖慢 OAuth 等其他接口。
+ */
+@Service
+public class PdfProcessingPool {
+
+    private static final int KB = 1024;
+
+    /**
+     * 在隔离池里对已加载的文档执行的处理逻辑
+     */
+    @FunctionalInterface
+    public interface PdfTask<T> {
+        T apply(PDDocument document) throws IOException;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore budget;
+    private final int budgetKb;
+    private final int memoryFactor;
+    private final Duration queueTimeout;
+    private final Duration timeout;
+    private final LoadMonitor loadMonitor;
+    private final ObservationRegistry observationRegistry;
+    private final Timer waitTimer;
+    private final Timer executionTimer;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public PdfProcessingPool(
+            @Value("${ghostlink.pdf.pool.threads:0}") int threads,
+            @Value("${ghostlink.pdf.pool.queue-capacity:32}") int queueCapacity,
+            @Value("${ghostlink.pdf.pool.heap-budget-mb:0}") long heapBudgetMb,
+            @Value("${ghostlink.pdf.pool.memory-factor:10}") int memoryFactor,
+            @Value("${ghostlink.pdf.pool.queue-timeout:2s}") Duration queueTimeout,
+            @Value("${ghostlink.pdf.pool.timeout:10s}") Duration timeout,
+            LoadMonitor loadMonitor,
+            ObservationRegistry observationRegistry,
+            MeterRegistry meterRegistry
+    ) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "pdf-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // 未配置时取最大堆的 1/4
+        long budgetBytes = heapBudgetMb > 0 ? heapBudgetMb * KB * KB : Runtime.getRuntime().maxMemory() / 4;
+        this.budgetKb = (int) Math.min(Integer.MAX_VALUE, budgetBytes / KB);
+        this.budget = new Semaphore(budgetKb, true);
+        this.memoryFactor = memoryFactor;
+        this.queueTimeout = queueTimeout;
+        this.timeout = timeout;
+        this.loadMonitor = loadMonitor;
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("ghostlink.pdf.pool.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("ghostlink.pdf.pool.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("ghostlink.pdf.pool.budget.used", this, p -> (double) (p.budgetKb - p.budget.availablePermits()) * KB)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("ghostlink.pdf.pool.budget.max", this, p -> (double) p.budgetKb * KB)
+                .baseUnit("bytes").register(meterRegistry);
+        this.waitTimer = Timer.builder("ghostlink.pdf.pool.wait")
+                .description("Time from submission until a worker starts the document (budget + queue)")
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("ghostlink.pdf.pool.execution").register(meterRegistry);
+        System.out.println("PDF 隔离池 - Threads: " + poolSize + ", Queue: " + queueCapacity
+                + ", Heap budget: " + budgetBytes / (KB * KB) + "MB, Timeout: " + timeout);
+    }
+
+    /**
+     * 在隔离池中加载 PDF 并执行 task，调用线程最多等待 queue-timeout + timeout（均不超过请求剩余的截止预算）
+     *
+     * @throws PdfProcessingException    超出预算、排队失败或超时
+     * @throws DeadlineExceededException 请求的截止时间先到
+     * @throws IOException            PDF 本身无法解析
+     */
+    public <T> T process(byte[] pdf, PdfTask<T> task) throws IOException {
+        long submitted = System.nanoTime();
+        long estimate = Math.max(KB * KB, (long) pdf.length * memoryFactor);
+        int permits = (int) Math.min(Integer.MAX_VALUE, (estimate + KB - 1) / KB);
+        if (permits > budgetKb) {
+            throw reject(PdfProcessingException.Reason.TOO_LARGE,
+                    "PDF too large to process (" + pdf.length + " bytes)");
+        }
+        // 排队和执行的等待都不超过请求剩余的截止预算
+        Deadline.check(LoadMonitor.PDF);
+        try {
+            if (!budget.tryAcquire(permits, Deadline.cap(queueTimeout).toNanos(), TimeUnit.NANOSECONDS)) {
+                Deadline deadline = Deadline.current();
+                if (deadline != null && deadline.isExpired()) {
+                    throw deadline.abandon(LoadMonitor.PDF, "expired");
+                }
+                throw reject(PdfProcessingException.Reason.BUSY, "PDF processing is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(PdfProcessingException.Reason.BUSY, "Interrupted while waiting for PDF processing");
+        }
+
+        // claimed 保证预算只释放一次：任务开始后由 worker 释放，未开始就被取消则由调用方释放
+        AtomicBoolean claimed = new AtomicBoolean();
+        Observation parent = observationRegistry.getCurrentObservation();
+        // 预热标记是 ThreadLocal，随 parent 一起带到 worker 上，否则预热期间的 PDF 处理仍会产生 span
+        boolean warmingUp = WarmupService.isWarmupThread();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                try (Observation.Scope ignored = parent != null ? parent.openScope() : null) {
+                    return WarmupService.callAsWarmup(warmingUp,
+                            () -> executionTimer.recordCallable(() -> run(pdf, estimate, task)));
+                } finally {
+                    budget.release(permits);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            budget.release(permits);
+            throw reject(PdfProcessingException.Reason.BUSY, "PDF processing queue is full, please retry");
+        }
+
+        try {
+            return future.get(Deadline.cap(timeout).toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancel(future, claimed, permits);
+            Deadline deadline = Deadline.current();
+            if (deadline != null && deadline.isExpired()) {
+                throw deadline.abandon(LoadMonitor.PDF, "timeout");
+            }
+            throw reject(PdfProcessingException.Reason.DEADLINE,
+                    "PDF processing exceeded " + timeout.toMillis() + "ms and was cancelled");
+        } catch (InterruptedException e) {
+            cancel(future, claimed, permits);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for PDF processing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 能被取消的文本提取器：每个内容流操作符前检查线程中断
+     */
+    public static PDFTextStripper newTextStripper() throws IOException {
+        return new PDFTextStripper() {
+            @Override
+            protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("PDF text extraction cancelled");
+                }
+                super.processOperator(operator, operands);
+            }
+        };
+    }
+
+    private <T> T run(byte[] pdf, long estimate, PdfTask<T> task) throws IOException {
+        try (LoadMonitor.Sample ignored = loadMonitor.begin(LoadMonitor.PDF);
+             PDDocument document = load(pdf, estimate)) {
+            return task.apply(document);
+        }
+    }
+
+    private static PDDocument load(byte[] pdf, long maxMainMemory) throws IOException {
+        PdfLoadEvent event = new PdfLoadEvent();
+        event.begin();
+        PDDocument document = PDDocument.load(pdf, "", null, null, MemoryUsageSetting.setupMixed(maxMainMemory));
+        event.end();
+        if (event.shouldCommit()) {
+            event.pdfBytes = pdf.length;
+            event.pages = document.getNumberOfPages();
+            event.commit();
+        }
+        return document;
+    }
+
+    private void cancel(Future<?> future, AtomicBoolean claimed, int permits) {
+        if (claimed.compareAndSet(false, true)) {
+            // 还没开始执行，预算由这里归还
+            budget.release(permits);
+        }
+        future.cancel(true);
+    }
+
+    private PdfProcessingException reject(PdfProcessingException.Reason reason, String message) {
+        meterRegistry.counter("ghostlink.pdf.pool.rejected", "reason", reason.name().toLowerCase()).increment();
+        return new PdfProcessingException(reason, message);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
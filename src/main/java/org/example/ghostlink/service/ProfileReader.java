@@ -0,0 +1,128 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.example.ghostlink.model.GithubProfile;
+import org.example.ghostlink.model.TwitterProfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * GitHub / Twitter 用户信息的流式解析
+ * 直接从响应流按 token 读取证明需要的几个字段，其余字段（GitHub /user 有几十个）用 skipChildren 跳过，
+ * 不再先反序列化成装箱对象组成的 Map 再逐个强转。
+ */
+public final class ProfileReader {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private ProfileReader() {
+    }
+
+    /**
+     * 解析 GitHub GET /user 响应
+     *
+     * @throws IOException 响应不是 JSON 对象或缺少 id / login
+     */
+    public static GithubProfile readGithubUser(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expectObject(parser);
+            long id = 0;
+            String login = null;
+            String createdAt = null;
+            int publicRepos = 0;
+            int followers = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id" -> id = parser.getValueAsLong();
+                    case "login" -> login = parser.getValueAsString();
+                    case "created_at" -> createdAt = parser.getValueAsString();
+                    case "public_repos" -> publicRepos = parser.getValueAsInt();
+                    case "followers" -> followers = parser.getValueAsInt();
+                    default -> skip(parser, value);
+                }
+            }
+            if (id <= 0 || login == null) {
+                throw new JsonParseException(parser, "GitHub user response has no id/login");
+            }
+            return new GithubProfile(id, login, createdAt, publicRepos, followers);
+        }
+    }
+
+    /**
+     * 解析 Twitter GET /2/users/me 响应，没有 data 时（令牌无效等）返回 null
+     */
+    public static TwitterProfile readTwitterUser(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            expectObject(parser);
+            TwitterProfile profile = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                    profile = readTwitterData(parser);
+                } else {
+                    skip(parser, value);
+                }
+            }
+            return profile;
+        }
+    }
+
+    private static TwitterProfile readTwitterData(JsonParser parser) throws IOException {
+        String id = null;
+        String username = null;
+        String createdAt = null;
+        long followersCount = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getValueAsString();
+                case "username" -> username = parser.getValueAsString();
+                case "created_at" -> createdAt = parser.getValueAsString();
+                case "public_metrics" -> followersCount = readFollowersCount(parser, value);
+                default -> skip(parser, value);
+            }
+        }
+        if (id == null || username == null) {
+            throw new JsonParseException(parser, "Twitter user response has no id/username");
+        }
+        return new TwitterProfile(id, username, createdAt, followersCount);
+    }
+
+    private static long readFollowersCount(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            skip(parser, value);
+            return 0;
+        }
+        long followersCount = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken metric = parser.nextToken();
+            if ("followers_count".equals(field)) {
+                followersCount = parser.getValueAsLong();
+            } else {
+                skip(parser, metric);
+            }
+        }
+        return followersCount;
+    }
+
+    private static void expectObject(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object");
+        }
+    }
+
+    private static void skip(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+        }
+    }
+}
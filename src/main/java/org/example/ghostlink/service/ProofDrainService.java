@@ -0,0 +1,171 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.ghostlink.store.StateStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 停机排空（drain）
+ * 收到 SIGTERM 后在 Web 容器优雅停机之前执行：
+ * 1. 进入 draining，新的写请求（/api/** 的非 GET 请求）直接返回 503 + Retry-After，由负载均衡重试到其他副本；
+ *    已经进入的请求和 gRPC 调用不再开始新的证明（{@link ShuttingDownException}），gRPC 服务在排空之后才关闭
+ * 2. 最多等待 drain-timeout，让已经在处理的请求（OAuth / PDF / 证明）完成
+ * 3. 仍未完成的证明请求写入 StateStore 的检查点（文件存储时跨重启、跨副本可见），
+ *    重启后由 {@link ZkProofService} 在后台重新证明，结果进入证明缓存，用户重试同一请求时直接返回
+ */
+@Service
+public class ProofDrainService implements SmartLifecycle {
+
+    static final String CHECKPOINTS = "proof-checkpoints";
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final StateStore stateStore;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration drainTimeout;
+    private final Duration checkpointTtl;
+    private final AtomicInteger inflightRequests = new AtomicInteger();
+    private final Map<String, Map<String, Object>> inflightProofs = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> checkpointed = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private volatile boolean draining;
+
+    @Autowired
+    public ProofDrainService(
+            StateStore stateStore,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${ghostlink.shutdown.drain-timeout:40s}") Duration drainTimeout,
+            @Value("${ghostlink.shutdown.checkpoint-ttl:1h}") Duration checkpointTtl
+    ) {
+        this.stateStore = stateStore;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.drainTimeout = drainTimeout;
+        this.checkpointTtl = checkpointTtl;
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * 一个写请求开始 / 结束（由 ProofDrainFilter 调用）
+     */
+    public void requestStarted() {
+        inflightRequests.incrementAndGet();
+    }
+
+    public void requestFinished() {
+        inflightRequests.decrementAndGet();
+    }
+
+    /**
+     * 一个证明开始 / 结束（由 ZkProofService 调用），key 为请求指纹
+     */
+    public void proofStarted(String key, Map<String, Object> requestData) {
+        inflightProofs.put(key, requestData);
+    }
+
+    public void proofFinished(String key) {
+        inflightProofs.remove(key);
+        if (checkpointed.remove(key) != null) {
+            // 排空超时后才完成的证明，检查点已经没用了
+            stateStore.remove(CHECKPOINTS, key);
+        }
+    }
+
+    /**
+     * 取走所有检查点；多个副本同时启动时每个检查点只会被一个副本取走
+     */
+    public List<Map<String, Object>> claimCheckpoints() {
+        List<Map<String, Object>> claimed = new ArrayList<>();
+        for (String value : stateStore.values(CHECKPOINTS)) {
+            try {
+                Map<String, Object> checkpoint = objectMapper.readValue(value, MAP_TYPE);
+                if (stateStore.remove(CHECKPOINTS, String.valueOf(checkpoint.get("key")))
+                        && checkpoint.get("request") instanceof Map<?, ?>) {
+                    claimed.add(checkpoint);
+                }
+            } catch (JsonProcessingException | RuntimeException e) {
+                System.out.println("无法读取证明检查点: " + e.getMessage());
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        draining = true;
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        System.out.println("开始排空 - 进行中的请求: " + inflightRequests.get() + ", 证明: " + inflightProofs.size()
+                + ", 最多等待 " + drainTimeout);
+        while ((inflightRequests.get() > 0 || !inflightProofs.isEmpty()) && System.nanoTime() - deadline < 0) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        checkpointRemaining();
+        running = false;
+    }
+
+    private void checkpointRemaining() {
+        if (inflightProofs.isEmpty()) {
+            System.out.println("排空完成，没有未完成的证明");
+            return;
+        }
+        int saved = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : inflightProofs.entrySet()) {
+            Map<String, Object> checkpoint = new LinkedHashMap<>();
+            checkpoint.put("key", entry.getKey());
+            checkpoint.put("request", entry.getValue());
+            checkpoint.put("checkpointedAt", System.currentTimeMillis());
+            try {
+                stateStore.put(CHECKPOINTS, entry.getKey(), objectMapper.writeValueAsString(checkpoint), checkpointTtl);
+                checkpointed.put(entry.getKey(), Boolean.TRUE);
+                saved++;
+            } catch (JsonProcessingException | RuntimeException e) {
+                System.out.println("证明检查点写入失败: " + e.getMessage());
+            }
+        }
+        meterRegistry.counter("ghostlink.shutdown.checkpointed").increment(saved);
+        System.out.println("排空超时，已为 " + saved + " 个未完成的证明写入检查点");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 最先停止：早于 Web 容器的优雅停机（WebServerGracefulShutdownLifecycle）
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+}
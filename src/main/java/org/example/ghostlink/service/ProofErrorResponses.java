@@ -0,0 +1,42 @@
+package org.example.ghostlink.service;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * 证明接口共用的异常 -> HTTP 状态映射：
+ * 校验拒绝 422、并发上限 / 停机排空 503 + Retry-After、截止时间 504。
+ * 响应体由调用方按 (errorCode, message) 构造：JSON 接口用 {@link #errorBody}，OAuth 回调用 AuthResponse，
+ * 这样在幂等层内返回的 422 仍按原格式保存和重放
+ */
+public final class ProofErrorResponses {
+
+    private ProofErrorResponses() {
+    }
+
+    /**
+     * @param e ProofRequestRejectedException / ConcurrencyLimitExceededException / DeadlineExceededException，其它异常原样抛出
+     */
+    public static ResponseEntity<Object> of(RuntimeException e, BiFunction<String, String, Object> body) {
+        if (e instanceof ProofRequestRejectedException rejected) {
+            return ResponseEntity.status(422).body(body.apply(rejected.getErrorCode(), rejected.getMessage()));
+        }
+        if (e instanceof ConcurrencyLimitExceededException overloaded) {
+            return ResponseEntity.status(503).header("Retry-After", String.valueOf(overloaded.getRetryAfterSeconds()))
+                    .body(body.apply(overloaded.getErrorCode(), overloaded.getMessage()));
+        }
+        if (e instanceof DeadlineExceededException expired) {
+            return ResponseEntity.status(504).body(body.apply(DeadlineExceededException.ERROR_CODE, expired.getMessage()));
+        }
+        throw e;
+    }
+
+    /**
+     * JSON 接口的错误响应体：{ "status": "error", "error_code": ..., "message": ... }
+     */
+    public static Map<String, Object> errorBody(String errorCode, String message) {
+        return Map.of("status", "error", "error_code", errorCode, "message", String.valueOf(message));
+    }
+}
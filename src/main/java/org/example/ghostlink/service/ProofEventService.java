@@ -0,0 +1,339 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.ghostlink.model.ZkProof;
+import org.example.ghostlink.store.EventOutbox;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 证明完成 / 失败事件的 webhook 投递
+ *
+ * callZkService 只把事件追加到本地 outbox（{@link EventOutbox}，微秒级的本地文件写入）就返回，
+ * 每个 webhook 目标由各自的投递线程读取 outbox：
+ * - 攒批：被唤醒后等待 linger，再把最多 batch-size 个事件作为一个 JSON 数组 POST 给目标
+ * - 2xx 后才确认位置；超时 / 连接失败 / 5xx / 408 / 429 按指数退避（带抖动）重试同一批，其他 4xx 丢弃该批并计数
+ * - 目标之间互不影响，慢的消费者只会让自己的积压变长，不会影响用户请求和其他目标
+ * 配置了 secret 时请求带 X-Ghostlink-Signature: sha256=HMAC(secret, body)，接收方按事件 id 去重（至少一次投递）。
+ */
+@Service
+public class ProofEventService implements SmartLifecycle {
+
+    public static final String COMPLETED = "proof.completed";
+    public static final String FAILED = "proof.failed";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final EventOutbox outbox;
+    private final List<Destination> destinations = new ArrayList<>();
+    private final RestTemplate restTemplate;
+    private final String secret;
+    private final int batchSize;
+    private final Duration linger;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final MeterRegistry meterRegistry;
+    private volatile boolean running;
+
+    @Autowired
+    public ProofEventService(
+            EventOutbox outbox,
+            RestTemplateBuilder restTemplateBuilder,
+            MeterRegistry meterRegistry,
+            @Value("${ghostlink.webhooks.destinations:}") List<String> destinations,
+            @Value("${ghostlink.webhooks.secret:}") String secret,
+            @Value("${ghostlink.webhooks.batch-size:100}") int batchSize,
+            @Value("${ghostlink.webhooks.linger:200ms}") Duration linger,
+            @Value("${ghostlink.webhooks.timeout:5s}") Duration timeout,
+            @Value("${ghostlink.webhooks.initial-backoff:1s}") Duration initialBackoff,
+            @Value("${ghostlink.webhooks.max-backoff:5m}") Duration maxBackoff
+    ) {
+        this.outbox = outbox;
+        this.restTemplate = restTemplateBuilder.connectTimeout(Duration.ofSeconds(2)).readTimeout(timeout).build();
+        this.meterRegistry = meterRegistry;
+        this.secret = secret;
+        this.batchSize = Math.max(1, batchSize);
+        this.linger = linger;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        for (String entry : destinations) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            // name=url
+            int eq = entry.indexOf('=');
+            if (eq <= 0 || eq == entry.length() - 1) {
+                throw new IllegalArgumentException("Invalid ghostlink.webhooks.destinations entry (expected name=url): " + entry);
+            }
+            this.destinations.add(new Destination(entry.substring(0, eq).trim(), entry.substring(eq + 1).trim()));
+        }
+    }
+
+    public boolean isEnabled() {
+        return !destinations.isEmpty();
+    }
+
+    /**
+     * 证明成功；只包含引用信息，receipt 通过 receipt_url 下载
+     */
+    public void completed(String credentialType, String recipient, ZkProof proof) {
+        if (!isEnabled()) {
+            return;
+        }
+        Map<String, Object> event = event(COMPLETED, credentialType, recipient);
+        event.put("proof_id", proof.getProofId());
+        event.put("nullifier", proof.getNullifier());
+        event.put("image_id", proof.getImageId());
+        event.put("journal", proof.getJournal());
+        event.put("receipt_url", proof.getReceiptUrl());
+        publish(event);
+    }
+
+    public void failed(String credentialType, String recipient, String errorCode, String message) {
+        if (!isEnabled()) {
+            return;
+        }
+        Map<String, Object> event = event(FAILED, credentialType, recipient);
+        event.put("error_code", errorCode != null ? errorCode : "PROOF_FAILED");
+        event.put("message", message);
+        publish(event);
+    }
+
+    private Map<String, Object> event(String type, String credentialType, String recipient) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", UUID.randomUUID().toString());
+        event.put("type", type);
+        event.put("occurred_at", System.currentTimeMillis());
+        event.put("credential_type", credentialType);
+        event.put("recipient", recipient);
+        return event;
+    }
+
+    /**
+     * 写入 outbox 并唤醒投递线程；写入失败只记录，不影响证明结果返回给用户
+     */
+    private void publish(Map<String, Object> event) {
+        try {
+            outbox.append(objectMapper.writeValueAsBytes(event));
+            meterRegistry.counter("ghostlink.webhook.published", "type", (String) event.get("type")).increment();
+        } catch (JsonProcessingException | RuntimeException e) {
+            System.out.println("证明事件写入 outbox 失败: " + e.getMessage());
+            return;
+        }
+        for (Destination destination : destinations) {
+            destination.signal();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (Destination destination : destinations) {
+            outbox.register(destination.name);
+            destination.thread = Thread.ofPlatform().daemon().name("webhook-" + destination.name).start(destination::run);
+        }
+        if (isEnabled()) {
+            System.out.println("Webhook 投递已启动: " + destinations.stream().map(d -> d.name).toList());
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Destination destination : destinations) {
+            destination.signal();
+            if (destination.thread != null) {
+                destination.thread.interrupt();
+            }
+        }
+        for (Destination destination : destinations) {
+            try {
+                if (destination.thread != null) {
+                    destination.thread.join(2000);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 晚于 ProofDrainService 停止：排空期间完成的证明事件照常投递，之后写入的事件在下次启动时投递
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 1;
+    }
+
+    static byte[] body(List<byte[]> events) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        for (int i = 0; i < events.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(events.get(i));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    private String sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return "sha256=" + HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean retryable(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == 408 || status.value() == 429;
+    }
+
+    private final class Destination {
+        private final String name;
+        private final String url;
+        private final Timer delivery;
+        private final Counter delivered;
+        private final Counter failedAttempts;
+        private final Counter discarded;
+        private final Object signal = new Object();
+        private boolean pending = true;
+        private Thread thread;
+
+        Destination(String name, String url) {
+            this.name = name;
+            this.url = url;
+            this.delivery = Timer.builder("ghostlink.webhook.delivery").tag("destination", name)
+                    .description("Webhook batch delivery latency").register(meterRegistry);
+            this.delivered = meterRegistry.counter("ghostlink.webhook.delivered", "destination", name);
+            this.failedAttempts = meterRegistry.counter("ghostlink.webhook.failed", "destination", name);
+            this.discarded = meterRegistry.counter("ghostlink.webhook.discarded", "destination", name);
+            Gauge.builder("ghostlink.webhook.backlog.bytes", outbox, o -> o.lagBytes(name))
+                    .tag("destination", name).register(meterRegistry);
+        }
+
+        void signal() {
+            synchronized (signal) {
+                pending = true;
+                signal.notifyAll();
+            }
+        }
+
+        private void awaitSignal() throws InterruptedException {
+            synchronized (signal) {
+                while (!pending && running) {
+                    signal.wait(10_000);
+                }
+                pending = false;
+            }
+        }
+
+        void run() {
+            int attempt = 0;
+            while (running) {
+                try {
+                    EventOutbox.Batch batch = outbox.read(name, batchSize);
+                    if (batch.isEmpty()) {
+                        awaitSignal();
+                        // 攒批窗口：让同一时间段的事件合并成一个请求
+                        Thread.sleep(linger.toMillis());
+                        continue;
+                    }
+                    if (deliver(batch)) {
+                        outbox.ack(name, batch.next());
+                        outbox.compact();
+                        attempt = 0;
+                    } else {
+                        long backoff = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt, 20));
+                        attempt++;
+                        Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                    }
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    System.out.println("Webhook 投递线程异常 (" + name + "): " + e.getMessage());
+                    try {
+                        Thread.sleep(initialBackoff.toMillis());
+                    } catch (InterruptedException ignored) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return 是否可以确认这一批（成功，或不可重试而丢弃）
+         */
+        private boolean deliver(EventOutbox.Batch batch) {
+            byte[] body = body(batch.events());
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("X-Ghostlink-Event-Count", String.valueOf(batch.events().size()));
+            if (!secret.isBlank()) {
+                headers.set("X-Ghostlink-Signature", sign(body));
+            }
+            long start = System.nanoTime();
+            try {
+                restTemplate.postForEntity(url, new HttpEntity<>(body, headers), Void.class);
+                delivered.increment(batch.events().size());
+                return true;
+            } catch (HttpStatusCodeException e) {
+                failedAttempts.increment();
+                if (retryable(e.getStatusCode())) {
+                    System.out.println("Webhook 投递失败 (" + name + "): " + e.getStatusCode() + "，稍后重试");
+                    return false;
+                }
+                discarded.increment(batch.events().size());
+                System.out.println("Webhook 拒绝事件 (" + name + "): " + e.getStatusCode() + "，丢弃 "
+                        + batch.events().size() + " 个事件");
+                return true;
+            } catch (RestClientException e) {
+                failedAttempts.increment();
+                System.out.println("Webhook 投递失败 (" + name + "): " + e.getMessage() + "，稍后重试");
+                return false;
+            } finally {
+                delivery.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
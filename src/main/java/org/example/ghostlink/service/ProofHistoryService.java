@@ -0,0 +1,61 @@
+package org.example.ghostlink.service;
+
+import org.example.ghostlink.model.ProofRecord;
+import org.example.ghostlink.model.ZkProof;
+import org.example.ghostlink.store.ProofLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * 证明历史服务
+ * 每个成功生成的证明都追加到 ProofLog，可按钱包地址或 nullifier 查询。
+ */
+@Service
+public class ProofHistoryService {
+
+    private static final String ZERO_ADDRESS = "0x0000000000000000000000000000000000000000";
+
+    private final ProofLog proofLog;
+
+    @Autowired
+    public ProofHistoryService(ProofLog proofLog) {
+        this.proofLog = proofLog;
+    }
+
+    /**
+     * 记录证明；写入失败只打印日志，不影响证明结果返回给用户
+     */
+    public void record(String credentialType, String recipient, ZkProof proof) {
+        if (proof == null || !proof.isVerified()) {
+            return;
+        }
+        try {
+            proofLog.append(new ProofRecord(
+                    proof.getProofId(),
+                    credentialType,
+                    recipient != null ? recipient : ZERO_ADDRESS,
+                    proof.getNullifier(),
+                    proof.getImageId(),
+                    proof.getJournal(),
+                    proof.getReceipt(),
+                    proof.getTimestamp()
+            ));
+        } catch (RuntimeException e) {
+            System.out.println("证明历史写入失败: " + e.getMessage());
+        }
+    }
+
+    public ProofLog.Page history(String recipient, Long cursor, int limit) {
+        return proofLog.byRecipient(recipient, cursor, limit);
+    }
+
+    public Optional<ProofRecord> findByNullifier(String nullifier) {
+        return proofLog.byNullifier(nullifier);
+    }
+
+    public long count() {
+        return proofLog.count();
+    }
+}
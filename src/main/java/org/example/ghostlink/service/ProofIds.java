@@ -0,0 +1,55 @@
+package org.example.ghostlink.service;
+
+import java.security.SecureRandom;
+
+/**
+ * 证明 ID 生成器
+ * 格式：zk-{type}-{ULID}，ULID 为 48 位毫秒时间戳 + 80 位随机数的 Crockford Base32 编码（26 字符），
+ * 按字典序即按时间排序。同一毫秒内随机部分单调递增，多线程并发下不会重复。
+ */
+public final class ProofIds {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final SecureRandom random = new SecureRandom();
+
+    private static long lastMillis;
+    // 80 位随机数：高 16 位 + 低 64 位
+    private static int randHi;
+    private static long randLo;
+
+    private ProofIds() {
+    }
+
+    public static String next(String credentialType) {
+        return "zk-" + credentialType + "-" + nextUlid();
+    }
+
+    public static synchronized String nextUlid() {
+        long now = System.currentTimeMillis();
+        if (now > lastMillis) {
+            lastMillis = now;
+            randHi = random.nextInt() & 0xFFFF;
+            randLo = random.nextLong();
+        } else if (++randLo == 0 && (randHi = (randHi + 1) & 0xFFFF) == 0) {
+            // 同一毫秒内 2^80 次溢出，借用下一毫秒
+            lastMillis++;
+        }
+        return encode(lastMillis, randHi, randLo);
+    }
+
+    private static String encode(long millis, int hi, long lo) {
+        char[] out = new char[26];
+        // 时间戳：48 位 -> 10 个字符（高位补 2 个 0 位）
+        for (int i = 9; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (millis & 31)];
+            millis >>>= 5;
+        }
+        // 随机数：80 位 -> 16 个字符
+        for (int i = 25; i >= 10; i--) {
+            out[i] = ALPHABET[(int) (lo & 31)];
+            lo = (lo >>> 5) | ((long) (hi & 31) << 59);
+            hi >>>= 5;
+        }
+        return new String(out);
+    }
+}
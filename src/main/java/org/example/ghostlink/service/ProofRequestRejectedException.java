@@ -0,0 +1,19 @@
+package org.example.ghostlink.service;
+
+/**
+ * 证明请求在调用 prover 之前被校验阶段拒绝
+ * errorCode 使用 risc_zero_spec.md 的错误码（INVALID_DATA / THRESHOLD_NOT_MET）
+ */
+public class ProofRequestRejectedException extends IllegalArgumentException {
+
+    private final String errorCode;
+
+    public ProofRequestRejectedException(String errorCode, String message) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+}
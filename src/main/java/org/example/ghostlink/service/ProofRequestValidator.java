@@ -0,0 +1,187 @@
+package org.example.ghostlink.service;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 证明请求校验
+ * 按 risc_zero_spec.md 第 5 节逐个凭证类型检查 data，把 prover 必然拒绝的请求提前拦下，
+ * 避免为一个 THRESHOLD_NOT_MET / INVALID_DATA 结果占用最长 60 秒的证明时间。
+ */
+@Component
+public class ProofRequestValidator {
+
+    public static final String INVALID_DATA = "INVALID_DATA";
+    public static final String THRESHOLD_NOT_MET = "THRESHOLD_NOT_MET";
+
+    private static final Pattern GITHUB_LOGIN = Pattern.compile("[A-Za-z0-9](?:[A-Za-z0-9-]{0,38})");
+    private static final Pattern TWITTER_ID = Pattern.compile("[1-9][0-9]{0,19}");
+    private static final Pattern TWITTER_HANDLE = Pattern.compile("[A-Za-z0-9_]{1,15}");
+    private static final Pattern DECIMAL = Pattern.compile("[0-9]+(\\.[0-9]+)?");
+    private static final Pattern HASH32 = Pattern.compile("0x[0-9a-fA-F]{64}");
+    private static final Pattern ADDRESS = Pattern.compile("0x[0-9a-fA-F]{40}");
+    private static final Pattern SIGNATURE = Pattern.compile("(0x)?[0-9a-fA-F]{130}");
+    private static final Pattern ID_NUMBER = Pattern.compile("[0-9]{15}|[0-9]{17}[0-9Xx]");
+
+    // GB 11643 校验码
+    private static final int[] ID_WEIGHTS = {7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+    private static final char[] ID_CHECK = {'1', '0', 'X', '9', '8', '7', '6', '5', '4', '3', '2'};
+
+    private static final Set<String> CREDENTIAL_TYPES = Set.of("github", "twitter", "alipay", "wallet");
+
+    /**
+     * 用作指标 / span 标签的 credential_type：未知的值（来自未校验的请求）统一为 "unknown"，避免标签基数失控
+     */
+    public static String credentialTypeTag(Object type) {
+        return type instanceof String s && CREDENTIAL_TYPES.contains(s) ? s : "unknown";
+    }
+
+    /**
+     * 校验统一格式的证明请求，不通过时抛出带错误码的异常
+     *
+     * @throws ProofRequestRejectedException 请求注定会被 prover 拒绝
+     */
+    @SuppressWarnings("unchecked")
+    public void validate(Map<String, Object> request) {
+        if (request == null || !(request.get("data") instanceof Map)) {
+            throw invalid("Missing data");
+        }
+        Map<String, Object> data = (Map<String, Object>) request.get("data");
+        Object recipient = request.get("recipient");
+        if (recipient != null && !ADDRESS.matcher(recipient.toString()).matches()) {
+            throw invalid("Invalid recipient address");
+        }
+
+        String type = String.valueOf(request.get("credential_type"));
+        switch (type) {
+            case "github" -> validateGithub(data);
+            case "twitter" -> validateTwitter(data);
+            case "alipay" -> validateAlipay(data);
+            case "wallet" -> validateWallet(data);
+            default -> throw invalid("Unsupported credential_type: " + type);
+        }
+    }
+
+    private void validateGithub(Map<String, Object> data) {
+        requirePositiveInteger(data, "user_id");
+        requireMatch(data, "username", GITHUB_LOGIN);
+        requireTimestamp(data, "created_at");
+        requireNonNegativeInteger(data, "public_repos");
+    }
+
+    private void validateTwitter(Map<String, Object> data) {
+        requireMatch(data, "user_id", TWITTER_ID);
+        requireMatch(data, "handle", TWITTER_HANDLE);
+        requireTimestamp(data, "created_at");
+        if (data.get("followers_count") != null) {
+            requireNonNegativeInteger(data, "followers_count");
+        }
+    }
+
+    private void validateAlipay(Map<String, Object> data) {
+        BigDecimal balance = requireDecimal(data, "balance");
+        BigDecimal threshold = requireDecimal(data, "threshold");
+        requireMatch(data, "id_number_hash", HASH32);
+        // 精确十进制比较，避免 double 在分位上的舍入误差
+        if (balance.compareTo(threshold) < 0) {
+            throw new ProofRequestRejectedException(THRESHOLD_NOT_MET,
+                    "Balance " + balance.toPlainString() + " is below threshold " + threshold.toPlainString());
+        }
+    }
+
+    private void validateWallet(Map<String, Object> data) {
+        requireMatch(data, "address", ADDRESS);
+        requireMatch(data, "balance_wei", Pattern.compile("[0-9]{1,78}"));
+        // 规范中 transaction_count 可选，提供时才校验
+        if (data.get("transaction_count") != null) {
+            requireNonNegativeInteger(data, "transaction_count");
+        }
+        requirePositiveInteger(data, "chain_id");
+        requireMatch(data, "signature", SIGNATURE);
+        if (data.get("message") == null || data.get("message").toString().isBlank()) {
+            throw invalid("Missing field: message");
+        }
+    }
+
+    /**
+     * 身份证号格式及（18 位时）校验码
+     */
+    public static boolean isValidIdNumber(String idNumber) {
+        if (idNumber == null || !ID_NUMBER.matcher(idNumber).matches()) {
+            return false;
+        }
+        if (idNumber.length() == 15) {
+            return true;
+        }
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            sum += (idNumber.charAt(i) - '0') * ID_WEIGHTS[i];
+        }
+        return Character.toUpperCase(idNumber.charAt(17)) == ID_CHECK[sum % 11];
+    }
+
+    private static void requireMatch(Map<String, Object> data, String field, Pattern pattern) {
+        Object value = data.get(field);
+        if (value == null || !pattern.matcher(value.toString()).matches()) {
+            throw invalid("Invalid field: " + field);
+        }
+    }
+
+    private static BigDecimal requireDecimal(Map<String, Object> data, String field) {
+        requireMatch(data, field, DECIMAL);
+        return new BigDecimal(data.get(field).toString());
+    }
+
+    private static long requireInteger(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String s && s.matches("-?[0-9]{1,18}")) {
+            return Long.parseLong(s);
+        }
+        throw invalid("Invalid field: " + field);
+    }
+
+    private static void requirePositiveInteger(Map<String, Object> data, String field) {
+        if (requireInteger(data, field) <= 0) {
+            throw invalid("Invalid field: " + field);
+        }
+    }
+
+    private static void requireNonNegativeInteger(Map<String, Object> data, String field) {
+        if (requireInteger(data, field) < 0) {
+            throw invalid("Invalid field: " + field);
+        }
+    }
+
+    /**
+     * ISO-8601 时间戳，且不能晚于当前时间
+     */
+    private static void requireTimestamp(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        if (value == null) {
+            throw invalid("Missing field: " + field);
+        }
+        Instant instant;
+        try {
+            instant = OffsetDateTime.parse(value.toString()).toInstant();
+        } catch (DateTimeParseException e) {
+            throw invalid("Invalid ISO-8601 timestamp: " + field);
+        }
+        if (instant.isAfter(Instant.now())) {
+            throw invalid("Timestamp in the future: " + field);
+        }
+    }
+
+    private static ProofRequestRejectedException invalid(String message) {
+        return new ProofRequestRejectedException(INVALID_DATA, message);
+    }
+}
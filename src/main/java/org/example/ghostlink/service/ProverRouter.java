@@ -0,0 +1,358 @@
+package org.example.ghostlink.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prover 路由
+ * 每种凭证类型对应一组 prover 节点（ghostlink.prover.endpoints.&lt;type&gt;，未配置时用 .default），
+ * 各类型的 Guest 程序（Image ID）不同，可以部署在不同节点上：
+ * - 选择：健康节点中 EWMA 延迟 × (在途请求数 + 1) 最小者，尚无延迟样本的节点优先试探；
+ *   失败按一次完整超时（ghostlink.prover.timeout）计入 EWMA，立即返回 5xx 的节点不会因为"快"而被优先选中
+ * - 摘除：定时 GET 健康检查失败，或连续 eject-after-failures 次请求失败，摘除 eject-duration；
+ *   健康检查恢复后立即放回。所有节点都被摘除时仍按得分选择，不直接失败
+ * - 重试：连接失败、超时、5xx/429 以及 Image ID 不符时换一个节点重试（证明是纯函数，重复执行无副作用），
+ *   4xx（INVALID_DATA 等）原样返回；请求的截止时间到了之后不再重试（{@link DeadlineExceededException}）
+ * 没有配置任何节点时 {@link #hasEndpoints(String)} 为 false，ZkProofService 使用本地 mock。
+ */
+@Service
+public class ProverRouter {
+
+    static final String[] CREDENTIAL_TYPES = {"github", "alipay", "twitter", "wallet"};
+
+    private static final String PROVE_PATH = "/api/v1/prove";
+    private static final double EWMA_ALPHA = 0.2;
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_MAP = new ParameterizedTypeReference<>() {
+    };
+
+    private final Map<String, List<Endpoint>> endpointsByType = new HashMap<>();
+    private final Map<String, Endpoint> endpointsByUrl = new LinkedHashMap<>();
+    private final Map<String, String> expectedImageIds = new HashMap<>();
+    private final RestTemplate restTemplate;
+    private final RestTemplate healthTemplate;
+    private final String apiKey;
+    private final String healthPath;
+    private final int maxAttempts;
+    private final int ejectAfterFailures;
+    private final Duration ejectDuration;
+    private final long failurePenaltyNanos;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService healthChecker;
+
+    @Autowired
+    public ProverRouter(
+            Environment environment,
+            RestTemplateBuilder restTemplateBuilder,
+            MeterRegistry meterRegistry,
+            @Value("${ghostlink.prover.api-key:}") String apiKey,
+            @Value("${ghostlink.prover.timeout:60s}") Duration timeout,
+            @Value("${ghostlink.prover.max-attempts:3}") int maxAttempts,
+            @Value("${ghostlink.prover.health-path:/health}") String healthPath,
+            @Value("${ghostlink.prover.health-interval:5s}") Duration healthInterval,
+            @Value("${ghostlink.prover.eject-after-failures:3}") int ejectAfterFailures,
+            @Value("${ghostlink.prover.eject-duration:30s}") Duration ejectDuration
+    ) {
+        String defaults = environment.getProperty("ghostlink.prover.endpoints.default", "");
+        for (String type : CREDENTIAL_TYPES) {
+            List<Endpoint> endpoints = new ArrayList<>();
+            for (String url : split(environment.getProperty("ghostlink.prover.endpoints." + type, defaults))) {
+                // 同一节点服务多个类型时共享在途计数和延迟统计
+                endpoints.add(endpointsByUrl.computeIfAbsent(url, Endpoint::new));
+            }
+            endpointsByType.put(type, endpoints);
+            String imageId = environment.getProperty("ghostlink.prover.image-id." + type, "");
+            if (!imageId.isBlank()) {
+                expectedImageIds.put(type, normalizeHex(imageId));
+            }
+        }
+        // 证明调用的超时截短到请求剩余的截止预算（见 Deadline），健康检查不受影响
+        this.restTemplate = restTemplateBuilder
+                .requestFactoryBuilder(DeadlineRequestFactory.builder())
+                .additionalInterceptors(Deadline.interceptor(LoadMonitor.PROVER))
+                .connectTimeout(Duration.ofSeconds(2))
+                .readTimeout(timeout)
+                .build();
+        this.healthTemplate = restTemplateBuilder.connectTimeout(Duration.ofSeconds(1)).readTimeout(Duration.ofSeconds(2)).build();
+        this.apiKey = apiKey;
+        this.healthPath = healthPath;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.ejectAfterFailures = ejectAfterFailures;
+        this.ejectDuration = ejectDuration;
+        this.failurePenaltyNanos = timeout.toNanos();
+        this.meterRegistry = meterRegistry;
+
+        for (Endpoint endpoint : endpointsByUrl.values()) {
+            Gauge.builder("ghostlink.prover.endpoint.outstanding", endpoint, e -> e.outstanding.get())
+                    .tag("endpoint", endpoint.url).register(meterRegistry);
+            Gauge.builder("ghostlink.prover.endpoint.healthy", endpoint, e -> e.isAvailable(System.nanoTime()) ? 1 : 0)
+                    .tag("endpoint", endpoint.url).register(meterRegistry);
+        }
+        if (endpointsByUrl.isEmpty()) {
+            this.healthChecker = null;
+        } else {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "prover-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, healthInterval.toMillis(), TimeUnit.MILLISECONDS);
+            System.out.println("Prover 路由 - Endpoints: " + endpointsByUrl.keySet());
+        }
+    }
+
+    public boolean hasEndpoints(String credentialType) {
+        List<Endpoint> endpoints = endpointsByType.get(credentialType);
+        return endpoints != null && !endpoints.isEmpty();
+    }
+
+    /**
+     * 把请求发往该类型的 prover 节点，返回规范中的统一响应（status / receipt_hex / ... 或 error_code）
+     */
+    public Map<String, String> prove(String credentialType, Map<String, Object> requestData) {
+        List<Endpoint> candidates = endpointsByType.getOrDefault(credentialType, List.of());
+        List<Endpoint> tried = new ArrayList<>();
+        String lastError = "No prover endpoint configured for " + credentialType;
+
+        for (int attempt = 0; attempt < maxAttempts && tried.size() < candidates.size(); attempt++) {
+            Endpoint endpoint = select(candidates, tried);
+            tried.add(endpoint);
+            if (attempt > 0) {
+                meterRegistry.counter("ghostlink.prover.retries", "credential_type", credentialType).increment();
+            }
+
+            Attempt result = call(endpoint, credentialType, requestData);
+            if (result.response() != null) {
+                return result.response();
+            }
+            lastError = endpoint.url + ": " + result.error();
+            System.out.println("Prover 调用失败，换节点重试 - " + lastError);
+        }
+
+        Map<String, String> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("error_code", "PROVER_UNAVAILABLE");
+        error.put("message", lastError);
+        return error;
+    }
+
+    /**
+     * 每个节点的当前状态，供 /actuator/capacity 展示
+     */
+    public List<Map<String, Object>> snapshot() {
+        long now = System.nanoTime();
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Endpoint endpoint : endpointsByUrl.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("url", endpoint.url);
+            item.put("available", endpoint.isAvailable(now));
+            item.put("outstanding", endpoint.outstanding.get());
+            item.put("ewmaMillis", Math.round(endpoint.ewmaNanos / 1e6));
+            item.put("consecutiveFailures", endpoint.consecutiveFailures.get());
+            list.add(item);
+        }
+        return list;
+    }
+
+    /**
+     * 可选节点（排除本次请求已试过的）中得分最低者；没有可用节点时退化为在所有未试过的节点中选
+     */
+    Endpoint select(List<Endpoint> candidates, Collection<Endpoint> exclude) {
+        long now = System.nanoTime();
+        Endpoint best = null;
+        double bestScore = Double.MAX_VALUE;
+        boolean bestAvailable = false;
+        for (Endpoint endpoint : candidates) {
+            if (exclude.contains(endpoint)) {
+                continue;
+            }
+            boolean available = endpoint.isAvailable(now);
+            double score = endpoint.score();
+            if (best == null || (available && !bestAvailable) || (available == bestAvailable && score < bestScore)) {
+                best = endpoint;
+                bestScore = score;
+                bestAvailable = available;
+            }
+        }
+        return best;
+    }
+
+    private record Attempt(Map<String, String> response, String error) {
+    }
+
+    private Attempt call(Endpoint endpoint, String credentialType, Map<String, Object> requestData) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (apiKey != null && !apiKey.isBlank()) {
+            headers.setBearerAuth(apiKey);
+        }
+        endpoint.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(endpoint.url + PROVE_PATH,
+                    HttpMethod.POST, new HttpEntity<>(requestData, headers), JSON_MAP);
+            Map<String, String> body = toStrings(response.getBody());
+            String expectedImageId = expectedImageIds.get(credentialType);
+            if (expectedImageId != null && "success".equals(body.get("status"))
+                    && !expectedImageId.equals(normalizeHex(body.get("image_id_hex")))) {
+                // 节点部署了错误的 Guest 程序，换节点
+                endpoint.recordFailure(System.nanoTime() - start, ejectAfterFailures, ejectDuration);
+                return new Attempt(null, "unexpected image_id " + body.get("image_id_hex"));
+            }
+            endpoint.recordSuccess(System.nanoTime() - start);
+            return new Attempt(body, null);
+        } catch (HttpStatusCodeException e) {
+            int status = e.getStatusCode().value();
+            if (status >= 500 || status == 429) {
+                endpoint.recordFailure(System.nanoTime() - start, ejectAfterFailures, ejectDuration);
+                return new Attempt(null, "HTTP " + status);
+            }
+            // 4xx 是请求本身的问题，换节点也一样
+            endpoint.recordSuccess(System.nanoTime() - start);
+            Map<String, String> body = toStrings(errorBody(e));
+            body.putIfAbsent("status", "error");
+            body.putIfAbsent("error_code", "INVALID_DATA");
+            return new Attempt(body, null);
+        } catch (RestClientException e) {
+            endpoint.recordFailure(System.nanoTime() - start, ejectAfterFailures, ejectDuration);
+            return new Attempt(null, String.valueOf(e.getMessage()));
+        } finally {
+            endpoint.outstanding.decrementAndGet();
+        }
+    }
+
+    private static Map<String, Object> errorBody(HttpStatusCodeException e) {
+        try {
+            return e.getResponseBodyAs(JSON_MAP);
+        } catch (RuntimeException notJson) {
+            return Map.of("message", e.getStatusText());
+        }
+    }
+
+    void checkHealth() {
+        for (Endpoint endpoint : endpointsByUrl.values()) {
+            boolean healthy;
+            try {
+                healthy = healthTemplate.getForEntity(endpoint.url + healthPath, String.class).getStatusCode().is2xxSuccessful();
+            } catch (RestClientException e) {
+                healthy = false;
+            }
+            if (healthy != endpoint.healthy) {
+                System.out.println("Prover 节点" + (healthy ? "恢复" : "健康检查失败，已摘除") + " - " + endpoint.url);
+                if (!healthy) {
+                    meterRegistry.counter("ghostlink.prover.ejections", "reason", "health").increment();
+                }
+            }
+            endpoint.healthy = healthy;
+            if (healthy) {
+                endpoint.ejected = false;
+                endpoint.consecutiveFailures.set(0);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(s -> s.endsWith("/") ? s.substring(0, s.length() - 1) : s)
+                .toList();
+    }
+
+    private static String normalizeHex(String hex) {
+        if (hex == null) {
+            return "";
+        }
+        String lower = hex.toLowerCase();
+        return lower.startsWith("0x") ? lower.substring(2) : lower;
+    }
+
+    private static Map<String, String> toStrings(Map<String, Object> body) {
+        Map<String, String> result = new HashMap<>();
+        if (body != null) {
+            body.forEach((k, v) -> result.put(k, v == null ? null : String.valueOf(v)));
+        }
+        return result;
+    }
+
+    /**
+     * 一个 prover 节点的负载和健康状态
+     */
+    final class Endpoint {
+        final String url;
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        volatile double ewmaNanos;
+        volatile boolean healthy = true;
+        volatile boolean ejected;
+        volatile long ejectedUntil;
+
+        Endpoint(String url) {
+            this.url = url;
+        }
+
+        boolean isAvailable(long now) {
+            return healthy && (!ejected || now - ejectedUntil >= 0);
+        }
+
+        double score() {
+            // 尚无样本的节点按 1ns 计，得分低于任何已测节点，且彼此之间按在途数分摊
+            return Math.max(1, ewmaNanos) * (outstanding.get() + 1);
+        }
+
+        void recordSuccess(long nanos) {
+            consecutiveFailures.set(0);
+            ejected = false;
+            updateLatency(nanos);
+        }
+
+        void recordFailure(long nanos, int ejectAfter, Duration ejectFor) {
+            // 失败至少按一次超时计入：快速失败的节点耗时很短，按实际耗时计会让它得分最低
+            updateLatency(Math.max(nanos, failurePenaltyNanos));
+            if (consecutiveFailures.incrementAndGet() >= ejectAfter && isAvailable(System.nanoTime())) {
+                ejectedUntil = System.nanoTime() + ejectFor.toNanos();
+                ejected = true;
+                meterRegistry.counter("ghostlink.prover.ejections", "reason", "failures").increment();
+                System.out.println("Prover 节点连续失败，摘除 " + ejectFor + " - " + url);
+            }
+        }
+
+        private synchronized void updateLatency(long nanos) {
+            ewmaNanos = ewmaNanos == 0 ? nanos : ewmaNanos + EWMA_ALPHA * (nanos - ewmaNanos);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.example.ghostlink.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出站限流调度
+ * 按 GitHub（x-ratelimit-*）/ Twitter（x-rate-limit-*）响应头跟踪每个额度桶的剩余次数和重置时间：
+ * - 额度充足时直接放行；剩余低于 limit × pace-below 时把剩余次数均匀分布到重置前（pacing）
+ * - 额度用完时排队等到重置；需要等待超过 max-wait（或请求剩余的截止预算）的请求立即拒绝（{@link OutboundRateLimitException}）
+ * - 仍然收到 429 时按 reset / Retry-After 等待后重试一次（同样受 max-wait 限制）
+ * 额度桶：GitHub 按 x-ratelimit-resource（core / graphql / search），Twitter 按接口路径（额度按接口计算）。
+ * 带用户 token（Authorization: Bearer）的请求消耗的是该用户自己的额度，额度桶再按 token 的哈希区分，
+ * 一个用户用完额度不会让其他用户排队；这类桶最多保留 max-token-budgets 个（LRU），不单独注册 gauge。
+ * 指标：ghostlink.ratelimit.remaining（gauge）、ghostlink.ratelimit.wait（timer）、ghostlink.ratelimit.rejected、
+ * ghostlink.ratelimit.throttled（收到的 429）。
+ */
+@Service
+public class RateLimitScheduler {
+
+    private final Duration maxWait;
+    private final double paceBelow;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+    private final Map<String, Budget> tokenBudgets;
+
+    @Autowired
+    public RateLimitScheduler(
+            @Value("${ghostlink.ratelimit.max-wait:5s}") Duration maxWait,
+            @Value("${ghostlink.ratelimit.pace-below:0.1}") double paceBelow,
+            @Value("${ghostlink.ratelimit.max-token-budgets:10000}") int maxTokenBudgets,
+            MeterRegistry meterRegistry
+    ) {
+        this.maxWait = maxWait;
+        this.paceBelow = paceBelow;
+        this.meterRegistry = meterRegistry;
+        this.tokenBudgets = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Budget> eldest) {
+                return size() > maxTokenBudgets;
+            }
+        });
+    }
+
+    /**
+     * 给某个上游（github / twitter）的 RestTemplate 使用的拦截器
+     */
+    public ClientHttpRequestInterceptor interceptor(String provider) {
+        return (request, body, execution) -> execute(provider, request, body, execution);
+    }
+
+    /**
+     * 各额度桶的当前状态
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        budgets.forEach((key, budget) -> snapshot.put(key, budget.snapshot()));
+        snapshot.put("tokenBudgets", tokenBudgets.size());
+        return snapshot;
+    }
+
+    private ClientHttpResponse execute(String provider, HttpRequest request, byte[] body,
+                                       ClientHttpRequestExecution execution) throws IOException {
+        Budget budget = budget(provider, bucketOf(provider, request), tokenOf(request));
+        budget.acquire();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } finally {
+            budget.release();
+        }
+        budget.update(response.getHeaders());
+        if (response.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+            return response;
+        }
+
+        // 额度头不准（或被二级限流）时仍会收到 429：等到重置后重试一次
+        budget.throttled(response.getHeaders());
+        response.close();
+        budget.acquire();
+        try {
+            response = execution.execute(request, body);
+        } finally {
+            budget.release();
+        }
+        budget.update(response.getHeaders());
+        return response;
+    }
+
+    /**
+     * 请求前就要确定额度桶；GitHub 的 resource 只有响应里才有，这里按路径推断
+     */
+    static String bucketOf(String provider, HttpRequest request) {
+        String path = request.getURI().getPath();
+        if (LoadMonitor.GITHUB.equals(provider)) {
+            if (!"api.github.com".equals(request.getURI().getHost()) && path.startsWith("/login/oauth")) {
+                return "oauth";
+            }
+            if (path.startsWith("/graphql")) {
+                return "graphql";
+            }
+            return path.startsWith("/search") ? "search" : "core";
+        }
+        return path;
+    }
+
+    /**
+     * 用户 token 的哈希（前 16 个十六进制字符），不是 Bearer 认证（OAuth token 交换用的是应用凭证）时为 null
+     */
+    static String tokenOf(HttpRequest request) {
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(authorization.substring(7).trim().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Budget budget(String provider, String bucket, String token) {
+        if (token == null) {
+            return budgets.computeIfAbsent(provider + ":" + bucket, key -> new Budget(provider, bucket, true));
+        }
+        return tokenBudgets.computeIfAbsent(provider + ":" + bucket + ":" + token, key -> new Budget(provider, bucket, false));
+    }
+
+    private static long header(HttpHeaders headers, String github, String twitter) {
+        String value = headers.getFirst(github);
+        if (value == null) {
+            value = headers.getFirst(twitter);
+        }
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 一个额度桶；remaining 为 -1 表示未知（还没有响应头，或已过重置时间）
+     */
+    private final class Budget {
+        private final String provider;
+        private final String bucket;
+        private final Timer waitTimer;
+        private final Counter rejected;
+        private final Counter throttled;
+        private long limit = -1;
+        private long remaining = -1;
+        private long resetMillis;
+        private int inflight;
+        private long lastSendMillis;
+
+        /**
+         * @param gauge 是否注册 remaining gauge；按 token 区分的桶共用 provider / bucket 维度的 timer 和计数器
+         */
+        Budget(String provider, String bucket, boolean gauge) {
+            this.provider = provider;
+            this.bucket = bucket;
+            this.waitTimer = Timer.builder("ghostlink.ratelimit.wait")
+                    .tag("provider", provider).tag("bucket", bucket)
+                    .description("Time outbound calls were paced or queued ahead of the rate limit reset")
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("ghostlink.ratelimit.rejected")
+                    .tag("provider", provider).tag("bucket", bucket).register(meterRegistry);
+            this.throttled = Counter.builder("ghostlink.ratelimit.throttled")
+                    .tag("provider", provider).tag("bucket", bucket).register(meterRegistry);
+            if (gauge) {
+                Gauge.builder("ghostlink.ratelimit.remaining", this, Budget::currentRemaining)
+                        .tag("provider", provider).tag("bucket", bucket)
+                        .register(meterRegistry);
+            }
+        }
+
+        synchronized void acquire() throws IOException {
+            long start = System.currentTimeMillis();
+            // 不等到请求的截止时间之后
+            long maxWaitMillis = Deadline.cap(maxWait).toMillis();
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    if (remaining >= 0 && now >= resetMillis) {
+                        // 已过重置时间，额度未知，放行一个请求拿到新的响应头
+                        remaining = -1;
+                    }
+                    long waitMillis = 0;
+                    if (remaining >= 0) {
+                        long available = remaining - inflight;
+                        if (available <= 0) {
+                            waitMillis = resetMillis - now;
+                        } else if (limit > 0 && available <= limit * paceBelow) {
+                            long interval = (resetMillis - now) / available;
+                            waitMillis = lastSendMillis + interval - now;
+                        }
+                    }
+                    if (waitMillis <= 0) {
+                        inflight++;
+                        lastSendMillis = now;
+                        return;
+                    }
+                    if (now + waitMillis - start > maxWaitMillis) {
+                        rejected.increment();
+                        throw new OutboundRateLimitException(provider, bucket,
+                                Math.max(1, TimeUnit.MILLISECONDS.toSeconds(resetMillis - now + 999)));
+                    }
+                    wait(waitMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + provider + " rate limit");
+            } finally {
+                waitTimer.record(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        synchronized void release() {
+            inflight--;
+            notifyAll();
+        }
+
+        synchronized void update(HttpHeaders headers) {
+            long newRemaining = header(headers, "x-ratelimit-remaining", "x-rate-limit-remaining");
+            long reset = header(headers, "x-ratelimit-reset", "x-rate-limit-reset");
+            if (newRemaining < 0 || reset < 0) {
+                return;
+            }
+            long newLimit = header(headers, "x-ratelimit-limit", "x-rate-limit-limit");
+            if (newLimit > 0) {
+                limit = newLimit;
+            }
+            long newResetMillis = reset * 1000;
+            // 并发响应乱序到达：同一窗口内只接受更小的剩余值
+            if (newResetMillis != resetMillis || remaining < 0 || newRemaining < remaining) {
+                remaining = newRemaining;
+                resetMillis = newResetMillis;
+            }
+            notifyAll();
+        }
+
+        synchronized void throttled(HttpHeaders headers) {
+            throttled.increment();
+            remaining = 0;
+            long retryAfter = header(headers, HttpHeaders.RETRY_AFTER, HttpHeaders.RETRY_AFTER);
+            if (retryAfter >= 0) {
+                resetMillis = System.currentTimeMillis() + retryAfter * 1000;
+            } else if (resetMillis <= System.currentTimeMillis()) {
+                // 没有任何提示时退避 1 秒
+                resetMillis = System.currentTimeMillis() + 1000;
+            }
+        }
+
+        synchronized double currentRemaining() {
+            return remaining < 0 || System.currentTimeMillis() >= resetMillis ? Double.NaN : remaining;
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("limit", limit);
+            info.put("remaining", remaining);
+            info.put("inflight", inflight);
+            info.put("resetInMs", Math.max(0, resetMillis - System.currentTimeMillis()));
+            return info;
+        }
+    }
+}
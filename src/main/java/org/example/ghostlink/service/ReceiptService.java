@@ -0,0 +1,104 @@
+package org.example.ghostlink.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.example.ghostlink.store.ReceiptBlobStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receipt 外置
+ * 每个成功的证明都把 receipt 写入 {@link ReceiptBlobStore}，响应中带上 receipt_digest；
+ * 超过 inline-max-bytes 的 receipt 不再以十六进制内联在响应和证明缓存里，前端通过
+ * GET /api/v1/receipts/{digest} 下载（支持 Range / ETag）。
+ * 后台按 max-size / max-age 定期淘汰。
+ */
+@Service
+public class ReceiptService {
+
+    public static final String DIGEST_FIELD = "receipt_digest";
+
+    private final ReceiptBlobStore blobStore;
+    private final int inlineMaxBytes;
+    private final long maxBytes;
+    private final Duration maxAge;
+    private final Counter evicted;
+    private final ScheduledExecutorService evictor;
+
+    @Autowired
+    public ReceiptService(
+            ReceiptBlobStore blobStore,
+            MeterRegistry meterRegistry,
+            @Value("${ghostlink.receipts.inline-max-bytes:4096}") int inlineMaxBytes,
+            @Value("${ghostlink.receipts.max-size:2GB}") DataSize maxSize,
+            @Value("${ghostlink.receipts.max-age:7d}") Duration maxAge,
+            @Value("${ghostlink.receipts.evict-interval:10m}") Duration evictInterval
+    ) {
+        this.blobStore = blobStore;
+        this.inlineMaxBytes = inlineMaxBytes;
+        this.maxBytes = maxSize.toBytes();
+        this.maxAge = maxAge;
+        this.evicted = meterRegistry.counter("ghostlink.receipts.evicted");
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "receipt-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evict, evictInterval.toMillis(), evictInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 存储成功响应中的 receipt，返回带 receipt_digest 的新响应；大的 receipt 从响应中移除
+     */
+    public Map<String, String> offload(Map<String, String> response) {
+        String receiptHex = response.get("receipt_hex");
+        if (receiptHex == null || receiptHex.isEmpty()) {
+            return response;
+        }
+        byte[] receipt;
+        try {
+            receipt = HexFormat.of().parseHex(receiptHex.startsWith("0x") ? receiptHex.substring(2) : receiptHex);
+        } catch (IllegalArgumentException e) {
+            return response;
+        }
+        Map<String, String> offloaded = new HashMap<>(response);
+        offloaded.put(DIGEST_FIELD, blobStore.put(receipt));
+        if (receipt.length > inlineMaxBytes) {
+            offloaded.remove("receipt_hex");
+        }
+        return offloaded;
+    }
+
+    public Optional<ReceiptBlobStore.Blob> find(String digest) {
+        return blobStore.get(digest);
+    }
+
+    void evict() {
+        try {
+            int count = blobStore.evict(maxBytes, maxAge);
+            if (count > 0) {
+                evicted.increment(count);
+                System.out.println("已淘汰 " + count + " 个 receipt");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Receipt 淘汰失败: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.example.ghostlink.model.AuthResponse;
+import org.example.ghostlink.model.CredentialResult;
+import org.example.ghostlink.model.ZkProof;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 会话证明：一次提交多个凭证（GitHub、Twitter、钱包、支付宝），并发获取、校验并生成证明
+ * 每个凭证一个虚拟线程，全部放在一个作用域里：返回前等待所有子任务，离开作用域时取消仍未结束的。
+ * 单个凭证失败只记录在它自己的结果里，不影响其它凭证；会话耗时接近最慢的单个凭证而不是总和。
+ * 子任务继承请求的截止时间和当前 Observation，各自仍经过 ZkProofService 的限流与路由。
+ * GitHub / Twitter 凭证与 AuthController 的回调共用幂等记录（同一范围、由授权码派生的键），
+ * 会话重试或同一个授权码先后走回调和会话时复用第一次的结果，授权码不会被第二次消耗。
+ */
+@Service
+public class SessionProofService {
+
+    public static final String GITHUB = "github";
+    public static final String TWITTER = "twitter";
+    public static final String WALLET = "wallet";
+    public static final String ALIPAY = "alipay";
+
+    private final GithubAuthService githubAuthService;
+    private final TwitterAuthService twitterAuthService;
+    private final WalletService walletService;
+    private final AlipayService alipayService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public SessionProofService(GithubAuthService githubAuthService, TwitterAuthService twitterAuthService,
+                               WalletService walletService, AlipayService alipayService,
+                               IdempotencyService idempotencyService, ObjectMapper objectMapper,
+                               ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.githubAuthService = githubAuthService;
+        this.twitterAuthService = twitterAuthService;
+        this.walletService = walletService;
+        this.alipayService = alipayService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param session    { "recipient": "0x...", "github": { code, redirectUri }, "twitter": { code, redirectUri, codeVerifier },
+     *                   "wallet": { "data": {...} }, "alipay": { "threshold": "..." } }，各凭证均可省略
+     * @param alipayFile 支付宝资产证明 PDF，提供时才处理 alipay 凭证
+     * @return 按提交顺序排列的各凭证结果
+     */
+    public Map<String, CredentialResult> prove(Map<String, Object> session, MultipartFile alipayFile) {
+        String recipient = (String) session.get("recipient");
+        Map<String, Callable<CredentialResult>> tasks = new LinkedHashMap<>();
+
+        Map<String, Object> github = section(session, GITHUB);
+        if (github != null) {
+            tasks.put(GITHUB, () -> {
+                String code = required(github, "code");
+                String redirectUri = (String) github.get("redirectUri");
+                return oauth(IdempotencyService.GITHUB_CALLBACK,
+                        callback("code", code, "recipient", recipient, "redirectUri", redirectUri),
+                        () -> githubAuthService.authenticateWithCode(code, recipient, redirectUri));
+            });
+        }
+        Map<String, Object> twitter = section(session, TWITTER);
+        if (twitter != null) {
+            tasks.put(TWITTER, () -> {
+                String code = required(twitter, "code");
+                String redirectUri = (String) twitter.get("redirectUri");
+                String codeVerifier = (String) twitter.get("codeVerifier");
+                return oauth(IdempotencyService.TWITTER_CALLBACK,
+                        callback("code", code, "redirectUri", redirectUri, "codeVerifier", codeVerifier, "recipient", recipient),
+                        () -> twitterAuthService.authenticateWithCode(code, redirectUri, codeVerifier, recipient));
+            });
+        }
+        Map<String, Object> wallet = section(session, WALLET);
+        if (wallet != null) {
+            tasks.put(WALLET, () -> fromProof(walletService.verifyAndGenerateProof(section(wallet, "data"), recipient)));
+        }
+        if (alipayFile != null && !alipayFile.isEmpty()) {
+            Map<String, Object> alipay = section(session, ALIPAY);
+            String threshold = alipay != null ? (String) alipay.get("threshold") : null;
+            tasks.put(ALIPAY, () -> fromProof(alipayService.verifyAndGenerateProof(alipayFile, recipient, threshold)));
+        }
+
+        if (tasks.isEmpty()) {
+            throw new IllegalArgumentException("No credentials in session");
+        }
+        return Observation.createNotStarted("ghostlink.session", observationRegistry)
+                .lowCardinalityKeyValue("credentials", String.valueOf(tasks.size()))
+                .observe(() -> run(tasks));
+    }
+
+    /**
+     * 并发执行各凭证任务并收集结果
+     */
+    Map<String, CredentialResult> run(Map<String, Callable<CredentialResult>> tasks) {
+        Deadline deadline = Deadline.current();
+        Observation parent = observationRegistry.getCurrentObservation();
+        ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Map<String, Future<CredentialResult>> futures = new LinkedHashMap<>();
+            tasks.forEach((type, task) -> futures.put(type, scope.submit(() -> {
+                try (Deadline.Scope ignored = deadline != null ? deadline.bind() : null;
+                     Observation.Scope ignoredObservation = parent != null ? parent.openScope() : null) {
+                    return isolate(type, task);
+                }
+            })));
+
+            Map<String, CredentialResult> results = new LinkedHashMap<>();
+            futures.forEach((type, future) -> {
+                CredentialResult result = await(type, future, deadline);
+                meterRegistry.counter("ghostlink.session.credentials", "credential_type", type,
+                        "outcome", result.isSuccess() ? "success" : "error").increment();
+                results.put(type, result);
+            });
+            return results;
+        } finally {
+            // 截止时间到了之后不再等待：中断仍在运行的子任务
+            scope.shutdownNow();
+        }
+    }
+
+    /**
+     * 子任务自己会在每一步检查截止时间，这里的超时只兜底不检查截止时间的步骤
+     */
+    private static CredentialResult await(String type, Future<CredentialResult> future, Deadline deadline) {
+        try {
+            return deadline == null ? future.get() : future.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!future.cancel(true)) {
+                // 恰好在超时的同时完成
+                return future.resultNow();
+            }
+            DeadlineExceededException abandoned = deadline.abandon(type, "timeout");
+            return CredentialResult.error(DeadlineExceededException.ERROR_CODE, abandoned.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return CredentialResult.error("INTERNAL_ERROR", "Interrupted while waiting for " + type);
+        } catch (ExecutionException e) {
+            return CredentialResult.error("INTERNAL_ERROR", String.valueOf(e.getCause().getMessage()));
+        }
+    }
+
+    /**
+     * 把单个凭证的异常转换成它自己的错误结果，错误码与单凭证接口一致
+     */
+    private static CredentialResult isolate(String type, Callable<CredentialResult> task) {
+        try {
+            return task.call();
+        } catch (ProofRequestRejectedException e) {
+            return CredentialResult.error(e.getErrorCode(), e.getMessage());
+        } catch (ConcurrencyLimitExceededException e) {
+            return CredentialResult.overloaded(e.getMessage(), e.getRetryAfterSeconds());
+        } catch (DeadlineExceededException e) {
+            return CredentialResult.error(DeadlineExceededException.ERROR_CODE, e.getMessage());
+        } catch (PdfProcessingException e) {
+            return CredentialResult.error("PDF_" + e.getReason().name(), e.getMessage());
+        } catch (SecurityException | IllegalArgumentException | ClassCastException e) {
+            return CredentialResult.error("INVALID_DATA", String.valueOf(e.getMessage()));
+        } catch (IOException e) {
+            return CredentialResult.error("INVALID_DATA", "Failed to parse PDF file");
+        } catch (Exception e) {
+            System.out.println("会话凭证 " + type + " 处理异常: " + e.getMessage());
+            return CredentialResult.error("INTERNAL_ERROR", String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * 以回调接口的幂等范围、键和请求指纹执行 OAuth 登录，保存的响应与回调接口一致（可互相重放）；
+     * 过载 / 截止时间等可重试的异常不保存，由 {@link #isolate} 转换
+     *
+     * @param payload 等价的回调请求体（code、recipient、redirectUri、codeVerifier）
+     */
+    CredentialResult oauth(String scope, Map<String, Object> payload, Supplier<AuthResponse> login)
+            throws JsonProcessingException {
+        ResponseEntity<?> response = idempotencyService.execute(scope, IdempotencyService.codeKey((String) payload.get("code")),
+                IdempotencyService.fingerprint(payload), () -> {
+                    AuthResponse auth;
+                    try {
+                        auth = login.get();
+                    } catch (ProofRequestRejectedException e) {
+                        return ProofErrorResponses.of(e, AuthResponse::new);
+                    }
+                    return ResponseEntity.status(auth.httpStatus()).body(auth);
+                });
+        if (response.getBody() instanceof AuthResponse auth) {
+            return fromAuth(auth);
+        }
+        // 重放：保存的是 JSON（AuthResponse，或幂等层自己的 status / message）
+        Object body = response.getBody();
+        JsonNode json = body instanceof String s ? objectMapper.readTree(s) : objectMapper.valueToTree(body);
+        if (response.getStatusCode().is2xxSuccessful() && json.hasNonNull("zkProof")) {
+            ZkProof zkProof = objectMapper.treeToValue(json.get("zkProof"), ZkProof.class);
+            if (zkProof.isVerified()) {
+                return CredentialResult.success(zkProof, json.hasNonNull("user") ? json.get("user") : null);
+            }
+        }
+        int status = response.getStatusCode().value();
+        String errorCode = json.hasNonNull("errorCode") ? json.get("errorCode").asText()
+                : status == 200 ? "PROOF_FAILED" : status == 409 ? "IN_PROGRESS" : "AUTH_FAILED";
+        String message = json.hasNonNull("error") ? json.get("error").asText() : json.path("message").asText("ZK Proof Generation Failed");
+        return CredentialResult.error(errorCode, message);
+    }
+
+    /**
+     * 与回调接口请求体相同的键值（省略 null），用于请求指纹
+     */
+    private static Map<String, Object> callback(String... keyValues) {
+        Map<String, Object> payload = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            if (keyValues[i + 1] != null) {
+                payload.put(keyValues[i], keyValues[i + 1]);
+            }
+        }
+        return payload;
+    }
+
+    private static CredentialResult fromAuth(AuthResponse response) {
+        if (response.getError() != null) {
+            String errorCode = response.getErrorCode() != null ? response.getErrorCode() : "AUTH_FAILED";
+            return CredentialResult.error(errorCode, response.getError());
+        }
+        if (response.getZkProof() == null || !response.getZkProof().isVerified()) {
+            return CredentialResult.error("PROOF_FAILED", "ZK Proof Generation Failed");
+        }
+        return CredentialResult.success(response.getZkProof(), response.getUser());
+    }
+
+    private static CredentialResult fromProof(ZkProof zkProof) {
+        if (!zkProof.isVerified()) {
+            return CredentialResult.error("PROOF_FAILED", "ZK Proof Generation Failed");
+        }
+        return CredentialResult.success(zkProof, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> section(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    private static String required(Map<String, Object> section, String key) {
+        Object value = section.get(key);
+        if (!(value instanceof String s) || s.isBlank()) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.ghostlink.service;
+
+/**
+ * 实例正在停机排空，不再开始新的证明（对外返回 503 + Retry-After / gRPC UNAVAILABLE），调用方重试到其他副本
+ */
+public class ShuttingDownException extends ConcurrencyLimitExceededException {
+
+    public static final String ERROR_CODE = "SHUTTING_DOWN";
+
+    private static final long RETRY_AFTER_SECONDS = 2;
+
+    public ShuttingDownException(String dependency) {
+        super(dependency, RETRY_AFTER_SECONDS, "Server is restarting, please retry");
+    }
+
+    @Override
+    public String getErrorCode() {
+        return ERROR_CODE;
+    }
+}
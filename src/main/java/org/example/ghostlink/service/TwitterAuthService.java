@@ -1,14 +1,21 @@
 package org.example.ghostlink.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.example.ghostlink.jfr.OAuthCallRecorder;
 import org.example.ghostlink.model.AuthResponse;
-import org.example.ghostlink.model.TwitterUser;
+import org.example.ghostlink.model.TwitterProfile;
 import org.example.ghostlink.model.ZkProof;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -24,31 +31,84 @@ public class TwitterAuthService {
     private final String clientId;
     private final String clientSecret;
     private final ZkProofService zkProofService;
+    private final ProofHistoryService proofHistoryService;
+    private final ProofEventService proofEvents;
+    private final LoadMonitor loadMonitor;
+    private final AdaptiveLimiter twitterLimiter;
+    private final ObservationRegistry observationRegistry;
+    // 由 RestTemplateBuilder 构建，出站请求带 HTTP client span 并注入 traceparent；另记录 JFR OAuthCall 事件
+    private final RestTemplate restTemplate;
 
     @Autowired
     public TwitterAuthService(
             @Value("${ghostlink.twitter.client-id:}") String clientId,
             @Value("${ghostlink.twitter.client-secret:}") String clientSecret,
-            ZkProofService zkProofService
+            ZkProofService zkProofService,
+            ProofHistoryService proofHistoryService,
+            ProofEventService proofEvents,
+            LoadMonitor loadMonitor,
+            ConcurrencyLimits concurrencyLimits,
+            RateLimitScheduler rateLimitScheduler,
+            ObservationRegistry observationRegistry,
+            RestTemplateBuilder restTemplateBuilder
     ) {
         this.clientId = clientId;
         this.clientSecret = clientSecret;
         this.zkProofService = zkProofService;
+        this.proofHistoryService = proofHistoryService;
+        this.proofEvents = proofEvents;
+        this.loadMonitor = loadMonitor;
+        this.twitterLimiter = concurrencyLimits.get(LoadMonitor.TWITTER);
+        this.observationRegistry = observationRegistry;
+        this.restTemplate = restTemplateBuilder
+                .requestFactoryBuilder(DeadlineRequestFactory.builder())
+                .additionalInterceptors(Deadline.interceptor(LoadMonitor.TWITTER), new OAuthCallRecorder(),
+                        rateLimitScheduler.interceptor(LoadMonitor.TWITTER))
+                .build();
     }
 
     public AuthResponse authenticateWithCode(String code, String redirectUri, String codeVerifier, String recipient) {
         if (clientId == null || clientId.isBlank() || clientSecret == null || clientSecret.isBlank()) {
             return new AuthResponse("Twitter OAuth 配置缺失：请设置 GHOSTLINK_TWITTER_CLIENT_ID / GHOSTLINK_TWITTER_CLIENT_SECRET");
         }
-        String accessToken = exchangeCodeForToken(code, redirectUri, codeVerifier);
+        // 授权码只能用一次：先确认 prover 有余量、剩余截止时间够一次证明再换 token，
+        // 此时返回的 503 / 504 可以用同一个授权码重试。
+        // token 交换本身在 twitterLimiter 名额内执行，被拒绝时请求没有发出，授权码同样未被消耗
+        zkProofService.checkAdmission();
+        String accessToken;
+        try {
+            accessToken = Observation.createNotStarted("ghostlink.twitter.token-exchange", observationRegistry)
+                    .observe(() -> exchangeCodeForToken(code, redirectUri, codeVerifier));
+        } catch (RestClientException e) {
+            // 超时 / 5xx 不能说明授权码无效，返回可重试的错误（幂等层不缓存）
+            System.err.println("Twitter Token Exchange Unavailable: " + e.getMessage());
+            return new AuthResponse(AuthResponse.UPSTREAM_UNAVAILABLE, "Twitter is temporarily unavailable, please retry");
+        }
         if (accessToken == null) {
             return new AuthResponse("Failed to retrieve access token from Twitter");
         }
-        return fetchAndVerify(accessToken, recipient);
+        try {
+            return fetchAndVerify(accessToken, recipient);
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            return restartRequired(e);
+        }
     }
 
+    /**
+     * 授权码已消耗后被限流或超过截止时间：不能再返回可重试的 503 / 504，告诉客户端重新发起 Twitter 登录
+     */
+    private static AuthResponse restartRequired(RuntimeException e) {
+        System.out.println("Twitter 授权码已使用，后续步骤过载或超时: " + e.getMessage());
+        return new AuthResponse(AuthResponse.OAUTH_RESTART_REQUIRED,
+                e.getMessage() + "; the authorization code has been used, please sign in with Twitter again");
+    }
+
+    /**
+     * 用授权码换取 access token；Twitter 明确拒绝（4xx）时返回 null
+     *
+     * @throws RestClientException 网络错误、超时或 5xx，结果未知
+     */
     private String exchangeCodeForToken(String code, String redirectUri, String codeVerifier) {
-        RestTemplate restTemplate = new RestTemplate();
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         headers.setBasicAuth(clientId, clientSecret);
@@ -63,11 +123,20 @@ public class TwitterAuthService {
         HttpEntity<MultiValueMap<String, String>> entity = new HttpEntity<>(body, headers);
 
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(TWITTER_TOKEN_URL, entity, Map.class);
+            ResponseEntity<Map> response;
+            try (LoadMonitor.Sample ignored = loadMonitor.begin(LoadMonitor.TWITTER)) {
+                response = twitterLimiter.call(() -> restTemplate.postForEntity(TWITTER_TOKEN_URL, entity, Map.class));
+            }
             Map<String, Object> responseBody = response.getBody();
             if (responseBody != null && responseBody.containsKey("access_token")) {
                 return (String) responseBody.get("access_token");
             }
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
+        } catch (HttpClientErrorException e) {
+            System.err.println("Twitter Token Exchange Failed: " + e.getStatusCode() + " " + e.getResponseBodyAsString());
+        } catch (RestClientException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -75,20 +144,29 @@ public class TwitterAuthService {
     }
 
     private AuthResponse fetchAndVerify(String accessToken, String recipient) {
-        RestTemplate restTemplate = new RestTemplate();
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(TWITTER_USER_API, HttpMethod.GET, entity, Map.class);
-            Map<String, Object> body = response.getBody();
-            if (body != null && body.containsKey("data")) {
-                Map<String, Object> userData = (Map<String, Object>) body.get("data");
-                TwitterUser twitterUser = new TwitterUser(userData);
-                
+            // 响应流直接解析成 TwitterProfile，没有 data 时为 null
+            TwitterProfile profile;
+            try (LoadMonitor.Sample ignored = loadMonitor.begin(LoadMonitor.TWITTER)) {
+                profile = Observation.createNotStarted("ghostlink.twitter.fetch-user", observationRegistry)
+                        .observe(() -> twitterLimiter.call(() -> restTemplate.execute(TWITTER_USER_API, HttpMethod.GET,
+                                restTemplate.httpEntityCallback(entity), response -> {
+                                    try {
+                                        return ProfileReader.readTwitterUser(response.getBody());
+                                    } catch (JsonProcessingException e) {
+                                        // 响应格式错误不是传输错误，避免被 RestTemplate 包装成 ResourceAccessException 计为过载
+                                        throw new RestClientException("Invalid Twitter user response", e);
+                                    }
+                                })));
+            }
+            if (profile != null) {
                 // 调用ZK服务生成证明
-                ZkProof zkProof = callZkService(userData, recipient);
+                ZkProof zkProof = Observation.createNotStarted("ghostlink.twitter.prove", observationRegistry)
+                        .observe(() -> callZkService(profile, recipient));
                 
                 if (zkProof != null && zkProof.isVerified()) {
                     return new AuthResponse("success", null, zkProof);
@@ -96,6 +174,8 @@ public class TwitterAuthService {
                     return new AuthResponse("ZK Proof generation failed", null, null);
                 }
             }
+        } catch (ProofRequestRejectedException | ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -106,21 +186,14 @@ public class TwitterAuthService {
      * 调用 ZK 服务生成证明
      * 按照 risc_zero_spec.md 规范构造请求
      */
-    private ZkProof callZkService(Map<String, Object> twitterUserData, String recipient) {
+    private ZkProof callZkService(TwitterProfile profile, String recipient) {
         try {
             // 按照规范构造 data 对象
             Map<String, Object> data = new HashMap<>();
-            data.put("user_id", twitterUserData.get("id"));  // String
-            data.put("handle", twitterUserData.get("username"));  // String (不含 @)
-            data.put("created_at", twitterUserData.get("created_at"));  // String (ISO 8601)
-            
-            // 获取粉丝数（可选字段）
-            Map<String, Object> publicMetrics = (Map<String, Object>) twitterUserData.get("public_metrics");
-            if (publicMetrics != null && publicMetrics.containsKey("followers_count")) {
-                data.put("followers_count", publicMetrics.get("followers_count"));  // Number
-            } else {
-                data.put("followers_count", 0);
-            }
+            data.put("user_id", profile.id());  // String
+            data.put("handle", profile.username());  // String (不含 @)
+            data.put("created_at", profile.createdAt());  // String (ISO 8601)
+            data.put("followers_count", profile.followersCount());  // Number（缺失时为 0）
             
             // 构造符合规范的请求体
             Map<String, Object> request = new HashMap<>();
@@ -133,50 +206,45 @@ public class TwitterAuthService {
             System.out.println("请求数据: " + objectMapper.writeValueAsString(request));
             
             // 直接调用本地服务生成证明 (Refactored to avoid self-HTTP call)
-            Map<String, String> responseBody = zkProofService.generateMockProof(request);
+            Map<String, String> responseBody = zkProofService.prove(request);
             
             // 打印完整的响应体到控制台
             System.out.println("ZK服务响应: " + objectMapper.writeValueAsString(responseBody));
             
             if (responseBody != null && "success".equals(responseBody.get("status"))) {
-                // 解析真实接口返回的数据
-                String receiptHex = (String) responseBody.get("receipt_hex");
-                String journalHex = (String) responseBody.get("journal_hex");
-                String imageIdHex = (String) responseBody.get("image_id_hex");
-                String nullifierHex = (String) responseBody.get("nullifier_hex");
-                
-                // 确保添加0x前缀（如果接口返回的没有）
-                String receipt = receiptHex != null && !receiptHex.startsWith("0x") ? "0x" + receiptHex : receiptHex;
-                String journal = journalHex != null && !journalHex.startsWith("0x") ? "0x" + journalHex : journalHex;
-                String imageId = imageIdHex != null && !imageIdHex.startsWith("0x") ? "0x" + imageIdHex : imageIdHex;
-                String nullifier = nullifierHex != null && !nullifierHex.startsWith("0x") ? "0x" + nullifierHex : nullifierHex;
-                
-                return new ZkProof(
-                        "zk-twitter-" + System.currentTimeMillis(),
+                // 有无 0x 前缀均可，解析成字节保存
+                ZkProof zkProof = ZkProof.fromHex(
+                        ProofIds.next("twitter"),
                         true,
                         System.currentTimeMillis(),
-                        receipt,
-                        journal,
-                        imageId,
-                        nullifier
+                        (String) responseBody.get("receipt_hex"),
+                        (String) responseBody.get("journal_hex"),
+                        (String) responseBody.get("image_id_hex"),
+                        (String) responseBody.get("nullifier_hex"),
+                        (String) responseBody.get(ReceiptService.DIGEST_FIELD)
                 );
+                proofHistoryService.record("twitter", recipient, zkProof);
+                proofEvents.completed("twitter", recipient, zkProof);
+                return zkProof;
             } else {
                 // 处理错误响应
                 String errorCode = (String) responseBody.get("error_code");
                 String errorMessage = (String) responseBody.get("message");
                 System.out.println("ZK服务返回错误 - Code: " + errorCode + ", Message: " + errorMessage);
+                proofEvents.failed("twitter", recipient, errorCode, errorMessage);
             }
+        } catch (ProofRequestRejectedException e) {
+            proofEvents.failed("twitter", recipient, e.getErrorCode(), e.getMessage());
+            throw e;
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
             System.out.println("调用ZK服务异常: " + e.getMessage());
+            proofEvents.failed("twitter", recipient, "INTERNAL_ERROR", e.getMessage());
             e.printStackTrace();
         }
         
         // 如果调用失败，返回验证失败的对象
-        return new ZkProof(
-                "zk-fail-" + System.currentTimeMillis(),
-                false,
-                System.currentTimeMillis(),
-                null, null, null, null
-        );
+        return ZkProof.failed(ProofIds.next("fail"), System.currentTimeMillis());
     }
 }
@@ -0,0 +1,133 @@
+package org.example.ghostlink.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.example.ghostlink.crypto.EthSignatures;
+import org.example.ghostlink.model.ZkProof;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 钱包凭证
+ * 在调用 ZK 服务之前先在后端做 ecrecover 校验，伪造的签名在这里被拒绝，不会占用 prover。
+ */
+@Service
+public class WalletService {
+
+    private static final String[] REQUIRED_FIELDS = {
+            "address", "balance_wei", "chain_id", "signature", "message"
+    };
+
+    private final ZkProofService zkProofService;
+    private final ProofHistoryService proofHistoryService;
+    private final ProofEventService proofEvents;
+    private final ObservationRegistry observationRegistry;
+
+    @Autowired
+    public WalletService(ZkProofService zkProofService, ProofHistoryService proofHistoryService,
+                         ProofEventService proofEvents, ObservationRegistry observationRegistry) {
+        this.zkProofService = zkProofService;
+        this.proofHistoryService = proofHistoryService;
+        this.proofEvents = proofEvents;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * 校验签名并生成零知识证明
+     *
+     * @param data      risc_zero_spec.md 中 wallet 的 data 字段
+     * @param recipient 接收地址
+     * @throws IllegalArgumentException 字段缺失或格式错误
+     * @throws SecurityException        签名与地址不匹配
+     */
+    public ZkProof verifyAndGenerateProof(Map<String, Object> data, String recipient) {
+        if (data == null) {
+            throw new IllegalArgumentException("Missing wallet data");
+        }
+        for (String field : REQUIRED_FIELDS) {
+            if (data.get(field) == null || data.get(field).toString().isBlank()) {
+                throw new IllegalArgumentException("Missing field: " + field);
+            }
+        }
+        String address = data.get("address").toString().trim();
+        if (!EthSignatures.isAddress(address)) {
+            throw new IllegalArgumentException("Invalid wallet address: " + address);
+        }
+
+        boolean valid = Observation.createNotStarted("ghostlink.wallet.ecrecover", observationRegistry)
+                .observe(() -> EthSignatures.verify(address, data.get("message").toString(), data.get("signature").toString()));
+        if (!valid) {
+            System.out.println("钱包签名校验失败，拒绝生成证明: " + address);
+            throw new SecurityException("Verification Failed: signature does not match wallet address");
+        }
+
+        return Observation.createNotStarted("ghostlink.wallet.prove", observationRegistry)
+                .observe(() -> callZkService(data, address.toLowerCase(Locale.ROOT), recipient));
+    }
+
+    /**
+     * 批量签名预校验，结果与输入一一对应
+     */
+    public boolean[] verifyBatch(List<EthSignatures.SignedMessage> messages) {
+        return EthSignatures.verifyAll(messages);
+    }
+
+    /**
+     * 调用 ZK 服务生成证明
+     * 按照 risc_zero_spec.md 规范构造请求
+     */
+    private ZkProof callZkService(Map<String, Object> rawData, String address, String recipient) {
+        try {
+            Map<String, Object> data = new HashMap<>();
+            data.put("address", address);
+            data.put("balance_wei", rawData.get("balance_wei").toString());
+            if (rawData.get("transaction_count") != null) {
+                data.put("transaction_count", rawData.get("transaction_count"));
+            }
+            data.put("chain_id", rawData.get("chain_id"));
+            data.put("signature", rawData.get("signature").toString());
+            data.put("message", rawData.get("message").toString());
+
+            Map<String, Object> request = new HashMap<>();
+            request.put("credential_type", "wallet");
+            request.put("data", data);
+            request.put("recipient", recipient != null ? recipient : address);
+
+            Map<String, String> responseBody = zkProofService.prove(request);
+            if (responseBody != null && "success".equals(responseBody.get("status"))) {
+                ZkProof zkProof = ZkProof.fromHex(
+                        ProofIds.next("wallet"),
+                        true,
+                        System.currentTimeMillis(),
+                        responseBody.get("receipt_hex"),
+                        responseBody.get("journal_hex"),
+                        responseBody.get("image_id_hex"),
+                        responseBody.get("nullifier_hex"),
+                        responseBody.get(ReceiptService.DIGEST_FIELD)
+                );
+                proofHistoryService.record("wallet", (String) request.get("recipient"), zkProof);
+                proofEvents.completed("wallet", (String) request.get("recipient"), zkProof);
+                return zkProof;
+            }
+            System.out.println("ZK服务返回错误 - Code: " + (responseBody != null ? responseBody.get("error_code") : null));
+            proofEvents.failed("wallet", (String) request.get("recipient"),
+                    responseBody != null ? responseBody.get("error_code") : null,
+                    responseBody != null ? responseBody.get("message") : null);
+        } catch (ProofRequestRejectedException e) {
+            proofEvents.failed("wallet", recipient != null ? recipient : address, e.getErrorCode(), e.getMessage());
+            throw e;
+        } catch (ConcurrencyLimitExceededException | DeadlineExceededException e) {
+            throw e;
+        } catch (Exception e) {
+            System.out.println("调用ZK服务异常: " + e.getMessage());
+            proofEvents.failed("wallet", recipient != null ? recipient : address, "INTERNAL_ERROR", e.getMessage());
+        }
+
+        return ZkProof.failed(ProofIds.next("fail"), System.currentTimeMillis());
+    }
+}
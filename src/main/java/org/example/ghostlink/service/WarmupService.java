@@ -0,0 +1,208 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDSignatureField;
+import org.example.ghostlink.crypto.Secp256k1;
+import org.example.ghostlink.model.ZkProof;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 启动预热
+ * 在 ApplicationRunner 阶段反复执行 验签 -> 文本提取 -> 哈希 -> 模拟证明 的完整路径，
+ * 让 JIT 编译热点代码，并提前构建（持久化）PDFBox 字体缓存。
+ * Spring Boot 在所有 ApplicationRunner 结束后才发布 ReadinessState.ACCEPTING_TRAFFIC，
+ * 因此预热期间 /actuator/health/readiness 为 OUT_OF_SERVICE，负载均衡不会把流量导到冷实例。
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+    private static final ThreadLocal<Boolean> WARMING_UP = ThreadLocal.withInitial(() -> false);
+
+    private final AlipayService alipayService;
+    private final ZkProofService zkProofService;
+    private final boolean enabled;
+    private final int iterations;
+    private final String samplesDir;
+
+    @Autowired
+    public WarmupService(
+            AlipayService alipayService,
+            ZkProofService zkProofService,
+            @Value("${ghostlink.warmup.enabled:true}") boolean enabled,
+            @Value("${ghostlink.warmup.iterations:200}") int iterations,
+            @Value("${ghostlink.warmup.samples-dir:}") String samplesDir,
+            @Value("${ghostlink.warmup.font-cache-dir:}") String fontCacheDir
+    ) {
+        this.alipayService = alipayService;
+        this.zkProofService = zkProofService;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.samplesDir = samplesDir;
+        // 必须在 FontMappers 首次使用之前设置，PDFBox 会把扫描系统字体的结果写到该目录
+        if (!fontCacheDir.isBlank() && System.getProperty("pdfbox.fontcache") == null) {
+            try {
+                System.setProperty("pdfbox.fontcache", Files.createDirectories(Path.of(fontCacheDir)).toString());
+            } catch (IOException e) {
+                System.out.println("预热: 无法创建 PDFBox 字体缓存目录 " + fontCacheDir + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!enabled || iterations <= 0) {
+            return;
+        }
+        callAsWarmup(true, () -> {
+            warmUp();
+            return null;
+        });
+    }
+
+    /**
+     * 当前线程是否在执行预热（预热期间不产生 tracing span）
+     */
+    public static boolean isWarmupThread() {
+        return WARMING_UP.get();
+    }
+
+    /**
+     * 在当前线程上带着预热标记执行 task；工作线程（如 PDF 隔离池）替预热线程执行任务时用它延续标记
+     */
+    static <T> T callAsWarmup(boolean warmingUp, Callable<T> task) throws Exception {
+        if (!warmingUp) {
+            return task.call();
+        }
+        WARMING_UP.set(true);
+        try {
+            return task.call();
+        } finally {
+            WARMING_UP.remove();
+        }
+    }
+
+    private void warmUp() throws IOException {
+        long start = System.nanoTime();
+
+        // 1. 触发字体扫描（首次约数秒，之后从缓存文件读取）
+        FontMappers.instance().getFontBoxFont("SimSun", null);
+        long fontsMs = (System.nanoTime() - start) / 1_000_000;
+
+        // secp256k1 固定基点预计算表（钱包签名校验）
+        Secp256k1.precompute();
+
+        // 2. 反复执行完整的凭证处理路径
+        List<byte[]> samples = loadSamples();
+        ObjectMapper objectMapper = new ObjectMapper();
+        int failures = 0;
+        for (int i = 0; i < iterations; i++) {
+            byte[] pdf = samples.get(i % samples.size());
+            try {
+                Map<String, String> extracted = alipayService.verifyAndExtractBalance(pdf);
+
+                Map<String, Object> data = new HashMap<>();
+                data.put("balance", extracted.get("balance"));
+                data.put("id_number_hash", extracted.get("id_number_hash"));
+                data.put("threshold", "10000");
+                Map<String, Object> request = new HashMap<>();
+                request.put("credential_type", "alipay");
+                request.put("data", data);
+                request.put("recipient", "0x0000000000000000000000000000000000000000");
+
+                Map<String, String> response = zkProofService.generateMockProof(request);
+                ZkProof proof = ZkProof.fromHex(ProofIds.next("warmup"), true, System.currentTimeMillis(),
+                        response.get("receipt_hex"), response.get("journal_hex"),
+                        response.get("image_id_hex"), response.get("nullifier_hex"), null);
+                objectMapper.writeValueAsBytes(request);
+                objectMapper.writeValueAsBytes(proof);
+            } catch (RuntimeException | IOException e) {
+                failures++;
+            }
+        }
+
+        System.out.printf("预热完成: samples=%d iterations=%d failures=%d fonts=%dms total=%dms%n",
+                samples.size(), iterations, failures, fontsMs, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 优先使用 samples-dir 下的 PDF（例如脱敏后的真实资产证明），否则使用内置的合成样本
+     */
+    private List<byte[]> loadSamples() throws IOException {
+        List<byte[]> samples = new ArrayList<>();
+        if (!samplesDir.isBlank() && Files.isDirectory(Path.of(samplesDir))) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(Path.of(samplesDir), "*.pdf")) {
+                for (Path p : stream) {
+                    samples.add(Files.readAllBytes(p));
+                }
+            }
+        }
+        if (samples.isEmpty()) {
+            samples.add(syntheticSample("Total Assets 15,975.01", 1));
+            samples.add(syntheticSample("Total Assets 1,234,567.89", 3));
+        }
+        return samples;
+    }
+
+    /**
+     * 生成带签名域的合成资产证明（签名字典不含真实签名，仅用于走通验签分支）
+     */
+    static byte[] syntheticSample(String assetLine, int pages) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.setLeading(16);
+                    content.newLineAtOffset(72, 720);
+                    content.showText("Alipay Asset Certificate (warm-up sample)");
+                    content.newLine();
+                    content.showText(assetLine);
+                    for (int line = 0; line < 30; line++) {
+                        content.newLine();
+                        content.showText("Fund " + line + " balance " + (line * 1000 + 0.5));
+                    }
+                    content.endText();
+                }
+            }
+
+            PDAcroForm acroForm = new PDAcroForm(document);
+            document.getDocumentCatalog().setAcroForm(acroForm);
+            PDSignature signature = new PDSignature();
+            signature.setFilter(PDSignature.FILTER_ADOBE_PPKLITE);
+            signature.setSubFilter(PDSignature.SUBFILTER_ADBE_PKCS7_DETACHED);
+            signature.setName("GhostLink warm-up");
+            PDSignatureField field = new PDSignatureField(acroForm);
+            field.getCOSObject().setItem(COSName.V, signature);
+            acroForm.getFields().add(field);
+
+            document.save(out);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,35 +1,448 @@
 package org.example.ghostlink.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.example.ghostlink.jfr.ProofRequestEvent;
+import org.example.ghostlink.store.StateStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 public class ZkProofService {
 
     private static final SecureRandom random = new SecureRandom();
 
+    private static final String ZERO_ADDRESS = "0x0000000000000000000000000000000000000000";
+    private static final Pattern ADDRESS = Pattern.compile("0x[0-9a-fA-F]{40}");
+
+    // 证明结果缓存的 namespace
+    static final String PROOF_RESULTS = "proof-results";
+    // 证明任务（进行中 / 已完成）的 namespace，相同请求的并发调用加入已有任务而不是重复证明
+    static final String PROOF_JOBS = "proof-jobs";
+
+    // 证明结果中的二进制字段：响应里是十六进制，缓存里是 Base64
+    private static final String HEX_SUFFIX = "_hex";
+    private static final String BASE64_SUFFIX = "_b64";
+
+    // 等待其他调用方（可能在别的副本）完成同一任务时的轮询间隔上限
+    private static final long MAX_JOB_POLL_MILLIS = 250;
+
+    private static final ObjectMapper canonicalMapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final StateStore stateStore;
+    private final LoadMonitor loadMonitor;
+    private final Duration resultTtl;
+    private final Duration jobTtl;
+    private final ProofRequestValidator validator;
+    private final MeterRegistry meterRegistry;
+    private final Duration assumedProverTime;
+    private final Counter savedProverSeconds;
+    private final ObservationRegistry observationRegistry;
+    private final ProverRouter proverRouter;
+    private final JournalVerifier journalVerifier;
+    private final ProofDrainService drainService;
+    private final AdaptiveLimiter proverLimiter;
+    private final ReceiptService receiptService;
+
+    @Autowired
+    public ZkProofService(
+            StateStore stateStore,
+            LoadMonitor loadMonitor,
+            @Value("${ghostlink.state.proof-result-ttl:10m}") Duration resultTtl,
+            @Value("${ghostlink.state.proof-job-ttl:3m}") Duration jobTtl,
+            ProofRequestValidator validator,
+            MeterRegistry meterRegistry,
+            @Value("${ghostlink.validation.assumed-prover-time:30s}") Duration assumedProverTime,
+            ObservationRegistry observationRegistry,
+            ProverRouter proverRouter,
+            JournalVerifier journalVerifier,
+            ProofDrainService drainService,
+            ConcurrencyLimits concurrencyLimits,
+            ReceiptService receiptService
+    ) {
+        this.stateStore = stateStore;
+        this.loadMonitor = loadMonitor;
+        this.resultTtl = resultTtl;
+        this.jobTtl = jobTtl;
+        this.validator = validator;
+        this.meterRegistry = meterRegistry;
+        this.assumedProverTime = assumedProverTime;
+        this.savedProverSeconds = Counter.builder("ghostlink.proof.validation.saved.prover.time")
+                .description("Estimated prover time avoided by rejecting requests before proving")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.observationRegistry = observationRegistry;
+        this.proverRouter = proverRouter;
+        this.journalVerifier = journalVerifier;
+        this.drainService = drainService;
+        this.proverLimiter = concurrencyLimits.get(LoadMonitor.PROVER);
+        this.receiptService = receiptService;
+    }
+
+    /**
+     * 启动后在后台重新证明上一次停机时未完成的请求（见 {@link ProofDrainService}），
+     * 结果写入证明缓存，用户重试同一请求时直接命中
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeCheckpoints() {
+        List<Map<String, Object>> checkpoints = drainService.claimCheckpoints();
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+        System.out.println("恢复 " + checkpoints.size() + " 个停机前未完成的证明");
+        Thread.ofVirtual().name("proof-resume").start(() -> {
+            for (Map<String, Object> checkpoint : checkpoints) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> request = (Map<String, Object>) checkpoint.get("request");
+                String outcome;
+                try {
+                    outcome = prove(request).get("status");
+                } catch (RuntimeException e) {
+                    outcome = "error";
+                    System.out.println("恢复证明失败 - Key: " + checkpoint.get("key") + ", Error: " + e.getMessage());
+                }
+                meterRegistry.counter("ghostlink.proof.resumed", "outcome", String.valueOf(outcome)).increment();
+            }
+        });
+    }
+
+    /**
+     * 准入检查：正在停机排空时抛出 {@link ShuttingDownException}；剩余截止时间不够一次证明（prover 延迟中位数）时抛出 {@link DeadlineExceededException}，
+     * prover 并发已满时抛出 {@link ConcurrencyLimitExceededException}，不占用名额。
+     * OAuth 流程在消耗授权码之前调用，被拒绝时授权码仍然有效，客户端可以直接重试
+     */
+    public void checkAdmission() {
+        checkDraining();
+        checkDeadline();
+        proverLimiter.checkHeadroom();
+    }
+
+    /**
+     * 生成证明（带去重）
+     * 先经过 {@link ProofRequestValidator}，注定失败的请求直接抛出 {@link ProofRequestRejectedException}；
+     * 相同的请求（credential_type + data + recipient）在 TTL 内只证明一次，
+     * 所有副本通过共享 StateStore 返回同一个结果；同一请求正在证明时（任何副本上），后来者等待该任务的结果。
+     * 成功的响应带有 job_id，可通过 {@link #job(String)} 查询任务状态。
+     * 当前线程绑定了 {@link Deadline} 时，过期或剩余预算不足的请求抛出 {@link DeadlineExceededException}；
+     * 停机排空期间未命中缓存的请求抛出 {@link ShuttingDownException}。
+     */
+    public Map<String, String> prove(Map<String, Object> requestData) {
+        Observation observation = Observation.createNotStarted("ghostlink.prover", observationRegistry)
+                .lowCardinalityKeyValue("credential_type",
+                        ProofRequestValidator.credentialTypeTag(requestData != null ? requestData.get("credential_type") : null))
+                .start();
+        ProofRequestEvent event = new ProofRequestEvent();
+        event.begin();
+        Map<String, String> result = null;
+        String outcome = "error";
+        try (Observation.Scope ignored = observation.openScope()) {
+            try {
+                validator.validate(requestData);
+            } catch (ProofRequestRejectedException e) {
+                recordRejection(requestData, e);
+                outcome = "rejected";
+                observation.lowCardinalityKeyValue("outcome", outcome).error(e);
+                throw e;
+            }
+            // 校验通过后 credential_type 一定是已知类型
+            Object type = requestData.get("credential_type");
+
+            String key = fingerprint(requestData);
+            Optional<String> cached = stateStore.get(PROOF_RESULTS, key);
+            if (cached.isPresent()) {
+                outcome = "cached";
+                observation.lowCardinalityKeyValue("outcome", outcome);
+                result = decode(cached.get());
+                return result;
+            }
+
+            // 停机排空期间不再开始新的证明（缓存命中仍然返回），HTTP 和 gRPC 调用方都重试到其他副本
+            try {
+                checkDraining();
+            } catch (ShuttingDownException e) {
+                outcome = "draining";
+                observation.lowCardinalityKeyValue("outcome", outcome);
+                throw e;
+            }
+
+            // 截止时间已过，或剩余预算不够一次证明（按最近的中位耗时估计）时不再开始：没有人在等这个结果
+            try {
+                checkDeadline();
+            } catch (DeadlineExceededException e) {
+                outcome = "abandoned";
+                observation.lowCardinalityKeyValue("outcome", outcome);
+                throw e;
+            }
+
+            // 同一请求已有进行中的任务时等待它的结果；任务放弃（失败、被拒绝）后再自己认领
+            boolean owner = false;
+            try {
+                while (!owner) {
+                    String running = encodeJob(key, requestData, "running");
+                    Optional<String> holder = stateStore.putIfAbsent(PROOF_JOBS, key, running, jobTtl);
+                    if (holder.isPresent() && !"running".equals(decodeJob(holder.get()).get("status"))) {
+                        // 已完成但结果已被淘汰的任务，重新证明；只有一个调用方能从同一个旧状态认领（比较并替换）
+                        if (!stateStore.replace(PROOF_JOBS, key, holder.get(), running, jobTtl)) {
+                            continue;
+                        }
+                        holder = Optional.empty();
+                    }
+                    if (holder.isEmpty()) {
+                        owner = true;
+                        break;
+                    }
+                    JobWait wait = awaitJob(key);
+                    if (wait.result() != null) {
+                        outcome = "joined";
+                        observation.lowCardinalityKeyValue("outcome", outcome);
+                        result = wait.result();
+                        return result;
+                    }
+                    if (wait.timedOut()) {
+                        // 持有者可能已经崩溃（任务在 job-ttl 后过期），不再等待，直接证明
+                        break;
+                    }
+                }
+                result = proveOwned(key, requestData, type, observation);
+                outcome = String.valueOf(result.get("status"));
+                return result;
+            } catch (ConcurrencyLimitExceededException e) {
+                outcome = "shed";
+                throw e;
+            } catch (DeadlineExceededException e) {
+                outcome = "abandoned";
+                observation.lowCardinalityKeyValue("outcome", outcome);
+                throw e;
+            } finally {
+                if (owner && (result == null || !"success".equals(result.get("status")))) {
+                    // 没有结果的任务立即释放，等待中的调用方自己重试
+                    stateStore.remove(PROOF_JOBS, key);
+                }
+            }
+        } finally {
+            observation.stop();
+            commit(event, requestData, outcome, result);
+        }
+    }
+
+    /**
+     * 已认领任务后的证明：并发上限、路由、journal 校验、receipt 卸载，成功结果写入缓存
+     */
+    private Map<String, String> proveOwned(String key, Map<String, Object> requestData, Object type, Observation observation) {
+        // 超过 prover 的自适应并发上限时立即拒绝，由调用方返回 503 + Retry-After
+        AdaptiveLimiter.Permit permit;
+        try {
+            permit = proverLimiter.acquire();
+        } catch (ConcurrencyLimitExceededException e) {
+            observation.lowCardinalityKeyValue("outcome", "shed");
+            throw e;
+        }
+
+        Map<String, String> response;
+        drainService.proofStarted(key, requestData);
+        try (permit; LoadMonitor.Sample sample = loadMonitor.begin(LoadMonitor.PROVER)) {
+            // 配置了 prover 节点时经路由转发，否则使用本地 mock
+            String credentialType = String.valueOf(type);
+            response = proverRouter.hasEndpoints(credentialType)
+                    ? proverRouter.prove(credentialType, requestData)
+                    : generateMockProof(requestData);
+            if ("success".equals(response.get("status"))) {
+                permit.succeeded();
+            } else if ("PROVER_UNAVAILABLE".equals(response.get("error_code"))) {
+                permit.dropped();
+            }
+        } finally {
+            drainService.proofFinished(key);
+        }
+        if ("success".equals(response.get("status"))) {
+            response = checkJournal(requestData, response);
+        }
+        if ("success".equals(response.get("status"))) {
+            // receipt 写入内容寻址存储，大的 receipt 不再内联在响应和缓存里
+            response = receiptService.offload(response);
+        }
+        observation.lowCardinalityKeyValue("outcome", String.valueOf(response.get("status")));
+        if (!"success".equals(response.get("status"))) {
+            return response;
+        }
+        response = new HashMap<>(response);
+        response.put("job_id", key);
+        // 并发下只保留第一个写入的结果；结果写入后再把任务标记为完成，等待方先检查结果
+        Map<String, String> result = stateStore.putIfAbsent(PROOF_RESULTS, key, encode(response), resultTtl)
+                .map(ZkProofService::decode)
+                .orElse(response);
+        stateStore.put(PROOF_JOBS, key, encodeJob(key, requestData, "success"), resultTtl);
+        return result;
+    }
+
+    /**
+     * 查询证明任务：running（某个副本正在证明）或 success（结果仍在缓存中），未知或已过期时为空
+     */
+    public Optional<Map<String, Object>> job(String jobId) {
+        Optional<Map<String, Object>> job = stateStore.get(PROOF_JOBS, jobId).map(ZkProofService::decodeJob);
+        if (job.isPresent() && "success".equals(job.get().get("status")) && stateStore.get(PROOF_RESULTS, jobId).isEmpty()) {
+            // 结果已被淘汰
+            return Optional.empty();
+        }
+        return job;
+    }
+
+    /**
+     * 等待他人持有的任务：结果出现时返回结果；任务被释放（没有结果）或等待超时时返回空结果
+     * 等待时间不超过 job-ttl 和请求的剩余预算，截止时间到了时放弃
+     */
+    private JobWait awaitJob(String key) {
+        long waitUntil = System.nanoTime() + Deadline.cap(jobTtl).toNanos();
+        long pollMillis = 10;
+        while (true) {
+            Optional<String> cached = stateStore.get(PROOF_RESULTS, key);
+            if (cached.isPresent()) {
+                return new JobWait(decode(cached.get()), false);
+            }
+            Optional<Map<String, Object>> job = stateStore.get(PROOF_JOBS, key).map(ZkProofService::decodeJob);
+            if (job.isEmpty() || !"running".equals(job.get().get("status"))) {
+                return new JobWait(null, false);
+            }
+            long remainingMillis = (waitUntil - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0) {
+                Deadline.check(LoadMonitor.PROVER);
+                return new JobWait(null, true);
+            }
+            try {
+                Thread.sleep(Math.min(pollMillis, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for proof job " + key, e);
+            }
+            pollMillis = Math.min(pollMillis * 2, MAX_JOB_POLL_MILLIS);
+        }
+    }
+
+    private record JobWait(Map<String, String> result, boolean timedOut) {
+    }
+
+    private void checkDraining() {
+        if (drainService.isDraining()) {
+            throw new ShuttingDownException(LoadMonitor.PROVER);
+        }
+    }
+
+    private void checkDeadline() {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return;
+        }
+        if (deadline.isExpired()) {
+            throw deadline.abandon(LoadMonitor.PROVER, "expired");
+        }
+        long medianNanos = loadMonitor.medianNanos(LoadMonitor.PROVER);
+        if (medianNanos > 0 && deadline.remaining().toNanos() < medianNanos) {
+            throw deadline.abandon(LoadMonitor.PROVER, "insufficient");
+        }
+    }
+
+    private static void commit(ProofRequestEvent event, Map<String, Object> requestData, String outcome, Map<String, String> result) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.credentialType = requestData != null ? String.valueOf(requestData.get("credential_type")) : null;
+        event.outcome = outcome;
+        event.dataFields = requestData != null && requestData.get("data") instanceof Map<?, ?> data ? data.size() : 0;
+        String receipt = result != null ? result.get("receipt_hex") : null;
+        event.receiptBytes = receipt != null ? receipt.length() / 2 : 0;
+        event.commit();
+    }
+
+    /**
+     * 返回前按合约的 journal 格式校验证明，不符的证明（mint 必然 revert）不返回也不缓存
+     */
+    private Map<String, String> checkJournal(Map<String, Object> requestData, Map<String, String> response) {
+        JournalVerifier.Result result = journalVerifier.verify(requestData, response);
+        if (result.valid()) {
+            return response;
+        }
+        Object type = requestData.get("credential_type");
+        meterRegistry.counter("ghostlink.proof.journal.rejected", "credential_type",
+                ProofRequestValidator.credentialTypeTag(type)).increment();
+        System.out.println("证明 journal 校验失败 - Type: " + type + ", Problems: " + result.problems());
+        Map<String, String> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("error_code", "INVALID_PROOF");
+        error.put("message", String.join("; ", result.problems()));
+        return error;
+    }
+
+    /**
+     * 被拒绝的请求计数，并按最近的 prover 中位耗时（无样本时用配置的估计值）累计节省的证明时间
+     */
+    private void recordRejection(Map<String, Object> requestData, ProofRequestRejectedException e) {
+        Object type = requestData != null ? requestData.get("credential_type") : null;
+        meterRegistry.counter("ghostlink.proof.validation.rejected",
+                "credential_type", ProofRequestValidator.credentialTypeTag(type), "error_code", e.getErrorCode()).increment();
+        long medianNanos = loadMonitor.medianNanos(LoadMonitor.PROVER);
+        savedProverSeconds.increment((medianNanos > 0 ? medianNanos : assumedProverTime.toNanos()) / 1e9);
+        System.out.println("证明请求被校验拒绝 - Type: " + type + ", Code: " + e.getErrorCode() + ", Message: " + e.getMessage());
+    }
+
     /**
      * Generate mock ZK proof data
      * (Formerly handled by ExampleController)
      */
     public Map<String, String> generateMockProof(Map<String, Object> requestData) {
         Map<String, String> response = new HashMap<>();
-        
+
         // Set status
         response.put("status", "success");
-        
+
         // Generate mock hex strings
+        // journal 与合约一致：recipient(20) || nullifier(32) || credType(1)，nullifier 按规范推导
+        Map<String, Object> request = requestData != null ? requestData : Map.of();
+        String type = String.valueOf(request.get("credential_type"));
+        Object recipient = request.get("recipient");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> data = request.get("data") instanceof Map<?, ?> m ? (Map<String, Object>) m : Map.of();
+        byte[] nullifier;
+        try {
+            nullifier = JournalVerifier.deriveNullifier(type, data);
+        } catch (IllegalArgumentException e) {
+            // 示例接口等不完整的请求
+            nullifier = new byte[32];
+            random.nextBytes(nullifier);
+        }
+        String journalRecipient = recipient != null && ADDRESS.matcher(recipient.toString()).matches() ? recipient.toString() : ZERO_ADDRESS;
+        byte[] journal = JournalVerifier.encodeJournal(journalRecipient, nullifier, type);
         response.put("receipt_hex", generateRandomHexString(224)); // 112 bytes
-        response.put("journal_hex", generateRandomHexString(98));  // 49 bytes
+        response.put("journal_hex", HexFormat.of().formatHex(journal));  // 53 bytes
         response.put("image_id_hex", generateRandomHexString(64)); // 32 bytes
-        response.put("nullifier_hex", generateRandomHexString(64)); // 32 bytes
-        
+        response.put("nullifier_hex", HexFormat.of().formatHex(nullifier)); // 32 bytes
+
         return response;
     }
-    
+
     /**
      * Generate random hex string of specified length
      */
@@ -41,4 +454,96 @@ public class ZkProofService {
         }
         return sb.toString();
     }
+
+    /**
+     * 请求指纹：按键排序后的 JSON 的 SHA-256
+     */
+    static String fingerprint(Map<String, Object> requestData) {
+        try {
+            byte[] canonical = canonicalMapper.writeValueAsBytes(requestData != null ? requestData : Map.of());
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to fingerprint proof request", e);
+        }
+    }
+
+    /**
+     * 证明缓存中的紧凑格式：*_hex 字段（receipt / journal / imageId / nullifier）以 Base64 保存在 *_b64 下，
+     * 比十六进制少 1/3；非规范的十六进制（大写、带 0x）原样保存，保证读回的值完全一致
+     */
+    static String encode(Map<String, String> response) {
+        Map<String, String> compact = new HashMap<>(response.size());
+        response.forEach((field, value) -> {
+            if (field.endsWith(HEX_SUFFIX) && value != null) {
+                byte[] bytes = parseCanonicalHex(value);
+                if (bytes != null) {
+                    compact.put(field.substring(0, field.length() - HEX_SUFFIX.length()) + BASE64_SUFFIX,
+                            Base64.getEncoder().encodeToString(bytes));
+                    return;
+                }
+            }
+            compact.put(field, value);
+        });
+        try {
+            return canonicalMapper.writeValueAsString(compact);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] parseCanonicalHex(String value) {
+        try {
+            byte[] bytes = HexFormat.of().parseHex(value);
+            return HexFormat.of().formatHex(bytes).equals(value) ? bytes : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String encodeJob(String key, Map<String, Object> requestData, String status) {
+        Map<String, Object> job = new HashMap<>();
+        job.put("job_id", key);
+        job.put("status", status);
+        job.put("credential_type", String.valueOf(requestData.get("credential_type")));
+        job.put("updated_at", System.currentTimeMillis());
+        try {
+            return canonicalMapper.writeValueAsString(job);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Object> decodeJob(String json) {
+        try {
+            return canonicalMapper.readValue(json.getBytes(StandardCharsets.UTF_8), new TypeReference<>() {});
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException("Corrupted proof job in state store", e);
+        }
+    }
+
+    /**
+     * 读回缓存的证明结果，*_b64 字段还原为十六进制（之前写入的十六进制条目原样读取）
+     */
+    static Map<String, String> decode(String json) {
+        Map<String, String> stored;
+        try {
+            stored = canonicalMapper.readValue(json.getBytes(StandardCharsets.UTF_8), new TypeReference<>() {});
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException("Corrupted proof result in state store", e);
+        }
+        Map<String, String> response = new HashMap<>(stored.size());
+        try {
+            stored.forEach((field, value) -> {
+                if (field.endsWith(BASE64_SUFFIX) && value != null) {
+                    response.put(field.substring(0, field.length() - BASE64_SUFFIX.length()) + HEX_SUFFIX,
+                            HexFormat.of().formatHex(Base64.getDecoder().decode(value)));
+                } else {
+                    response.put(field, value);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Corrupted proof result in state store", e);
+        }
+        return response;
+    }
 }
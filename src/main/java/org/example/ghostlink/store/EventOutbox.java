@@ -0,0 +1,413 @@
+package org.example.ghostlink.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 本地持久化的事件发件箱（outbox）
+ *
+ * 事件按段文件（segment-XXXXXXXX.log）顺序追加，单条格式：[int 长度][int CRC32][payload]，
+ * 位置 = 段号 << 40 | 段内偏移（与 {@link ProofLog} 相同）。
+ * 每个消费者（webhook 目标）在 {name}.cursor 中保存已确认的位置，投递成功后才前移，
+ * 因此进程崩溃或重启后从上次确认处继续投递（至少一次）。
+ * 所有消费者都已越过的段文件由 {@link #compact()} 删除；总大小超过 maxBacklogBytes 时，
+ * 最旧的段即使还有消费者没读完也会被删除（目标长期不可用时不无限占用磁盘），落后的消费者从下一个段继续。
+ *
+ * 并发：追加只持有写锁，读取 / 确认 / 清理使用对象监视器，投递线程读盘不会阻塞 {@link #append(byte[])}。
+ * 写入方在记录完整写入后才发布新的末尾位置（volatile），读取方只读到这个位置之前。
+ * 锁顺序固定为写锁 → 监视器（换段后清理、close）。
+ */
+public class EventOutbox implements Closeable {
+
+    private static final int RECORD_HEADER_BYTES = 8;
+    // 单条事件上限；读取时先校验长度再分配缓冲区
+    static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int SEGMENT_SHIFT = 40;
+    private static final long OFFSET_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /**
+     * 一批待投递的事件
+     *
+     * @param next 确认这一批后消费者的新位置
+     */
+    public record Batch(List<byte[]> events, long next) {
+        public boolean isEmpty() {
+            return events.isEmpty();
+        }
+    }
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final long maxBacklogBytes;
+    private final FileChannel lockChannel;
+    private final FileLock dirLock;
+    private final NavigableMap<Integer, FileChannel> segments = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> cursors = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // 只由持有写锁的追加方修改
+    private int activeSegment;
+    private long activeSize;
+    // 已完整写入的末尾位置，读取方的上界
+    private volatile long end;
+
+    public EventOutbox(Path dir, long segmentBytes) {
+        this(dir, segmentBytes, Long.MAX_VALUE);
+    }
+
+    public EventOutbox(Path dir, long segmentBytes, long maxBacklogBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBacklogBytes = maxBacklogBytes;
+        try {
+            Files.createDirectories(dir);
+            lockChannel = FileChannel.open(dir.resolve("LOCK"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // 同一个 JVM 已经打开了这个目录
+                lock = null;
+            }
+            dirLock = lock;
+            if (dirLock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("Event outbox directory is in use by another process: " + dir);
+            }
+            openSegments();
+            recover();
+            end = pointer(activeSegment, activeSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open event outbox: " + dir, e);
+        }
+    }
+
+    /**
+     * 注册消费者；第一次出现的消费者从当前末尾开始（不补发注册前的事件）
+     */
+    public synchronized void register(String consumer) {
+        if (cursors.containsKey(consumer)) {
+            return;
+        }
+        Path file = cursorFile(consumer);
+        try {
+            long cursor = Files.exists(file) ? ByteBuffer.wrap(Files.readAllBytes(file)).getLong() : end;
+            if (!segments.containsKey((int) (cursor >>> SEGMENT_SHIFT))) {
+                // 长时间未运行的消费者，段文件已被删除，从最早的段开始
+                cursor = pointer(segments.firstKey(), 0);
+            }
+            cursors.put(consumer, cursor);
+            writeCursor(consumer, cursor);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Failed to read cursor of " + consumer, e);
+        }
+    }
+
+    /**
+     * 追加一个事件，只写入页缓存（不 fsync），调用方不会被磁盘刷写阻塞，也不等待读取方
+     */
+    public long append(byte[] payload) {
+        if (payload.length == 0 || payload.length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Event size must be between 1 and " + MAX_RECORD_BYTES + " bytes: " + payload.length);
+        }
+        writeLock.lock();
+        try {
+            if (activeSize + RECORD_HEADER_BYTES + payload.length > segmentBytes && activeSize > 0) {
+                rollSegment();
+                if (maxBacklogBytes != Long.MAX_VALUE) {
+                    compact();
+                }
+            }
+            ByteBuffer buf = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+            buf.putInt(payload.length);
+            buf.putInt(crc(payload));
+            buf.put(payload);
+            buf.flip();
+            FileChannel channel = segments.get(activeSegment);
+            while (buf.hasRemaining()) {
+                channel.write(buf, activeSize + buf.position());
+            }
+            activeSize += RECORD_HEADER_BYTES + payload.length;
+            end = pointer(activeSegment, activeSize);
+            return end;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append event", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 从消费者的位置开始读取最多 max 个事件（不移动位置）
+     * 长度越界或 CRC 不符的记录（磁盘损坏）无法定位下一条，跳过该段剩余部分，不让投递永远卡住
+     */
+    public synchronized Batch read(String consumer, int max) {
+        long position = cursor(consumer);
+        long limit = end;
+        int endSegment = (int) (limit >>> SEGMENT_SHIFT);
+        List<byte[]> events = new ArrayList<>(Math.min(max, 64));
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        try {
+            while (events.size() < max) {
+                int segment = (int) (position >>> SEGMENT_SHIFT);
+                long offset = position & OFFSET_MASK;
+                FileChannel channel = segments.get(segment);
+                if (channel == null) {
+                    // 超出积压上限，段已被删除
+                    Integer next = segments.ceilingKey(segment);
+                    if (next == null || next > endSegment) {
+                        break;
+                    }
+                    System.out.println("EventOutbox: " + consumer + " skipped dropped segments before " + next);
+                    position = pointer(next, 0);
+                    continue;
+                }
+                long size = segment == endSegment ? limit & OFFSET_MASK : channel.size();
+                if (offset + RECORD_HEADER_BYTES > size) {
+                    Integer next = segments.higherKey(segment);
+                    if (next == null || next > endSegment) {
+                        break;
+                    }
+                    position = pointer(next, 0);
+                    continue;
+                }
+                header.clear();
+                readFully(channel, header, offset);
+                int length = header.getInt(0);
+                byte[] payload = null;
+                if (length > 0 && length <= MAX_RECORD_BYTES && offset + RECORD_HEADER_BYTES + length <= size) {
+                    ByteBuffer buf = ByteBuffer.allocate(length);
+                    readFully(channel, buf, offset + RECORD_HEADER_BYTES);
+                    payload = crc(buf.array()) == header.getInt(4) ? buf.array() : null;
+                }
+                if (payload == null) {
+                    System.out.println("EventOutbox: corrupt record in segment " + segment + " at " + offset
+                            + ", skipping the rest of the segment");
+                    position = pointer(segment, size);
+                    continue;
+                }
+                events.add(payload);
+                position = pointer(segment, offset + RECORD_HEADER_BYTES + length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read events for " + consumer, e);
+        }
+        return new Batch(events, position);
+    }
+
+    /**
+     * 确认投递，把消费者位置持久化到 next
+     */
+    public synchronized void ack(String consumer, long next) {
+        cursor(consumer);
+        cursors.put(consumer, next);
+        writeCursor(consumer, next);
+    }
+
+    /**
+     * 消费者落后的字节数（跨段时按段大小近似）
+     */
+    public synchronized long lagBytes(String consumer) {
+        Long position = cursors.get(consumer);
+        if (position == null) {
+            return 0;
+        }
+        long lag = 0;
+        long limit = end;
+        int endSegment = (int) (limit >>> SEGMENT_SHIFT);
+        int from = (int) (position >>> SEGMENT_SHIFT);
+        for (Map.Entry<Integer, FileChannel> e : segments.subMap(from, true, endSegment, true).entrySet()) {
+            try {
+                long size = e.getKey() == endSegment ? limit & OFFSET_MASK : e.getValue().size();
+                lag += size - (e.getKey() == from ? position & OFFSET_MASK : 0);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return Math.max(0, lag);
+    }
+
+    /**
+     * 删除所有消费者都已读完的旧段文件，以及超出积压上限的最旧段文件（活动段除外）
+     *
+     * @return 删除的段数
+     */
+    public synchronized int compact() {
+        int active = (int) (end >>> SEGMENT_SHIFT);
+        int min = active;
+        for (long cursor : cursors.values()) {
+            min = Math.min(min, (int) (cursor >>> SEGMENT_SHIFT));
+        }
+        int removed = 0;
+        while (segments.firstKey() < active) {
+            int segment = segments.firstKey();
+            if (segment >= min) {
+                if (backlogBytes() <= maxBacklogBytes) {
+                    break;
+                }
+                System.out.println("EventOutbox: backlog exceeds " + maxBacklogBytes + " bytes, dropping undelivered segment " + segment);
+            }
+            try {
+                segments.remove(segment).close();
+                Files.deleteIfExists(segmentPath(segment));
+                removed++;
+            } catch (IOException e) {
+                System.out.println("删除 outbox 段文件失败: " + segment + " - " + e.getMessage());
+                break;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            synchronized (this) {
+                for (FileChannel channel : segments.values()) {
+                    channel.force(false);
+                    channel.close();
+                }
+                segments.clear();
+                dirLock.release();
+                lockChannel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long backlogBytes() {
+        long total = 0;
+        for (FileChannel channel : segments.values()) {
+            try {
+                total += channel.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return total;
+    }
+
+    private long cursor(String consumer) {
+        Long cursor = cursors.get(consumer);
+        if (cursor == null) {
+            throw new IllegalArgumentException("Unknown outbox consumer: " + consumer);
+        }
+        return cursor;
+    }
+
+    private void writeCursor(String consumer, long cursor) {
+        Path file = cursorFile(consumer);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.write(tmp, ByteBuffer.allocate(8).putLong(0, cursor).array());
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cursor of " + consumer, e);
+        }
+    }
+
+    private Path cursorFile(String consumer) {
+        return dir.resolve(consumer.replaceAll("[^A-Za-z0-9_.-]", "_") + ".cursor");
+    }
+
+    /**
+     * 截断最后一个段中不完整的尾部记录（写入中途崩溃）
+     */
+    private void recover() throws IOException {
+        FileChannel channel = segments.get(activeSegment);
+        long size = channel.size();
+        long pos = 0;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        while (pos + RECORD_HEADER_BYTES <= size) {
+            header.clear();
+            readFully(channel, header, pos);
+            int length = header.getInt(0);
+            if (length <= 0 || length > MAX_RECORD_BYTES || pos + RECORD_HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, pos + RECORD_HEADER_BYTES);
+            if (crc(payload.array()) != header.getInt(4)) {
+                break;
+            }
+            pos += RECORD_HEADER_BYTES + length;
+        }
+        if (pos < size) {
+            System.out.println("EventOutbox: truncating torn tail of segment " + activeSegment + " at " + pos);
+            channel.truncate(pos);
+        }
+        activeSize = pos;
+    }
+
+    private void openSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "segment-*.log")) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                int segment = Integer.parseInt(name.substring("segment-".length(), name.length() - ".log".length()));
+                segments.put(segment, FileChannel.open(p, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(1, openSegment(1));
+        }
+        activeSegment = segments.lastKey();
+    }
+
+    private void rollSegment() throws IOException {
+        segments.get(activeSegment).force(false);
+        activeSegment++;
+        segments.put(activeSegment, openSegment(activeSegment));
+        activeSize = 0;
+    }
+
+    private FileChannel openSegment(int segment) throws IOException {
+        return FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(int segment) {
+        return dir.resolve(String.format("segment-%08d.log", segment));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static long pointer(int segment, long offset) {
+        return ((long) segment << SEGMENT_SHIFT) | offset;
+    }
+}
@@ -0,0 +1,287 @@
+package org.example.ghostlink.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于本地文件的共享实现
+ * 多个后端副本挂载同一个目录（例如 docker volume）即可共享去重和任务状态，无需外部服务。
+ *
+ * 布局：{root}/{namespace}/{sha256(key)}，文件内容为 "过期时间戳\n值"。
+ * 读操作依赖原子 rename，无需加锁；写操作在 namespace 级别的文件锁内完成，
+ * 保证 putIfAbsent / replace 在进程间也是原子的。每个 namespace 每 1024 次写入清理一次过期文件，
+ * 清理后条目仍超过 maxEntries 时淘汰最早过期的条目（永不过期的最后淘汰），淘汰到上限的 7/8。
+ * 上限按 namespace 计算，两次清理之间最多超出 1024 条。
+ * 损坏的文件（截断、没有时间戳行）视为不存在并删除。
+ */
+public class FileStateStore implements StateStore {
+
+    // FileLock 在同一个 JVM 内不可重入，所以同进程内先用 ReentrantLock 串行化
+    private static final Map<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final Path root;
+    private final int maxEntries;
+    private final Map<String, AtomicInteger> writes = new ConcurrentHashMap<>();
+
+    public FileStateStore(Path root) {
+        this(root, Integer.MAX_VALUE);
+    }
+
+    public FileStateStore(Path root, int maxEntries) {
+        this.maxEntries = maxEntries;
+        try {
+            this.root = Files.createDirectories(root).toRealPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create state directory: " + root, e);
+        }
+    }
+
+    @Override
+    public Optional<String> get(String namespace, String key) {
+        Path path = entryPath(namespace, key);
+        try {
+            return read(path, System.currentTimeMillis());
+        } catch (CorruptEntryException e) {
+            // 无锁读取时不能直接删除：写入方可能刚刚替换成有效的文件，在锁内重新确认
+            return withLock(namespace, () -> readLocked(path, System.currentTimeMillis()));
+        }
+    }
+
+    @Override
+    public void put(String namespace, String key, String value, Duration ttl) {
+        withLock(namespace, () -> {
+            write(entryPath(namespace, key), value, InMemoryStateStore.expiresAt(ttl));
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<String> putIfAbsent(String namespace, String key, String value, Duration ttl) {
+        return withLock(namespace, () -> {
+            Path path = entryPath(namespace, key);
+            Optional<String> existing = readLocked(path, System.currentTimeMillis());
+            if (existing.isEmpty()) {
+                write(path, value, InMemoryStateStore.expiresAt(ttl));
+            }
+            return existing;
+        });
+    }
+
+    @Override
+    public boolean replace(String namespace, String key, String expected, String value, Duration ttl) {
+        return withLock(namespace, () -> {
+            Path path = entryPath(namespace, key);
+            if (!readLocked(path, System.currentTimeMillis()).map(expected::equals).orElse(false)) {
+                return false;
+            }
+            write(path, value, InMemoryStateStore.expiresAt(ttl));
+            return true;
+        });
+    }
+
+    @Override
+    public boolean remove(String namespace, String key) {
+        return withLock(namespace, () -> {
+            Path path = entryPath(namespace, key);
+            boolean live = readLocked(path, System.currentTimeMillis()).isPresent();
+            return Files.deleteIfExists(path) && live;
+        });
+    }
+
+    @Override
+    public List<String> values(String namespace) {
+        return withLock(namespace, () -> {
+            long now = System.currentTimeMillis();
+            List<String> values = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(namespaceDir(namespace),
+                    p -> !p.getFileName().toString().startsWith("."))) {
+                for (Path entry : stream) {
+                    readLocked(entry, now).ifPresent(values::add);
+                }
+            }
+            return values;
+        });
+    }
+
+    /**
+     * 持有 namespace 锁时调用 {@link #read(Path, long)}：损坏的文件直接删除并视为不存在
+     */
+    private Optional<String> readLocked(Path path, long now) throws IOException {
+        try {
+            return read(path, now);
+        } catch (CorruptEntryException e) {
+            System.out.println("删除损坏的状态文件: " + path);
+            Files.deleteIfExists(path);
+            return Optional.empty();
+        }
+    }
+
+    private Optional<String> read(Path path, long now) {
+        Entry entry = load(path);
+        if (entry == null || entry.isExpired(now)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    /**
+     * 读取并解析条目文件，不存在时为 null
+     *
+     * @throws CorruptEntryException 没有时间戳行或时间戳不是数字
+     */
+    private static Entry load(Path path) {
+        String content;
+        try {
+            content = Files.readString(path, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read state entry: " + path, e);
+        }
+        int sep = content.indexOf('\n');
+        long expiresAt;
+        try {
+            expiresAt = sep > 0 ? Long.parseLong(content.substring(0, sep)) : -1L;
+        } catch (NumberFormatException e) {
+            expiresAt = -1L;
+        }
+        if (expiresAt < 0) {
+            throw new CorruptEntryException();
+        }
+        return new Entry(content.substring(sep + 1), expiresAt);
+    }
+
+    private void write(Path path, String value, long expiresAt) throws IOException {
+        String namespace = path.getParent().getFileName().toString();
+        if (writes.computeIfAbsent(namespace, n -> new AtomicInteger()).incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sweep(path.getParent());
+        }
+        Path tmp = Files.createTempFile(path.getParent(), ".tmp-", null);
+        try {
+            Files.writeString(tmp, expiresAt + "\n" + value, StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 删除已过期和损坏的条目，超出容量时按过期时间淘汰（调用方已持有 namespace 锁）
+     */
+    private void sweep(Path dir) throws IOException {
+        long now = System.currentTimeMillis();
+        List<Map.Entry<Path, Long>> live = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, p -> !p.getFileName().toString().startsWith("."))) {
+            for (Path path : stream) {
+                try {
+                    Entry entry = load(path);
+                    if (entry == null) {
+                        continue;
+                    }
+                    if (entry.isExpired(now)) {
+                        Files.deleteIfExists(path);
+                    } else {
+                        live.add(Map.entry(path, entry.expiresAt() == 0L ? Long.MAX_VALUE : entry.expiresAt()));
+                    }
+                } catch (CorruptEntryException e) {
+                    Files.deleteIfExists(path);
+                } catch (RuntimeException e) {
+                    // 单个读不了的文件不影响清理其余条目
+                }
+            }
+        }
+        if (live.size() > maxEntries) {
+            int excess = live.size() - maxEntries + maxEntries / 8;
+            live.sort(Map.Entry.comparingByValue());
+            for (Map.Entry<Path, Long> entry : live.subList(0, Math.min(excess, live.size()))) {
+                Files.deleteIfExists(entry.getKey());
+            }
+        }
+    }
+
+    private <T> T withLock(String namespace, IoAction<T> action) {
+        Path dir = namespaceDir(namespace);
+        Path lockFile = dir.resolve(".lock");
+        ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(lockFile, p -> new ReentrantLock());
+        jvmLock.lock();
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            return action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException("State store operation failed in namespace " + namespace, e);
+        } finally {
+            jvmLock.unlock();
+        }
+    }
+
+    private Path namespaceDir(String namespace) {
+        if (namespace.isEmpty() || !namespace.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Invalid namespace: " + namespace);
+        }
+        try {
+            return Files.createDirectories(root.resolve(namespace));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create namespace directory: " + namespace, e);
+        }
+    }
+
+    private Path entryPath(String namespace, String key) {
+        return namespaceDir(namespace).resolve(sha256Hex(key));
+    }
+
+    private static String sha256Hex(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(String value, long expiresAt) {
+        boolean isExpired(long now) {
+            return expiresAt != 0L && expiresAt <= now;
+        }
+    }
+
+    /**
+     * 文件内容无法解析（没有换行或时间戳不是数字）
+     */
+    private static class CorruptEntryException extends RuntimeException {
+        CorruptEntryException() {
+            super(null, null, false, false);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction<T> {
+        T run() throws IOException;
+    }
+}
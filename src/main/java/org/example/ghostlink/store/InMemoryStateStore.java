@@ -0,0 +1,132 @@
+package org.example.ghostlink.store;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单 JVM 内存实现，适用于单副本部署和本地开发
+ * 条目数超过 maxEntries 时先清理过期条目，仍超出则淘汰最早过期的条目（永不过期的最后淘汰）。
+ */
+public class InMemoryStateStore implements StateStore {
+
+    // 每写入多少次顺带清理一次过期条目
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger writes = new AtomicInteger();
+    private final int maxEntries;
+
+    public InMemoryStateStore() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public InMemoryStateStore(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public Optional<String> get(String namespace, String key) {
+        String k = compositeKey(namespace, key);
+        Entry entry = entries.get(k);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(k, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value);
+    }
+
+    @Override
+    public void put(String namespace, String key, String value, Duration ttl) {
+        entries.put(compositeKey(namespace, key), new Entry(value, expiresAt(ttl)));
+        maybeSweep();
+    }
+
+    @Override
+    public Optional<String> putIfAbsent(String namespace, String key, String value, Duration ttl) {
+        Entry fresh = new Entry(value, expiresAt(ttl));
+        long now = System.currentTimeMillis();
+        Entry winner = entries.compute(compositeKey(namespace, key),
+                (k, existing) -> existing == null || existing.isExpired(now) ? fresh : existing);
+        maybeSweep();
+        return winner == fresh ? Optional.empty() : Optional.of(winner.value);
+    }
+
+    @Override
+    public boolean replace(String namespace, String key, String expected, String value, Duration ttl) {
+        Entry fresh = new Entry(value, expiresAt(ttl));
+        long now = System.currentTimeMillis();
+        Entry result = entries.computeIfPresent(compositeKey(namespace, key),
+                (k, existing) -> !existing.isExpired(now) && existing.value.equals(expected) ? fresh : existing);
+        maybeSweep();
+        return result == fresh;
+    }
+
+    @Override
+    public boolean remove(String namespace, String key) {
+        Entry removed = entries.remove(compositeKey(namespace, key));
+        return removed != null && !removed.isExpired(System.currentTimeMillis());
+    }
+
+    @Override
+    public List<String> values(String namespace) {
+        String prefix = compositeKey(namespace, "");
+        long now = System.currentTimeMillis();
+        List<String> values = new ArrayList<>();
+        entries.forEach((k, entry) -> {
+            if (k.startsWith(prefix) && !entry.isExpired(now)) {
+                values.add(entry.value);
+            }
+        });
+        return values;
+    }
+
+    private void maybeSweep() {
+        boolean overCapacity = entries.size() > maxEntries;
+        if (writes.incrementAndGet() % SWEEP_INTERVAL == 0 || overCapacity) {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(e -> e.isExpired(now));
+        }
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * 淘汰到容量的 7/8，避免每次写入都触发一次排序
+     */
+    private synchronized void evict() {
+        int excess = entries.size() - maxEntries + maxEntries / 8;
+        if (excess <= 0) {
+            return;
+        }
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt == 0L ? Long.MAX_VALUE : e.getValue().expiresAt))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(entries::remove);
+    }
+
+    private static String compositeKey(String namespace, String key) {
+        return namespace + '\u0000' + key;
+    }
+
+    static long expiresAt(Duration ttl) {
+        return ttl == null || ttl.isZero() || ttl.isNegative() ? 0L : System.currentTimeMillis() + ttl.toMillis();
+    }
+
+    private record Entry(String value, long expiresAt) {
+        boolean isExpired(long now) {
+            return expiresAt != 0L && expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.ghostlink.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * /api/v1/items 的并发存储
+ * 按 id 索引（有序，支持游标分页），id 原子分配。
+ * 可选的追加日志（JSON Lines）在重启后回放，启动时压缩为当前快照。
+ */
+public class ItemStore implements Closeable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentNavigableMap<Integer, Map<String, Object>> items = new ConcurrentSkipListMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    // 仅在开启持久化时使用：保证内存状态与日志顺序一致
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Path logPath;
+    private BufferedWriter log;
+
+    /**
+     * @param logPath 追加日志路径，null 表示纯内存
+     */
+    public ItemStore(Path logPath) {
+        this.logPath = logPath;
+        if (logPath != null) {
+            replay();
+            compact();
+        }
+    }
+
+    public Map<String, Object> create(Map<String, Object> item) {
+        return mutate(() -> {
+            int id = lastId.incrementAndGet();
+            Map<String, Object> stored = copyWithId(item, id);
+            items.put(id, stored);
+            append("put", id, stored);
+            return stored;
+        });
+    }
+
+    public Optional<Map<String, Object>> get(int id) {
+        return Optional.ofNullable(items.get(id));
+    }
+
+    /**
+     * 仅当 id 存在时替换
+     */
+    public Optional<Map<String, Object>> update(int id, Map<String, Object> item) {
+        return mutate(() -> {
+            Map<String, Object> stored = copyWithId(item, id);
+            if (items.replace(id, stored) == null) {
+                return Optional.empty();
+            }
+            append("put", id, stored);
+            return Optional.of(stored);
+        });
+    }
+
+    public boolean delete(int id) {
+        return mutate(() -> {
+            if (items.remove(id) == null) {
+                return false;
+            }
+            append("del", id, null);
+            return true;
+        });
+    }
+
+    /**
+     * 游标分页
+     *
+     * @param afterId 上一页最后一个 id（不含），null 表示从头开始
+     */
+    public List<Map<String, Object>> page(Integer afterId, int limit) {
+        ConcurrentNavigableMap<Integer, Map<String, Object>> view = afterId == null ? items : items.tailMap(afterId, false);
+        List<Map<String, Object>> page = new ArrayList<>(Math.min(limit, 64));
+        for (Map<String, Object> item : view.values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(item);
+        }
+        return page;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private <T> T mutate(Supplier<T> action) {
+        if (logPath == null) {
+            return action.get();
+        }
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static Map<String, Object> copyWithId(Map<String, Object> item, int id) {
+        Map<String, Object> copy = new LinkedHashMap<>(item);
+        copy.put("id", id); // 确保ID保持不变
+        return copy;
+    }
+
+    private void append(String op, int id, Map<String, Object> item) {
+        if (log == null) {
+            return;
+        }
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("op", op);
+        record.put("id", id);
+        if (item != null) {
+            record.put("item", item);
+        }
+        try {
+            log.write(objectMapper.writeValueAsString(record));
+            log.newLine();
+            log.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append item log", e);
+        }
+    }
+
+    private void replay() {
+        if (!Files.exists(logPath)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(logPath, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, Object> record;
+                try {
+                    record = objectMapper.readValue(line, new TypeReference<>() {});
+                } catch (IOException e) {
+                    // 进程崩溃时最后一行可能写了一半，忽略即可
+                    System.out.println("ItemStore: skipping corrupted log line: " + e.getMessage());
+                    continue;
+                }
+                int id = ((Number) record.get("id")).intValue();
+                if ("del".equals(record.get("op"))) {
+                    items.remove(id);
+                } else {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> item = (Map<String, Object>) record.get("item");
+                    items.put(id, item);
+                }
+                lastId.accumulateAndGet(id, Math::max);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay item log: " + logPath, e);
+        }
+    }
+
+    /**
+     * 将当前状态重写为新日志，避免日志无限增长
+     */
+    private void compact() {
+        try {
+            Path parent = logPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, ".items-", ".log");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                this.log = writer;
+                for (Map.Entry<Integer, Map<String, Object>> e : items.entrySet()) {
+                    append("put", e.getKey(), e.getValue());
+                }
+            }
+            Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.log = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact item log: " + logPath, e);
+        }
+    }
+}
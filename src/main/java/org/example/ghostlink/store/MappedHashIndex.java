@@ -0,0 +1,189 @@
+package org.example.ghostlink.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 内存映射的 long -> long 哈希索引（开放寻址，线性探测）
+ *
+ * 文件布局：64 字节头部（magic, capacity, size, meta）+ capacity 个 16 字节槽位（key, value）。
+ * key 为 0 表示空槽。写入直接落在映射内存中，进程崩溃后由操作系统写回，重启即可用。
+ * 非线程安全，由调用方串行化写入。
+ */
+public class MappedHashIndex implements Closeable {
+
+    private static final int MAGIC = 0x47484958; // "GHIX"
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int MAX_CAPACITY = 1 << 26; // 1 GiB 映射上限
+    private static final double MAX_LOAD = 0.7;
+
+    public static final long MISSING = -1L;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+
+    public MappedHashIndex(Path path, int initialCapacity) {
+        this.path = path;
+        try {
+            if (Files.exists(path) && Files.size(path) >= HEADER_BYTES) {
+                map(path);
+                if (buffer.getInt(0) != MAGIC) {
+                    throw new IllegalStateException("Not a hash index file: " + path);
+                }
+                capacity = buffer.getInt(4);
+                size = buffer.getInt(8);
+            } else {
+                create(path, Integer.highestOneBit(Math.max(16, initialCapacity)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open hash index: " + path, e);
+        }
+    }
+
+    /**
+     * 64 位字符串哈希（FNV-1a + murmur 终结混淆），保证不为 0
+     */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    public long get(long key) {
+        int mask = capacity - 1;
+        for (int i = (int) (key ^ (key >>> 32)) & mask; ; i = (i + 1) & mask) {
+            long k = buffer.getLong(slot(i));
+            if (k == 0) {
+                return MISSING;
+            }
+            if (k == key) {
+                return buffer.getLong(slot(i) + 8);
+            }
+        }
+    }
+
+    public void put(long key, long value) {
+        if (size + 1 > capacity * MAX_LOAD) {
+            resize();
+        }
+        if (insert(buffer, capacity, key, value)) {
+            size++;
+            buffer.putInt(8, size);
+        }
+    }
+
+    /**
+     * 调用方自定义的 64 位元数据（例如已索引到的日志位置）
+     */
+    public long getMeta() {
+        return buffer.getLong(16);
+    }
+
+    public void setMeta(long meta) {
+        buffer.putLong(16, meta);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static int slot(int i) {
+        return HEADER_BYTES + i * SLOT_BYTES;
+    }
+
+    /**
+     * @return true 表示新增，false 表示覆盖已有 key
+     */
+    private static boolean insert(MappedByteBuffer buf, int cap, long key, long value) {
+        int mask = cap - 1;
+        for (int i = (int) (key ^ (key >>> 32)) & mask; ; i = (i + 1) & mask) {
+            long k = buf.getLong(slot(i));
+            if (k == 0 || k == key) {
+                buf.putLong(slot(i), key);
+                buf.putLong(slot(i) + 8, value);
+                return k == 0;
+            }
+        }
+    }
+
+    private void resize() {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Hash index is full: " + path);
+        }
+        int newCapacity = capacity << 1;
+        Path tmp = path.resolveSibling(path.getFileName() + ".resize");
+        try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer next = tmpChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+            next.putInt(0, MAGIC);
+            next.putInt(4, newCapacity);
+            next.putInt(8, size);
+            next.putLong(16, getMeta());
+            for (int i = 0; i < capacity; i++) {
+                long k = buffer.getLong(slot(i));
+                if (k != 0) {
+                    insert(next, newCapacity, k, buffer.getLong(slot(i) + 8));
+                }
+            }
+            next.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to resize hash index: " + path, e);
+        }
+        try {
+            channel.close();
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            map(path);
+            capacity = newCapacity;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to swap resized hash index: " + path, e);
+        }
+    }
+
+    private void create(Path file, int cap) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) cap * SLOT_BYTES);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, cap);
+        buffer.putInt(8, 0);
+        buffer.putLong(16, 0L);
+        capacity = cap;
+        size = 0;
+    }
+
+    private void map(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+}
@@ -0,0 +1,373 @@
+package org.example.ghostlink.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.ghostlink.model.ProofRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * 追加写入的证明历史日志
+ *
+ * 记录按段文件（segment-XXXXXXXX.log）顺序追加，单条格式：
+ * [int 长度][int CRC32][long 同一接收地址的上一条记录指针][JSON payload]。
+ * 记录指针 = 段号 << 40 | 段内偏移。
+ *
+ * 两个内存映射索引：
+ * - recipient.idx：接收地址 -> 最新记录指针，配合记录内的 prev 指针形成倒序链表
+ * - nullifier.idx：nullifier -> 最新记录指针
+ * recipient.idx 的 meta 字段保存已索引到的位置，重启时从该位置扫描补齐索引并截断不完整的尾部记录；
+ * nullifier.idx 的 meta 字段保存记录总数。
+ * 客户端传回的分页游标也是记录指针，读取前校验段号、边界、长度上限和 CRC，无效时抛出 {@link InvalidCursorException}。
+ */
+public class ProofLog implements Closeable {
+
+    private static final int RECORD_HEADER_BYTES = 16;
+    // 单条记录 payload 上限（receipt 较大时已卸载到 ReceiptBlobStore，记录本身很小）
+    private static final int MAX_RECORD_BYTES = 4 << 20;
+    private static final int SEGMENT_SHIFT = 40;
+    private static final long OFFSET_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final long NO_RECORD = -1L;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final FileChannel lockChannel;
+    private final FileLock dirLock;
+    private final MappedHashIndex recipientIndex;
+    private final MappedHashIndex nullifierIndex;
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int activeSegment;
+    private long activeSize;
+
+    /**
+     * 一页按时间倒序的历史记录
+     *
+     * @param nextCursor 下一页游标，null 表示没有更多
+     */
+    public record Page(List<ProofRecord> records, Long nextCursor) {
+    }
+
+    /**
+     * 游标不指向该接收地址的有效记录
+     */
+    public static class InvalidCursorException extends IllegalArgumentException {
+        public InvalidCursorException(String message) {
+            super(message);
+        }
+    }
+
+    public ProofLog(Path dir, long segmentBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(dir);
+            lockChannel = FileChannel.open(dir.resolve("LOCK"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // 同一个 JVM 已经打开了这个目录
+                lock = null;
+            }
+            dirLock = lock;
+            if (dirLock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("Proof log directory is in use by another process: " + dir);
+            }
+            recipientIndex = new MappedHashIndex(dir.resolve("recipient.idx"), 1 << 16);
+            nullifierIndex = new MappedHashIndex(dir.resolve("nullifier.idx"), 1 << 16);
+            openSegments();
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open proof log: " + dir, e);
+        }
+    }
+
+    /**
+     * 追加一条记录，O(1)
+     *
+     * @return 记录指针
+     */
+    public long append(ProofRecord record) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(record);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to serialize proof record", e);
+        }
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Proof record too large: " + payload.length + " bytes");
+        }
+        lock.writeLock().lock();
+        try {
+            if (activeSize + RECORD_HEADER_BYTES + payload.length > segmentBytes && activeSize > 0) {
+                rollSegment();
+            }
+            long recipientKey = MappedHashIndex.hash(normalize(record.recipient()));
+            long prev = recipientIndex.get(recipientKey);
+
+            ByteBuffer buf = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+            buf.putInt(payload.length);
+            buf.putInt(crc(prev, payload));
+            buf.putLong(prev);
+            buf.put(payload);
+            buf.flip();
+
+            long pointer = pointer(activeSegment, activeSize);
+            FileChannel channel = segments.get(activeSegment);
+            while (buf.hasRemaining()) {
+                channel.write(buf, activeSize + buf.position());
+            }
+            activeSize += RECORD_HEADER_BYTES + payload.length;
+
+            index(record, pointer);
+            recipientIndex.setMeta(pointer(activeSegment, activeSize));
+            nullifierIndex.setMeta(nullifierIndex.getMeta() + 1);
+            return pointer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append proof record", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按接收地址查询历史（最新在前）
+     *
+     * @param cursor 上一页返回的 nextCursor，null 表示从最新开始
+     * @throws InvalidCursorException 游标不是该地址的记录指针
+     */
+    public Page byRecipient(String recipient, Long cursor, int limit) {
+        String normalized = normalize(recipient);
+        lock.readLock().lock();
+        try {
+            long ptr = cursor != null ? cursor : recipientIndex.get(MappedHashIndex.hash(normalized));
+            List<ProofRecord> records = new ArrayList<>(Math.min(limit, 64));
+            if (cursor != null) {
+                // 不沿着别的地址的链表遍历（既泄露不了数据，也不会被用来扫描整个日志）
+                Entry first;
+                try {
+                    first = read(ptr);
+                } catch (IllegalStateException e) {
+                    throw new InvalidCursorException("Invalid cursor: " + e.getMessage());
+                }
+                if (!normalized.equals(normalize(first.record.recipient()))) {
+                    throw new InvalidCursorException("Cursor does not belong to recipient " + recipient);
+                }
+            }
+            while (ptr != NO_RECORD && records.size() < limit) {
+                Entry entry = read(ptr);
+                // 64 位哈希冲突时链表里可能混入其他地址，读出后再过滤
+                if (normalized.equals(normalize(entry.record.recipient()))) {
+                    records.add(entry.record);
+                }
+                ptr = entry.prev;
+            }
+            return new Page(records, ptr == NO_RECORD ? null : ptr);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<ProofRecord> byNullifier(String nullifier) {
+        String normalized = normalize(nullifier);
+        lock.readLock().lock();
+        try {
+            long ptr = nullifierIndex.get(MappedHashIndex.hash(normalized));
+            if (ptr == MappedHashIndex.MISSING) {
+                return Optional.empty();
+            }
+            ProofRecord record = read(ptr).record;
+            return normalized.equals(normalize(record.nullifier())) ? Optional.of(record) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return nullifierIndex.getMeta();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (FileChannel channel : segments.values()) {
+                channel.force(false);
+                channel.close();
+            }
+            segments.clear();
+            recipientIndex.close();
+            nullifierIndex.close();
+            dirLock.release();
+            lockChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(ProofRecord record, long pointer) {
+        recipientIndex.put(MappedHashIndex.hash(normalize(record.recipient())), pointer);
+        if (record.nullifier() != null) {
+            nullifierIndex.put(MappedHashIndex.hash(normalize(record.nullifier())), pointer);
+        }
+    }
+
+    /**
+     * 读取并校验一条记录：段存在、不越过已提交的末尾、长度不超过上限、CRC 一致
+     *
+     * @throws IllegalStateException 指针不指向有效记录
+     */
+    private Entry read(long pointer) {
+        int segment = (int) (pointer >>> SEGMENT_SHIFT);
+        long offset = pointer & OFFSET_MASK;
+        FileChannel channel = pointer < 0 ? null : segments.get(segment);
+        if (channel == null) {
+            throw new IllegalStateException("no segment for pointer " + Long.toHexString(pointer));
+        }
+        try {
+            long end = segment == activeSegment ? activeSize : channel.size();
+            if (offset + RECORD_HEADER_BYTES > end) {
+                throw new IllegalStateException("pointer " + Long.toHexString(pointer) + " is past the end of segment " + segment);
+            }
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            readFully(channel, header, offset);
+            int length = header.getInt(0);
+            long prev = header.getLong(8);
+            if (length <= 0 || length > MAX_RECORD_BYTES || offset + RECORD_HEADER_BYTES + length > end) {
+                throw new IllegalStateException("bad record length " + length + " at " + Long.toHexString(pointer));
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + RECORD_HEADER_BYTES);
+            if (crc(prev, payload.array()) != header.getInt(4)) {
+                throw new IllegalStateException("CRC mismatch at " + Long.toHexString(pointer));
+            }
+            return new Entry(objectMapper.readValue(payload.array(), ProofRecord.class), prev);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read proof record at " + Long.toHexString(pointer), e);
+        }
+    }
+
+    /**
+     * 从已索引位置开始扫描，补齐崩溃前未写入索引的记录，截断损坏的尾部
+     */
+    private void recover() throws IOException {
+        long watermark = recipientIndex.getMeta();
+        int startSegment = watermark == 0 ? segments.keySet().iterator().next() : (int) (watermark >>> SEGMENT_SHIFT);
+        long position = watermark == 0 ? 0 : watermark & OFFSET_MASK;
+
+        for (Map.Entry<Integer, FileChannel> e : segments.entrySet()) {
+            int segment = e.getKey();
+            if (segment < startSegment) {
+                continue;
+            }
+            FileChannel channel = e.getValue();
+            long pos = segment == startSegment ? position : 0;
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            while (pos + RECORD_HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, pos);
+                int length = header.getInt(0);
+                if (length <= 0 || length > MAX_RECORD_BYTES || pos + RECORD_HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, pos + RECORD_HEADER_BYTES);
+                if (crc(header.getLong(8), payload.array()) != header.getInt(4)) {
+                    break;
+                }
+                index(objectMapper.readValue(payload.array(), ProofRecord.class), pointer(segment, pos));
+                pos += RECORD_HEADER_BYTES + length;
+                // 与 append 相同的顺序：先推进已索引位置再计数，恢复过程中再次崩溃时同一条记录不会被计数两次
+                recipientIndex.setMeta(pointer(segment, pos));
+                nullifierIndex.setMeta(nullifierIndex.getMeta() + 1);
+            }
+            if (pos < size) {
+                System.out.println("ProofLog: truncating torn tail of segment " + segment + " at " + pos);
+                channel.truncate(pos);
+            }
+            recipientIndex.setMeta(pointer(segment, pos));
+        }
+        activeSize = segments.get(activeSegment).size();
+    }
+
+    private void openSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "segment-*.log")) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                int segment = Integer.parseInt(name.substring("segment-".length(), name.length() - ".log".length()));
+                segments.put(segment, FileChannel.open(p, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(1, openSegment(1));
+        }
+        activeSegment = segments.lastKey();
+    }
+
+    private void rollSegment() throws IOException {
+        segments.get(activeSegment).force(false);
+        activeSegment++;
+        segments.put(activeSegment, openSegment(activeSegment));
+        activeSize = 0;
+    }
+
+    private FileChannel openSegment(int segment) throws IOException {
+        Path path = dir.resolve(String.format("segment-%08d.log", segment));
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private static int crc(long prev, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putLong(0, prev));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static long pointer(int segment, long offset) {
+        return ((long) segment << SEGMENT_SHIFT) | offset;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(ProofRecord record, long prev) {
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.ghostlink.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 按内容寻址的 receipt 存储
+ *
+ * 布局：{root}/{digest 前两位}/{sha256 十六进制}。同样的内容只存一份，写入走临时文件 + 原子 rename，
+ * 文件一旦出现就不再变化，因此多个副本可以共享同一个目录，读取无需加锁。
+ * 重复写入会刷新修改时间，淘汰按修改时间从旧到新进行（先按最大年龄，再按总大小）。
+ * 淘汰先把文件原子地改名为墓碑再确认修改时间：期间被 put 刷新过的文件会放回，
+ * put 返回的摘要在返回时一定可以读到。
+ */
+public class ReceiptBlobStore {
+
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+    private static final String TOMBSTONE_PREFIX = ".evict-";
+    // 淘汰中途崩溃留下的墓碑，超过该时间后删除
+    private static final long TOMBSTONE_MAX_AGE_MILLIS = Duration.ofHours(1).toMillis();
+
+    /**
+     * 一个已存储的 receipt
+     */
+    public record Blob(String digest, Path path, long size) {
+    }
+
+    private final Path root;
+
+    public ReceiptBlobStore(Path root) {
+        try {
+            this.root = Files.createDirectories(root).toRealPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create receipt directory: " + root, e);
+        }
+    }
+
+    /**
+     * 写入 receipt，返回 sha256 摘要（十六进制，不带 0x）
+     */
+    public String put(byte[] receipt) {
+        String digest = HexFormat.of().formatHex(sha256(receipt));
+        Path target = pathOf(digest);
+        try {
+            try {
+                // 刷新修改时间；淘汰方在删除前会确认这个时间没有变（见 evict）
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                return digest;
+            } catch (NoSuchFileException e) {
+                // 不存在，或刚被淘汰：重新写入
+            }
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling("." + digest + "." + UUID.randomUUID() + ".tmp");
+            Files.write(tmp, receipt);
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (FileAlreadyExistsException e) {
+                // 其他副本刚写入了同样的内容
+                Files.deleteIfExists(tmp);
+            }
+            return digest;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store receipt " + digest, e);
+        }
+    }
+
+    /**
+     * 按摘要查找，摘要格式不对或不存在时为空
+     */
+    public Optional<Blob> get(String digest) {
+        if (digest == null || !DIGEST.matcher(digest).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathOf(digest);
+        try {
+            return Optional.of(new Blob(digest, path, Files.size(path)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read receipt " + digest, e);
+        }
+    }
+
+    /**
+     * 删除超过 maxAge 的 receipt，再从最旧的开始删除直到总大小不超过 maxBytes
+     *
+     * @return 删除的文件数
+     */
+    public int evict(long maxBytes, Duration maxAge) {
+        record Entry(Path path, long size, long modified) {
+        }
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard)) {
+                    for (Path file : files) {
+                        BasicFileAttributes attributes;
+                        try {
+                            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        } catch (NoSuchFileException e) {
+                            continue;
+                        }
+                        entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to scan receipt directory: " + root, e);
+        }
+
+        entries.sort(Comparator.comparingLong(Entry::modified));
+        long total = entries.stream().mapToLong(Entry::size).sum();
+        long oldestAllowed = System.currentTimeMillis() - maxAge.toMillis();
+        int evicted = 0;
+        long now = System.currentTimeMillis();
+        for (Entry entry : entries) {
+            String name = entry.path().getFileName().toString();
+            try {
+                if (name.startsWith(TOMBSTONE_PREFIX)) {
+                    // 墓碑的修改时间是原文件的，按名字里的淘汰时间判断是否是崩溃遗留
+                    if (now - tombstoneTime(name) > TOMBSTONE_MAX_AGE_MILLIS) {
+                        Files.deleteIfExists(entry.path());
+                    }
+                    continue;
+                }
+                // 临时文件只按年龄清理（写入中断留下的）
+                boolean tmp = name.startsWith(".");
+                if (entry.modified() >= oldestAllowed && (tmp || total <= maxBytes)) {
+                    continue;
+                }
+                if (tmp ? Files.deleteIfExists(entry.path()) : evictIfUnchanged(entry.path(), entry.modified(), now)) {
+                    evicted++;
+                    total -= entry.size();
+                }
+            } catch (IOException e) {
+                System.out.println("删除 receipt 失败: " + entry.path() + " - " + e.getMessage());
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * 改名为墓碑后再检查修改时间：扫描之后被 put 刷新过的放回原处（put 在此期间重新写入了同样的内容时直接丢弃墓碑）
+     *
+     * @return 是否真正删除
+     */
+    static boolean evictIfUnchanged(Path path, long scannedModified, long now) throws IOException {
+        Path tombstone = path.resolveSibling(TOMBSTONE_PREFIX + now + "-" + UUID.randomUUID());
+        try {
+            Files.move(path, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(tombstone).toMillis() == scannedModified) {
+            Files.delete(tombstone);
+            return true;
+        }
+        try {
+            Files.move(tombstone, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.delete(tombstone);
+        }
+        return false;
+    }
+
+    private static long tombstoneTime(String name) {
+        int end = name.indexOf('-', TOMBSTONE_PREFIX.length());
+        try {
+            return Long.parseLong(name.substring(TOMBSTONE_PREFIX.length(), end));
+        } catch (RuntimeException e) {
+            return 0L;
+        }
+    }
+
+    private Path pathOf(String digest) {
+        return root.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.ghostlink.store;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 共享状态存储抽象
+ * 用于证明任务、去重和结果缓存，按 namespace 隔离不同用途的数据。
+ * 值统一为字符串（通常是 JSON），以便在多个后端副本之间共享。
+ */
+public interface StateStore {
+
+    /**
+     * 读取值，已过期的条目视为不存在
+     */
+    Optional<String> get(String namespace, String key);
+
+    /**
+     * 写入（覆盖）值
+     *
+     * @param ttl 存活时间，null 或 0 表示永不过期
+     */
+    void put(String namespace, String key, String value, Duration ttl);
+
+    /**
+     * 原子地写入值（仅当不存在时）
+     *
+     * @return 已存在的值；为空表示本次写入成功
+     */
+    Optional<String> putIfAbsent(String namespace, String key, String value, Duration ttl);
+
+    /**
+     * 原子地替换值（仅当当前未过期的值等于 expected 时），用于从已知的旧状态认领条目
+     *
+     * @return 是否替换成功；条目已被他人修改、删除或已过期时为 false
+     */
+    boolean replace(String namespace, String key, String expected, String value, Duration ttl);
+
+    /**
+     * 删除值
+     *
+     * @return 是否删除了一个存在的条目
+     */
+    boolean remove(String namespace, String key);
+
+    /**
+     * 列出 namespace 中所有未过期的值（需要逐个遍历，只用于条目很少的 namespace，如停机检查点）
+     * 文件存储只保存键的哈希，因此需要的话应把键写进值里。
+     */
+    List<String> values(String namespace);
+}
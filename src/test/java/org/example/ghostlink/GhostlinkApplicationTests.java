@@ -3,7 +3,11 @@ package org.example.ghostlink;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"ghostlink.proofs.dir=target/test-data/proofs",
+		"ghostlink.webhooks.dir=target/test-data/outbox",
+		"ghostlink.warmup.iterations=5"
+})
 class GhostlinkApplicationTests {
 
 	@Test
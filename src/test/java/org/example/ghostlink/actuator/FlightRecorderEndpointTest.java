@@ -0,0 +1,58 @@
+package org.example.ghostlink.actuator;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.ghostlink.jfr.ProofRequestEvent;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEndpointTest {
+
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"default", "profile"})
+    void boundedRecordingCapturesProofEvents(String settings) throws Exception {
+        FlightRecorderEndpoint endpoint = new FlightRecorderEndpoint(dir, Duration.ofSeconds(30), Duration.ofMinutes(1), 16, 2);
+        try {
+            assertEquals(400, endpoint.start(Duration.ofMinutes(5), null).getStatus());
+            assertEquals(400, endpoint.start(null, "verbose").getStatus());
+
+            var started = endpoint.start(null, settings);
+            assertEquals(200, started.getStatus());
+            long id = (Long) started.getBody().get("id");
+            assertEquals(409, endpoint.start(null, null).getStatus());
+            assertEquals(409, endpoint.download(id).getStatus());
+
+            ProofRequestEvent event = new ProofRequestEvent();
+            event.begin();
+            event.credentialType = "wallet";
+            event.outcome = "success";
+            event.dataFields = 6;
+            event.commit();
+
+            Map<String, Object> stopped = endpoint.stop(id).getBody();
+            assertEquals("CLOSED", stopped.get("state"));
+            assertEquals(200, endpoint.download(id).getStatus());
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(Path.of((String) stopped.get("file")));
+            RecordedEvent recorded = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("ghostlink.ProofRequest"))
+                    .findFirst().orElseThrow();
+            assertEquals("wallet", recorded.getString("credentialType"));
+            assertEquals(6, recorded.getInt("dataFields"));
+            assertTrue(events.stream().noneMatch(e -> FlightRecorderEndpoint.SENSITIVE_EVENTS.contains(e.getEventType().getName())));
+        } finally {
+            endpoint.shutdown();
+        }
+    }
+}
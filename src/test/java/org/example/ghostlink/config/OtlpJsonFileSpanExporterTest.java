@@ -0,0 +1,80 @@
+package org.example.ghostlink.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OtlpJsonFileSpanExporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesOneOtlpJsonRequestPerExport() throws Exception {
+        Path file = dir.resolve("traces/spans.jsonl");
+        SdkTracerProvider provider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new OtlpJsonFileSpanExporter(file, "ghostlink-test")))
+                .build();
+        Tracer tracer = provider.get("ghostlink");
+
+        Span parent = tracer.spanBuilder("ghostlink.prover").startSpan();
+        try (Scope ignored = parent.makeCurrent()) {
+            Span child = tracer.spanBuilder("ghostlink.prover.call")
+                    .setAttribute("credential_type", "wallet")
+                    .setAttribute("attempt", 2L)
+                    .startSpan();
+            child.addEvent("retry");
+            child.setStatus(StatusCode.ERROR, "timeout");
+            child.end();
+        }
+        parent.end();
+        provider.shutdown().join(5, TimeUnit.SECONDS);
+
+        // SimpleSpanProcessor 每个 span 导出一次：一行一个请求
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode childRequest = mapper.readTree(lines.get(0));
+        JsonNode parentRequest = mapper.readTree(lines.get(1));
+
+        JsonNode resource = childRequest.at("/resourceSpans/0/resource/attributes/0");
+        assertEquals("service.name", resource.get("key").asText());
+        assertEquals("ghostlink-test", resource.at("/value/stringValue").asText());
+        assertEquals("ghostlink", childRequest.at("/resourceSpans/0/scopeSpans/0/scope/name").asText());
+
+        JsonNode child = childRequest.at("/resourceSpans/0/scopeSpans/0/spans/0");
+        JsonNode parentSpan = parentRequest.at("/resourceSpans/0/scopeSpans/0/spans/0");
+        assertEquals("ghostlink.prover.call", child.get("name").asText());
+        assertEquals(parentSpan.get("traceId").asText(), child.get("traceId").asText());
+        assertEquals(parentSpan.get("spanId").asText(), child.get("parentSpanId").asText());
+        assertFalse(parentSpan.has("parentSpanId"));
+        // INTERNAL
+        assertEquals(1, child.get("kind").asInt());
+        assertTrue(child.get("startTimeUnixNano").isTextual());
+        assertEquals("retry", child.at("/events/0/name").asText());
+        assertEquals(2, child.at("/status/code").asInt());
+        assertEquals("timeout", child.at("/status/message").asText());
+
+        Map<String, JsonNode> attributes = new HashMap<>();
+        child.get("attributes").forEach(a -> attributes.put(a.get("key").asText(), a.get("value")));
+        assertEquals("wallet", attributes.get("credential_type").get("stringValue").asText());
+        // OTLP/JSON 中 int64 编码为字符串
+        assertEquals("2", attributes.get("attempt").get("intValue").asText());
+    }
+}
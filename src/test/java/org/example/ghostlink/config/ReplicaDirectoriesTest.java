@@ -0,0 +1,36 @@
+package org.example.ghostlink.config;
+
+import org.example.ghostlink.store.EventOutbox;
+import org.example.ghostlink.store.ProofLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaDirectoriesTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replicasSharingAVolumeClaimTheirOwnDirectories() throws Exception {
+        ProofLog first = ReplicaDirectories.open(dir, true, d -> new ProofLog(d, 1 << 20));
+        ProofLog second = ReplicaDirectories.open(dir, true, d -> new ProofLog(d, 1 << 20));
+        assertTrue(Files.exists(dir.resolve("replica-0/LOCK")));
+        assertTrue(Files.exists(dir.resolve("replica-1/LOCK")));
+
+        // 副本退出后目录被下一个启动的副本重新使用
+        first.close();
+        ProofLog replacement = ReplicaDirectories.open(dir, true, d -> new ProofLog(d, 1 << 20));
+        assertFalse(Files.exists(dir.resolve("replica-2")));
+        replacement.close();
+        second.close();
+
+        EventOutbox outbox = ReplicaDirectories.open(dir.resolve("outbox"), false, d -> new EventOutbox(d, 1 << 20));
+        assertThrows(IllegalStateException.class, () -> new EventOutbox(dir.resolve("outbox"), 1 << 20));
+        outbox.close();
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.ghostlink.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ghostlink.proofs.dir=target/test-data/example/proofs",
+        "ghostlink.webhooks.dir=target/test-data/example/outbox",
+        "ghostlink.receipts.dir=target/test-data/example/receipts",
+        "ghostlink.warmup.iterations=5",
+        // mock receipt 为 112 字节：强制外置
+        "ghostlink.receipts.inline-max-bytes=16"
+})
+class ExampleControllerTest {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 与前端支付宝流程一致：receipt-data 返回 receipt_digest，receipt 不内联，mint 前按 digest 下载并校验
+     */
+    @Test
+    void alipayReceiptDataIsOffloadedAndDownloadableByDigest() throws Exception {
+        Map<String, Object> request = Map.of(
+                "credential_type", "alipay",
+                "data", Map.of("balance", "20000.00", "id_number_hash", "0x" + "ab".repeat(32), "threshold", "10000"),
+                "recipient", "0x2c7536e3605d9c16a7a3d7b1898e529396a65c23");
+        HttpResponse<String> proof = http.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/v1/receipt-data"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, proof.statusCode(), proof.body());
+        JsonNode json = objectMapper.readTree(proof.body());
+        assertEquals("success", json.get("status").asText());
+        assertFalse(json.hasNonNull("receipt_hex"));
+        String digest = json.get("receipt_digest").asText();
+
+        HttpResponse<byte[]> receipt = http.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/v1/receipts/" + digest))
+                .GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, receipt.statusCode());
+        assertEquals(digest, HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(receipt.body())));
+    }
+
+    @Test
+    void alipayReceiptDataBelowThresholdIsRejected() throws Exception {
+        Map<String, Object> request = Map.of(
+                "credential_type", "alipay",
+                "data", Map.of("balance", "99.00", "id_number_hash", "0x" + "cd".repeat(32), "threshold", "10000"),
+                "recipient", "0x2c7536e3605d9c16a7a3d7b1898e529396a65c23");
+        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/v1/receipt-data"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(422, response.statusCode());
+        assertEquals("THRESHOLD_NOT_MET", objectMapper.readTree(response.body()).get("error_code").asText());
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.ghostlink.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EthSignaturesTest {
+
+    // web3.eth.accounts.sign('Some data', PRIVATE_KEY) 的官方示例
+    private static final String PRIVATE_KEY = "4c0883a69102937d6231471b5dbb6204fe5129617082792ae468d01a3f362318";
+    private static final String ADDRESS = "0x2c7536e3605d9c16a7a3d7b1898e529396a65c23";
+    private static final String MESSAGE = "Some data";
+    private static final String SIGNATURE = "0xb91467e570a6466aa9e9876cbcd013baba02900b8979d43fe208a4a4f339f5fd"
+            + "6007e74cd82e037b800186422fc2da167c747ef045e5d18a5f5d4300f8e1a0291c";
+
+    @Test
+    void keccakMatchesKnownVectors() {
+        assertEquals("c5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470",
+                HexFormat.of().formatHex(Keccak256.hash(new byte[0])));
+        assertEquals("1da44b586eb0729ff70a73c326926f6ed5a25f5b056e7f47fbc6e58d86871655",
+                HexFormat.of().formatHex(EthSignatures.personalMessageHash(MESSAGE)));
+        // 跨越一个 136 字节的 rate 块
+        byte[] longInput = "a".repeat(200).getBytes(StandardCharsets.UTF_8);
+        assertEquals(32, Keccak256.hash(longInput).length);
+    }
+
+    @Test
+    void fieldArithmeticMatchesBigInteger() {
+        Random random = new Random(42);
+        BigInteger p = Field.MODULUS;
+        for (int i = 0; i < 2000; i++) {
+            BigInteger a = i == 0 ? p.subtract(BigInteger.ONE) : new BigInteger(256, random).mod(p);
+            BigInteger b = i == 0 ? p.subtract(BigInteger.ONE) : new BigInteger(256, random).mod(p);
+            long[] fa = Field.of(a);
+            long[] fb = Field.of(b);
+            assertEquals(a.multiply(b).mod(p), Field.toBigInteger(Field.mul(fa, fb)));
+            assertEquals(a.add(b).mod(p), Field.toBigInteger(Field.add(fa, fb)));
+            assertEquals(a.subtract(b).mod(p), Field.toBigInteger(Field.sub(fa, fb)));
+        }
+    }
+
+    @Test
+    void derivesAddressFromPrivateKey() {
+        assertEquals("0x7e5f4552091a69125d5dfcb7b8c2659029395bdf",
+                EthSignatures.toAddress(Secp256k1.publicKey(BigInteger.ONE)));
+        assertEquals(ADDRESS, EthSignatures.toAddress(Secp256k1.publicKey(new BigInteger(PRIVATE_KEY, 16))));
+    }
+
+    @Test
+    void recoversPersonalSignSigner() {
+        assertEquals(ADDRESS, EthSignatures.recoverAddress(MESSAGE, SIGNATURE));
+        assertTrue(EthSignatures.verify("0x2c7536E3605D9C16a7a3D7b1898e529396a65c23", MESSAGE, SIGNATURE));
+        assertFalse(EthSignatures.verify(ADDRESS, MESSAGE + "!", SIGNATURE));
+    }
+
+    @Test
+    void batchVerifyFlagsEachEntry() {
+        String flippedV = SIGNATURE.substring(0, SIGNATURE.length() - 2) + "1b";
+        List<EthSignatures.SignedMessage> batch = List.of(
+                new EthSignatures.SignedMessage(ADDRESS, MESSAGE, SIGNATURE),
+                new EthSignatures.SignedMessage(ADDRESS, MESSAGE, flippedV),
+                new EthSignatures.SignedMessage(ADDRESS, MESSAGE, "0x1234"),
+                new EthSignatures.SignedMessage(ADDRESS, MESSAGE, "0x" + "00".repeat(65)),
+                new EthSignatures.SignedMessage(ADDRESS, MESSAGE, SIGNATURE));
+
+        boolean[] valid = EthSignatures.verifyAll(batch);
+
+        assertArrayEquals(new boolean[]{true, false, false, false, true}, valid);
+    }
+}
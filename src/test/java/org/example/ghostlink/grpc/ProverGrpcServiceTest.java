@@ -0,0 +1,260 @@
+package org.example.ghostlink.grpc;
+
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.MetadataUtils;
+import org.example.ghostlink.grpc.v1.GithubData;
+import org.example.ghostlink.grpc.v1.ProofResult;
+import org.example.ghostlink.grpc.v1.ProveBatchRequest;
+import org.example.ghostlink.grpc.v1.ProveRequest;
+import org.example.ghostlink.grpc.v1.ProverGrpc;
+import org.example.ghostlink.grpc.v1.WalletData;
+import org.example.ghostlink.service.ProofDrainService;
+import org.example.ghostlink.service.ShuttingDownException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ghostlink.proofs.dir=target/test-data/grpc/proofs",
+        "ghostlink.webhooks.dir=target/test-data/grpc/outbox",
+        "ghostlink.receipts.dir=target/test-data/grpc/receipts",
+        "ghostlink.warmup.iterations=5",
+        "ghostlink.grpc.enabled=true",
+        "ghostlink.grpc.port=0",
+        "ghostlink.grpc.api-key=test-key",
+        // mock prover 的延迟基线极低，固定并发上限，只比较传输和编解码开销
+        "ghostlink.limiter.prover.initial=64",
+        "ghostlink.limiter.prover.min=64"
+})
+class ProverGrpcServiceTest {
+
+    // web3.eth.accounts.sign('Some data', PRIVATE_KEY) 的官方示例（见 EthSignaturesTest）
+    private static final String ADDRESS = "2c7536e3605d9c16a7a3d7b1898e529396a65c23";
+    private static final String MESSAGE = "Some data";
+    private static final String SIGNATURE = "b91467e570a6466aa9e9876cbcd013baba02900b8979d43fe208a4a4f339f5fd"
+            + "6007e74cd82e037b800186422fc2da167c747ef045e5d18a5f5d4300f8e1a0291c";
+    private static final int CONCURRENCY = 16;
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Autowired
+    private GrpcServer grpcServer;
+
+    @Autowired
+    private ProofDrainService drainService;
+
+    @LocalServerPort
+    private int httpPort;
+
+    private ManagedChannel channel;
+    private ProverGrpc.ProverBlockingStub stub;
+
+    @BeforeEach
+    void connect() {
+        channel = NettyChannelBuilder.forAddress("127.0.0.1", grpcServer.getPort()).usePlaintext().build();
+        Metadata headers = new Metadata();
+        headers.put(GrpcServer.API_KEY, "test-key");
+        stub = ProverGrpc.newBlockingStub(channel).withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+
+    @AfterEach
+    void disconnect() {
+        channel.shutdownNow();
+    }
+
+    @Test
+    void provesWithBinaryFieldsAndStreamsBatchResults() {
+        byte[] recipient = randomAddress();
+        ProofResult result = stub.prove(github("single", 1001, recipient));
+        assertTrue(result.getVerified(), result.getMessage());
+        assertEquals("single", result.getRequestId());
+        // journal = recipient(20) || nullifier(32) || credType(1)
+        assertEquals(53, result.getJournal().size());
+        assertEquals(ByteString.copyFrom(recipient), result.getJournal().substring(0, 20));
+        assertEquals(32, result.getNullifier().size());
+
+        ProveBatchRequest.Builder batch = ProveBatchRequest.newBuilder();
+        for (int i = 0; i < 20; i++) {
+            batch.addRequests(github("batch-" + i, 2000 + i, randomAddress()));
+        }
+        batch.addRequests(github("invalid", 0, randomAddress()));
+        List<ProofResult> results = new ArrayList<>();
+        stub.proveBatch(batch.build()).forEachRemaining(results::add);
+        assertEquals(21, results.size());
+        ProofResult invalid = results.stream().filter(r -> r.getRequestId().equals("invalid")).findFirst().orElseThrow();
+        assertEquals("INVALID_DATA", invalid.getErrorCode());
+        assertEquals(20, results.stream().filter(ProofResult::getVerified).count());
+
+        StatusRuntimeException rejected = assertThrows(StatusRuntimeException.class,
+                () -> stub.prove(github("bad", 0, recipient)));
+        assertEquals(Status.Code.INVALID_ARGUMENT, rejected.getStatus().getCode());
+        StatusRuntimeException unauthenticated = assertThrows(StatusRuntimeException.class,
+                () -> ProverGrpc.newBlockingStub(channel).prove(github("anonymous", 1001, recipient)));
+        assertEquals(Status.Code.UNAUTHENTICATED, unauthenticated.getStatus().getCode());
+    }
+
+    @Test
+    void invalidSignaturesMapToTheSameErrorInUnaryAndBatchCalls() {
+        byte[] tampered = HEX.parseHex(SIGNATURE);
+        tampered[10] ^= 1;
+        ProveRequest forged = wallet("forged").toBuilder()
+                .setWallet(wallet("forged").getWallet().toBuilder().setSignature(ByteString.copyFrom(tampered)))
+                .build();
+
+        StatusRuntimeException denied = assertThrows(StatusRuntimeException.class, () -> stub.prove(forged));
+        assertEquals(Status.Code.PERMISSION_DENIED, denied.getStatus().getCode());
+        assertTrue(denied.getStatus().getDescription().startsWith(ProverGrpcService.INVALID_SIGNATURE));
+
+        List<ProofResult> results = new ArrayList<>();
+        stub.proveBatch(ProveBatchRequest.newBuilder().addRequests(forged).build()).forEachRemaining(results::add);
+        assertEquals(1, results.size());
+        assertEquals(ProverGrpcService.INVALID_SIGNATURE, results.get(0).getErrorCode());
+    }
+
+    /**
+     * 排空开始后 gRPC 仍可连接，但新的证明以 UNAVAILABLE + retry-after 拒绝，批量请求逐项返回 SHUTTING_DOWN
+     */
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void drainingRejectsNewProofsAsUnavailable() {
+        drainService.stop();
+
+        StatusRuntimeException unavailable = assertThrows(StatusRuntimeException.class,
+                () -> stub.prove(github("draining", 3001, randomAddress())));
+        assertEquals(Status.Code.UNAVAILABLE, unavailable.getStatus().getCode());
+        assertNotNull(unavailable.getTrailers().get(ProverGrpcService.RETRY_AFTER));
+
+        List<ProofResult> results = new ArrayList<>();
+        stub.proveBatch(ProveBatchRequest.newBuilder().addRequests(github("draining-batch", 3002, randomAddress())).build())
+                .forEachRemaining(results::add);
+        assertEquals(ShuttingDownException.ERROR_CODE, results.get(0).getErrorCode());
+    }
+
+    @Test
+    void enabledServerWithoutApiKeyFailsToStart() {
+        assertThrows(IllegalStateException.class,
+                () -> new GrpcServer(null, true, 0, " ", null, Duration.ofSeconds(1)));
+    }
+
+    /**
+     * 同样的钱包证明（签名校验 + mock prover）：REST JSON、gRPC 一元调用、gRPC 批量流式
+     * 每个请求的 recipient 不同，避免命中证明缓存
+     */
+    @Tag("benchmark")
+    @Test
+    void throughputComparedWithRest(TestReporter reporter) throws Exception {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://127.0.0.1:" + httpPort + "/api/v1/wallet/proof");
+        IntPredicate rest = i -> {
+            String body = "{\"credential_type\":\"wallet\",\"recipient\":\"0x" + HEX.formatHex(randomAddress()) + "\","
+                    + "\"data\":{\"address\":\"0x" + ADDRESS + "\",\"balance_wei\":\"1000000000000000000\","
+                    + "\"transaction_count\":12,\"chain_id\":1,\"signature\":\"0x" + SIGNATURE + "\","
+                    + "\"message\":\"" + MESSAGE + "\"}}";
+            try {
+                HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+                return response.statusCode() == 200;
+            } catch (Exception e) {
+                return false;
+            }
+        };
+        IntPredicate grpc = i -> stub.prove(wallet("w" + i)).getVerified();
+
+        int warmup = 200;
+        int n = 1000;
+        run(rest, warmup);
+        run(grpc, warmup);
+        double restRate = run(rest, n);
+        double grpcRate = run(grpc, n);
+
+        ProveBatchRequest.Builder batch = ProveBatchRequest.newBuilder();
+        for (int i = 0; i < n; i++) {
+            batch.addRequests(wallet("b" + i));
+        }
+        long start = System.nanoTime();
+        int verified = 0;
+        for (Iterator<ProofResult> it = stub.proveBatch(batch.build()); it.hasNext(); ) {
+            verified += it.next().getVerified() ? 1 : 0;
+        }
+        double batchRate = n / ((System.nanoTime() - start) / 1e9);
+        assertEquals(n, verified);
+
+        reporter.publishEntry("wallet proofs/s (" + CONCURRENCY + " concurrent)", String.format(
+                "REST JSON %.0f, gRPC unary %.0f, gRPC ProveBatch stream %.0f", restRate, grpcRate, batchRate));
+    }
+
+    private static double run(IntPredicate call, int n) throws Exception {
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY)) {
+            List<Future<Boolean>> results = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                int id = i;
+                results.add(clients.submit(() -> call.test(id)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+        return n / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static ProveRequest github(String id, long userId, byte[] recipient) {
+        return ProveRequest.newBuilder()
+                .setRequestId(id)
+                .setRecipient(ByteString.copyFrom(recipient))
+                .setGithub(GithubData.newBuilder()
+                        .setUserId(userId)
+                        .setUsername("octocat")
+                        .setCreatedAt("2011-01-25T18:44:36Z")
+                        .setPublicRepos(8))
+                .build();
+    }
+
+    private static ProveRequest wallet(String id) {
+        return ProveRequest.newBuilder()
+                .setRequestId(id)
+                .setRecipient(ByteString.copyFrom(randomAddress()))
+                .setWallet(WalletData.newBuilder()
+                        .setAddress(ByteString.copyFrom(HEX.parseHex(ADDRESS)))
+                        .setBalanceWei("1000000000000000000")
+                        .setTransactionCount(12)
+                        .setChainId(1)
+                        .setSignature(ByteString.copyFrom(HEX.parseHex(SIGNATURE)))
+                        .setMessage(MESSAGE))
+                .build();
+    }
+
+    private static byte[] randomAddress() {
+        byte[] address = new byte[20];
+        ThreadLocalRandom.current().nextBytes(address);
+        return address;
+    }
+}
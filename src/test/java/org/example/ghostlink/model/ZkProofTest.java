@@ -0,0 +1,130 @@
+package org.example.ghostlink.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZkProofTest {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 有无 0x 前缀都能解析；JSON 字段名和取值与原来的字符串模型一致
+     */
+    @Test
+    void rendersHexOnlyWhenSerialized() throws Exception {
+        ZkProof proof = ZkProof.fromHex("github-1", true, 1700000000000L, "ABCD", "0x0102", "ff", "0x00",
+                "sha256-digest");
+        assertEquals("0xabcd", proof.getReceipt());
+        assertArrayEquals(new byte[]{1, 2}, proof.journalBytes());
+        proof.journalBytes()[0] = 9;
+        assertEquals("0x0102", proof.getJournal());
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsBytes(proof));
+        assertEquals("0xff", json.get("imageId").asText());
+        assertEquals("0x00", json.get("nullifier").asText());
+        assertEquals("/api/v1/receipts/sha256-digest", json.get("receiptUrl").asText());
+        assertTrue(json.get("verified").asBoolean());
+
+        ZkProof copy = objectMapper.readValue(objectMapper.writeValueAsBytes(proof), ZkProof.class);
+        assertEquals(proof.getReceipt(), copy.getReceipt());
+        assertEquals(proof.getReceiptDigest(), copy.getReceiptDigest());
+
+        ZkProof failed = ZkProof.failed("fail-1", 0L);
+        assertFalse(failed.isVerified());
+        assertNull(failed.getReceipt());
+        assertThrows(IllegalArgumentException.class,
+                () -> ZkProof.fromHex("bad", true, 0L, "0xzz", null, null, null, null));
+    }
+
+    /**
+     * 100 万个缓存中的证明（mock prover 的尺寸：receipt 112B、journal 53B、imageId 32B、nullifier 32B）
+     * 原来每个字段保存一份 "0x" + hex 字符串，现在保存原始字节
+     */
+    @Tag("benchmark")
+    @Test
+    void footprintOfOneMillionCachedProofs(TestReporter reporter) {
+        int n = 1_000_000;
+        long legacy = retainedBytes(n, fields -> new LegacyProof(fields.get("proof_id"), true, 0L,
+                "0x" + fields.get("receipt_hex"), "0x" + fields.get("journal_hex"),
+                "0x" + fields.get("image_id_hex"), "0x" + fields.get("nullifier_hex")));
+        long compact = retainedBytes(n, fields -> ZkProof.fromHex(fields.get("proof_id"), true, 0L,
+                fields.get("receipt_hex"), fields.get("journal_hex"),
+                fields.get("image_id_hex"), fields.get("nullifier_hex"), null));
+
+        reporter.publishEntry("1M cached proofs", String.format("String fields %d MB (%d B/proof), byte[] fields %d MB (%d B/proof)",
+                legacy >> 20, legacy / n, compact >> 20, compact / n));
+        assertTrue(compact < legacy * 0.7, "legacy=" + legacy + " compact=" + compact);
+    }
+
+    private static long retainedBytes(int n, Function<Map<String, String>, Object> factory) {
+        SplittableRandom random = new SplittableRandom(42);
+        long before = usedHeap();
+        List<Object> cache = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            // 模拟 prover 响应：每个证明各自的十六进制字符串，构造完成后即可回收
+            cache.add(factory.apply(Map.of(
+                    "proof_id", "github-" + i,
+                    "receipt_hex", randomHex(random, 112),
+                    "journal_hex", randomHex(random, 53),
+                    "image_id_hex", randomHex(random, 32),
+                    "nullifier_hex", randomHex(random, 32))));
+        }
+        long retained = usedHeap() - before;
+        assertEquals(n, cache.size());
+        return retained;
+    }
+
+    private static String randomHex(SplittableRandom random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return HEX.formatHex(bytes);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 改造前的 ZkProof：可变 bean，字段是带 0x 前缀的十六进制字符串
+     */
+    @SuppressWarnings("unused")
+    private static final class LegacyProof {
+        private String proofId;
+        private boolean verified;
+        private long timestamp;
+        private String receipt;
+        private String journal;
+        private String imageId;
+        private String nullifier;
+        private String receiptDigest;
+        private Map<String, Object> data;
+
+        LegacyProof(String proofId, boolean verified, long timestamp, String receipt, String journal,
+                    String imageId, String nullifier) {
+            this.proofId = proofId;
+            this.verified = verified;
+            this.timestamp = timestamp;
+            this.receipt = receipt;
+            this.journal = journal;
+            this.imageId = imageId;
+            this.nullifier = nullifier;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.ghostlink.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimiterTest {
+
+    private static final long MS = 1_000_000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * 模拟依赖：capacity 个并行槽位，超出后排队，延迟 = base × max(1, inflight / capacity)；需求始终大于上限。
+     * 依赖整体变慢 5 倍时上限收缩，基线窗口过后按新的基线恢复。
+     */
+    @Test
+    void limitFollowsLatencyStepChange() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("prover", 20, 2, 200, 1.5, Duration.ofSeconds(60), clock::get);
+
+        int steady = run(limiter, 10 * MS, 20, 2_000);
+        assertTrue(steady >= 25 && steady <= 50, "steady limit " + steady);
+
+        int slowed = run(limiter, 50 * MS, 20, 200);
+        assertTrue(slowed < steady / 2, "limit after slowdown " + slowed);
+
+        // 两个基线窗口后，旧的 10ms 基线过期
+        int recovered = run(limiter, 50 * MS, 20, 40_000);
+        assertTrue(recovered >= 25 && recovered <= 50, "recovered limit " + recovered);
+    }
+
+    @Test
+    void excessRequestsAreShedAndOverloadBacksOff() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("github", 4, 2, 10, 1.5, Duration.ofSeconds(60), clock::get);
+        AdaptiveLimiter.Permit[] permits = new AdaptiveLimiter.Permit[4];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.acquire();
+        }
+        ConcurrencyLimitExceededException e = assertThrows(ConcurrencyLimitExceededException.class, limiter::acquire);
+        assertTrue(e.getRetryAfterSeconds() >= 1);
+        assertEquals(1, limiter.rejected());
+
+        permits[0].dropped();
+        permits[0].close();
+        assertEquals(3, limiter.limit());
+        // 没有标记成功的调用只归还名额
+        permits[1].close();
+        assertEquals(3, limiter.limit());
+        assertEquals(2, limiter.inflight());
+    }
+
+    @Test
+    void headroomCheckDoesNotTakeAPermit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("prover", 2, 2, 10, 1.5, Duration.ofSeconds(60), clock::get);
+        limiter.checkHeadroom();
+        assertEquals(0, limiter.inflight());
+
+        try (AdaptiveLimiter.Permit first = limiter.acquire(); AdaptiveLimiter.Permit second = limiter.acquire()) {
+            assertThrows(ConcurrencyLimitExceededException.class, limiter::checkHeadroom);
+            assertEquals(1, limiter.rejected());
+        }
+        limiter.checkHeadroom();
+    }
+
+    @Tag("benchmark")
+    @Test
+    void acquireReleaseThroughput(TestReporter reporter) throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("prover", 64, 2, 256, 1.5, Duration.ofSeconds(60));
+        int threads = 8;
+        int opsPerThread = 200_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < opsPerThread; i++) {
+                        try (AdaptiveLimiter.Permit permit = limiter.acquire()) {
+                            permit.succeeded();
+                        } catch (ConcurrencyLimitExceededException ignored) {
+                            // 计入 rejected
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsedNs = System.nanoTime() - start;
+        reporter.publishEntry("threads=" + threads, "ops/s=" + (long) (threads * (double) opsPerThread * 1e9 / elapsedNs)
+                + " rejected=" + limiter.rejected() + " limit=" + limiter.limit());
+    }
+
+    private int run(AdaptiveLimiter limiter, long baseNanos, int capacity, int samples) {
+        for (int i = 0; i < samples; i++) {
+            int inflight = limiter.limit();
+            long rtt = baseNanos * Math.max(1, inflight) / Math.min(capacity, Math.max(1, inflight));
+            clock.addAndGet(rtt / inflight);
+            limiter.onSample(rtt, inflight, false);
+        }
+        return limiter.limit();
+    }
+}
@@ -0,0 +1,212 @@
+package org.example.ghostlink.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.ghostlink.model.GithubEnrichment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GithubEnrichmentServiceTest {
+
+    // 模拟到 GitHub 的往返时间；GraphQL 额外多一些服务端处理时间
+    private static final long RTT_MS = 40;
+    private static final long GRAPHQL_EXTRA_MS = 30;
+    private static final int REPOS = 250;
+    private static final int STARRED_REPOS = 50;
+    private static final int EVENTS = 300;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile boolean graphqlFails;
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * 同样的字段：REST 需要 3 组分页请求（仓库 3 页、事件 3 页、组织 1 页，组间并行），GraphQL 一次往返
+     */
+    @Test
+    void graphqlReturnsTheSameFieldsInOneRoundTrip() throws Exception {
+        String url = startStub();
+        GithubEnrichmentService rest = service("rest", url, Set.of("repos", "stars", "contributions", "organizations"));
+        GithubEnrichmentService graphql = service("graphql", url, Set.of("repos", "stars", "contributions", "organizations"));
+
+        GithubEnrichment viaRest = rest.enrich("token", "octocat");
+        int restRequests = requests.getAndSet(0);
+        GithubEnrichment viaGraphql = graphql.enrich("token", "octocat");
+        int graphqlRequests = requests.get();
+
+        assertEquals("rest", viaRest.source());
+        assertEquals("graphql", viaGraphql.source());
+        assertEquals(viaRest.ownedRepos(), viaGraphql.ownedRepos());
+        assertEquals(viaRest.totalStars(), viaGraphql.totalStars());
+        assertEquals(viaRest.contributionsLastYear(), viaGraphql.contributionsLastYear());
+        assertEquals(viaRest.organizations(), viaGraphql.organizations());
+        assertEquals(7, restRequests);
+        assertEquals(1, graphqlRequests);
+    }
+
+    /**
+     * GraphQL 失败回退到 REST 时不带口径不同的 star 和贡献数
+     */
+    @Test
+    void restFallbackOmitsApproximatedFields() throws Exception {
+        graphqlFails = true;
+        GithubEnrichment enrichment = service("graphql", startStub(),
+                Set.of("repos", "stars", "contributions", "organizations")).enrich("token", "octocat");
+
+        assertEquals(GithubEnrichment.SOURCE_REST_FALLBACK, enrichment.source());
+        assertEquals(REPOS, enrichment.ownedRepos());
+        assertNull(enrichment.totalStars());
+        assertNull(enrichment.contributionsLastYear());
+        assertEquals(List.of("github", "risc0"), enrichment.organizations());
+    }
+
+    /**
+     * 扇出的子任务继承调用方的截止时间：仓库 3 页（约 120ms）不可能在 60ms 内完成
+     */
+    @Test
+    void restFanOutHonoursTheCallersDeadline() throws Exception {
+        GithubEnrichmentService rest = service("rest", startStub(), Set.of("repos", "stars", "contributions", "organizations"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        long start = System.nanoTime();
+        try (Deadline.Scope ignored = Deadline.after(Duration.ofMillis(60), registry).bind()) {
+            assertThrows(DeadlineExceededException.class, () -> rest.enrich("token", "octocat"));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 500, "took " + elapsedMillis + "ms");
+        assertTrue(registry.find("ghostlink.deadline.abandoned").counters().stream().mapToDouble(c -> c.count()).sum() >= 1);
+    }
+
+    @Tag("benchmark")
+    @Test
+    void graphqlVersusRestLatency(TestReporter reporter) throws Exception {
+        String url = startStub();
+        GithubEnrichmentService rest = service("rest", url, Set.of("repos", "stars", "contributions", "organizations"));
+        GithubEnrichmentService graphql = service("graphql", url, Set.of("repos", "stars", "contributions", "organizations"));
+
+        // 预热连接和 JIT
+        rest.enrich("token", "octocat");
+        graphql.enrich("token", "octocat");
+
+        requests.set(0);
+        long restNanos = System.nanoTime();
+        rest.enrich("token", "octocat");
+        restNanos = System.nanoTime() - restNanos;
+        int restRequests = requests.getAndSet(0);
+
+        long graphqlNanos = System.nanoTime();
+        graphql.enrich("token", "octocat");
+        graphqlNanos = System.nanoTime() - graphqlNanos;
+        int graphqlRequests = requests.get();
+
+        reporter.publishEntry("rest", restRequests + " requests " + restNanos / 1_000_000 + "ms");
+        reporter.publishEntry("graphql", graphqlRequests + " requests " + graphqlNanos / 1_000_000 + "ms");
+        assertTrue(graphqlNanos < restNanos, "graphql=" + graphqlNanos + " rest=" + restNanos);
+    }
+
+    @Test
+    void queryOnlySelectsConfiguredFields() {
+        String query = service("graphql", "http://localhost", Set.of("repos", "organizations")).graphqlQuery();
+        assertTrue(query.contains("repositories(ownerAffiliations: OWNER, isFork: false, first: 1,"), query);
+        assertFalse(query.contains("stargazerCount"), query);
+        assertFalse(query.contains("contributionsCollection"), query);
+        assertTrue(query.contains("organizations(first: 100)"), query);
+    }
+
+    private GithubEnrichmentService service(String mode, String url, Set<String> fields) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LoadMonitor loadMonitor = new LoadMonitor(20, Duration.ofSeconds(60), 8, Duration.ofSeconds(5),
+                50, Duration.ofSeconds(5), 0.7, 0.9, 20);
+        ConcurrencyLimits limits = new ConcurrencyLimits(new MockEnvironment(), registry, 1.5, Duration.ofSeconds(60));
+        RateLimitScheduler rateLimits = new RateLimitScheduler(Duration.ofSeconds(5), 0.1, 100, registry);
+        return new GithubEnrichmentService(mode, url, fields, 100, loadMonitor, limits, rateLimits,
+                new RestTemplateBuilder(), registry);
+    }
+
+    private String startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/user/repos", exchange -> {
+            int page = page(exchange);
+            List<String> repos = new ArrayList<>();
+            for (int i = (page - 1) * 100; i < Math.min(REPOS, page * 100); i++) {
+                repos.add("{\"name\":\"r" + i + "\",\"fork\":false,\"stargazers_count\":" + (i < STARRED_REPOS ? i + 1 : 0) + "}");
+            }
+            respond(exchange, RTT_MS, "[" + String.join(",", repos) + "]");
+        });
+        server.createContext("/user/orgs", exchange ->
+                respond(exchange, RTT_MS, "[{\"login\":\"github\"},{\"login\":\"risc0\"}]"));
+        server.createContext("/users/octocat/events", exchange -> {
+            int page = page(exchange);
+            List<String> events = new ArrayList<>();
+            for (int i = (page - 1) * 100; i < Math.min(EVENTS, page * 100); i++) {
+                events.add(i % 2 == 0 ? "{\"type\":\"PushEvent\",\"payload\":{\"size\":2}}" : "{\"type\":\"WatchEvent\"}");
+            }
+            respond(exchange, RTT_MS, "[" + String.join(",", events) + "]");
+        });
+        server.createContext("/graphql", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (graphqlFails) {
+                respond(exchange, RTT_MS, "{\"errors\":[{\"message\":\"Something went wrong\"}]}");
+                return;
+            }
+            StringBuilder nodes = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                nodes.append(i > 0 ? "," : "").append("{\"stargazerCount\":").append(i < STARRED_REPOS ? STARRED_REPOS - i : 0).append("}");
+            }
+            respond(exchange, RTT_MS + GRAPHQL_EXTRA_MS, "{\"data\":{\"viewer\":{\"login\":\"octocat\","
+                    + "\"repositories\":{\"totalCount\":" + REPOS + ",\"nodes\":[" + nodes + "]},"
+                    + "\"contributionsCollection\":{\"contributionCalendar\":{\"totalContributions\":" + EVENTS + "}},"
+                    + "\"organizations\":{\"nodes\":[{\"login\":\"github\"},{\"login\":\"risc0\"}]}},"
+                    + "\"rateLimit\":{\"cost\":1,\"remaining\":4999}}}");
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static int page(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getQuery();
+        int i = query.indexOf("page=", query.indexOf("per_page=") + 9);
+        return Integer.parseInt(query.substring(i + 5).split("&")[0]);
+    }
+
+    private void respond(HttpExchange exchange, long delayMs, String body) throws IOException {
+        requests.incrementAndGet();
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.ghostlink.store.InMemoryStateStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyService service = new IdempotencyService(new InMemoryStateStore(16), new ObjectMapper(),
+            Duration.ofMinutes(5), Duration.ofMinutes(1), Duration.ofSeconds(10));
+
+    @Test
+    void retryReplaysStoredResponse() {
+        AtomicInteger calls = new AtomicInteger();
+        ResponseEntity<?> first = service.execute("test", "k1", "fp", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.ok(Map.of("proofId", "zk-1"));
+        });
+        ResponseEntity<?> retry = service.execute("test", "k1", "fp", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.ok(Map.of("proofId", "zk-2"));
+        });
+
+        assertEquals(1, calls.get());
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals("{\"proofId\":\"zk-1\"}", retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+
+        ResponseEntity<?> mismatch = service.execute("test", "k1", "other", () -> ResponseEntity.ok("x"));
+        assertEquals(422, mismatch.getStatusCode().value());
+    }
+
+    @Test
+    void serverErrorsAreNotStored() {
+        AtomicInteger calls = new AtomicInteger();
+        service.execute("test", "k2", "fp", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.status(500).body("boom");
+        });
+        ResponseEntity<?> retry = service.execute("test", "k2", "fp", () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.ok("ok");
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals("ok", retry.getBody());
+    }
+
+    @Test
+    void concurrentRetriesJoinInFlightRequest() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<ResponseEntity<?>> owner = pool.submit(() -> service.execute("test", "k3", "fp", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return ResponseEntity.ok(Map.of("proofId", "zk-3"));
+            }));
+            started.await();
+
+            List<Future<ResponseEntity<?>>> retries = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                retries.add(pool.submit(() -> service.execute("test", "k3", "fp", () -> {
+                    calls.incrementAndGet();
+                    return ResponseEntity.ok(Map.of("proofId", "duplicate"));
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals(200, owner.get().getStatusCode().value());
+            for (Future<ResponseEntity<?>> retry : retries) {
+                assertEquals("{\"proofId\":\"zk-3\"}", retry.get().getBody());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.ghostlink.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalVerifierTest {
+
+    private static final String RECIPIENT = "0x2C7536E3605D9C16A7A3D7B1898E529396A65C23";
+    private static final Map<String, Object> DATA = Map.of("user_id", 12345678, "username", "ghostlink-user");
+
+    private final JournalVerifier verifier = new JournalVerifier(new MockEnvironment()
+            .withProperty("ghostlink.prover.image-id.github", "0x" + "11".repeat(32)), true);
+
+    @Test
+    void acceptsJournalMatchingContractLayout() throws Exception {
+        byte[] nullifier = JournalVerifier.deriveNullifier("github", DATA);
+        byte[] journal = JournalVerifier.encodeJournal(RECIPIENT, nullifier, "github");
+        assertEquals(53, journal.length);
+        assertEquals(0, journal[52]);
+
+        JournalVerifier.Result result = verifier.verify(request(), response(journal, nullifier, "11".repeat(32)));
+        assertTrue(result.valid(), result.problems().toString());
+        // 与 GhostLinkSBT.calculateJournalHash(recipient, nullifier, GITHUB) 相同
+        assertEquals("0x" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(journal)), result.journalHash());
+    }
+
+    @Test
+    void rejectsProofsThatWouldRevertOnMint() {
+        byte[] nullifier = JournalVerifier.deriveNullifier("github", DATA);
+        byte[] otherRecipient = JournalVerifier.encodeJournal("0x" + "00".repeat(20), nullifier, "github");
+        byte[] wrongType = JournalVerifier.encodeJournal(RECIPIENT, nullifier, "twitter");
+        byte[] otherUser = JournalVerifier.deriveNullifier("github", Map.of("user_id", 1));
+        byte[] journal = JournalVerifier.encodeJournal(RECIPIENT, nullifier, "github");
+        String imageId = "11".repeat(32);
+
+        assertFalse(verifier.verify(request(), response(otherRecipient, nullifier, imageId)).valid());
+        assertFalse(verifier.verify(request(), response(wrongType, nullifier, imageId)).valid());
+        assertFalse(verifier.verify(request(), response(journal, otherUser, imageId)).valid());
+        assertFalse(verifier.verify(request(), response(journal, nullifier, "22".repeat(32))).valid());
+        assertFalse(verifier.verify(request(), Map.of("journal_hex", "ab".repeat(49), "nullifier_hex", "00")).valid());
+
+        // nullifier 与 journal 一致但不是该用户的身份
+        byte[] forged = JournalVerifier.encodeJournal(RECIPIENT, otherUser, "github");
+        JournalVerifier.Result result = verifier.verify(request(), response(forged, otherUser, imageId));
+        assertFalse(result.valid());
+        assertTrue(result.problems().get(0).contains("identity"));
+    }
+
+    private static Map<String, Object> request() {
+        return Map.of("credential_type", "github", "recipient", RECIPIENT, "data", DATA);
+    }
+
+    private static Map<String, String> response(byte[] journal, byte[] nullifier, String imageId) {
+        return Map.of("status", "success",
+                "journal_hex", HexFormat.of().formatHex(journal),
+                "nullifier_hex", "0x" + HexFormat.of().formatHex(nullifier),
+                "image_id_hex", imageId);
+    }
+}
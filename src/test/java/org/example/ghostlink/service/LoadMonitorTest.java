@@ -0,0 +1,24 @@
+package org.example.ghostlink.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadMonitorTest {
+
+    @Test
+    void p99IgnoresWindowsWithTooFewSamples() {
+        LoadMonitor.LatencyWindow window = new LoadMonitor.LatencyWindow();
+        // 低流量下一次慢证明
+        window.record(Duration.ofSeconds(90).toNanos());
+        assertEquals(0, window.percentile(0.99, 20));
+        assertEquals(Duration.ofSeconds(90).toNanos(), window.percentile(0.99, 1));
+
+        for (int i = 0; i < 99; i++) {
+            window.record(Duration.ofSeconds(1).toNanos());
+        }
+        assertEquals(Duration.ofSeconds(1).toNanos(), window.percentile(0.99, 20));
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.ghostlink.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfProcessingPoolTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoadMonitor loadMonitor = new LoadMonitor(20, Duration.ofSeconds(60), 8, Duration.ofSeconds(5),
+            50, Duration.ofSeconds(5), 0.7, 0.9, 20);
+    // 1MB 预算：同一时间只能处理一个小文档
+    private final PdfProcessingPool pool = new PdfProcessingPool(2, 4, 1, 10, Duration.ofMillis(100),
+            Duration.ofMillis(300), loadMonitor, ObservationRegistry.NOOP, meterRegistry);
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void extractsTextOnWorkerThread() throws Exception {
+        byte[] pdf = WarmupService.syntheticSample("Total Assets 1,234,567.89", 2);
+        String text = pool.process(pdf, document -> Thread.currentThread().getName() + "|"
+                + PdfProcessingPool.newTextStripper().getText(document));
+        assertTrue(text.startsWith("pdf-worker-"));
+        assertTrue(text.contains("Total Assets 1,234,567.89"));
+    }
+
+    @Test
+    void carriesWarmupFlagToWorkerThread() throws Exception {
+        byte[] pdf = WarmupService.syntheticSample("Total Assets 1.00", 1);
+        Boolean duringWarmup = WarmupService.callAsWarmup(true,
+                () -> pool.process(pdf, document -> WarmupService.isWarmupThread()));
+        Boolean afterWarmup = pool.process(pdf, document -> WarmupService.isWarmupThread());
+        assertTrue(duringWarmup);
+        assertFalse(afterWarmup);
+    }
+
+    @Test
+    void rejectsOversizedAndCancelsSlowDocuments() throws Exception {
+        byte[] pdf = WarmupService.syntheticSample("Total Assets 1.00", 1);
+
+        PdfProcessingException tooLarge = assertThrows(PdfProcessingException.class,
+                () -> pool.process(new byte[200_000], document -> null));
+        assertEquals(PdfProcessingException.Reason.TOO_LARGE, tooLarge.getReason());
+
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletableFuture<PdfProcessingException> slow = CompletableFuture.supplyAsync(() -> assertThrows(
+                PdfProcessingException.class, () -> pool.process(pdf, document -> {
+                    running.countDown();
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return null;
+                })));
+
+        // 预算被占满时，第二个文档等待 queue-timeout 后返回 BUSY
+        running.await();
+        PdfProcessingException busy = assertThrows(PdfProcessingException.class, () -> pool.process(pdf, document -> null));
+        assertEquals(PdfProcessingException.Reason.BUSY, busy.getReason());
+
+        assertEquals(PdfProcessingException.Reason.DEADLINE, slow.get().getReason());
+        interrupted.await();
+
+        // 被取消的任务归还预算后可以继续处理
+        Thread.sleep(50);
+        int pages = pool.process(pdf, document -> document.getNumberOfPages());
+        assertEquals(1, pages);
+        assertEquals(1.0, meterRegistry.counter("ghostlink.pdf.pool.rejected", "reason", "deadline").count());
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.ghostlink.model.GithubProfile;
+import org.example.ghostlink.model.TwitterProfile;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileReaderTest {
+
+    // GitHub GET /user 的完整响应（私有账号会多出 plan 等字段）
+    private static final byte[] GITHUB_USER = """
+            {"login":"octocat","id":583231,"node_id":"MDQ6VXNlcjU4MzIzMQ==",
+             "avatar_url":"https://avatars.githubusercontent.com/u/583231?v=4","gravatar_id":"",
+             "url":"https://api.github.com/users/octocat","html_url":"https://github.com/octocat",
+             "followers_url":"https://api.github.com/users/octocat/followers",
+             "following_url":"https://api.github.com/users/octocat/following{/other_user}",
+             "gists_url":"https://api.github.com/users/octocat/gists{/gist_id}",
+             "starred_url":"https://api.github.com/users/octocat/starred{/owner}{/repo}",
+             "subscriptions_url":"https://api.github.com/users/octocat/subscriptions",
+             "organizations_url":"https://api.github.com/users/octocat/orgs",
+             "repos_url":"https://api.github.com/users/octocat/repos",
+             "events_url":"https://api.github.com/users/octocat/events{/privacy}",
+             "received_events_url":"https://api.github.com/users/octocat/received_events",
+             "type":"User","user_view_type":"public","site_admin":false,"name":"The Octocat","company":"@github",
+             "blog":"https://github.blog","location":"San Francisco","email":null,"hireable":null,"bio":null,
+             "twitter_username":null,"notification_email":null,"public_repos":8,"public_gists":8,
+             "followers":17412,"following":9,"created_at":"2011-01-25T18:44:36Z","updated_at":"2025-01-22T12:19:17Z",
+             "private_gists":0,"total_private_repos":0,"owned_private_repos":0,"disk_usage":0,"collaborators":0,
+             "two_factor_authentication":true,
+             "plan":{"name":"free","space":976562499,"collaborators":0,"private_repos":10000}}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] TWITTER_USER = """
+            {"data":{"id":"2244994945","name":"Developers","username":"XDevelopers",
+             "created_at":"2013-12-14T04:35:55.000Z",
+             "public_metrics":{"followers_count":583119,"following_count":2032,"tweet_count":3961,
+              "listed_count":1737,"like_count":2118,"media_count":812}}}
+            """.getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void readsOnlyTheFieldsTheSpecNeeds() throws IOException {
+        GithubProfile github = ProfileReader.readGithubUser(new ByteArrayInputStream(GITHUB_USER));
+        assertEquals(new GithubProfile(583231, "octocat", "2011-01-25T18:44:36Z", 8, 17412), github);
+
+        TwitterProfile twitter = ProfileReader.readTwitterUser(new ByteArrayInputStream(TWITTER_USER));
+        assertEquals(new TwitterProfile("2244994945", "XDevelopers", "2013-12-14T04:35:55.000Z", 583119), twitter);
+
+        byte[] error = """
+                {"errors":[{"message":"Unauthorized"}],"title":"Unauthorized","status":401}
+                """.getBytes(StandardCharsets.UTF_8);
+        assertNull(ProfileReader.readTwitterUser(new ByteArrayInputStream(error)));
+        assertThrows(JsonProcessingException.class,
+                () -> ProfileReader.readGithubUser(new ByteArrayInputStream("{\"message\":\"Bad credentials\"}".getBytes())));
+    }
+
+    /**
+     * 每次登录解析用户信息的分配量：Map 反序列化（原来的 RestTemplate 消息转换）对比流式解析
+     */
+    @Tag("benchmark")
+    @Test
+    void streamingAllocatesLessThanMapDeserialization(TestReporter reporter) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        long mapBytes = allocatedPerCall(() -> objectMapper.readValue(GITHUB_USER, Map.class));
+        long streamingBytes = allocatedPerCall(() -> ProfileReader.readGithubUser(new ByteArrayInputStream(GITHUB_USER)));
+        reporter.publishEntry("github-user-bytes-per-call", "map=" + mapBytes + " streaming=" + streamingBytes);
+        assertTrue(streamingBytes < mapBytes, streamingBytes + " >= " + mapBytes);
+    }
+
+    private interface Call {
+        Object run() throws IOException;
+    }
+
+    private static long allocatedPerCall(Call call) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 2_000; i++) {
+            call.run();
+        }
+        int iterations = 10_000;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            call.run();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / iterations;
+    }
+}
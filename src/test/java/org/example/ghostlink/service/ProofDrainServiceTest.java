@@ -0,0 +1,54 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.ghostlink.store.FileStateStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProofDrainServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ProofDrainService newService() {
+        return new ProofDrainService(new FileStateStore(dir), new ObjectMapper(), new SimpleMeterRegistry(),
+                Duration.ofMillis(200), Duration.ofHours(1));
+    }
+
+    /**
+     * 排空超时后未完成的证明写入检查点，重启后的多个副本中只有一个能取走
+     */
+    @Test
+    void unfinishedProofsAreCheckpointedAndClaimedOnce() {
+        ProofDrainService old = newService();
+        old.proofStarted("done", Map.of("credential_type", "wallet"));
+        old.proofStarted("slow", Map.of("credential_type", "wallet", "recipient", "0xabc"));
+        old.proofFinished("done");
+        old.stop();
+        assertTrue(old.isDraining());
+
+        List<Map<String, Object>> claimed = newService().claimCheckpoints();
+        assertEquals(1, claimed.size());
+        assertEquals("slow", claimed.get(0).get("key"));
+        assertEquals(Map.of("credential_type", "wallet", "recipient", "0xabc"), claimed.get(0).get("request"));
+        assertTrue(newService().claimCheckpoints().isEmpty());
+    }
+
+    @Test
+    void proofFinishingAfterCheckpointRemovesIt() {
+        ProofDrainService old = newService();
+        old.proofStarted("late", Map.of("credential_type", "github"));
+        old.stop();
+        old.proofFinished("late");
+
+        assertTrue(newService().claimCheckpoints().isEmpty());
+    }
+}
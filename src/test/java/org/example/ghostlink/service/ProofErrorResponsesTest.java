@@ -0,0 +1,38 @@
+package org.example.ghostlink.service;
+
+import org.example.ghostlink.model.AuthResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProofErrorResponsesTest {
+
+    @Test
+    void mapsProofExceptionsToStatuses() {
+        ResponseEntity<Object> rejected = ProofErrorResponses.of(
+                new ProofRequestRejectedException("THRESHOLD_NOT_MET", "too low"), ProofErrorResponses::errorBody);
+        assertEquals(422, rejected.getStatusCode().value());
+        assertEquals(Map.of("status", "error", "error_code", "THRESHOLD_NOT_MET", "message", "too low"), rejected.getBody());
+
+        ResponseEntity<Object> overloaded = ProofErrorResponses.of(
+                new ConcurrencyLimitExceededException(LoadMonitor.PROVER, 3), ProofErrorResponses::errorBody);
+        assertEquals(503, overloaded.getStatusCode().value());
+        assertEquals("3", overloaded.getHeaders().getFirst("Retry-After"));
+
+        ResponseEntity<Object> expired = ProofErrorResponses.of(
+                new DeadlineExceededException(LoadMonitor.PROVER, "expired"), AuthResponse::new);
+        assertEquals(504, expired.getStatusCode().value());
+        AuthResponse body = (AuthResponse) expired.getBody();
+        assertEquals(DeadlineExceededException.ERROR_CODE, body.getErrorCode());
+        assertEquals("expired", body.getError());
+    }
+
+    @Test
+    void rethrowsOtherExceptions() {
+        IllegalStateException e = new IllegalStateException("boom");
+        assertSame(e, assertThrows(IllegalStateException.class, () -> ProofErrorResponses.of(e, ProofErrorResponses::errorBody)));
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.ghostlink.model.ZkProof;
+import org.example.ghostlink.store.EventOutbox;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProofEventServiceTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private final List<List<Map<String, Object>>> batches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private HttpServer server;
+    private ProofEventService service;
+    private EventOutbox outbox;
+
+    @AfterEach
+    void stop() throws IOException {
+        if (service != null) {
+            service.stop();
+        }
+        if (outbox != null) {
+            outbox.close();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * 发布不等待投递；同一攒批窗口内的事件合并成一个请求，5xx 后按退避重试同一批
+     */
+    @Test
+    void batchesAndRetriesWithoutBlockingPublishers() throws Exception {
+        String url = startStub(Duration.ofMillis(300));
+        failuresLeft.set(2);
+        start(url);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            service.completed("github", "0xabc", proof("github-" + i));
+        }
+        service.failed("wallet", "0xdef", "PROVER_UNAVAILABLE", "no prover");
+        long publishMillis = (System.nanoTime() - start) / 1_000_000;
+
+        awaitEvents(21, Duration.ofSeconds(10));
+        // 接收方每次响应需要 300ms，发布 21 个事件仍然只花费本地写入的时间
+        assertTrue(publishMillis < 300, "publish took " + publishMillis + "ms");
+        assertEquals(3, attempts.get(), "two 503s then one accepted batch");
+        assertEquals(1, batches.size());
+        List<Map<String, Object>> batch = batches.get(0);
+        assertEquals(ProofEventService.COMPLETED, batch.get(0).get("type"));
+        assertEquals("github-0", batch.get(0).get("proof_id"));
+        assertEquals(ProofEventService.FAILED, batch.get(20).get("type"));
+        assertEquals("PROVER_UNAVAILABLE", batch.get(20).get("error_code"));
+        // 接收方响应后才确认位置
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (outbox.lagBytes("crm") > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, outbox.lagBytes("crm"));
+    }
+
+    /**
+     * 投递前重启：未确认的事件在下次启动时补发
+     */
+    @Test
+    void undeliveredEventsSurviveRestart() throws Exception {
+        String url = startStub(Duration.ZERO);
+        failuresLeft.set(Integer.MAX_VALUE);
+        start(url);
+        service.completed("twitter", "0xabc", proof("twitter-1"));
+        Thread.sleep(500);
+        service.stop();
+        outbox.close();
+        assertTrue(batches.isEmpty());
+
+        failuresLeft.set(0);
+        start(url);
+        awaitEvents(1, Duration.ofSeconds(5));
+        assertEquals("twitter-1", batches.get(0).get(0).get("proof_id"));
+    }
+
+    private void start(String url) {
+        outbox = new EventOutbox(dir, 1 << 20);
+        service = new ProofEventService(outbox, new RestTemplateBuilder(), new SimpleMeterRegistry(),
+                List.of("crm=" + url), "secret", 100, Duration.ofMillis(100), Duration.ofSeconds(2),
+                Duration.ofMillis(50), Duration.ofMillis(200));
+        service.start();
+    }
+
+    private void awaitEvents(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (batches.stream().mapToInt(List::size).sum() < count && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, batches.stream().mapToInt(List::size).sum());
+    }
+
+    private static ZkProof proof(String id) {
+        return ZkProof.fromHex(id, true, System.currentTimeMillis(), "0x01", "0x02", "0x03", "0x04", null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String startStub(Duration delay) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hook", (HttpExchange exchange) -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            attempts.incrementAndGet();
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                assertTrue(exchange.getRequestHeaders().getFirst("X-Ghostlink-Signature").startsWith("sha256="));
+                batches.add(objectMapper.readValue(body, List.class));
+                exchange.sendResponseHeaders(204, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+    }
+}
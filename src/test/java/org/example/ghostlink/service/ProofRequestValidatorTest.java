@@ -0,0 +1,74 @@
+package org.example.ghostlink.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProofRequestValidatorTest {
+
+    private static final String RECIPIENT = "0x2c7536e3605d9c16a7a3d7b1898e529396a65c23";
+    private static final String HASH = "0x" + "ab".repeat(32);
+
+    private final ProofRequestValidator validator = new ProofRequestValidator();
+
+    @Test
+    void alipayComparesThresholdExactly() {
+        validator.validate(request("alipay", Map.of("balance", "10000.00", "threshold", "10000", "id_number_hash", HASH)));
+
+        ProofRequestRejectedException e = assertThrows(ProofRequestRejectedException.class, () ->
+                validator.validate(request("alipay", Map.of("balance", "9999.99", "threshold", "10000", "id_number_hash", HASH))));
+        assertEquals(ProofRequestValidator.THRESHOLD_NOT_MET, e.getErrorCode());
+
+        Map<String, Object> missingId = new HashMap<>(Map.of("balance", "20000.00", "threshold", "10000"));
+        missingId.put("id_number_hash", null);
+        assertEquals(ProofRequestValidator.INVALID_DATA, assertThrows(ProofRequestRejectedException.class, () ->
+                validator.validate(request("alipay", missingId))).getErrorCode());
+    }
+
+    @Test
+    void githubAndTwitterRequireWellFormedFields() {
+        validator.validate(request("github", Map.of(
+                "user_id", 12345678, "username", "ghostlink-user", "created_at", "2020-01-01T00:00:00Z", "public_repos", 5)));
+        validator.validate(request("twitter", Map.of(
+                "user_id", "987654321", "handle", "ghostlink", "created_at", "2015-01-01T00:00:00.000Z")));
+
+        assertThrows(ProofRequestRejectedException.class, () -> validator.validate(request("github", Map.of(
+                "user_id", 12345678, "username", "ghostlink-user", "created_at", "2020-01-01", "public_repos", 5))));
+        assertThrows(ProofRequestRejectedException.class, () -> validator.validate(request("github", Map.of(
+                "user_id", 12345678, "username", "ghostlink-user", "created_at", "2999-01-01T00:00:00Z", "public_repos", 5))));
+        assertThrows(ProofRequestRejectedException.class, () -> validator.validate(request("twitter", Map.of(
+                "user_id", "abc", "handle", "ghostlink", "created_at", "2015-01-01T00:00:00Z"))));
+        assertThrows(ProofRequestRejectedException.class, () -> validator.validate(request("unknown", Map.of())));
+    }
+
+    @Test
+    void walletTransactionCountIsOptional() {
+        Map<String, Object> wallet = new HashMap<>(Map.of("address", RECIPIENT, "balance_wei", "1000000000000000000",
+                "chain_id", 11155111, "signature", "0x" + "ab".repeat(65), "message", "GhostLink Asset-Pass Verification"));
+        validator.validate(request("wallet", wallet));
+
+        wallet.put("transaction_count", 42);
+        validator.validate(request("wallet", wallet));
+        wallet.put("transaction_count", -1);
+        assertEquals(ProofRequestValidator.INVALID_DATA, assertThrows(ProofRequestRejectedException.class, () ->
+                validator.validate(request("wallet", wallet))).getErrorCode());
+    }
+
+    @Test
+    void checksIdNumberChecksum() {
+        assertTrue(ProofRequestValidator.isValidIdNumber("11010519491231002X"));
+        assertFalse(ProofRequestValidator.isValidIdNumber("110105194912310021"));
+        assertFalse(ProofRequestValidator.isValidIdNumber("Not Found"));
+    }
+
+    private static Map<String, Object> request(String type, Map<String, Object> data) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("credential_type", type);
+        request.put("data", data);
+        request.put("recipient", RECIPIENT);
+        return request;
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.ghostlink.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProverRouterTest {
+
+    private static final String SUCCESS = "{\"status\":\"success\",\"receipt_hex\":\"ab\",\"journal_hex\":\"cd\","
+            + "\"image_id_hex\":\"0x01\",\"nullifier_hex\":\"ef\"}";
+
+    private final List<StubProver> stubs = new ArrayList<>();
+    private ProverRouter router;
+
+    @AfterEach
+    void shutdown() {
+        if (router != null) {
+            router.shutdown();
+        }
+        stubs.forEach(s -> s.server.stop(0));
+    }
+
+    /**
+     * 得分 = EWMA 延迟 × (在途请求数 + 1)：直接构造样本，不依赖真实耗时
+     */
+    @Test
+    void prefersLowLatencyTimesOutstanding() throws Exception {
+        router = router(stub(0, 200, SUCCESS));
+        ProverRouter.Endpoint fast = router.new Endpoint("fast");
+        ProverRouter.Endpoint slow = router.new Endpoint("slow");
+        ProverRouter.Endpoint broken = router.new Endpoint("broken");
+        List<ProverRouter.Endpoint> candidates = List.of(fast, slow, broken);
+
+        // 尚无样本的节点优先试探
+        fast.recordSuccess(5_000_000);
+        assertNotSame(fast, router.select(candidates, List.of()));
+        slow.recordSuccess(60_000_000);
+        // 立即失败（1ms）按超时计入，不会比健康节点更"快"
+        broken.recordFailure(1_000_000, 3, Duration.ofMinutes(1));
+        assertSame(fast, router.select(candidates, List.of()));
+
+        fast.outstanding.set(12);
+        assertSame(slow, router.select(candidates, List.of()));
+        assertSame(broken, router.select(candidates, List.of(fast, slow)));
+
+        broken.recordFailure(1_000_000, 3, Duration.ofMinutes(1));
+        broken.recordFailure(1_000_000, 3, Duration.ofMinutes(1));
+        assertFalse(broken.isAvailable(System.nanoTime()));
+        // 所有节点都不可用时仍然选一个，不直接失败
+        assertSame(broken, router.select(List.of(broken), List.of()));
+    }
+
+    @Test
+    void routesAroundBrokenProversUnderConcurrency() throws Exception {
+        StubProver fast = stub(5, 200, SUCCESS);
+        StubProver slow = stub(60, 200, SUCCESS);
+        StubProver broken = stub(0, 503, "{\"status\":\"error\"}");
+        router = router(fast, slow, broken);
+
+        ExecutorService clients = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Map<String, String>>> results = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                results.add(clients.submit(() -> router.prove("wallet", Map.of("credential_type", "wallet"))));
+            }
+            for (Future<Map<String, String>> result : results) {
+                assertEquals("success", result.get().get("status"));
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        assertEquals(60, fast.calls.get() + slow.calls.get());
+        // 连续失败或健康检查失败后被摘除，之后不再收到请求
+        assertTrue(broken.calls.get() <= 3 + 6, "broken=" + broken.calls);
+        assertFalse((Boolean) router.snapshot().get(2).get("available"));
+    }
+
+    /**
+     * 健康检查正常但 /prove 立即返回 5xx 的节点：失败按超时计分，第一次失败后就不再被优先选择
+     */
+    @Test
+    void fastFailingProverWithPassingHealthCheckIsAvoided() throws Exception {
+        StubProver failing = stub(0, 500, "{\"status\":\"error\"}", true);
+        StubProver healthy = stub(20, 200, SUCCESS);
+        router = router(failing, healthy);
+        router.checkHealth();
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("success", router.prove("wallet", Map.of("credential_type", "wallet")).get("status"));
+        }
+
+        // 两个节点都没有样本时先试列表中的第一个，失败后换节点重试，此后不再选中它
+        assertEquals(1, failing.calls.get());
+        assertEquals(20, healthy.calls.get());
+        Map<String, Object> snapshot = router.snapshot().get(0);
+        assertTrue((Boolean) snapshot.get("available"));
+        assertTrue((Long) snapshot.get("ewmaMillis") >= 5_000, "ewma=" + snapshot.get("ewmaMillis"));
+    }
+
+    @Test
+    void invalidRequestsAreNotRetried() throws Exception {
+        StubProver first = stub(0, 422, "{\"status\":\"error\",\"error_code\":\"INVALID_DATA\",\"message\":\"bad\"}");
+        StubProver second = stub(0, 422, "{\"status\":\"error\",\"error_code\":\"INVALID_DATA\",\"message\":\"bad\"}");
+        router = router(first, second);
+
+        Map<String, String> response = router.prove("github", Map.of("credential_type", "github"));
+        assertEquals("INVALID_DATA", response.get("error_code"));
+        assertEquals(1, first.calls.get() + second.calls.get());
+        assertFalse(router.hasEndpoints("unknown"));
+    }
+
+    /**
+     * 截止时间把 prover 调用的超时截短到剩余预算；超时后不再换节点重试，也不算节点故障
+     */
+    @Test
+    void proverCallsStopAtTheRequestDeadline() throws Exception {
+        StubProver first = stub(2000, 200, SUCCESS);
+        StubProver second = stub(2000, 200, SUCCESS);
+        router = router(first, second);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        long start = System.nanoTime();
+        try (Deadline.Scope ignored = Deadline.after(Duration.ofMillis(300), registry).bind()) {
+            DeadlineExceededException e = assertThrows(DeadlineExceededException.class,
+                    () -> router.prove("wallet", Map.of("credential_type", "wallet")));
+            assertEquals(LoadMonitor.PROVER, e.getStage());
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis < 1500, "elapsed " + elapsedMillis + "ms");
+        assertEquals(1, first.calls.get() + second.calls.get());
+        assertEquals(0, router.snapshot().stream().mapToInt(e -> (Integer) e.get("consecutiveFailures")).sum());
+
+        // 已过期的请求不再发出
+        try (Deadline.Scope ignored = Deadline.after(Duration.ZERO, registry).bind()) {
+            assertThrows(DeadlineExceededException.class, () -> router.prove("wallet", Map.of("credential_type", "wallet")));
+        }
+        assertEquals(1, first.calls.get() + second.calls.get());
+        assertEquals(1, registry.counter("ghostlink.deadline.abandoned", "stage", "prover", "reason", "timeout").count());
+        assertEquals(1, registry.counter("ghostlink.deadline.abandoned", "stage", "prover", "reason", "expired").count());
+        assertNull(Deadline.current());
+    }
+
+    private ProverRouter router(StubProver... provers) {
+        StringBuilder urls = new StringBuilder();
+        for (StubProver prover : provers) {
+            urls.append(urls.isEmpty() ? "" : ",").append("http://127.0.0.1:").append(prover.server.getAddress().getPort());
+        }
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("ghostlink.prover.endpoints.default", urls.toString())
+                .withProperty("ghostlink.prover.image-id.wallet", "01");
+        return new ProverRouter(environment, new RestTemplateBuilder(), new SimpleMeterRegistry(), "",
+                Duration.ofSeconds(5), 3, "/health", Duration.ofHours(1), 3, Duration.ofMinutes(1));
+    }
+
+    private StubProver stub(long latencyMillis, int status, String body) throws IOException {
+        return stub(latencyMillis, status, body, status != 503);
+    }
+
+    private StubProver stub(long latencyMillis, int status, String body, boolean healthy) throws IOException {
+        StubProver prover = new StubProver();
+        prover.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        prover.server.setExecutor(Executors.newCachedThreadPool());
+        prover.server.createContext("/api/v1/prove", exchange -> {
+            prover.calls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        prover.server.createContext("/health", exchange -> {
+            exchange.sendResponseHeaders(healthy ? 200 : 503, -1);
+            exchange.close();
+        });
+        prover.server.start();
+        stubs.add(prover);
+        return prover;
+    }
+
+    private static final class StubProver {
+        HttpServer server;
+        final AtomicInteger calls = new AtomicInteger();
+    }
+}
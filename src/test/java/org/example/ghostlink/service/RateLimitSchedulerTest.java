@@ -0,0 +1,170 @@
+package org.example.ghostlink.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitSchedulerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final AtomicLong resetAt = new AtomicLong();
+    private final AtomicInteger throttleNext = new AtomicInteger();
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * 额度用完后不失败，排队到重置时间再发送
+     */
+    @Test
+    void queuesUntilResetInsteadOfFailing() throws Exception {
+        RestTemplate restTemplate = restTemplate(Duration.ofSeconds(5));
+        remaining.set(1);
+        resetAt.set(nextSecond(1));
+
+        restTemplate.getForObject(startStub() + "/user", String.class);
+        long start = System.currentTimeMillis();
+        restTemplate.getForObject(url() + "/user", String.class);
+        long waited = System.currentTimeMillis() - start;
+
+        assertEquals(2, requests.get());
+        assertTrue(waited >= 500, "should wait for the reset, waited " + waited + "ms");
+        assertTrue(registry.get("ghostlink.ratelimit.wait").timer().max(TimeUnit.MILLISECONDS) >= 500);
+    }
+
+    /**
+     * 重置时间超过 max-wait 时立即拒绝，不发请求
+     */
+    @Test
+    void rejectsWhenResetIsBeyondMaxWait() throws Exception {
+        RestTemplate restTemplate = restTemplate(Duration.ofSeconds(1));
+        remaining.set(1);
+        resetAt.set(nextSecond(30));
+
+        restTemplate.getForObject(startStub() + "/user", String.class);
+        OutboundRateLimitException e = assertThrows(OutboundRateLimitException.class,
+                () -> restTemplate.getForObject(url() + "/user", String.class));
+
+        assertEquals(1, requests.get());
+        assertEquals(LoadMonitor.GITHUB, e.getDependency());
+        assertTrue(e.getRetryAfterSeconds() >= 25, "retry after " + e.getRetryAfterSeconds());
+        assertEquals(1.0, registry.get("ghostlink.ratelimit.rejected").counter().count());
+        assertEquals(0.0, registry.get("ghostlink.ratelimit.remaining").gauge().value());
+    }
+
+    /**
+     * 响应头说还有额度却收到 429（二级限流）：按 Retry-After 等待后重试一次
+     */
+    @Test
+    void retriesOnceAfterUnexpected429() throws Exception {
+        RestTemplate restTemplate = restTemplate(Duration.ofSeconds(5));
+        remaining.set(100);
+        resetAt.set(nextSecond(60));
+        throttleNext.set(1);
+
+        String body = restTemplate.getForObject(startStub() + "/user", String.class);
+
+        assertEquals("{\"login\":\"octocat\"}", body);
+        assertEquals(2, requests.get());
+        assertEquals(1.0, registry.get("ghostlink.ratelimit.throttled").counter().count());
+    }
+
+    /**
+     * 用户 token 的额度各自独立：一个用户用完额度不影响其他用户和应用凭证的请求
+     */
+    @Test
+    void userTokenBudgetsAreIndependent() throws Exception {
+        RestTemplate restTemplate = restTemplate(Duration.ofSeconds(1));
+        remaining.set(1);
+        resetAt.set(nextSecond(30));
+        String url = startStub() + "/user";
+
+        restTemplate.exchange(url, HttpMethod.GET, withToken("token-a"), String.class);
+        assertThrows(OutboundRateLimitException.class,
+                () -> restTemplate.exchange(url, HttpMethod.GET, withToken("token-a"), String.class));
+        assertEquals(1, requests.get());
+
+        long start = System.currentTimeMillis();
+        restTemplate.exchange(url, HttpMethod.GET, withToken("token-b"), String.class);
+        restTemplate.getForObject(url, String.class);
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(3, requests.get());
+    }
+
+    private static HttpEntity<Void> withToken(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(headers);
+    }
+
+    private RestTemplate restTemplate(Duration maxWait) {
+        RateLimitScheduler scheduler = new RateLimitScheduler(maxWait, 0.1, 100, registry);
+        return new RestTemplateBuilder().additionalInterceptors(scheduler.interceptor(LoadMonitor.GITHUB)).build();
+    }
+
+    private static long nextSecond(int seconds) {
+        // reset 头是整秒，向上取整后实际等待在 seconds-1 ~ seconds 秒之间
+        return System.currentTimeMillis() / 1000 + seconds + 1;
+    }
+
+    private String startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        return url();
+    }
+
+    private String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (throttleNext.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+            return;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        if (now >= resetAt.get()) {
+            remaining.set(60);
+            resetAt.set(now + 3600);
+        }
+        exchange.getResponseHeaders().add("x-ratelimit-limit", "60");
+        exchange.getResponseHeaders().add("x-ratelimit-remaining", String.valueOf(Math.max(0, remaining.decrementAndGet())));
+        exchange.getResponseHeaders().add("x-ratelimit-reset", String.valueOf(resetAt.get()));
+        exchange.getResponseHeaders().add("x-ratelimit-resource", "core");
+        byte[] body = "{\"login\":\"octocat\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
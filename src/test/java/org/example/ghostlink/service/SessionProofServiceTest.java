@@ -0,0 +1,132 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.example.ghostlink.model.AuthResponse;
+import org.example.ghostlink.model.CredentialResult;
+import org.example.ghostlink.model.ZkProof;
+import org.example.ghostlink.store.InMemoryStateStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionProofServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdempotencyService idempotencyService = new IdempotencyService(new InMemoryStateStore(16),
+            new ObjectMapper(), Duration.ofMinutes(5), Duration.ofMinutes(1), Duration.ofSeconds(10));
+    private final SessionProofService service = new SessionProofService(null, null, null, null,
+            idempotencyService, new ObjectMapper(), ObservationRegistry.NOOP, meterRegistry);
+
+    @Test
+    void provesConcurrentlyAndIsolatesFailures() {
+        Map<String, Callable<CredentialResult>> tasks = new LinkedHashMap<>();
+        tasks.put("github", () -> {
+            Thread.sleep(300);
+            return CredentialResult.success(ZkProof.failed("p1", 1L), null);
+        });
+        tasks.put("twitter", () -> {
+            Thread.sleep(300);
+            throw new ConcurrencyLimitExceededException(LoadMonitor.PROVER, 3);
+        });
+        tasks.put("wallet", () -> {
+            Thread.sleep(300);
+            throw new ProofRequestRejectedException("INVALID_SIGNATURE", "bad signature");
+        });
+
+        long start = System.nanoTime();
+        Map<String, CredentialResult> results = service.run(tasks);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 三个 300ms 的凭证并发执行，耗时接近单个而不是总和
+        assertTrue(elapsedMillis < 800, "took " + elapsedMillis + "ms");
+        assertEquals(List.of("github", "twitter", "wallet"), List.copyOf(results.keySet()));
+        assertTrue(results.get("github").isSuccess());
+        assertEquals("OVERLOADED", results.get("twitter").errorCode());
+        assertEquals(3L, results.get("twitter").retryAfter());
+        assertEquals("INVALID_SIGNATURE", results.get("wallet").errorCode());
+        assertEquals(2.0, meterRegistry.find("ghostlink.session.credentials").tag("outcome", "error").counters()
+                .stream().mapToDouble(c -> c.count()).sum());
+    }
+
+    @Test
+    void cancelsCredentialsThatOutliveTheDeadline() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Map<String, Callable<CredentialResult>> tasks = new LinkedHashMap<>();
+        tasks.put("alipay", () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return CredentialResult.success(ZkProof.failed("p2", 1L), null);
+        });
+        tasks.put("wallet", () -> {
+            // 子任务继承请求的截止时间
+            assertNotNull(Deadline.current());
+            return CredentialResult.success(ZkProof.failed("p3", 1L), null);
+        });
+
+        Map<String, CredentialResult> results;
+        long start = System.nanoTime();
+        try (Deadline.Scope ignored = Deadline.after(Duration.ofMillis(300), meterRegistry).bind()) {
+            results = service.run(tasks);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 2_000, "took " + elapsedMillis + "ms");
+        assertEquals(DeadlineExceededException.ERROR_CODE, results.get("alipay").errorCode());
+        assertTrue(results.get("wallet").isSuccess());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("ghostlink.deadline.abandoned").tag("stage", "alipay").counter().count());
+    }
+
+    /**
+     * 会话重试、或同一个授权码再走回调接口时重放第一次的结果，不再换 token
+     */
+    @Test
+    void oauthCredentialsShareTheCallbackIdempotencyRecord() throws Exception {
+        AtomicInteger logins = new AtomicInteger();
+        Map<String, Object> payload = Map.of("code", "abc", "recipient", "0x01");
+        ZkProof proof = ZkProof.fromHex("github-1", true, 1L, "ab", "cd", "ef", "01", null);
+
+        CredentialResult first = service.oauth(IdempotencyService.GITHUB_CALLBACK, payload, () -> {
+            logins.incrementAndGet();
+            return new AuthResponse("success", null, proof);
+        });
+        CredentialResult retry = service.oauth(IdempotencyService.GITHUB_CALLBACK, payload, () -> {
+            logins.incrementAndGet();
+            return new AuthResponse("Failed to retrieve access token from GitHub");
+        });
+
+        assertEquals(1, logins.get());
+        assertTrue(first.isSuccess());
+        assertTrue(retry.isSuccess());
+        assertEquals("github-1", retry.zkProof().getProofId());
+        assertEquals(proof.getNullifier(), retry.zkProof().getNullifier());
+
+        // 回调接口使用同一个范围和键：直接重放
+        assertEquals(200, idempotencyService.execute(IdempotencyService.GITHUB_CALLBACK, IdempotencyService.codeKey("abc"),
+                IdempotencyService.fingerprint(payload), () -> {
+                    throw new AssertionError("code exchanged twice");
+                }).getStatusCode().value());
+
+        // 授权码已消耗后过载：按授权码保存，重试得到同样的结论
+        service.oauth(IdempotencyService.TWITTER_CALLBACK, Map.of("code", "xyz"),
+                () -> new AuthResponse(AuthResponse.OAUTH_RESTART_REQUIRED, "sign in again"));
+        CredentialResult restart = service.oauth(IdempotencyService.TWITTER_CALLBACK, Map.of("code", "xyz"),
+                () -> new AuthResponse("success", null, proof));
+        assertEquals(AuthResponse.OAUTH_RESTART_REQUIRED, restart.errorCode());
+    }
+}
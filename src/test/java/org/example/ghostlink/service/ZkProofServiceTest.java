@@ -0,0 +1,99 @@
+package org.example.ghostlink.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZkProofServiceTest {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 缓存中的二进制字段以 Base64 保存，读回后与原响应完全一致；非规范的十六进制和旧的十六进制条目原样读回
+     */
+    @Test
+    void cachedResultsRoundTripInCompactForm() throws Exception {
+        Map<String, String> response = mockResponse(new SplittableRandom(1), "job-1");
+        response.put("nullifier_hex", "0xABCD");
+        String cached = ZkProofService.encode(response);
+        assertEquals(response, ZkProofService.decode(cached));
+        assertFalse(cached.contains(response.get("receipt_hex")));
+        assertTrue(cached.length() < objectMapper.writeValueAsString(response).length());
+
+        Map<String, String> legacy = mockResponse(new SplittableRandom(2), "job-2");
+        assertEquals(legacy, ZkProofService.decode(objectMapper.writeValueAsString(legacy)));
+        assertThrows(IllegalStateException.class, () -> ZkProofService.decode("{\"receipt_b64\":\"not base64!\"}"));
+    }
+
+    /**
+     * 100 万个证明缓存条目（InMemoryStateStore 中的 JSON 字符串，mock prover 的尺寸，receipt 112B 内联）
+     * 十六进制 JSON 与 Base64 紧凑格式的常驻内存对比
+     */
+    @Tag("benchmark")
+    @Test
+    void footprintOfOneMillionCachedResults(TestReporter reporter) throws Exception {
+        int n = 1_000_000;
+        long hex = retainedBytes(n, response -> {
+            try {
+                return objectMapper.writeValueAsString(response);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long compact = retainedBytes(n, ZkProofService::encode);
+
+        reporter.publishEntry("1M cached proof results", String.format("hex JSON %d MB (%d B/entry), compact %d MB (%d B/entry)",
+                hex >> 20, hex / n, compact >> 20, compact / n));
+        assertTrue(compact < hex, "hex=" + hex + " compact=" + compact);
+    }
+
+    private static long retainedBytes(int n, Function<Map<String, String>, String> encoder) {
+        SplittableRandom random = new SplittableRandom(42);
+        long before = usedHeap();
+        List<String> cache = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            cache.add(encoder.apply(mockResponse(random, HEX.formatHex(randomBytes(random, 32)))));
+        }
+        long retained = usedHeap() - before;
+        assertEquals(n, cache.size());
+        return retained;
+    }
+
+    private static Map<String, String> mockResponse(SplittableRandom random, String jobId) {
+        Map<String, String> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("receipt_hex", HEX.formatHex(randomBytes(random, 112)));
+        response.put("journal_hex", HEX.formatHex(randomBytes(random, 53)));
+        response.put("image_id_hex", HEX.formatHex(randomBytes(random, 32)));
+        response.put("nullifier_hex", HEX.formatHex(randomBytes(random, 32)));
+        response.put("receipt_digest", HEX.formatHex(randomBytes(random, 32)));
+        response.put("job_id", jobId);
+        return response;
+    }
+
+    private static byte[] randomBytes(SplittableRandom random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
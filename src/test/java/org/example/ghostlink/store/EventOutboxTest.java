@@ -0,0 +1,170 @@
+package org.example.ghostlink.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventOutboxTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void consumersResumeFromTheirOwnCursorAfterRestart() throws Exception {
+        EventOutbox outbox = new EventOutbox(dir, 64);
+        outbox.register("crm");
+        outbox.register("relayer");
+        for (int i = 0; i < 10; i++) {
+            outbox.append(("event-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        EventOutbox.Batch first = outbox.read("crm", 4);
+        assertEquals(List.of("event-0", "event-1", "event-2", "event-3"), strings(first));
+        outbox.ack("crm", first.next());
+        outbox.close();
+
+        // 重启后 crm 从 event-4 继续，relayer 还没确认过任何事件
+        outbox = new EventOutbox(dir, 64);
+        outbox.register("crm");
+        outbox.register("relayer");
+        assertEquals("event-4", strings(outbox.read("crm", 1)).get(0));
+        assertEquals(10, outbox.read("relayer", 100).events().size());
+
+        // 小段文件：只删除两个消费者都已越过的段
+        EventOutbox.Batch rest = outbox.read("crm", 100);
+        assertEquals(6, rest.events().size());
+        outbox.ack("crm", rest.next());
+        assertEquals(0, outbox.compact());
+        EventOutbox.Batch relayer = outbox.read("relayer", 100);
+        outbox.ack("relayer", relayer.next());
+        assertTrue(outbox.compact() > 0);
+        assertEquals(0, outbox.lagBytes("crm"));
+        assertTrue(outbox.read("relayer", 100).isEmpty());
+        outbox.close();
+    }
+
+    @Test
+    void newConsumerStartsAtTheEndAndTornTailIsDropped() throws Exception {
+        EventOutbox outbox = new EventOutbox(dir, 1 << 20);
+        outbox.append("before".getBytes(StandardCharsets.UTF_8));
+        outbox.register("crm");
+        outbox.append("after".getBytes(StandardCharsets.UTF_8));
+        outbox.close();
+
+        // 模拟写入一半时崩溃
+        try (FileChannel channel = FileChannel.open(dir.resolve("segment-00000001.log"), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 50, 1, 2}));
+        }
+        long sizeWithTail = Files.size(dir.resolve("segment-00000001.log"));
+
+        outbox = new EventOutbox(dir, 1 << 20);
+        assertEquals(sizeWithTail - 6, Files.size(dir.resolve("segment-00000001.log")));
+        outbox.register("crm");
+        assertEquals(List.of("after"), strings(outbox.read("crm", 10)));
+        outbox.close();
+    }
+
+    @Test
+    void corruptRecordsAreSkippedWithoutAllocatingTheirLength() throws Exception {
+        // 每个段只放得下一条记录
+        EventOutbox outbox = new EventOutbox(dir, 64);
+        outbox.register("crm");
+        for (int i = 0; i < 3; i++) {
+            outbox.append(event(i));
+        }
+
+        // 第一个段的长度字段损坏成 2GB：不能按它分配缓冲区，也不能让投递卡住
+        try (FileChannel channel = FileChannel.open(dir.resolve("segment-00000001.log"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 0);
+        }
+        EventOutbox.Batch batch = outbox.read("crm", 10);
+        assertEquals(List.of(new String(event(1), StandardCharsets.UTF_8), new String(event(2), StandardCharsets.UTF_8)),
+                strings(batch));
+        outbox.ack("crm", batch.next());
+
+        // CRC 不符的记录同样跳过
+        outbox.append(event(3));
+        outbox.append(event(4));
+        try (FileChannel channel = FileChannel.open(dir.resolve("segment-00000004.log"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), 8);
+        }
+        assertEquals(List.of(new String(event(4), StandardCharsets.UTF_8)), strings(outbox.read("crm", 10)));
+        assertThrows(IllegalArgumentException.class, () -> outbox.append(new byte[EventOutbox.MAX_RECORD_BYTES + 1]));
+        outbox.close();
+    }
+
+    @Test
+    void backlogCapDropsTheOldestSegmentsOfAStuckConsumer() throws Exception {
+        EventOutbox outbox = new EventOutbox(dir, 64, 128);
+        outbox.register("crm");
+        for (int i = 0; i < 40; i++) {
+            outbox.append(String.format("event-%02d-%s", i, "x".repeat(20)).getBytes(StandardCharsets.UTF_8));
+        }
+
+        // 消费者从未确认：磁盘占用仍不超过上限加一个段
+        long total;
+        try (var files = Files.list(dir)) {
+            total = files.filter(p -> p.getFileName().toString().startsWith("segment-"))
+                    .mapToLong(p -> p.toFile().length()).sum();
+        }
+        assertTrue(total <= 128 + 64, "backlog " + total);
+        List<String> events = strings(outbox.read("crm", 100));
+        assertFalse(events.isEmpty());
+        assertFalse(events.get(0).startsWith("event-00"));
+        assertTrue(events.get(events.size() - 1).startsWith("event-39"));
+        outbox.close();
+    }
+
+    @Test
+    void readersSeeOnlyCompleteRecordsWhileAppending() throws Exception {
+        EventOutbox outbox = new EventOutbox(dir, 4096);
+        outbox.register("crm");
+        int count = 5_000;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    outbox.append(("event-" + i).getBytes(StandardCharsets.UTF_8));
+                }
+            });
+            Future<List<String>> reader = pool.submit(() -> {
+                List<String> seen = new ArrayList<>();
+                while (seen.size() < count) {
+                    EventOutbox.Batch batch = outbox.read("crm", 100);
+                    seen.addAll(strings(batch));
+                    outbox.ack("crm", batch.next());
+                    outbox.compact();
+                }
+                return seen;
+            });
+            writer.get();
+            List<String> seen = reader.get();
+            for (int i = 0; i < count; i++) {
+                assertEquals("event-" + i, seen.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        outbox.close();
+    }
+
+    private static byte[] event(int i) {
+        return String.format("event-%d-%s", i, "x".repeat(40)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(EventOutbox.Batch batch) {
+        return batch.events().stream().map(e -> new String(e, StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.ghostlink.store;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStateStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void expiredEntriesAreInvisible() throws Exception {
+        FileStateStore store = new FileStateStore(dir);
+        store.put("jobs", "a", "1", Duration.ofMillis(20));
+        assertEquals(Optional.of("1"), store.get("jobs", "a"));
+        Thread.sleep(40);
+        assertTrue(store.get("jobs", "a").isEmpty());
+        assertTrue(store.putIfAbsent("jobs", "a", "2", null).isEmpty());
+        assertEquals(Optional.of("2"), store.get("jobs", "a"));
+    }
+
+    @Test
+    void corruptEntriesAreTreatedAsMissingAndDeleted() throws Exception {
+        FileStateStore store = new FileStateStore(dir);
+        store.put("jobs", "a", "1", null);
+        Path entry;
+        try (var files = Files.list(dir.resolve("jobs"))) {
+            entry = files.filter(p -> !p.getFileName().toString().startsWith(".")).findFirst().orElseThrow();
+        }
+
+        // 截断到没有时间戳行
+        Files.writeString(entry, "12345");
+        assertTrue(store.get("jobs", "a").isEmpty());
+        assertFalse(Files.exists(entry));
+
+        Files.writeString(entry, "not-a-timestamp\nvalue");
+        assertTrue(store.putIfAbsent("jobs", "a", "2", null).isEmpty());
+        assertEquals(Optional.of("2"), store.get("jobs", "a"));
+        assertEquals(List.of("2"), store.values("jobs"));
+    }
+
+    @Test
+    void sweepEvictsSoonestExpiringEntriesAboveTheCap() throws Exception {
+        FileStateStore store = new FileStateStore(dir, 100);
+        store.put("jobs", "pinned", "keep", null);
+        // 第 1024 次写入前触发清理
+        for (int i = 0; i < 1023; i++) {
+            store.put("jobs", "k" + i, String.valueOf(i), Duration.ofMinutes(1 + i));
+        }
+
+        List<String> values = store.values("jobs");
+        assertTrue(values.size() <= 100, "entries " + values.size());
+        assertTrue(values.contains("keep"));
+        assertTrue(values.contains("1022"));
+        assertFalse(values.contains("0"));
+    }
+
+    /**
+     * 已完成的任务被多个副本同时重新认领：比较并替换只有一个成功
+     */
+    @ParameterizedTest(name = "{0} replicas")
+    @ValueSource(ints = {1, 4})
+    void replaceClaimsAnEntryOnlyOnce(int replicas) throws Exception {
+        List<StateStore> stores = new ArrayList<>();
+        for (int i = 0; i < replicas; i++) {
+            stores.add(new FileStateStore(dir));
+        }
+        stores.add(new InMemoryStateStore());
+        int rounds = 50;
+        int contenders = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(contenders);
+        try {
+            for (StateStore shared : List.of(stores.get(0), stores.get(stores.size() - 1))) {
+                // 内存实现只在单个实例内共享
+                List<StateStore> views = shared instanceof InMemoryStateStore ? List.of(shared) : stores.subList(0, replicas);
+                for (int round = 0; round < rounds; round++) {
+                    String done = "done-" + round;
+                    shared.put("jobs", "job", done, null);
+                    AtomicInteger claimed = new AtomicInteger();
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (int c = 0; c < contenders; c++) {
+                        StateStore store = views.get(c % views.size());
+                        String running = "running-" + round + "-" + c;
+                        futures.add(pool.submit(() -> {
+                            if (store.replace("jobs", "job", done, running, Duration.ofMinutes(1))) {
+                                claimed.incrementAndGet();
+                            }
+                        }));
+                    }
+                    for (Future<?> f : futures) {
+                        f.get();
+                    }
+                    assertEquals(1, claimed.get(), "round " + round);
+                    assertTrue(shared.get("jobs", "job").orElseThrow().startsWith("running-" + round + "-"));
+                }
+                assertFalse(shared.replace("jobs", "missing", "x", "y", null));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 模拟 N 个副本共享同一目录：每个 key 只能有一个副本去重成功，且所有副本读到同一个值
+     */
+    @ParameterizedTest(name = "{0} replicas")
+    @ValueSource(ints = {1, 2, 4})
+    void dedupeIsConsistentAcrossReplicas(int replicas) throws Exception {
+        contend(replicas, 200);
+    }
+
+    @Tag("benchmark")
+    @ParameterizedTest(name = "{0} replicas")
+    @ValueSource(ints = {1, 2, 4})
+    void dedupeThroughputAcrossReplicas(int replicas, TestReporter reporter) throws Exception {
+        int keys = 2_000;
+        long start = System.nanoTime();
+        contend(replicas, keys);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        reporter.publishEntry("replicas=" + replicas, "ops=" + keys * replicas + " elapsed=" + elapsedMs + "ms");
+    }
+
+    private void contend(int replicas, int keys) throws Exception {
+        List<StateStore> stores = new ArrayList<>();
+        for (int i = 0; i < replicas; i++) {
+            stores.add(new FileStateStore(dir));
+        }
+
+        AtomicInteger winners = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(replicas * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int r = 0; r < replicas; r++) {
+                StateStore store = stores.get(r);
+                String replica = "replica-" + r;
+                futures.add(pool.submit(() -> {
+                    for (int k = 0; k < keys; k++) {
+                        if (store.putIfAbsent("dedupe", "req-" + k, replica, Duration.ofMinutes(1)).isEmpty()) {
+                            winners.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(keys, winners.get());
+        for (int k = 0; k < keys; k++) {
+            String expected = stores.get(0).get("dedupe", "req-" + k).orElseThrow();
+            for (StateStore store : stores) {
+                assertEquals(expected, store.get("dedupe", "req-" + k).orElseThrow());
+            }
+        }
+    }
+}
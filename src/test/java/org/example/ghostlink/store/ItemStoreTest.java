@@ -0,0 +1,124 @@
+package org.example.ghostlink.store;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cursorPaginationWalksAllItemsInIdOrder() {
+        ItemStore store = new ItemStore(null);
+        for (int i = 0; i < 25; i++) {
+            store.create(Map.of("name", "item-" + i));
+        }
+        store.delete(10);
+
+        List<Object> ids = new ArrayList<>();
+        Integer cursor = null;
+        while (true) {
+            List<Map<String, Object>> page = store.page(cursor, 7);
+            page.forEach(item -> ids.add(item.get("id")));
+            if (page.size() < 7) {
+                break;
+            }
+            cursor = (Integer) page.get(page.size() - 1).get("id");
+        }
+        assertEquals(24, ids.size());
+        assertFalse(ids.contains(10));
+        assertEquals(1, ids.get(0));
+        assertEquals(25, ids.get(23));
+    }
+
+    @Test
+    void appendLogSurvivesRestart() throws Exception {
+        Path log = dir.resolve("items.log");
+        try (ItemStore store = new ItemStore(log)) {
+            store.create(Map.of("name", "a"));
+            store.create(Map.of("name", "b"));
+            store.update(1, Map.of("name", "a2"));
+            store.delete(2);
+        }
+        try (ItemStore reopened = new ItemStore(log)) {
+            assertEquals("a2", reopened.get(1).orElseThrow().get("name"));
+            assertTrue(reopened.get(2).isEmpty());
+            assertEquals(3, reopened.create(Map.of("name", "c")).get("id"));
+        }
+    }
+
+    /**
+     * 混合读写：80% 读 / 15% 创建 / 5% 更新，确认 id 不重复且全部可见
+     */
+    @Test
+    void mixedReadWriteContention() throws Exception {
+        contend(new ItemStore(null), 4, 2_000);
+    }
+
+    @Tag("benchmark")
+    @Test
+    void mixedReadWriteThroughput(TestReporter reporter) throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int opsPerThread = 50_000;
+        long elapsedNs = contend(new ItemStore(null), threads, opsPerThread);
+        reporter.publishEntry("ItemStore contention", String.format("threads=%d ops=%d elapsed=%dms (%.0f ops/s)",
+                threads, threads * opsPerThread, elapsedNs / 1_000_000, threads * opsPerThread / (elapsedNs / 1e9)));
+    }
+
+    private static long contend(ItemStore store, int threads, int opsPerThread) throws Exception {
+        Set<Object> createdIds = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                int created = 0;
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < opsPerThread; i++) {
+                    int roll = rnd.nextInt(100);
+                    if (roll < 80) {
+                        store.get(rnd.nextInt(1, createdIds.size() + 2));
+                    } else if (roll < 95) {
+                        assertTrue(createdIds.add(store.create(Map.of("name", "x")).get("id")));
+                        created++;
+                    } else {
+                        store.update(rnd.nextInt(1, createdIds.size() + 2), Map.of("name", "y"));
+                    }
+                }
+                return created;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> f : futures) {
+            total += f.get();
+        }
+        long elapsedNs = System.nanoTime() - begin;
+        pool.shutdown();
+
+        assertEquals(total, createdIds.size());
+        assertEquals(total, store.page(null, Integer.MAX_VALUE).size());
+        return elapsedNs;
+    }
+}
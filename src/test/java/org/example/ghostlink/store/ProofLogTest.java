@@ -0,0 +1,110 @@
+package org.example.ghostlink.store;
+
+import org.example.ghostlink.model.ProofRecord;
+import org.example.ghostlink.service.ProofIds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProofLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static ProofRecord record(int i, String recipient) {
+        return new ProofRecord(ProofIds.next("github"), "github", recipient,
+                "0xnull" + i, "0ximage", "0xjournal", "0xreceipt", i);
+    }
+
+    @Test
+    void historySurvivesRestartAcrossSegments() throws Exception {
+        try (ProofLog log = new ProofLog(dir, 4096)) {
+            for (int i = 0; i < 500; i++) {
+                log.append(record(i, i % 5 == 0 ? "0xAAA" : "0xbbb" + (i % 7)));
+            }
+        }
+        try (ProofLog log = new ProofLog(dir, 4096)) {
+            assertEquals(500, log.count());
+
+            List<Long> timestamps = new ArrayList<>();
+            Long cursor = null;
+            do {
+                ProofLog.Page page = log.byRecipient("0xaaa", cursor, 30);
+                page.records().forEach(r -> timestamps.add(r.timestamp()));
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            assertEquals(100, timestamps.size());
+            assertEquals(495L, timestamps.get(0));
+            assertEquals(0L, timestamps.get(99));
+
+            assertEquals(123L, log.byNullifier("0xNULL123").orElseThrow().timestamp());
+            assertTrue(log.byNullifier("0xmissing").isEmpty());
+        }
+    }
+
+    @Test
+    void tornTailIsTruncatedAndUnindexedRecordsAreRecovered() throws Exception {
+        try (ProofLog log = new ProofLog(dir, 1 << 20)) {
+            log.append(record(1, "0xabc"));
+            log.append(record(2, "0xabc"));
+        }
+        // 模拟崩溃：尾部写了一半
+        try (FileChannel ch = FileChannel.open(dir.resolve("segment-00000001.log"), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(java.nio.ByteBuffer.wrap(new byte[]{0, 0, 1, 0, 9, 9}));
+        }
+        try (ProofLog log = new ProofLog(dir, 1 << 20)) {
+            log.append(record(3, "0xabc"));
+            List<ProofRecord> records = log.byRecipient("0xabc", null, 10).records();
+            assertEquals(List.of(3L, 2L, 1L), records.stream().map(ProofRecord::timestamp).toList());
+        }
+    }
+
+    @Test
+    void forgedCursorsAreRejectedWithoutReadingGarbage() throws Exception {
+        long pointer;
+        try (ProofLog log = new ProofLog(dir, 1 << 20)) {
+            log.append(record(1, "0xabc"));
+            pointer = log.append(record(2, "0xabc"));
+            log.append(record(3, "0xdef"));
+
+            assertEquals(List.of(2L, 1L), log.byRecipient("0xabc", pointer, 10).records().stream()
+                    .map(ProofRecord::timestamp).toList());
+            // 不存在的段、越界、记录中间、别的地址的记录
+            for (long cursor : new long[]{9L << 40, 1L << 40 | 1 << 30, pointer + 3, -5L}) {
+                assertThrows(ProofLog.InvalidCursorException.class, () -> log.byRecipient("0xabc", cursor, 10));
+            }
+            assertThrows(ProofLog.InvalidCursorException.class, () -> log.byRecipient("0xdef", pointer, 10));
+        }
+
+        // 记录头部的长度字段被改成巨大的值：读取时不分配
+        try (FileChannel ch = FileChannel.open(dir.resolve("segment-00000001.log"), StandardOpenOption.WRITE)) {
+            ch.write(java.nio.ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), pointer & ((1L << 40) - 1));
+        }
+        try (ProofLog log = new ProofLog(dir, 1 << 20)) {
+            // 恢复时从已索引位置之后扫描，这里的记录已索引，读取时才发现损坏
+            assertThrows(ProofLog.InvalidCursorException.class, () -> log.byRecipient("0xabc", pointer, 10));
+            assertEquals(3, log.count());
+        }
+    }
+
+    @Test
+    void proofIdsAreUniqueAndTimeSorted() {
+        Set<String> seen = new HashSet<>();
+        String previous = "";
+        for (int i = 0; i < 100_000; i++) {
+            String id = ProofIds.nextUlid();
+            assertTrue(seen.add(id));
+            assertTrue(id.compareTo(previous) > 0);
+            previous = id;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.ghostlink.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptBlobStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameContentIsStoredOnce() throws Exception {
+        ReceiptBlobStore store = new ReceiptBlobStore(dir);
+        byte[] receipt = new byte[10_000];
+        receipt[0] = 1;
+        String digest = store.put(receipt);
+        assertEquals(digest, store.put(receipt.clone()));
+        assertEquals(64, digest.length());
+
+        ReceiptBlobStore.Blob blob = store.get(digest).orElseThrow();
+        assertArrayEquals(receipt, Files.readAllBytes(blob.path()));
+        assertEquals(10_000, blob.size());
+        assertTrue(store.get("../" + digest.substring(3)).isEmpty());
+        assertTrue(store.get("0".repeat(64)).isEmpty());
+    }
+
+    @Test
+    void evictsExpiredThenOldestOverBudget() throws Exception {
+        ReceiptBlobStore store = new ReceiptBlobStore(dir);
+        long now = System.currentTimeMillis();
+        String expired = store.put(new byte[]{1});
+        String oldest = store.put(new byte[1000]);
+        String newest = store.put(new byte[1001]);
+        touch(store, expired, now - Duration.ofDays(8).toMillis());
+        touch(store, oldest, now - 2_000);
+        touch(store, newest, now - 1_000);
+
+        assertEquals(2, store.evict(1500, Duration.ofDays(7)));
+        assertTrue(store.get(expired).isEmpty());
+        assertTrue(store.get(oldest).isEmpty());
+        assertTrue(store.get(newest).isPresent());
+    }
+
+    /**
+     * 扫描之后被 put 刷新过的 receipt 不会被删除；中途崩溃留下的墓碑过期后清理
+     */
+    @Test
+    void refreshedReceiptsSurviveAConcurrentEviction() throws Exception {
+        ReceiptBlobStore store = new ReceiptBlobStore(dir);
+        long now = System.currentTimeMillis();
+        String digest = store.put(new byte[]{7});
+        Path path = store.get(digest).orElseThrow().path();
+        touch(store, digest, now - 60_000);
+
+        // 淘汰方扫描到旧的修改时间之后，put 刷新了它
+        long scanned = Files.getLastModifiedTime(path).toMillis();
+        assertEquals(digest, store.put(new byte[]{7}));
+        assertFalse(ReceiptBlobStore.evictIfUnchanged(path, scanned, now));
+        assertTrue(store.get(digest).isPresent());
+
+        // 修改时间没变时删除
+        assertTrue(ReceiptBlobStore.evictIfUnchanged(path, Files.getLastModifiedTime(path).toMillis(), now));
+        assertTrue(store.get(digest).isEmpty());
+        // 被淘汰后再次 put 重新写入
+        assertEquals(digest, store.put(new byte[]{7}));
+        assertTrue(store.get(digest).isPresent());
+
+        Path orphan = path.resolveSibling(".evict-" + (now - Duration.ofHours(2).toMillis()) + "-x");
+        Path recent = path.resolveSibling(".evict-" + now + "-y");
+        Files.write(orphan, new byte[]{1});
+        Files.write(recent, new byte[]{1});
+        store.evict(Long.MAX_VALUE, Duration.ofDays(7));
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(recent));
+        try (var files = Files.list(path.getParent())) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    private static void touch(ReceiptBlobStore store, String digest, long millis) throws Exception {
+        Files.setLastModifiedTime(store.get(digest).orElseThrow().path(), FileTime.fromMillis(millis));
+    }
+}
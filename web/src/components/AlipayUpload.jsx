@@ -162,6 +162,9 @@ const AlipayUpload = ({
             const zkProof = {
                 proofId: zkData.proofId || `zk-alipay-${Date.now()}`,
                 receipt: zkData.receipt_hex || zkData.receipt,
+                // 大的 receipt 不内联，mint 时按 receiptDigest / receiptUrl 下载
+                receiptDigest: zkData.receiptDigest || zkData.receipt_digest,
+                receiptUrl: zkData.receiptUrl,
                 journal: zkData.journal_hex || zkData.journal,
                 imageId: zkData.image_id_hex || zkData.imageId,
                 nullifier: zkData.nullifier_hex || zkData.nullifier,
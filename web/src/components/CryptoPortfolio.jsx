@@ -106,7 +106,7 @@ const CryptoPortfolio = ({
             }
 
             // Call ZK proof API
-            const zkResponse = await fetch(ENDPOINTS.PROOF.RECEIPT_DATA, {
+            const zkResponse = await fetch(ENDPOINTS.PROOF.WALLET, {
                 method: 'POST',
                 headers: { 'Content-Type': 'application/json' },
                 body: JSON.stringify({
@@ -132,6 +132,9 @@ const CryptoPortfolio = ({
             const zkProof = {
                 proofId: zkData.proofId || `zk - wallet - ${Date.now()} `,
                 receipt: zkData.receipt_hex || zkData.receipt,
+                // 大的 receipt 不内联，mint 时按 receiptDigest / receiptUrl 下载
+                receiptDigest: zkData.receiptDigest,
+                receiptUrl: zkData.receiptUrl,
                 journal: zkData.journal_hex || zkData.journal,
                 imageId: zkData.image_id_hex || zkData.imageId,
                 nullifier: zkData.nullifier_hex || zkData.nullifier,
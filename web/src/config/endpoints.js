@@ -32,5 +32,6 @@ export const ENDPOINTS = {
     },
     PROOF: {
         RECEIPT_DATA: `${API_BASE_URL}/api/v1/receipt-data`,
+        WALLET: `${API_BASE_URL}/api/v1/wallet/proof`,
     }
 };
@@ -2,6 +2,31 @@ import { useState } from 'react';
 import { ethers } from 'ethers';
 import { CONTRACT_ADDRESS, CONTRACT_ABI } from '../config/constants';
 import { t } from '../i18n/strings';
+import { API_BASE_URL } from '../config/endpoints';
+
+// 较大的 receipt 不内联在响应里（receipt 为空），按 receiptUrl / receiptDigest 下载原始字节并校验 sha256
+const loadSeal = async (zkProof) => {
+    if (zkProof.receipt) {
+        return typeof zkProof.receipt === 'string' ? zkProof.receipt : String(zkProof.receipt);
+    }
+    const digest = zkProof.receiptDigest ? String(zkProof.receiptDigest).toLowerCase().replace(/^0x/, '') : null;
+    const path = zkProof.receiptUrl || (digest ? `/api/v1/receipts/${digest}` : null);
+    if (!path) {
+        throw new Error('Missing receipt in zkProof');
+    }
+    const response = await fetch(/^https?:\/\//.test(path) ? path : `${API_BASE_URL}${path}`);
+    if (!response.ok) {
+        throw new Error(`Failed to download receipt (HTTP ${response.status})`);
+    }
+    const bytes = new Uint8Array(await response.arrayBuffer());
+    if (digest && window.crypto?.subtle) {
+        const actual = ethers.utils.hexlify(new Uint8Array(await window.crypto.subtle.digest('SHA-256', bytes)));
+        if (actual.substring(2) !== digest) {
+            throw new Error('Receipt digest mismatch');
+        }
+    }
+    return ethers.utils.hexlify(bytes);
+};
 
 export const useContract = (signer, account) => {
     const [isMinting, setIsMinting] = useState(false);
@@ -67,17 +92,12 @@ export const useContract = (signer, account) => {
             const contract = new ethers.Contract(CONTRACT_ADDRESS, CONTRACT_ABI, signer);
 
             // Prepare seal
-            let seal;
-            if (zkProof.receipt) {
-                seal = typeof zkProof.receipt === 'string' ? zkProof.receipt : String(zkProof.receipt);
-                if (!seal.startsWith('0x')) {
-                    seal = '0x' + seal;
-                }
-                if (!seal || seal.length < 10) {
-                    throw new Error('Invalid seal format');
-                }
-            } else {
-                throw new Error('Missing receipt in zkProof');
+            let seal = await loadSeal(zkProof);
+            if (!seal.startsWith('0x')) {
+                seal = '0x' + seal;
+            }
+            if (seal.length < 10) {
+                throw new Error('Invalid seal format');
             }
 
             // Prepare nullifier